@@ -1,12 +1,22 @@
 package Actors;
 
 
+import Project.EligibilityIndex;
+import Project.EligibilityPolicy;
+import Project.FlatType;
 import Project.Project;
+import Project.ProjectCatalogue;
+import Project.ProjectSearchIndex;
+import data.ChangeEvents;
+import data.ChangeRecord;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Represents an applicant user who can apply for BTO projects, view and manage their application status,
@@ -15,11 +25,14 @@ import java.util.Map;
 public class Applicant extends User implements ApplicantRole {
 	
     private Project project;
-    private String typeFlat;
+    private FlatType typeFlat;
     private String appStatus;
     private boolean applied = false;
     private boolean withdrawStatus = false;
     private String preferredNeighbourhood;
+    private String unitNumber; // Booked unit, e.g. "2-05-03"; null until a flat is booked
+    private volatile EligibilityPolicy rulePolicy; // Policy cachedRule was looked up in
+    private int cachedRule; // Written before rulePolicy, so a reader that sees rulePolicy sees it
 
     /**
      * Protected constructor for subclasses (like Officer) to pass the correct role up.
@@ -34,6 +47,27 @@ public class Applicant extends User implements ApplicantRole {
         this.withdrawStatus = false;
         this.preferredNeighbourhood = null;
     }
+    /**
+     * Protected constructor for subclasses restoring stored credentials (no hashing).
+     */
+    protected Applicant(String name, String nric, int age, String maritalStatus, String role, String passwordHash, String salt) {
+        super(name, nric, age, maritalStatus, role, passwordHash, salt);
+    }
+
+    /**
+     * Restores an Applicant from storage using its stored password hash and salt.
+     * @param name Name of the applicant
+     * @param nric NRIC of the applicant
+     * @param age Age of the applicant
+     * @param maritalStatus Marital status
+     * @param passwordHash Stored password hash
+     * @param salt Stored salt
+     * @return The restored applicant
+     */
+    public static Applicant restore(String name, String nric, int age, String maritalStatus, String passwordHash, String salt) {
+        return new Applicant(name, nric, age, maritalStatus, "Applicant", passwordHash, salt);
+    }
+
     /**
      * Public constructor specifically for creating Applicant instances.
      * Calls the protected constructor with the role "Applicant".
@@ -49,8 +83,14 @@ public class Applicant extends User implements ApplicantRole {
     }
     
     /** Returns the flat type chosen by the applicant. 
-     * @return The selected flat type (2-Room or 3-Room) */
+     * @return The name of the selected flat type (e.g. 2-Room), or null if none */
     public String getTypeFlat() {
+    	return (typeFlat != null) ? typeFlat.getName() : null;
+    }
+
+    /** Returns the flat type chosen by the applicant. 
+     * @return The selected flat type, or null if none */
+    public FlatType getFlatType() {
     	return typeFlat;
     }
     
@@ -74,6 +114,13 @@ public class Applicant extends User implements ApplicantRole {
     	return appStatus;
     }
 
+    /**
+     * Returns the unit the applicant booked.
+     * @return Unit label such as "2-05-03" (block 2, #05-03), or null if no unit is booked */
+    public String getUnitNumber() {
+        return unitNumber;
+    }
+
     /** 
      * Returns whether a withdrawal has been requested.
      * @return true if a withdrawal has been requested */
@@ -95,6 +142,14 @@ public class Applicant extends User implements ApplicantRole {
         return appStatus;
     }
     
+    /**
+     * Records the unit the applicant booked. Set by Project when a booking is made or loaded.
+     * @param unitNumber Unit label, or null to clear it
+     */
+    public void setUnitNumber(String unitNumber) {
+        this.unitNumber = unitNumber;
+    }
+
     /**
      * Updates the internal flag that tracks application state.
      * @param applied true if the applicant has applied
@@ -130,13 +185,52 @@ public class Applicant extends User implements ApplicantRole {
 
      /**
      * Sets the flat type that the applicant is applying for.
-     * @param typeFlat Must be either "2-Room" or "3-Room"
+     * @param typeFlat Name of a registered flat type (see FlatType)
      */
     public void setTypeFlat(String typeFlat) {
-        if (!typeFlat.equals("2-Room") && !typeFlat.equals("3-Room")) 
-            throw new IllegalArgumentException("Flat type must be either '2-Room' or '3-Room'");
+        FlatType type = FlatType.lookup(typeFlat);
+        if (type == null) 
+            throw new IllegalArgumentException("Unknown flat type '" + typeFlat + "'");
         
-        this.typeFlat = typeFlat;
+        this.typeFlat = type;
+    }
+
+    /**
+     * Checks whether this applicant's age and marital status allow applying for a flat type,
+     * under the default EligibilityPolicy (by default, singles (35+) may only take 2-Room flats
+     * and married applicants (21+) any type).
+     * @param type Flat type
+     * @return true if eligible
+     */
+    public boolean canApplyFor(FlatType type) {
+        EligibilityPolicy policy = EligibilityPolicy.getDefault();
+        return policy.admits(getEligibilityRule(policy), type);
+    }
+
+    /**
+     * Gets the rule of an eligibility policy that applies to this applicant.
+     * The lookup is cached until a different policy is asked about.
+     * @param policy The policy
+     * @return Rule index, or -1 if the applicant may not apply at all
+     */
+    public int getEligibilityRule(EligibilityPolicy policy) {
+        if (this.rulePolicy != policy) {
+            this.cachedRule = policy.ruleFor(policy.encode(this.getMaritalStatus(), this.getAge()));
+            this.rulePolicy = policy;
+        }
+        return this.cachedRule;
+    }
+
+    /**
+     * Checks whether a project has an available flat of any type this applicant is eligible for.
+     * @param project Project to check
+     * @return true if the applicant could apply to the project now
+     */
+    public boolean hasEligibleFlat(Project project) {
+        for (FlatType type : project.getFlatTypes()) {
+            if (project.getAvailableUnits(type) > 0 && canApplyFor(type)) return true;
+        }
+        return false;
     }
     
    
@@ -150,8 +244,9 @@ public class Applicant extends User implements ApplicantRole {
         if (appStatus == null) {
             this.appStatus = null;
             setApplied(false); 
-            setProject(null); 
+            this.project = null; // setProject ignores null
             this.typeFlat = null;
+            this.unitNumber = null;
             setWithdrawalStatus(false);
             return;
         }
@@ -170,6 +265,7 @@ public class Applicant extends User implements ApplicantRole {
             this.setApplied(false);         // Allow applying again
             this.setProject(null);          // Disassociate from the withdrawn project object
             this.typeFlat = null;                   // Clear flat type
+            this.unitNumber = null;                 // The unit went back when the withdrawal was requested
             this.setWithdrawalStatus(false); // Withdrawal process is complete
         }
     }
@@ -179,59 +275,33 @@ public class Applicant extends User implements ApplicantRole {
      * project visibility settings and basic applicant eligibility (age, marital status),
      * regardless of whether the applicant has already applied for a project.
      * This is primarily intended for contexts like selecting a project to enquire about.
+     * Read from the catalogue's EligibilityIndex, so the cost is the size of the answer.
      *
-     * @param allProjectsMap Map of all projects in the system.
+     * @param catalogue Catalogue of all projects in the system.
      * @return A List of Project objects the applicant can view.
      */
-    public List<Project> getProjectsVisibleForEnquiry(Map<String, Project> allProjectsMap) {
-        List<Project> visibleProjects = new ArrayList<>();
-        if (allProjectsMap == null) return visibleProjects;
-
-        for (Project proj : allProjectsMap.values()) {
-            if (proj == null || !proj.getVisibility()) continue; 
-
-            boolean canPotentiallyApply = false;
-            if (this.getMaritalStatus().equals("Single") && this.getAge() >= 35) {
-                canPotentiallyApply = true;
-            } else if (this.getMaritalStatus().equals("Married") && this.getAge() >= 21) {
-                canPotentiallyApply = true; 
-            }
-
-            if (canPotentiallyApply) { 
-                visibleProjects.add(proj);
-            }
-        }
-        return visibleProjects;
+    public List<Project> getProjectsVisibleForEnquiry(ProjectCatalogue catalogue) {
+        if (catalogue == null) return new ArrayList<>();
+        EligibilityIndex index = catalogue.getEligibility();
+        if (getEligibilityRule(index.getPolicy()) < 0) return new ArrayList<>();
+        return index.getVisible();
     }
 
     /**
-     * Returns a list of projects this applicant is eligible to apply for.
-     * @param allProjectsMap All projects in system
+     * Returns a list of projects this applicant is eligible to apply for: visible projects
+     * with units available of a flat type the applicant may take.
+     * Read from the catalogue's EligibilityIndex, so the cost is the size of the answer.
+     * @param catalogue Catalogue of all projects in system
      * @return List of eligible and available projects
      */
-    public List<Project> viewAvailProjects(Map<String, Project> allProjectsMap) {
-        List<Project> availableProjects = new ArrayList<>();   
-
+    public List<Project> viewAvailProjects(ProjectCatalogue catalogue) {
         if (this.applied) {
             System.out.println("You have already applied for a project. No other projects available.");
-            return availableProjects;
+            return new ArrayList<>();
         }
-
-        for (Project proj : allProjectsMap.values()) {
-            if (!proj.getVisibility()) continue;     
-
-            if (this.getMaritalStatus().equals("Single") && this.getAge() >= 35) {
-                if (proj.getAvalNo2Room() > 0) {
-                    availableProjects.add(proj);
-                }
-            } else if (this.getMaritalStatus().equals("Married") && this.getAge() >= 21) {
-                if (proj.getAvalNo2Room() > 0 || proj.getAvalNo3Room() > 0) {
-                    availableProjects.add(proj);
-                }
-            }
-        }
-
-        return availableProjects;
+        if (catalogue == null) return new ArrayList<>();
+        EligibilityIndex index = catalogue.getEligibility();
+        return index.getAvailableFor(getEligibilityRule(index.getPolicy()));
     }
 
     /**
@@ -252,51 +322,33 @@ public class Applicant extends User implements ApplicantRole {
         }
         
         
-        Project selectedProject = null;     //find project by name from the list
-        
-        for (Project proj : availableProjects) {
-            if (proj.getName().equalsIgnoreCase(Projectname)) {
-                selectedProject = proj;
-                break;
-            }
-        }
+        Project selectedProject = findNamedProject(availableProjects, Projectname, "Project not found in the available list.");     //find project by name from the list
         
         if (selectedProject == null) {
-            System.out.println("Project not found in the available list.");
             return;
         }
         
         
         // Check if project has the chosen flat type
         
-        if (chosenFlatType.equals("2-Room") && selectedProject.getAvalNo2Room() == 0) {
-            System.out.println("This project does not offer any 2-Room flats.");
-            return;
-        }
-
-        if (chosenFlatType.equals("3-Room") && selectedProject.getAvalNo3Room() == 0) {
-            System.out.println("This project does not offer any 3-Room flats.");
+        FlatType chosenType = FlatType.lookup(chosenFlatType);
+        if (chosenType == null || selectedProject.getAvailableUnits(chosenType) == 0) {
+            System.out.println("This project does not offer any " + chosenFlatType + " flats.");
             return;
         }
         
         // Check eligibility 
         
-        if (this.getMaritalStatus().equals("Single") && this.getAge() >= 35) {
-            if (!chosenFlatType.equals("2-Room")) {
-                System.out.println("Singles (35+) can only apply for 2-Room flats.");
-                return;
-            }
-        } 
-        else if (this.getMaritalStatus().equals("Married") && this.getAge()>= 21) {
-            if (!chosenFlatType.equals("2-Room") && !chosenFlatType.equals("3-Room")) {
-                System.out.println("Married applicants can apply for 2-Room or 3-Room flats.");
-                return;
-            }
-        } 
-        else {
+        EligibilityPolicy policy = EligibilityPolicy.getDefault();
+        int rule = getEligibilityRule(policy);
+        if (rule < 0) {
             System.out.println(this.getName() + " is not eligible to apply for a project.");
             return;
         }
+        if (!policy.admits(rule, chosenType)) {
+            System.out.println(policy.getRule(rule).describeLimit());
+            return;
+        }
 
         // update
         
@@ -306,6 +358,7 @@ public class Applicant extends User implements ApplicantRole {
         setApplied(true);             // Mark the applicant as having applied
 
         selectedProject.updateArrOfApplicants(this); 
+        ChangeEvents.publish(ChangeRecord.application(this));
         
         System.out.println("You have successfully applied for the " + selectedProject.getName() + " project (" + this.typeFlat + " flat).");
     }
@@ -372,8 +425,13 @@ public class Applicant extends User implements ApplicantRole {
         }
 
         // Update project's withdrawal request list
+        boolean wasBooked = "Booked".equals(this.appStatus);
         if (project.updateWithdrawRequests(this)) {
             this.setWithdrawalStatus(true); 
+            ChangeEvents.publish(ChangeRecord.application(this));
+            if (wasBooked) {
+                ChangeEvents.publish(ChangeRecord.flats(project, this.typeFlat)); // Booked unit returned to the pool
+            }
             System.out.println("Withdrawal requested for project '" + project.getName() + "'. Awaiting manager's approval.");
         } else {
             // This might happen if updateWithdrawRequests fails (e.g., applicant not found in source lists)
@@ -381,4 +439,47 @@ public class Applicant extends User implements ApplicantRole {
         }
             }
 
+    /**
+     * Finds the project a user named in a list of projects, e.g. the ones they may apply to.
+     * Only the exact name (ignoring case and spacing) is accepted, since nobody is asked to
+     * confirm a closer guess here; otherwise the closest names in the list are suggested.
+     * The search index of the catalogue listing the projects (see Project.getCatalogue) is
+     * used, limited to the list; an index is only built over the list when its projects are
+     * not all from one catalogue.
+     * @param projects Projects to choose from
+     * @param query Name the user typed
+     * @param message Message printed when no project has that name
+     * @return The project, or null if none in the list has that name
+     */
+    protected static Project findNamedProject(List<Project> projects, String query, String message) {
+        Set<Project> listed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Project project : projects) {
+            if (project != null) listed.add(project);
+        }
+        ProjectCatalogue catalogue = null;
+        boolean first = true;
+        for (Project project : listed) {
+            if (first) catalogue = project.getCatalogue();
+            else if (project.getCatalogue() != catalogue) catalogue = null;
+            first = false;
+        }
+        ProjectSearchIndex search = (catalogue != null) ? catalogue.getSearch() : ProjectSearchIndex.of(listed);
+        Project found = search.resolve(query, listed::contains);
+        if (ProjectSearchIndex.isExactName(found, query)) return found;
+        System.out.println(projectNotFound(message, query, search, listed::contains));
+        return null;
+    }
+
+    /**
+     * Appends the closest project names to a "not found" message.
+     * @param message The message, e.g. "Project 'x' not found."
+     * @param query Name the user typed
+     * @param search Index of the projects the user could have meant
+     * @param filter Projects that may be suggested, or null for all
+     * @return The message, with "Did you mean: ...?" if anything is close
+     */
+    protected static String projectNotFound(String message, String query, ProjectSearchIndex search, Predicate<? super Project> filter) {
+        List<String> suggestions = search.suggest(query, 3, filter);
+        return suggestions.isEmpty() ? message : message + " Did you mean: " + String.join(", ", suggestions) + "?";
+    }
 }
@@ -2,9 +2,9 @@
 package Actors;
 
 import Project.Project;
+import Project.ProjectCatalogue;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * Interface defining behaviors expected from any applicant.
@@ -14,10 +14,10 @@ public interface ApplicantRole {
 
     /**
      * Gets list of available projects that the applicant can apply for.
-     * @param allProjectsMap Map of all projects.
+     * @param catalogue Catalogue of all projects.
      * @return List of eligible projects.
      */
-    List<Project> viewAvailProjects(Map<String, Project> allProjectsMap);
+    List<Project> viewAvailProjects(ProjectCatalogue catalogue);
 
     /**
      * To apply to a given project using project name and flat type.
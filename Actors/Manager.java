@@ -1,10 +1,16 @@
 package Actors;
 
+import Project.FlatType;
+import Project.IntervalIndex;
 import Project.Project; 
+import Project.ProjectCatalogue;
+import Services.AllocationReport;
+import Services.BallotService;
+import data.ChangeEvents;
+import data.ChangeRecord;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map; 
 import java.util.Objects;
 
 /**
@@ -17,6 +23,9 @@ import java.util.Objects;
  */
 public class Manager extends User { 
 
+    // Application periods of the projects this manager created, for clash checks
+    private final IntervalIndex<Project> managedWindows = new IntervalIndex<>();
+
     /**
      * Constructor for Manager. Initializes inherited User fields.
      * Role is automatically set to "Manager".
@@ -34,6 +43,25 @@ public class Manager extends User {
         // No longer initializes: this.managedProjects
     }
 
+    private Manager(String name, String nric, int age, String maritalStatus, String passwordHash, String salt) {
+        super(name, nric, age, maritalStatus, "Manager", passwordHash, salt);
+    }
+
+    /**
+     * Restores a Manager from storage using its stored password hash and salt.
+     *
+     * @param name          Manager's name.
+     * @param nric          Manager's NRIC.
+     * @param age           Manager's age.
+     * @param maritalStatus Manager's marital status.
+     * @param passwordHash  Stored password hash.
+     * @param salt          Stored salt.
+     * @return The restored manager.
+     */
+    public static Manager restore(String name, String nric, int age, String maritalStatus, String passwordHash, String salt) {
+        return new Manager(name, nric, age, maritalStatus, passwordHash, salt);
+    }
+
     // --- Getters ---
     // Inherits getName(), getNric(), getAge(), getMaritalStatus(), getPassword(), getRole() from User.
 
@@ -50,13 +78,12 @@ public class Manager extends User {
      * @param appClosingDate   Project's application closing date.
      * @param num2Rooms        Number of 2-room flats.
      * @param num3Rooms        Number of 3-room flats.
-     * @param projectsToCheck  Projects Manager holding
      * @return The created Project object, or null if creation failed (e.g., invalid parameters, though clash check is external).
      */
     public Project createProject(String name, Boolean visibility, String neighbourhood,
-                                 LocalDate appOpeningDate, LocalDate appClosingDate, int num2Rooms, int num3Rooms, List<Project> projectsToCheck) {
-        // Perform clash check internally using the provided list
-        if (isAnyProjectClashing(projectsToCheck, appOpeningDate, appClosingDate, null)) { // Pass null for skipProjectName
+                                 LocalDate appOpeningDate, LocalDate appClosingDate, int num2Rooms, int num3Rooms) {
+        // Perform clash check internally against the indexed projects (see indexManagedProjects)
+        if (isAnyProjectClashing(appOpeningDate, appClosingDate, null)) { // Pass null for skipProjectName
             System.err.println("Error: Application period clashes with an existing project managed by " + this.getName() + ".");
             return null;
         }
@@ -65,6 +92,8 @@ public class Manager extends User {
         try {
             Project newProject = new Project(name, visibility, this.getName(), neighbourhood,
                                             appOpeningDate, appClosingDate, num2Rooms, num3Rooms);
+            newProject.addToWindowIndex(this.managedWindows);
+            ChangeEvents.publish(ChangeRecord.structure("project created " + name, ChangeRecord.Table.PROJECTS, ChangeRecord.Table.FLATS));
             return newProject;
         } catch (Exception e) {
             System.err.println("Error during project object creation: " + e.getMessage());
@@ -85,12 +114,11 @@ public class Manager extends User {
      * @param appOpeningDate   New application opening date (or null to keep existing).
      * @param appClosingDate   New application closing date (or null to keep existing).
      * @param num2Rooms        New number of 2-room flats (or null to keep existing). Use Integer wrapper type.
-     * @param num3Rooms        New number of 3-room flats (or null to keep existing). Use Integer wrapper type.\
-     * @param projectsToCheck  Projects Manager holding
+     * @param num3Rooms        New number of 3-room flats (or null to keep existing). Use Integer wrapper type.
      * @return true if successful, false otherwise (e.g., project not found, not managed by this manager).
      */
     public boolean editProject(Project projectToEdit, String placeName, String neighbourhood,
-                               LocalDate appOpeningDate, LocalDate appClosingDate, Integer num2Rooms, Integer num3Rooms, List<Project> projectsToCheck) {
+                               LocalDate appOpeningDate, LocalDate appClosingDate, Integer num2Rooms, Integer num3Rooms) {
 
         // Check ownership using creatorName
         if (projectToEdit != null && this.getName().equals(projectToEdit.getCreatorName())) {
@@ -106,23 +134,31 @@ public class Manager extends User {
 
             // Perform internal clash check *only if dates were actually changed*
             if (appOpeningDate != null || appClosingDate != null) {
-                if (isAnyProjectClashing(projectsToCheck, updatedOpening, updatedClosing, projectToEdit.getName())) { // Pass project name to skip
+                if (isAnyProjectClashing(updatedOpening, updatedClosing, projectToEdit.getName())) { // Pass project name to skip
                     System.err.println("Error: New application period clashes with another existing project managed by you. Edit cancelled.");
                     return false; // Edit failed due to clash
                 }
             }
 
+            // Refuse counts that would drop units already booked
+            if (updatedNum2Rooms < projectToEdit.getMinimumTotalUnits(FlatType.TWO_ROOM)
+                    || updatedNum3Rooms < projectToEdit.getMinimumTotalUnits(FlatType.THREE_ROOM)) {
+                System.err.println("Error: Booked units go up to " + projectToEdit.getMinimumTotalUnits(FlatType.TWO_ROOM) + " 2-Room and "
+                        + projectToEdit.getMinimumTotalUnits(FlatType.THREE_ROOM) + " 3-Room; cannot reduce the flat counts below that. Edit cancelled.");
+                return false;
+            }
+
             // Call the setter method in Project 
              try {
                  projectToEdit.setName(this.name, updatedPlaceName);
                  projectToEdit.setNeighbourhood(this.name, updatedNeighbourhood);
                  projectToEdit.setAppOpeningDate(this.name, updatedOpening);
                  projectToEdit.setAppClosingDate(this.name, updatedClosing);
-                 projectToEdit.setNo2Room(this.name, updatedNum2Rooms);
-                 projectToEdit.setAvalNo2Room(updatedNum2Rooms); 
-                 projectToEdit.setNo3Room(this.name, updatedNum3Rooms);
-                 projectToEdit.setAvalNo3Room(updatedNum3Rooms); 
+                 // Units left after the booked ones become available
+                 projectToEdit.resizeUnits(this.name, FlatType.TWO_ROOM, updatedNum2Rooms);
+                 projectToEdit.resizeUnits(this.name, FlatType.THREE_ROOM, updatedNum3Rooms);
 
+                 ChangeEvents.publish(ChangeRecord.structure("project edited " + updatedPlaceName, ChangeRecord.Table.PROJECTS, ChangeRecord.Table.FLATS, ChangeRecord.Table.OFFICERS, ChangeRecord.Table.APPLICATIONS));
                  return true; // Edit successful
              } catch (Exception e) {
                   System.err.println("Error setting project details: " + e.getMessage());
@@ -140,33 +176,41 @@ public class Manager extends User {
     }
 
     /**
-     * Private helper method to check if the given date range clashes with any existing project
-     * within the provided list, optionally skipping a specific project by name.
+     * Indexes the application periods of the projects this manager created, for clash checks.
+     * Called once when the manager logs in; from then on createProject, delProject and the
+     * projects' own date setters keep the index current.
+     * @param managedProjects Projects created by this manager
+     */
+    public void indexManagedProjects(List<Project> managedProjects) {
+        for (Project indexed : this.managedWindows.values()) {
+            indexed.removeFromWindowIndex(this.managedWindows);
+        }
+        for (Project project : managedProjects) {
+            if (project != null) project.addToWindowIndex(this.managedWindows);
+        }
+    }
+
+    /**
+     * Private helper method to check if the given date range clashes with any project
+     * this manager created, optionally skipping a specific project by name.
+     * The check is a lookup in the interval index built by indexManagedProjects.
      *
-     * @param projectsToCheck List of projects to check against (typically those managed by this manager).
      * @param appOpeningDate The opening date to check.
      * @param appClosingDate The closing date to check.
      * @param skipProjectName The name of the project to ignore during the check (can be null, e.g., for new projects).
      * @return true if a clash is found, false otherwise.
      */
-    private boolean isAnyProjectClashing(List<Project> projectsToCheck, LocalDate appOpeningDate, LocalDate appClosingDate, String skipProjectName) {
-        if (appOpeningDate == null || appClosingDate == null || projectsToCheck == null) {
+    private boolean isAnyProjectClashing(LocalDate appOpeningDate, LocalDate appClosingDate, String skipProjectName) {
+        if (appOpeningDate == null || appClosingDate == null) {
             return false;
         }
-        for (Project existingProject : projectsToCheck) {
-            if (existingProject == null) continue;
-
-            // Skip the project if its name matches skipProjectName
-            if (skipProjectName != null && skipProjectName.equals(existingProject.getName())) {
-                continue;
-            }
 
-            if (existingProject.isClashing(appOpeningDate, appClosingDate)) {
-                return true; // Found a clash
-            }
-        }
-        return false;
+        // Skip the project if its name matches skipProjectName
+        Project clash = this.managedWindows.firstOverlapping(appOpeningDate, appClosingDate,
+                existingProject -> skipProjectName == null || !skipProjectName.equals(existingProject.getName()));
+        return clash != null;
     }
+
     /**
      * Deletes a project if it was created by this manager.
      * IMPORTANT: This method only verifies ownership. The actual removal from the
@@ -178,6 +222,9 @@ public class Manager extends User {
     public boolean delProject(Project projectToDelete) {
         // Check ownership using creatorName
         if (projectToDelete != null && this.getName().equals(projectToDelete.getCreatorName())) {
+            projectToDelete.removeFromWindowIndex(this.managedWindows);
+            projectToDelete.cancelBookingHolds();
+            ChangeEvents.publish(ChangeRecord.structure("project deleted " + projectToDelete.getName(), ChangeRecord.Table.PROJECTS, ChangeRecord.Table.FLATS, ChangeRecord.Table.OFFICERS, ChangeRecord.Table.APPLICATIONS));
             return true; // Indicates manager owns it, caller can proceed with removal
         } else {
              if (projectToDelete == null) {
@@ -200,6 +247,7 @@ public class Manager extends User {
         if (projectToToggle != null && this.getName().equals(projectToToggle.getCreatorName())) {
              try {
                  projectToToggle.setVisibility(this.name ,!projectToToggle.getVisibility()); 
+                 ChangeEvents.publish(ChangeRecord.structure("project visibility " + projectToToggle.getName(), ChangeRecord.Table.PROJECTS));
                  return true;
              } catch (Exception e) {
                   System.err.println("Error toggling project visibility: " + e.getMessage());
@@ -236,20 +284,21 @@ public class Manager extends User {
      * Processes an officer's registration request.
      * It finds the first project *managed by this manager* where the officer is pending,
      * updates the project's lists (removing from pending, potentially adding to approved),
-     * and updates the officer's status.
+     * and updates the officer's status. Only this manager's projects are visited, from the
+     * catalogue's CreatorIndex.
      *
-     * @param allProjectsMap    The map of all projects in the system.
+     * @param catalogue         Catalogue of all projects in the system.
      * @param officerToUpdate   The Officer whose registration is being processed.
      * @param approve           True to approve, false to reject.
      * @return true if the officer was found pending in a managed project and processed; false otherwise.
      */
-    public boolean updateRegOfficer(Map<String, Project> allProjectsMap, Officer officerToUpdate, boolean approve) {
+    public boolean updateRegOfficer(ProjectCatalogue catalogue, Officer officerToUpdate, boolean approve) {
         if (officerToUpdate == null) {
             System.err.println("Error: Cannot update registration for a null officer.");
             return false;
         }
-        if (allProjectsMap == null) {
-             System.err.println("Error: Project map is null, cannot process officer registration.");
+        if (catalogue == null) {
+             System.err.println("Error: Project catalogue is null, cannot process officer registration.");
              return false;
         }
 
@@ -257,7 +306,7 @@ public class Manager extends User {
         Project targetProject = null;
 
         // Find the first project managed by this manager where the officer is pending
-        for (Project project : allProjectsMap.values()) {
+        for (Project project : catalogue.getCreators().getProjects(this.getName())) {
             if (project != null && this.getName().equals(project.getCreatorName())) {
                  // Check the OFFICER'S state for this project
                  String currentStatus = officerToUpdate.getStatusForProject(project);
@@ -276,13 +325,12 @@ public class Manager extends User {
                              System.out.println("Officer '" + officerToUpdate.getName() + "' approved for project '" + project.getName() + "'.");
 
                          } else { // Rejecting
-                             if (project.getPendingOfficerRegistrations() != null) {
-                                 project.getPendingOfficerRegistrations().removeIf(o -> o != null && o.equals(officerToUpdate));
-                             }
+                             project.removePendingOfficer(officerToUpdate);
                              // Remove assignment from Officer's map
                              officerToUpdate.updateProjectAssignment(project, null);
                              System.out.println("Officer '" + officerToUpdate.getName() + "' registration rejected for project '" + project.getName() + "'.");
                          }
+                         ChangeEvents.publish(ChangeRecord.structure("officer registration " + officerToUpdate.getNric(), ChangeRecord.Table.OFFICERS));
                          processed = true;
                          break; 
                     } catch (Exception e) {
@@ -362,10 +410,15 @@ public class Manager extends User {
         try {
             if (accept) {
                 // Check room availability using the helper method
-                if (hasRoom(project, applicant.getTypeFlat())) { 
+                if (!project.hasQuotaRoom(applicant, applicant.getFlatType())) {
+                    System.err.println("Error: Applicants like '" + applicant.getName() + "' have used their quota of " + applicant.getTypeFlat() + " flats in project '" + project.getName() + "'.");
+                    return false;
+                }
+                if (hasRoom(project, applicant.getFlatType())) { 
                     // Update project lists 
                     project.updateSuccessfulApplicants(applicant);
                     applicant.setAppStatus("Successful"); 
+                    ChangeEvents.publish(ChangeRecord.application(applicant));
                     System.out.println("Applicant '" + applicant.getName() + "' accepted for project '" + project.getName() + "'.");
                     return true;
                 } else {
@@ -377,6 +430,7 @@ public class Manager extends User {
                 applicant.setAppStatus("Unsuccessful");
                 // Also update the project's list of unsuccessful applicants
                  project.updateUnsuccessfulApplicants(applicant); 
+                 ChangeEvents.publish(ChangeRecord.application(applicant));
                 System.out.println("Applicant '" + applicant.getName() + "' rejected for project '" + project.getName() + "'.");
                 return true; // Rejection is considered a successful status update
             }
@@ -387,28 +441,40 @@ public class Manager extends User {
     }
 
 
+    /**
+     * Decides every pending application of this manager's projects by a seeded lottery.
+     * Projects created by other managers are skipped with an error message.
+     * See BallotService for how places are counted and winners drawn.
+     *
+     * @param projects Projects to ballot.
+     * @param seed     Seed of the draw; the same seed over the same applications picks the same winners.
+     * @return The allocation report.
+     */
+    public AllocationReport runBallot(List<Project> projects, long seed) {
+        List<Project> managed = new ArrayList<>();
+        if (projects != null) {
+            for (Project project : projects) {
+                if (project == null) continue;
+                if (this.getName().equals(project.getCreatorName())) {
+                    managed.add(project);
+                } else {
+                    System.err.println("Error: Cannot ballot project '" + project.getName() + "' as it's not managed by " + this.getName());
+                }
+            }
+        }
+        return new BallotService().run(managed, seed);
+    }
+
     /**
      * Helper method to check room availability within a project.
      *
      * @param projectApplied The project being applied to.
-     * @param flatType       The type of flat ("2-Room" or "3-Room").
+     * @param flatType       The type of flat, or null if the applicant has none.
      * @return true if a room of the specified type is available, false otherwise.
      */
-    private boolean hasRoom(Project projectApplied, String flatType) {
+    private boolean hasRoom(Project projectApplied, FlatType flatType) {
         if (projectApplied == null || flatType == null) return false;
-        try {
-            if ("2-Room".equalsIgnoreCase(flatType)) {
-                return projectApplied.getAvalNo2Room() > 0; 
-            } else if ("3-Room".equalsIgnoreCase(flatType)) {
-                return projectApplied.getAvalNo3Room() > 0;
-            } else {
-                System.err.println("Warning: Unknown flat type '" + flatType + "' requested for room check in project '" + projectApplied.getName() + "'.");
-                return false; 
-            }
-        } catch (Exception e) {
-             System.err.println("Error checking room availability: " + e.getMessage());
-             return false;
-        }
+        return projectApplied.getAvailableUnits(flatType) > 0;
     }
 
 
@@ -442,9 +508,11 @@ public class Manager extends User {
         try {
             if (accept) {
                 handleAcceptWithdraw(applicant); // Use private helper
+                ChangeEvents.publish(ChangeRecord.application(applicant));
                 System.out.println("Withdrawal accepted for '" + applicant.getName() + "'.");
             } else {
                 handleRejectWithdraw(applicant); // Use private helper
+                ChangeEvents.publish(ChangeRecord.application(applicant));
                 System.out.println("Withdrawal rejected for '" + applicant.getName() + "'.");
             }
             return true; // Status update was successful
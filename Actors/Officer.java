@@ -1,6 +1,15 @@
 package Actors;
 
+import Project.BookingHolds;
+import Project.EligibilityPolicy;
+import Project.FlatType;
+import Project.UnitMap;
+import Project.IntervalIndex;
 import Project.Project;
+import Project.ProjectCatalogue;
+import Project.ProjectSearchIndex;
+import data.ChangeEvents;
+import data.ChangeRecord;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -15,6 +24,8 @@ import java.util.Map;
 public class Officer extends Applicant {
 
     private Map<Project, String> projectAssignments;
+    // Application periods of the assigned projects (Pending or Approved), for clash checks
+    private final IntervalIndex<Project> assignmentWindows = new IntervalIndex<>();
 
     /**
      * Constructor for Officer.
@@ -32,6 +43,25 @@ public class Officer extends Applicant {
         this.projectAssignments = new HashMap<>();
     }
 
+    private Officer(String name, String nric, int age, String maritalStatus, String passwordHash, String salt) {
+        super(name, nric, age, maritalStatus, "Officer", passwordHash, salt);
+        this.projectAssignments = new HashMap<>();
+    }
+
+    /**
+     * Restores an Officer from storage using its stored password hash and salt.
+     * @param name Officer name
+     * @param nric NRIC
+     * @param age Officer age
+     * @param maritalStatus Marital status
+     * @param passwordHash Stored password hash
+     * @param salt Stored salt
+     * @return The restored officer
+     */
+    public static Officer restore(String name, String nric, int age, String maritalStatus, String passwordHash, String salt) {
+        return new Officer(name, nric, age, maritalStatus, passwordHash, salt);
+    }
+
     // --- Getters and Setters for Officer state ---
 
     /** 
@@ -90,9 +120,11 @@ public class Officer extends Applicant {
         if (project == null) return;
         if (status == null || status.trim().isEmpty()) {
             this.projectAssignments.remove(project); // Remove assignment if status is null/empty
+            project.removeFromWindowIndex(this.assignmentWindows);
         } else if ("Pending".equalsIgnoreCase(status.trim()) || "Approved".equalsIgnoreCase(status.trim())) {
              // Allow setting Pending or Approved status
              this.projectAssignments.put(project, status.trim());
+             project.addToWindowIndex(this.assignmentWindows);
         } else {
              System.err.println("WARN: Invalid status '" + status + "' provided for officer assignment update.");
         }
@@ -104,14 +136,20 @@ public class Officer extends Applicant {
      * Allows an Officer to register interest in handling a specific project.
      * Adds the officer to the project's pending list after eligibility checks.
      * Uses the corrected super constructor, so getRole() should be "Officer".
+     * The name must match exactly, ignoring case and spacing; callers that accept a
+     * partial name should resolve it and confirm it with the user first (see OfficerCLI).
      * @param projectName Name of the project to register for
-	 * @param allProjectsMap Map of all project names to project objects
+	 * @param catalogue Catalogue of all projects
 	 * @param allUsersMap Map of all NRICs to user objects
      */
-    public void registerProject(String projectName, Map<String, Project> allProjectsMap, Map<String, User> allUsersMap) {
+    public void registerProject(String projectName, ProjectCatalogue catalogue, Map<String, User> allUsersMap) {
         if (projectName == null || projectName.trim().isEmpty()) { System.out.println("Project name cannot be empty."); return; }
-        Project projectToRegister = allProjectsMap.get(projectName.trim());
-        if (projectToRegister == null) { System.out.println("Project '" + projectName + "' not found."); return; }
+        Project projectToRegister = catalogue.getProjects().get(projectName.trim());
+        if (projectToRegister == null) { // Not typed exactly: accept the name ignoring case and spacing, else suggest the closest
+            ProjectSearchIndex search = catalogue.getSearch();
+            projectToRegister = search.resolve(projectName);
+            if (!ProjectSearchIndex.isExactName(projectToRegister, projectName)) { System.out.println(projectNotFound("Project '" + projectName + "' not found.", projectName, search, null)); return; }
+        }
 
         // 2. Check if applied as Applicant for THIS project
         if (super.isApplied() && projectToRegister.equals(super.getProject())) {
@@ -124,12 +162,10 @@ public class Officer extends Applicant {
          }
 
         // 3. Check for date clashes with *all* existing assignments (Pending or Approved)
-        for (Map.Entry<Project, String> entry : this.projectAssignments.entrySet()) {
-            Project assignedProject = entry.getKey();
-            if (assignedProject != null && projectToRegister.isClashing(assignedProject.getAppOpeningDate(), assignedProject.getAppClosingDate())) {
-                System.out.println("Error: Cannot register for '" + projectToRegister.getName() + "' because its application period overlaps with your existing assignment for '" + assignedProject.getName() + "' (Status: " + entry.getValue() + ").");
-                return; // Disallow registration due to overlap
-            }
+        Project assignedProject = this.assignmentWindows.firstOverlapping(projectToRegister.getAppOpeningDate(), projectToRegister.getAppClosingDate(), null);
+        if (assignedProject != null) {
+            System.out.println("Error: Cannot register for '" + projectToRegister.getName() + "' because its application period overlaps with your existing assignment for '" + assignedProject.getName() + "' (Status: " + this.projectAssignments.get(assignedProject) + ").");
+            return; // Disallow registration due to overlap
         }
 
         // 4. Check if already pending/approved for THIS project (should be covered by #3 check if dates are same, but good explicit check)
@@ -142,11 +178,13 @@ public class Officer extends Applicant {
         // All checks passed, add to project's pending list AND officer's assignment map
         if (projectToRegister.updateArrOfPendingOfficers(this)) {
             this.updateProjectAssignment(projectToRegister, "Pending"); // Add to officer's map as Pending
+            ChangeEvents.publish(ChangeRecord.structure("officer registration " + getNric(), ChangeRecord.Table.OFFICERS));
             System.out.println("Successfully registered interest for project '" + projectToRegister.getName() + "' " + newProjectDates + ". Awaiting Manager approval.");
             } else {
             System.out.println("Failed to register interest for project '" + projectToRegister.getName() + "'. You might already be on the project's pending list.");
             // Ensure officer's internal state doesn't have it if project add failed
             this.projectAssignments.remove(projectToRegister);
+            projectToRegister.removeFromWindowIndex(this.assignmentWindows);
         }
     }
 
@@ -202,6 +240,7 @@ public class Officer extends Applicant {
     /**
      * Retrieves the list of applicants who are in 'Successful' state
      * for the project this officer is handling.
+     * Booking holds that have run out are expired first, so their places are not offered.
      * @return A List of bookable Applicant objects, or an empty list/null if none or not applicable.
      */
     public List<Applicant> getBookableApplicants(Project projectToBookIn) { 
@@ -209,6 +248,7 @@ public class Officer extends Applicant {
             System.out.println("You must be an approved officer for the specified project to book flats.");
             return new ArrayList<>();
          }
+        BookingHolds.getDefault().advance();
     
         List<Applicant> successfulList = projectToBookIn.getSuccessfulApplicants();
     
@@ -227,7 +267,9 @@ public class Officer extends Applicant {
     }
     /**
      * Attempts to book a flat for the specified applicant in the specified project.
-     * Performs final availability checks and updates states if successful.
+     * The unit is claimed atomically from the project's inventory, so concurrent bookings
+     * by several officers cannot take more units than are available.
+     * An applicant whose booking hold has run out cannot be booked.
      * The calling context (OfficerCLI) must ensure the officer is approved for this project.
      *
      * @param applicantToBook The Applicant object selected for booking.
@@ -235,6 +277,19 @@ public class Officer extends Applicant {
      * @return true if booking was successful, false otherwise.
      */
     public boolean bookFlatForApplicant(Applicant applicantToBook, Project projectContext) { // Added projectContext parameter
+        return bookFlatForApplicant(applicantToBook, projectContext, UnitMap.Filter.any());
+    }
+
+    /**
+     * Books a flat as bookFlatForApplicant(Applicant, Project), giving the applicant the first
+     * free unit that matches their block and floor preference.
+     *
+     * @param applicantToBook The Applicant object selected for booking.
+     * @param projectContext The Project in which the booking should occur.
+     * @param unitFilter Acceptable block and floors.
+     * @return true if booking was successful, false otherwise.
+     */
+    public boolean bookFlatForApplicant(Applicant applicantToBook, Project projectContext, UnitMap.Filter unitFilter) {
 
         // 1. Validate Inputs
         if (projectContext == null) {
@@ -257,47 +312,32 @@ public class Officer extends Applicant {
             return false;
         }
 
-        // 2. Check final availability in the project context
+        BookingHolds.getDefault().advance();
+
+        // 2. Claim a unit and move the applicant to booked in one step. The availability is not
+        //    checked separately first: another officer could take the last unit in between.
+        FlatType typeToBook = applicantToBook.getFlatType();
         String flatTypeToBook = applicantToBook.getTypeFlat();
-        boolean roomAvailable = false;
-        int currentAvail = 0; // To show remaining units
-        if (flatTypeToBook != null) { // Null check for flat type
-            if ("2-Room".equalsIgnoreCase(flatTypeToBook) && projectContext.getAvalNo2Room() > 0) {
-                roomAvailable = true;
-                currentAvail = projectContext.getAvalNo2Room();
-            } else if ("3-Room".equalsIgnoreCase(flatTypeToBook) && projectContext.getAvalNo3Room() > 0) {
-                roomAvailable = true;
-                 currentAvail = projectContext.getAvalNo3Room();
-            }
-        } else {
+        if (typeToBook == null) { // Null check for flat type
              System.out.println("Error: Applicant has no flat type selected. Cannot check availability.");
              return false; // Cannot proceed without flat type
         }
 
+        if (!projectContext.updateBookedApplicants(applicantToBook, unitFilter)) {
+            System.out.println("Booking failed. No available " + flatTypeToBook + " units remaining for project '" + projectContext.getName() + "' (matching the requested block and floors), or the applicant is no longer eligible for booking.");
+            return false; // Booking failed; the project has returned any unit it claimed
+        }
 
-        // 3. Perform Booking if room available
-        if (roomAvailable) {
-            // Update applicant state
-            applicantToBook.setAppStatus("Booked");
-
-            // Delegate project state update (moving lists, decrementing count)
-            boolean bookingUpdateSuccess = projectContext.updateBookedApplicants(applicantToBook); // Use projectContext
-
-            if (bookingUpdateSuccess) {
-                System.out.println("Successfully booked a " + flatTypeToBook + " flat for " + applicantToBook.getName() + " in project '" + projectContext.getName() + "'.");
-                // Get updated count AFTER project update
-                int remainingUnits = ("2-Room".equalsIgnoreCase(flatTypeToBook) ? projectContext.getAvalNo2Room() : projectContext.getAvalNo3Room());
-                System.out.println("Remaining " + flatTypeToBook + " units in this project: " + remainingUnits);
-                return true; // Booking succeeded
-            } else {
-                System.out.println("Error updating project data during booking. Rolling back applicant status.");
-                applicantToBook.setAppStatus("Successful"); // Rollback status
-                return false; // Booking failed
-            }
-        } else {
-            System.out.println("Booking failed. No available " + flatTypeToBook + " units remaining for project '" + projectContext.getName() + "'.");
-            return false; // Booking failed
+        // 3. Update applicant state and persist
+        applicantToBook.setAppStatus("Booked");
+        ChangeEvents.publish(ChangeRecord.application(applicantToBook));
+        // Do not confirm a booking to the officer before it is on disk
+        if (!ChangeEvents.publishDurable(ChangeRecord.flats(projectContext, typeToBook))) {
+            System.out.println("Warning: The booking could not be written to disk yet. It will be saved again at the next save.");
         }
+        System.out.println("Successfully booked a " + flatTypeToBook + " flat (unit " + applicantToBook.getUnitNumber() + ") for " + applicantToBook.getName() + " in project '" + projectContext.getName() + "'.");
+        System.out.println("Remaining " + flatTypeToBook + " units in this project: " + projectContext.getAvailableUnits(typeToBook));
+        return true; // Booking succeeded
     }
 
     /**
@@ -334,12 +374,25 @@ public class Officer extends Applicant {
             System.out.println("Age: " + bookedApplicant.getAge());
             System.out.println("Marital Status: " + bookedApplicant.getMaritalStatus());
             System.out.println("Booked Flat Type: " + bookedApplicant.getTypeFlat());
+            System.out.println("Booked Unit: " + formatUnit(bookedApplicant.getUnitNumber()));
             System.out.println("-------------------------");
         } else {
             System.out.println("No booked applicant found with NRIC '" + nric + "' for project '" + projectToGenerateIn.getName() + "'.");
         }
     }
 
+    /**
+     * Formats a unit label for display, e.g. "2-05-03" as "Block 2, #05-03".
+     * @param unitNumber Unit label, may be null
+     * @return Display text
+     */
+    private static String formatUnit(String unitNumber) {
+        if (unitNumber == null) return "Not assigned";
+        int dash = unitNumber.indexOf('-');
+        if (dash < 0) return unitNumber;
+        return "Block " + unitNumber.substring(0, dash) + ", #" + unitNumber.substring(dash + 1);
+    }
+
     /**
      * Override applyProject inherited from Applicant.
      * Officers can apply for projects they are NOT handling, subject to applicant rules
@@ -353,49 +406,35 @@ public class Officer extends Applicant {
             System.out.println("Project name and flat type must be provided."); return;
         }
 
-        Project selectedProject = null;
-        for (Project proj : availableProjects) { // Search only available projects
-            if (proj != null && proj.getName().equalsIgnoreCase(projectName.trim())) {
-                selectedProject = proj; break;
-            }
-        }
+        Project selectedProject = findNamedProject(availableProjects, projectName, // Search only available projects
+                "Project '" + projectName + "' not found in your list of available projects.");
 
         if (selectedProject == null) {
-            System.out.println("Project '" + projectName + "' not found in your list of available projects."); return;
+            return;
         }
 
         // --- OFFICER SPECIFIC CHECKS ---
         // 1. Cannot apply if currently handling/pending ANY project (even a different one)
-        for (Map.Entry<Project, String> entry : this.projectAssignments.entrySet()) {
-            Project assignedProject = entry.getKey();
-            if (assignedProject != null && selectedProject.isClashing(assignedProject.getAppOpeningDate(), assignedProject.getAppClosingDate())) {
-                 System.out.println("Error: As an Officer assigned/pending for '" + assignedProject.getName() + "', you cannot apply for project '" + selectedProject.getName() + "' due to overlapping application periods.");
-                 return;
-            }
-       }
+        Project assignedProject = this.assignmentWindows.firstOverlapping(selectedProject.getAppOpeningDate(), selectedProject.getAppClosingDate(), null);
+        if (assignedProject != null) {
+             System.out.println("Error: As an Officer assigned/pending for '" + assignedProject.getName() + "', you cannot apply for project '" + selectedProject.getName() + "' due to overlapping application periods.");
+             return;
+        }
 
         // Check availability of chosen flat type
-        if (chosenFlatType.equals("2-Room") && selectedProject.getAvalNo2Room() == 0) {
-            System.out.println("This project does not have available 2-Room flats."); return;
-        }
-        if (chosenFlatType.equals("3-Room") && selectedProject.getAvalNo3Room() == 0) {
-            System.out.println("This project does not have available 3-Room flats."); return;
+        FlatType chosenType = FlatType.lookup(chosenFlatType);
+        if (chosenType == null || selectedProject.getAvailableUnits(chosenType) == 0) {
+            System.out.println("This project does not have available " + chosenFlatType + " flats."); return;
         }
 
         // Check eligibility for chosen flat type
-        boolean eligible = false;
-        if (this.getMaritalStatus().equals("Single") && this.getAge() >= 35) {
-            if (chosenFlatType.equals("2-Room")) eligible = true;
-            else { System.out.println("Singles (35+) can only apply for 2-Room flats."); return; }
-        } else if (this.getMaritalStatus().equals("Married") && this.getAge() >= 21) {
-            if (chosenFlatType.equals("2-Room") || chosenFlatType.equals("3-Room")) eligible = true;
-            else { System.out.println("Married applicants can apply for 2-Room or 3-Room flats only."); return; }
-        } else {
+        EligibilityPolicy policy = EligibilityPolicy.getDefault();
+        int rule = getEligibilityRule(policy);
+        if (rule < 0) {
             System.out.println(this.getName() + " (Officer) is not eligible to apply based on age/marital status."); return;
         }
-
-        if (!eligible) {
-             System.out.println("You are not eligible for the chosen flat type."); return;
+        if (!policy.admits(rule, chosenType)) {
+            System.out.println(policy.getRule(rule).describeLimit()); return;
         }
 
 
@@ -406,6 +445,7 @@ public class Officer extends Applicant {
         super.setAppStatus("Pending");
         super.setApplied(true);
         selectedProject.updateArrOfApplicants(this); // Add self to project's applicant list
+        ChangeEvents.publish(ChangeRecord.application(this));
 
         System.out.println("You (Officer " + getName() + ") have successfully applied for the " + selectedProject.getName() + " project (" + super.getTypeFlat() + " flat).");
     }
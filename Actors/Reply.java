@@ -97,6 +97,16 @@ public class Reply {
 		System.out.println("Reply ID counters reset based on loaded max IDs per enquiry.");
 	}
 
+	/**
+     * Raises the reply ID counter of one enquiry to at least the given ID.
+     * Used when a reply with a known ID is restored after the counters were reset.
+     * @param enquiryId Parent enquiry ID
+     * @param replyId Restored reply ID
+     */
+	public static void updateIdCounter(int enquiryId, int replyId) {
+		enquiryReplyCounters.merge(enquiryId, replyId, Math::max);
+	}
+
 		/**
      * Compares this reply to another object.
      */
@@ -41,6 +41,27 @@ public abstract class User {
         this.role = role;
     }
 
+    /**
+     * Constructor for subclasses restoring a user whose password hash and salt were loaded from storage.
+     * Skips salt generation and hashing, which dominate the cost of loading large user files.
+     *
+     * @param name          The user's name.
+     * @param nric          The user's NRIC (unique identifier).
+     * @param age           The user's age.
+     * @param maritalStatus The user's marital status.
+     * @param role          The user's role ("Applicant", "Officer", "Manager").
+     * @param passwordHash  The stored password hash.
+     * @param salt          The stored salt.
+     */
+    protected User(String name, String nric, int age, String maritalStatus, String role, String passwordHash, String salt) {
+        this.name = name;
+        this.nric = nric;
+        this.age = age;
+        this.maritalStatus = maritalStatus;
+        this.role = role;
+        loadCredentials(passwordHash, salt);
+    }
+
     // --- Public Getters ---
     /** 
      * Returns the name of the user.
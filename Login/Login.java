@@ -4,6 +4,8 @@ import java.util.Map;
 import java.util.regex.Pattern;
 
 import Actors.User;
+import data.ChangeEvents;
+import data.ChangeRecord;
 
 public class Login {
 
@@ -44,6 +46,7 @@ public class Login {
             return false;
         }
         user.setPassword(newPassword);
+        ChangeEvents.publish(ChangeRecord.user(user));
         return true;
     }
 }
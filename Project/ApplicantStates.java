@@ -0,0 +1,209 @@
+package Project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import Actors.Applicant;
+
+/**
+ * The applicants of one project and the state of each application.
+ *
+ * Applicants are keyed by NRIC. Each entry is also linked into a doubly linked list for its
+ * state (the links live in the entry itself), so moving an applicant between states, removing
+ * one, and counting the applicants in a state are all constant time, and listing a state only
+ * visits that state's applicants. Within a state, applicants are kept in the order they entered it.
+ *
+ * The units held (by Successful and Booked applicants) are also counted per eligibility rule
+ * and flat type, for quota checks. Counting starts the first time it is asked for, and starts
+ * over if the policy asked about changes; after that each entry records the rule and type it
+ * was counted under when it enters a holding state, and gives them back when it leaves, so
+ * reading a count is constant time.
+ *
+ * All methods are synchronized, so a move from one state to another is atomic: when two
+ * threads try the same transition, exactly one of them succeeds.
+ */
+class ApplicantStates {
+
+	private static final ApplicationState[] STATES = ApplicationState.values();
+
+	private static final class Entry {
+		Applicant applicant;
+		ApplicationState state;
+		Entry prev;
+		Entry next;
+		boolean held; // Counted in heldUnits
+		int heldRule;
+		FlatType heldType;
+	}
+
+	private final Map<String, Entry> byNric = new HashMap<>();
+	private final Entry[] heads = new Entry[STATES.length];
+	private final Entry[] tails = new Entry[STATES.length];
+	private final int[] counts = new int[STATES.length];
+	private EligibilityPolicy heldPolicy; // Policy heldUnits is counted under, or null before the first count
+	private int[][] heldUnits = new int[0][]; // By rule, then flat type ordinal
+
+	/**
+	 * Gets the state of an applicant.
+	 * @param nric Applicant NRIC
+	 * @return The state, or null if the applicant has no application in this project
+	 */
+	synchronized ApplicationState stateOf(String nric) {
+		Entry entry = byNric.get(nric);
+		return (entry != null) ? entry.state : null;
+	}
+
+	/**
+	 * Puts an applicant into a state, moving them out of their current state if they have one.
+	 * The given object replaces any applicant stored under the same NRIC.
+	 * @param applicant Applicant, with a non-null NRIC
+	 * @param state New state
+	 */
+	synchronized void put(Applicant applicant, ApplicationState state) {
+		Entry entry = byNric.get(applicant.getNric());
+		if (entry == null) {
+			entry = new Entry();
+			byNric.put(applicant.getNric(), entry);
+		} else {
+			unlink(entry);
+		}
+		entry.applicant = applicant;
+		entry.state = state;
+		link(entry);
+	}
+
+	/**
+	 * Moves an applicant to a new state if they are currently in the expected one.
+	 * @param applicant Applicant, with a non-null NRIC; replaces the stored object on success
+	 * @param from Expected current state
+	 * @param to New state
+	 * @return true if the applicant was moved
+	 */
+	synchronized boolean move(Applicant applicant, ApplicationState from, ApplicationState to) {
+		Entry entry = byNric.get(applicant.getNric());
+		if (entry == null || entry.state != from) return false;
+		unlink(entry);
+		entry.applicant = applicant;
+		entry.state = to;
+		link(entry);
+		return true;
+	}
+
+	/**
+	 * Removes an applicant from whichever state they are in.
+	 * @param nric Applicant NRIC
+	 * @return true if the applicant was present
+	 */
+	synchronized boolean remove(String nric) {
+		Entry entry = byNric.remove(nric);
+		if (entry == null) return false;
+		unlink(entry);
+		return true;
+	}
+
+	synchronized int count(ApplicationState state) {
+		return counts[state.ordinal()];
+	}
+
+	synchronized int size() {
+		return byNric.size();
+	}
+
+	/**
+	 * Counts the units of a flat type held (Successful or Booked) by applicants of one
+	 * eligibility rule.
+	 * @param policy Policy the rule belongs to
+	 * @param rule Rule index
+	 * @param type Flat type
+	 * @return Number of units held
+	 */
+	synchronized int countHeld(EligibilityPolicy policy, int rule, FlatType type) {
+		if (policy != heldPolicy) {
+			heldPolicy = policy;
+			heldUnits = new int[policy.ruleCount()][];
+			for (ApplicationState state : STATES) {
+				if (!holdsUnit(state)) continue;
+				for (Entry entry = heads[state.ordinal()]; entry != null; entry = entry.next) hold(entry);
+			}
+		}
+		if (rule < 0 || rule >= heldUnits.length || type == null) return 0;
+		int[] byType = heldUnits[rule];
+		return (byType != null && type.ordinal() < byType.length) ? byType[type.ordinal()] : 0;
+	}
+
+	/**
+	 * Lists the applicants in one state, in the order they entered it.
+	 * @param state State to list
+	 * @return A new list
+	 */
+	synchronized List<Applicant> list(ApplicationState state) {
+		List<Applicant> result = new ArrayList<>(counts[state.ordinal()]);
+		for (Entry entry = heads[state.ordinal()]; entry != null; entry = entry.next) {
+			result.add(entry.applicant);
+		}
+		return result;
+	}
+
+	/**
+	 * Lists every applicant, grouped by state in declaration order.
+	 * @return A new list
+	 */
+	synchronized List<Applicant> listAll() {
+		List<Applicant> result = new ArrayList<>(byNric.size());
+		for (ApplicationState state : STATES) {
+			for (Entry entry = heads[state.ordinal()]; entry != null; entry = entry.next) {
+				result.add(entry.applicant);
+			}
+		}
+		return result;
+	}
+
+	private void link(Entry entry) {
+		int s = entry.state.ordinal();
+		entry.prev = tails[s];
+		entry.next = null;
+		if (tails[s] != null) tails[s].next = entry; else heads[s] = entry;
+		tails[s] = entry;
+		counts[s]++;
+		if (heldPolicy != null && holdsUnit(entry.state)) hold(entry);
+	}
+
+	private void unlink(Entry entry) {
+		int s = entry.state.ordinal();
+		if (entry.prev != null) entry.prev.next = entry.next; else heads[s] = entry.next;
+		if (entry.next != null) entry.next.prev = entry.prev; else tails[s] = entry.prev;
+		entry.prev = null;
+		entry.next = null;
+		counts[s]--;
+		if (entry.held) release(entry);
+	}
+
+	private static boolean holdsUnit(ApplicationState state) {
+		return state == ApplicationState.SUCCESSFUL || state == ApplicationState.BOOKED;
+	}
+
+	// Counts an entry's unit under the rule and type it has now
+	private void hold(Entry entry) {
+		entry.held = true;
+		entry.heldRule = entry.applicant.getEligibilityRule(heldPolicy);
+		entry.heldType = entry.applicant.getFlatType();
+		if (entry.heldRule < 0 || entry.heldType == null) return;
+		int[] byType = heldUnits[entry.heldRule];
+		if (byType == null || entry.heldType.ordinal() >= byType.length) {
+			byType = (byType == null) ? new int[FlatType.count()] : Arrays.copyOf(byType, FlatType.count());
+			heldUnits[entry.heldRule] = byType;
+		}
+		byType[entry.heldType.ordinal()]++;
+	}
+
+	// Takes back what hold counted, even if the applicant's rule or type has changed since
+	private void release(Entry entry) {
+		entry.held = false;
+		if (entry.heldRule >= 0 && entry.heldType != null && entry.heldRule < heldUnits.length) {
+			heldUnits[entry.heldRule][entry.heldType.ordinal()]--;
+		}
+	}
+}
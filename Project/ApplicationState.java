@@ -0,0 +1,44 @@
+package Project;
+
+/**
+ * The state of an application within a project, as tracked by Project.
+ * Each applicant of a project is in exactly one state.
+ */
+public enum ApplicationState {
+	/** Applied, waiting for the manager's decision */
+	PENDING("Pending"),
+	/** Approved, not booked or withdrawn yet */
+	SUCCESSFUL("Successful"),
+	/** Rejected, or withdrawn after the withdrawal was processed */
+	UNSUCCESSFUL("Unsuccessful"),
+	/** Approved and booked a flat */
+	BOOKED("Booked"),
+	/** Requested to withdraw, waiting for the manager's decision */
+	WITHDRAW_REQUESTED("Withdrawn");
+
+	private final String appStatus;
+
+	ApplicationState(String appStatus) {
+		this.appStatus = appStatus;
+	}
+
+	/**
+	 * Gets the applicant status string stored for this state (see Applicant.getAppStatus).
+	 * @return The status string
+	 */
+	public String getAppStatus() {
+		return this.appStatus;
+	}
+
+	/**
+	 * Maps an applicant status string to its state.
+	 * @param appStatus Status as stored in applications.csv (e.g. "Pending")
+	 * @return The state, or null if the status is not recognised
+	 */
+	public static ApplicationState fromAppStatus(String appStatus) {
+		for (ApplicationState state : values()) {
+			if (state.appStatus.equals(appStatus)) return state;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,273 @@
+package Project;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import Actors.Applicant;
+
+/**
+ * Time-boxed booking holds: a Successful applicant may book their flat until their hold
+ * expires, after which their place is given up (see Project.expireHold) and goes to the
+ * waitlist.
+ *
+ * Holds are kept in a hashed timer wheel: a ring of wheelSize buckets, each covering one tick
+ * of tickMillis. A hold goes into the bucket of its deadline tick, linked into that bucket's
+ * doubly linked list, so starting and cancelling a hold are O(1). advance() moves the wheel
+ * to the current time and visits only the buckets of the ticks that passed, expiring the
+ * holds that are due; it never looks at projects or holds in other buckets. After a long
+ * pause it visits each bucket at most once.
+ *
+ * The tick is sized so one lap of the wheel covers the TTL (see forTtl). Every hold's
+ * deadline is then less than one lap ahead, so its bucket is visited once, when it is due,
+ * and never skipped over as a later lap. A hold can expire up to one tick late. Project
+ * checks the deadline itself before booking, so a late hold is never booked.
+ *
+ * The TTL comes from the bto.hold.ttl.hours property (default 168, one week); 0 disables
+ * holds. A hold's deadline is saved with the application (see Project.getHoldDeadline) and
+ * restored on load (see Project.restoreHold), so it carries across sessions.
+ */
+public class BookingHolds {
+
+	private static final class Key {
+		final Project project;
+		final String nric;
+
+		Key(Project project, String nric) {
+			this.project = project;
+			this.nric = nric;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) return false;
+			Key other = (Key) o;
+			return this.project == other.project && this.nric.equals(other.nric);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(this.project) + this.nric.hashCode();
+		}
+	}
+
+	private static final class Hold {
+		final Key key;
+		final Applicant applicant;
+		final long deadline;
+		final long deadlineTick;
+		Hold prev;
+		Hold next;
+
+		Hold(Key key, Applicant applicant, long deadline, long deadlineTick) {
+			this.key = key;
+			this.applicant = applicant;
+			this.deadline = deadline;
+			this.deadlineTick = deadlineTick;
+		}
+	}
+
+	private static final long MIN_TICK_MILLIS = 60_000L;
+
+	private static volatile BookingHolds defaultHolds;
+
+	private final long ttlMillis;
+	private final long tickMillis;
+	private final LongSupplier clock;
+	private final Hold[] buckets;
+	private final Map<Key, Hold> holds = new HashMap<>();
+	private long currentTick;
+
+	/**
+	 * Creates a timer wheel.
+	 * @param ttlMillis How long a hold lasts; 0 or less disables holds
+	 * @param tickMillis Length of one tick
+	 * @param wheelSize Number of buckets
+	 * @param clock Current time in milliseconds
+	 */
+	public BookingHolds(long ttlMillis, long tickMillis, int wheelSize, LongSupplier clock) {
+		if (tickMillis <= 0 || wheelSize <= 0) {
+			throw new IllegalArgumentException("Tick length and wheel size must be positive");
+		}
+		this.ttlMillis = ttlMillis;
+		this.tickMillis = tickMillis;
+		this.buckets = new Hold[wheelSize];
+		this.clock = clock;
+		this.currentTick = clock.getAsLong() / tickMillis;
+	}
+
+	/**
+	 * Creates a timer wheel whose tick is sized so one lap covers the TTL, with ticks of at
+	 * least one minute.
+	 * @param ttlMillis How long a hold lasts; 0 or less disables holds
+	 * @param wheelSize Number of buckets, at least 2
+	 * @param clock Current time in milliseconds
+	 * @return The timer wheel
+	 */
+	public static BookingHolds forTtl(long ttlMillis, int wheelSize, LongSupplier clock) {
+		long tickMillis = Math.max(MIN_TICK_MILLIS, (ttlMillis + wheelSize - 2) / Math.max(1, wheelSize - 1));
+		return new BookingHolds(ttlMillis, tickMillis, wheelSize, clock);
+	}
+
+	/**
+	 * Gets the holds used by every project, creating them from the bto.hold.ttl.hours property
+	 * (1024 buckets, see forTtl) on first use.
+	 * @return The shared holds
+	 */
+	public static BookingHolds getDefault() {
+		BookingHolds holds = defaultHolds;
+		if (holds == null) {
+			synchronized (BookingHolds.class) {
+				holds = defaultHolds;
+				if (holds == null) {
+					long ttlHours = Long.getLong("bto.hold.ttl.hours", 168L);
+					holds = forTtl(ttlHours * 3_600_000L, 1024, System::currentTimeMillis);
+					defaultHolds = holds;
+				}
+			}
+		}
+		return holds;
+	}
+
+	/**
+	 * Replaces the shared holds, e.g. with a shorter TTL or a test clock.
+	 * Holds already started in the old wheel are dropped.
+	 * @param holds New shared holds
+	 */
+	public static void setDefault(BookingHolds holds) {
+		defaultHolds = holds;
+	}
+
+	/**
+	 * Checks whether holds are enabled.
+	 * @return false if the TTL is 0 or less
+	 */
+	public boolean isEnabled() {
+		return this.ttlMillis > 0;
+	}
+
+	/**
+	 * Starts (or restarts) the hold of a Successful applicant.
+	 * @param project Project the applicant was successful in
+	 * @param applicant The applicant, with a non-null NRIC
+	 */
+	synchronized void start(Project project, Applicant applicant) {
+		if (!isEnabled()) return;
+		start(project, applicant, this.clock.getAsLong() + this.ttlMillis);
+	}
+
+	/**
+	 * Starts (or restarts) the hold of a Successful applicant with a given deadline, e.g. one
+	 * saved in an earlier session. A deadline already past expires at the next advance().
+	 * @param project Project the applicant was successful in
+	 * @param applicant The applicant, with a non-null NRIC
+	 * @param deadline Deadline in milliseconds since the epoch
+	 */
+	synchronized void start(Project project, Applicant applicant, long deadline) {
+		if (!isEnabled()) return;
+		Key key = new Key(project, applicant.getNric());
+		Hold old = this.holds.remove(key);
+		if (old != null) unlink(old);
+		long deadlineTick = Math.max((deadline + this.tickMillis - 1) / this.tickMillis, this.currentTick + 1);
+		Hold hold = new Hold(key, applicant, deadline, deadlineTick);
+		this.holds.put(key, hold);
+		link(hold);
+	}
+
+	/**
+	 * Ends a hold, e.g. because the applicant booked or withdrew.
+	 * @param project The project
+	 * @param nric Applicant NRIC
+	 * @return true if there was a hold
+	 */
+	synchronized boolean cancel(Project project, String nric) {
+		if (this.holds.isEmpty()) return false;
+		Hold hold = this.holds.remove(new Key(project, nric));
+		if (hold == null) return false;
+		unlink(hold);
+		return true;
+	}
+
+	/**
+	 * Gets the deadline of an applicant's hold.
+	 * @param project The project
+	 * @param nric Applicant NRIC
+	 * @return Deadline in milliseconds since the epoch, or -1 if the applicant has no hold
+	 */
+	public synchronized long getDeadline(Project project, String nric) {
+		Hold hold = this.holds.get(new Key(project, nric));
+		return (hold != null) ? hold.deadline : -1;
+	}
+
+	/**
+	 * Checks whether an applicant's hold has passed its deadline (whether or not the wheel
+	 * has expired it yet).
+	 * @param project The project
+	 * @param nric Applicant NRIC
+	 * @return true if the applicant has a hold and it is past its deadline
+	 */
+	public synchronized boolean isPastDeadline(Project project, String nric) {
+		Hold hold = this.holds.get(new Key(project, nric));
+		return hold != null && hold.deadline <= this.clock.getAsLong();
+	}
+
+	/**
+	 * Gets the number of active holds.
+	 * @return Number of holds
+	 */
+	public synchronized int size() {
+		return this.holds.size();
+	}
+
+	/**
+	 * Moves the wheel to the current time and expires every hold that is due.
+	 * Each expired applicant gives up their place through Project.expireHold.
+	 * @return Number of holds expired
+	 */
+	public int advance() {
+		List<Hold> due = new ArrayList<>();
+		synchronized (this) {
+			long nowTick = this.clock.getAsLong() / this.tickMillis;
+			if (nowTick <= this.currentTick) return 0;
+			long steps = Math.min(nowTick - this.currentTick, this.buckets.length);
+			for (long step = 1; step <= steps; step++) {
+				int bucket = (int) ((this.currentTick + step) % this.buckets.length);
+				Hold hold = this.buckets[bucket];
+				while (hold != null) {
+					Hold next = hold.next;
+					if (hold.deadlineTick <= nowTick) { // Later laps of the wheel stay put
+						unlink(hold);
+						this.holds.remove(hold.key);
+						due.add(hold);
+					}
+					hold = next;
+				}
+			}
+			this.currentTick = nowTick;
+		}
+		// Outside the lock: expiring takes the project's locks and may start a hold for a promoted applicant
+		int expired = 0;
+		for (Hold hold : due) {
+			if (hold.key.project.expireHold(hold.applicant)) expired++;
+		}
+		return expired;
+	}
+
+	private void link(Hold hold) {
+		int bucket = (int) (hold.deadlineTick % this.buckets.length);
+		hold.prev = null;
+		hold.next = this.buckets[bucket];
+		if (hold.next != null) hold.next.prev = hold;
+		this.buckets[bucket] = hold;
+	}
+
+	private void unlink(Hold hold) {
+		int bucket = (int) (hold.deadlineTick % this.buckets.length);
+		if (hold.prev != null) hold.prev.next = hold.next; else this.buckets[bucket] = hold.next;
+		if (hold.next != null) hold.next.prev = hold.prev;
+		hold.prev = null;
+		hold.next = null;
+	}
+}
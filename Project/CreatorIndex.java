@@ -0,0 +1,161 @@
+package Project;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of projects by the manager who created them, with running totals of each manager's
+ * pending work, so a manager's projects are listed in the size of the answer and the
+ * manager's dashboard is read in constant time instead of a scan of every project.
+ *
+ * For each project the index remembers its creator and how many pending applications,
+ * pending withdrawal requests and pending officer registrations it last counted there; the
+ * creator's totals are the sums of those counts. A project is re-counted on its own, with
+ * Project's constant-time counters, whenever its creator or one of those counts may have
+ * changed (Project calls update on the index of its catalogue), and only the difference is
+ * added to its creator's totals.
+ *
+ * The index is owned by a ProjectCatalogue (see ProjectCatalogue.getCreators), which adds
+ * and removes projects as they join and leave it. Creator names match exactly, as in
+ * Project's ownership checks. A manager's totals are read under the same lock as the
+ * updates, so a dashboard never shows a project's counts moved only half way.
+ */
+public class CreatorIndex {
+
+	/**
+	 * Counts of one manager's projects and of the work waiting on them.
+	 */
+	public static final class Workload {
+		private final int projects;
+		private final int pendingApplications;
+		private final int pendingWithdrawals;
+		private final int pendingOfficers;
+
+		Workload(int projects, int pendingApplications, int pendingWithdrawals, int pendingOfficers) {
+			this.projects = projects;
+			this.pendingApplications = pendingApplications;
+			this.pendingWithdrawals = pendingWithdrawals;
+			this.pendingOfficers = pendingOfficers;
+		}
+
+		/** @return Number of projects the manager created */
+		public int getProjectCount() { return this.projects; }
+
+		/** @return Applications still Pending in those projects */
+		public int getPendingApplications() { return this.pendingApplications; }
+
+		/** @return Withdrawal requests waiting for a decision in those projects */
+		public int getPendingWithdrawals() { return this.pendingWithdrawals; }
+
+		/** @return Officer registrations waiting for approval in those projects */
+		public int getPendingOfficerRegistrations() { return this.pendingOfficers; }
+
+		/** @return true if nothing is waiting for the manager */
+		public boolean isIdle() {
+			return this.pendingApplications == 0 && this.pendingWithdrawals == 0 && this.pendingOfficers == 0;
+		}
+	}
+
+	private static final class Creator {
+		final Set<Project> projects = new LinkedHashSet<>();
+		int pendingApplications;
+		int pendingWithdrawals;
+		int pendingOfficers;
+	}
+
+	private static final class Entry {
+		String creator;
+		int pendingApplications;
+		int pendingWithdrawals;
+		int pendingOfficers;
+	}
+
+	private final Map<Project, Entry> entries = new IdentityHashMap<>();
+	private final Map<String, Creator> creators = new HashMap<>();
+
+	/**
+	 * Creates an empty index. Projects are added by the ProjectCatalogue that owns it.
+	 */
+	CreatorIndex() {
+	}
+
+	/**
+	 * Lists the projects a manager created, in the order they were indexed.
+	 * @param creatorName Manager's name
+	 * @return New list of projects
+	 */
+	public synchronized List<Project> getProjects(String creatorName) {
+		Creator creator = this.creators.get(creatorName);
+		return (creator != null) ? new ArrayList<>(creator.projects) : new ArrayList<>();
+	}
+
+	/**
+	 * Counts a manager's projects and the work waiting on them.
+	 * @param creatorName Manager's name
+	 * @return The counts (all zero for a manager with no projects)
+	 */
+	public synchronized Workload getWorkload(String creatorName) {
+		Creator creator = this.creators.get(creatorName);
+		if (creator == null) return new Workload(0, 0, 0, 0);
+		return new Workload(creator.projects.size(), creator.pendingApplications, creator.pendingWithdrawals, creator.pendingOfficers);
+	}
+
+	/**
+	 * Re-files a project under its current creator and re-counts its pending work, adding it
+	 * if needed. Called by Project, and by ProjectCatalogue.update.
+	 * @param project The project
+	 */
+	synchronized void update(Project project) {
+		Entry entry = this.entries.get(project);
+		if (entry == null) {
+			entry = new Entry();
+			this.entries.put(project, entry);
+		}
+		String creatorName = project.getCreatorName();
+		if (entry.creator == null || !entry.creator.equals(creatorName)) {
+			if (entry.creator != null) detach(entry, project);
+			entry.creator = creatorName;
+			entry.pendingApplications = 0;
+			entry.pendingWithdrawals = 0;
+			entry.pendingOfficers = 0;
+			if (creatorName != null) this.creators.computeIfAbsent(creatorName, k -> new Creator()).projects.add(project);
+		}
+		Creator creator = (creatorName != null) ? this.creators.get(creatorName) : null;
+		if (creator == null) return;
+
+		int applications = project.getApplicantCount(ApplicationState.PENDING);
+		int withdrawals = project.getApplicantCount(ApplicationState.WITHDRAW_REQUESTED);
+		int officers = project.getPendingOfficerCount();
+		creator.pendingApplications += applications - entry.pendingApplications;
+		creator.pendingWithdrawals += withdrawals - entry.pendingWithdrawals;
+		creator.pendingOfficers += officers - entry.pendingOfficers;
+		entry.pendingApplications = applications;
+		entry.pendingWithdrawals = withdrawals;
+		entry.pendingOfficers = officers;
+	}
+
+	/**
+	 * Removes a project and its pending work from its creator. Called by ProjectCatalogue.remove.
+	 * @param project The project
+	 */
+	synchronized void remove(Project project) {
+		Entry entry = this.entries.remove(project);
+		if (entry != null && entry.creator != null) detach(entry, project);
+	}
+
+	// Takes a project and its counts away from the creator it was filed under
+	private void detach(Entry entry, Project project) {
+		Creator creator = this.creators.get(entry.creator);
+		if (creator == null) return;
+		creator.projects.remove(project);
+		creator.pendingApplications -= entry.pendingApplications;
+		creator.pendingWithdrawals -= entry.pendingWithdrawals;
+		creator.pendingOfficers -= entry.pendingOfficers;
+		if (creator.projects.isEmpty()) this.creators.remove(entry.creator);
+	}
+}
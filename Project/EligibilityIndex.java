@@ -0,0 +1,293 @@
+package Project;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Index of visible projects by who may apply to them and where they are, so listing the
+ * projects open to an applicant, or those in a neighbourhood, costs the size of the answer
+ * instead of a scan of every project.
+ *
+ * Visible projects are bucketed four ways: all of them (for enquiries), per flat type with
+ * units in stock, per rule of the EligibilityPolicy with a flat type in stock that the
+ * rule allows, and per neighbourhood (matched ignoring case and surrounding spaces). Their
+ * application periods are also kept in an IntervalIndex, so the facet counts (see Facets)
+ * never scan the projects either. Each project is re-bucketed on its own whenever its
+ * visibility, neighbourhood, application period or inventory changes (Project calls update
+ * for every index holding it), which looks only at that project's flat types.
+ *
+ * The application's index is kept by its ProjectCatalogue, which adds and removes projects
+ * as they join and leave it. Buckets keep the order projects were added in. Reads and
+ * re-bucketing share one lock, so a listing never has a project in some buckets and not yet
+ * in others.
+ */
+public class EligibilityIndex {
+
+	/**
+	 * Counts of the visible projects by neighbourhood, by flat type in stock, and by whether
+	 * their application period is open on a given day.
+	 */
+	public static final class Facets {
+		private final Map<String, Integer> neighbourhoods;
+		private final Map<String, Integer> flatTypes;
+		private final int visible;
+		private final int open;
+
+		Facets(Map<String, Integer> neighbourhoods, Map<String, Integer> flatTypes, int visible, int open) {
+			this.neighbourhoods = Collections.unmodifiableMap(neighbourhoods);
+			this.flatTypes = Collections.unmodifiableMap(flatTypes);
+			this.visible = visible;
+			this.open = open;
+		}
+
+		/** @return Visible projects per neighbourhood, by neighbourhood name ignoring case */
+		public Map<String, Integer> getNeighbourhoodCounts() { return this.neighbourhoods; }
+
+		/** @return Visible projects with units available, per flat type name, in flat type order */
+		public Map<String, Integer> getFlatTypeCounts() { return this.flatTypes; }
+
+		/** @return Number of visible projects */
+		public int getVisibleCount() { return this.visible; }
+
+		/** @return Visible projects open for applications on the day the facets were counted for */
+		public int getOpenCount() { return this.open; }
+
+		/** @return Visible projects not open on that day (closed, not yet open, or without dates) */
+		public int getClosedCount() { return this.visible - this.open; }
+	}
+
+	private static final class Entry {
+		boolean visible;
+		String neighbourhood; // Normalized key, null until the project is first visible
+		LocalDate opening;
+		LocalDate closing;
+		boolean[] inStock = new boolean[0]; // By flat type ordinal
+		boolean[] admitted; // By policy rule
+	}
+
+	private final EligibilityPolicy policy;
+	private final Map<Project, Entry> entries = new IdentityHashMap<>();
+	private final Set<Project> visible = new LinkedHashSet<>();
+	private final List<Set<Project>> byType = new ArrayList<>();
+	private final List<Set<Project>> byRule = new ArrayList<>();
+	private final Map<String, Set<Project>> byNeighbourhood = new HashMap<>();
+	private final IntervalIndex<Project> windows = new IntervalIndex<>(); // Application periods of visible projects
+
+	/**
+	 * Creates an empty index. Projects join it with Project.addToEligibilityIndex; the
+	 * application's index is owned by its ProjectCatalogue (see getEligibility there).
+	 * @param policy Policy whose rules the projects are bucketed by
+	 */
+	public EligibilityIndex(EligibilityPolicy policy) {
+		this.policy = policy;
+		for (int i = 0; i < policy.ruleCount(); i++) this.byRule.add(new LinkedHashSet<>());
+	}
+
+	/**
+	 * Lists the visible projects.
+	 * @return New list of visible projects
+	 */
+	public synchronized List<Project> getVisible() {
+		return new ArrayList<>(this.visible);
+	}
+
+	/**
+	 * Lists the visible projects with units of a flat type available.
+	 * @param type Flat type
+	 * @return New list of projects
+	 */
+	public synchronized List<Project> getInStock(FlatType type) {
+		if (type == null || type.ordinal() >= this.byType.size()) return new ArrayList<>();
+		return new ArrayList<>(this.byType.get(type.ordinal()));
+	}
+
+	/**
+	 * Lists the visible projects with units available of a flat type a policy rule allows.
+	 * @param rule Rule index (see EligibilityPolicy.ruleFor), or -1 for none
+	 * @return New list of projects (empty for -1)
+	 */
+	public synchronized List<Project> getAvailableFor(int rule) {
+		if (rule < 0 || rule >= this.byRule.size()) return new ArrayList<>();
+		return new ArrayList<>(this.byRule.get(rule));
+	}
+
+	/**
+	 * Lists the visible projects in a neighbourhood.
+	 * @param neighbourhood Neighbourhood name, in any case
+	 * @return New list of projects
+	 */
+	public synchronized List<Project> getVisibleIn(String neighbourhood) {
+		Set<Project> bucket = this.byNeighbourhood.get(neighbourhoodKey(neighbourhood));
+		return (bucket != null) ? new ArrayList<>(bucket) : new ArrayList<>();
+	}
+
+	/**
+	 * Counts the visible projects in a neighbourhood.
+	 * @param neighbourhood Neighbourhood name, in any case
+	 * @return Number of projects
+	 */
+	public synchronized int countVisibleIn(String neighbourhood) {
+		Set<Project> bucket = this.byNeighbourhood.get(neighbourhoodKey(neighbourhood));
+		return (bucket != null) ? bucket.size() : 0;
+	}
+
+	/**
+	 * Lists the visible projects open for applications on a day.
+	 * @param day The day
+	 * @return New list of projects, by opening date
+	 */
+	public List<Project> getVisibleOpenOn(LocalDate day) {
+		return this.windows.containing(day);
+	}
+
+	/**
+	 * Counts the visible projects per neighbourhood, per flat type in stock and per open or
+	 * closed application period. Neighbourhoods are named as written by the first project
+	 * indexed in each and sorted ignoring case.
+	 * @param day Day the application periods are checked against, e.g. today
+	 * @return The counts
+	 */
+	public synchronized Facets getFacets(LocalDate day) {
+		Map<String, Integer> neighbourhoods = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		for (Set<Project> bucket : this.byNeighbourhood.values()) {
+			String name = bucket.iterator().next().getNeighbourhood();
+			neighbourhoods.merge((name != null) ? name.trim() : "", bucket.size(), Integer::sum);
+		}
+		Map<String, Integer> flatTypes = new LinkedHashMap<>();
+		for (int i = 0; i < this.byType.size(); i++) {
+			if (!this.byType.get(i).isEmpty()) flatTypes.put(FlatType.byOrdinal(i).getName(), this.byType.get(i).size());
+		}
+		int open = (day != null) ? this.windows.containing(day).size() : 0;
+		return new Facets(neighbourhoods, flatTypes, this.visible.size(), open);
+	}
+
+	/**
+	 * Gets the policy the projects are bucketed by.
+	 * @return The policy
+	 */
+	public EligibilityPolicy getPolicy() {
+		return this.policy;
+	}
+
+	/**
+	 * Gets the number of projects indexed, visible or not.
+	 * @return Number of projects
+	 */
+	public synchronized int size() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Checks whether a project is indexed.
+	 * @param project Project to look for
+	 * @return true if indexed
+	 */
+	public synchronized boolean contains(Project project) {
+		return this.entries.containsKey(project);
+	}
+
+	/**
+	 * Re-buckets a project from its current visibility and inventory, adding it if needed.
+	 * Called by Project for every index holding it.
+	 * @param project The project
+	 */
+	synchronized void update(Project project) {
+		Entry entry = this.entries.get(project);
+		boolean added = (entry == null);
+		if (added) {
+			entry = new Entry();
+			entry.admitted = new boolean[this.byRule.size()];
+			this.entries.put(project, entry);
+		}
+		boolean nowVisible = Boolean.TRUE.equals(project.getVisibility());
+		boolean wasVisible = entry.visible;
+		if (nowVisible != wasVisible) {
+			entry.visible = nowVisible;
+			toggle(this.visible, project, nowVisible);
+		}
+
+		String neighbourhood = nowVisible ? neighbourhoodKey(project.getNeighbourhood()) : null;
+		if (!Objects.equals(neighbourhood, entry.neighbourhood)) {
+			if (entry.neighbourhood != null) removeFromBucket(this.byNeighbourhood, entry.neighbourhood, project);
+			if (neighbourhood != null) this.byNeighbourhood.computeIfAbsent(neighbourhood, k -> new LinkedHashSet<>()).add(project);
+			entry.neighbourhood = neighbourhood;
+		}
+		LocalDate opening = project.getAppOpeningDate();
+		LocalDate closing = project.getAppClosingDate();
+		if (!nowVisible) {
+			if (wasVisible) this.windows.remove(project);
+		} else if (!wasVisible || !Objects.equals(opening, entry.opening) || !Objects.equals(closing, entry.closing)) {
+			this.windows.put(project, opening, closing);
+		}
+		entry.opening = opening;
+		entry.closing = closing;
+
+		int typeCount = FlatType.count();
+		if (entry.inStock.length < typeCount) entry.inStock = Arrays.copyOf(entry.inStock, typeCount);
+		while (this.byType.size() < typeCount) this.byType.add(new LinkedHashSet<>());
+		boolean[] admitted = new boolean[entry.admitted.length];
+		for (int i = 0; i < typeCount; i++) {
+			FlatType type = FlatType.byOrdinal(i);
+			boolean stocked = nowVisible && project.getTotalUnits(type) > 0 && project.getAvailableUnits(type) > 0;
+			if (stocked != entry.inStock[i]) {
+				entry.inStock[i] = stocked;
+				toggle(this.byType.get(i), project, stocked);
+			}
+			if (!stocked) continue;
+			for (int r = 0; r < admitted.length; r++) {
+				if (this.policy.admits(r, type)) admitted[r] = true;
+			}
+		}
+		for (int r = 0; r < admitted.length; r++) {
+			if (admitted[r] != entry.admitted[r]) {
+				entry.admitted[r] = admitted[r];
+				toggle(this.byRule.get(r), project, admitted[r]);
+			}
+		}
+	}
+
+	/**
+	 * Takes a project out of every bucket.
+	 * Called by Project.removeFromEligibilityIndex.
+	 * @param project The project
+	 * @return true if the project was indexed
+	 */
+	synchronized boolean remove(Project project) {
+		Entry entry = this.entries.remove(project);
+		if (entry == null) return false;
+		this.visible.remove(project);
+		if (entry.neighbourhood != null) removeFromBucket(this.byNeighbourhood, entry.neighbourhood, project);
+		this.windows.remove(project);
+		for (Set<Project> bucket : this.byType) bucket.remove(project);
+		for (Set<Project> bucket : this.byRule) bucket.remove(project);
+		return true;
+	}
+
+	private static void toggle(Set<Project> bucket, Project project, boolean member) {
+		if (member) bucket.add(project); else bucket.remove(project);
+	}
+
+	private static void removeFromBucket(Map<String, Set<Project>> buckets, String key, Project project) {
+		Set<Project> bucket = buckets.get(key);
+		if (bucket == null) return;
+		bucket.remove(project);
+		if (bucket.isEmpty()) buckets.remove(key);
+	}
+
+	// Neighbourhood names match ignoring case and surrounding spaces
+	private static String neighbourhoodKey(String neighbourhood) {
+		return (neighbourhood != null) ? neighbourhood.trim().toLowerCase(Locale.ROOT) : "";
+	}
+}
@@ -0,0 +1,294 @@
+package Project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Who may apply for which flat types, as a list of rules loaded from eligibility_policy.csv.
+ *
+ * Each rule matches a marital status and an age band and names the flat types its applicants
+ * may apply for ("*" for every type), plus a quota: the share of each flat type's units, in
+ * percent, that applicants matched by the rule may hold at once (Successful or Booked). Rules
+ * are tried in file order and the first match applies; an applicant matched by no rule may
+ * not apply at all. The default policy is the original one: singles aged 35 and above may
+ * apply for 2-Room flats, married applicants aged 21 and above for any flat type.
+ *
+ * The rules are compiled once into a lookup table. An applicant's marital status and age are
+ * encoded as one int (see encode), which indexes the rule that matches them; a rule's flat
+ * types are a bitmask over FlatType ordinals. Checking eligibility is then two array reads
+ * and a bit test, with no string comparisons. Policies are immutable; a new policy replaces
+ * the default with setDefault.
+ */
+public class EligibilityPolicy {
+
+	/** Ages above this are treated as this age when encoding */
+	public static final int MAX_AGE = 127;
+	private static final int AGE_SLOTS = MAX_AGE + 1;
+	private static final long ANY_TYPE = Long.MIN_VALUE; // Top bit of a type mask: every flat type
+
+	/**
+	 * One line of the policy.
+	 */
+	public static final class Rule {
+		private final String maritalStatus;
+		private final int minAge;
+		private final int maxAge;
+		private final List<String> flatTypes; // Empty for every type
+		private final int quotaPercent;
+
+		/**
+		 * Creates a rule.
+		 * @param maritalStatus Marital status it matches, e.g. "Single"
+		 * @param minAge Lowest matching age (inclusive)
+		 * @param maxAge Highest matching age (inclusive)
+		 * @param flatTypes Names of the flat types it allows, or an empty list for every type
+		 * @param quotaPercent Share of each type's units its applicants may hold, 1 to 100
+		 */
+		public Rule(String maritalStatus, int minAge, int maxAge, List<String> flatTypes, int quotaPercent) {
+			if (maritalStatus == null || maritalStatus.trim().isEmpty()) {
+				throw new IllegalArgumentException("Marital status cannot be empty");
+			}
+			if (minAge < 0 || maxAge < minAge) {
+				throw new IllegalArgumentException("Invalid age band " + minAge + "-" + maxAge);
+			}
+			if (quotaPercent < 1 || quotaPercent > 100) {
+				throw new IllegalArgumentException("Quota must be between 1 and 100 percent, not " + quotaPercent);
+			}
+			this.maritalStatus = maritalStatus.trim();
+			this.minAge = minAge;
+			this.maxAge = maxAge;
+			this.flatTypes = Collections.unmodifiableList(new ArrayList<>(flatTypes));
+			this.quotaPercent = quotaPercent;
+		}
+
+		/** @return Marital status the rule matches */
+		public String getMaritalStatus() { return this.maritalStatus; }
+
+		/** @return Lowest matching age */
+		public int getMinAge() { return this.minAge; }
+
+		/** @return Highest matching age */
+		public int getMaxAge() { return this.maxAge; }
+
+		/** @return Allowed flat type names, empty for every type */
+		public List<String> getFlatTypes() { return this.flatTypes; }
+
+		/** @return Share of each flat type's units the rule's applicants may hold, in percent */
+		public int getQuotaPercent() { return this.quotaPercent; }
+
+		/**
+		 * Describes who the rule matches, e.g. "Single, 35+".
+		 * @return The description
+		 */
+		public String describeApplicants() {
+			String ages = (this.maxAge >= MAX_AGE) ? this.minAge + "+" : this.minAge + "-" + this.maxAge;
+			return this.maritalStatus + ", " + ages;
+		}
+
+		/**
+		 * Describes the flat types the rule allows, e.g. "2-Room" or "any".
+		 * @return The description
+		 */
+		public String describeFlatTypes() {
+			return this.flatTypes.isEmpty() ? "any" : String.join(" or ", this.flatTypes);
+		}
+
+		/**
+		 * Describes the limit the rule sets, e.g. "Applicants (Single, 35+) can only apply for 2-Room flats."
+		 * @return The description
+		 */
+		public String describeLimit() {
+			return "Applicants (" + describeApplicants() + ") can only apply for " + describeFlatTypes() + " flats.";
+		}
+	}
+
+	private static final String HEADER = "MaritalStatus,MinAge,MaxAge,FlatTypes,QuotaPercent";
+	private static volatile EligibilityPolicy defaultPolicy;
+
+	private final List<Rule> rules;
+	private final Map<String, Integer> statusCodes = new HashMap<>(); // Marital status -> code from 1; 0 matches no rule
+	private final int[] ruleByKey; // Encoded applicant -> index of the first matching rule, or -1
+	private final long[] typeMasks; // Rule index -> allowed flat type ordinals (ANY_TYPE for every type)
+
+	/**
+	 * Compiles a policy.
+	 * @param rules Rules, in the order they are tried
+	 */
+	public EligibilityPolicy(List<Rule> rules) {
+		this.rules = Collections.unmodifiableList(new ArrayList<>(rules));
+		for (Rule rule : this.rules) {
+			this.statusCodes.putIfAbsent(rule.maritalStatus, this.statusCodes.size() + 1);
+		}
+		this.ruleByKey = new int[(this.statusCodes.size() + 1) * AGE_SLOTS];
+		Arrays.fill(this.ruleByKey, -1);
+		this.typeMasks = new long[this.rules.size()];
+		for (int r = this.rules.size() - 1; r >= 0; r--) { // Backwards, so earlier rules win
+			Rule rule = this.rules.get(r);
+			int base = this.statusCodes.get(rule.maritalStatus) * AGE_SLOTS;
+			for (int age = rule.minAge; age <= Math.min(rule.maxAge, MAX_AGE); age++) this.ruleByKey[base + age] = r;
+			this.typeMasks[r] = compileTypes(rule);
+		}
+	}
+
+	/**
+	 * Gets the policy used by the application, the original rules unless replaced.
+	 * @return The policy
+	 */
+	public static EligibilityPolicy getDefault() {
+		EligibilityPolicy policy = defaultPolicy;
+		if (policy == null) {
+			synchronized (EligibilityPolicy.class) {
+				policy = defaultPolicy;
+				if (policy == null) {
+					policy = builtIn();
+					defaultPolicy = policy;
+				}
+			}
+		}
+		return policy;
+	}
+
+	/**
+	 * Replaces the policy used by the application, e.g. with one loaded from eligibility_policy.csv.
+	 * @param policy New policy
+	 */
+	public static void setDefault(EligibilityPolicy policy) {
+		defaultPolicy = policy;
+	}
+
+	/**
+	 * Builds the original policy: Single 35+ may take 2-Room flats, Married 21+ any flat type.
+	 * @return The policy
+	 */
+	public static EligibilityPolicy builtIn() {
+		List<Rule> rules = new ArrayList<>();
+		rules.add(new Rule("Single", 35, MAX_AGE, Collections.singletonList(FlatType.TWO_ROOM.getName()), 100));
+		rules.add(new Rule("Married", 21, MAX_AGE, Collections.emptyList(), 100));
+		return new EligibilityPolicy(rules);
+	}
+
+	/**
+	 * Parses the lines of eligibility_policy.csv: a header, then one rule per line as
+	 * MaritalStatus,MinAge,MaxAge,FlatTypes,QuotaPercent. FlatTypes is a ';'-separated list of
+	 * type names or "*"; MaxAge and QuotaPercent may be left empty (no upper age, 100 percent).
+	 * Blank lines are skipped. Flat types named here are registered if they are new.
+	 * @param lines File contents
+	 * @return The compiled policy
+	 * @throws IllegalArgumentException If a line is malformed, with its line number
+	 */
+	public static EligibilityPolicy parse(List<String> lines) {
+		List<Rule> rules = new ArrayList<>();
+		for (int i = 0; i < lines.size(); i++) {
+			String line = lines.get(i).trim();
+			if (line.isEmpty() || (i == 0 && line.equalsIgnoreCase(HEADER))) continue;
+			String[] fields = line.split(",", -1);
+			try {
+				if (fields.length < 4) throw new IllegalArgumentException("expected at least 4 fields");
+				int minAge = Integer.parseInt(fields[1].trim());
+				int maxAge = fields[2].trim().isEmpty() ? MAX_AGE : Integer.parseInt(fields[2].trim());
+				List<String> types = new ArrayList<>();
+				if (!fields[3].trim().equals("*")) {
+					for (String name : fields[3].split(";")) {
+						if (!name.trim().isEmpty()) types.add(FlatType.register(name).getName());
+					}
+					if (types.isEmpty()) throw new IllegalArgumentException("no flat types");
+				}
+				int quota = (fields.length < 5 || fields[4].trim().isEmpty()) ? 100 : Integer.parseInt(fields[4].trim());
+				rules.add(new Rule(fields[0], minAge, maxAge, types, quota));
+			} catch (IllegalArgumentException e) { // Includes NumberFormatException
+				throw new IllegalArgumentException("Eligibility policy line " + (i + 1) + ": " + e.getMessage(), e);
+			}
+		}
+		return new EligibilityPolicy(rules);
+	}
+
+	/**
+	 * Encodes an applicant's marital status and age for this policy.
+	 * The key stays valid for as long as the policy and the applicant's details do.
+	 * @param maritalStatus Marital status
+	 * @param age Age in years
+	 * @return The key
+	 */
+	public int encode(String maritalStatus, int age) {
+		Integer code = (maritalStatus != null) ? this.statusCodes.get(maritalStatus.trim()) : null;
+		int clamped = Math.max(0, Math.min(age, MAX_AGE));
+		return ((code != null) ? code : 0) * AGE_SLOTS + clamped;
+	}
+
+	/**
+	 * Gets the rule that applies to an encoded applicant.
+	 * @param key Key from encode
+	 * @return Rule index, or -1 if the applicant may not apply at all
+	 */
+	public int ruleFor(int key) {
+		return this.ruleByKey[key];
+	}
+
+	/**
+	 * Checks whether a rule allows a flat type.
+	 * @param rule Rule index, or -1
+	 * @param type Flat type
+	 * @return true if eligible
+	 */
+	public boolean admits(int rule, FlatType type) {
+		if (rule < 0 || type == null) return false;
+		long mask = this.typeMasks[rule];
+		return mask < 0 || (type.ordinal() < 63 && (mask & (1L << type.ordinal())) != 0);
+	}
+
+	/**
+	 * Gets the number of rules.
+	 * @return Number of rules; indexes are 0 to ruleCount() - 1
+	 */
+	public int ruleCount() {
+		return this.rules.size();
+	}
+
+	/**
+	 * Gets a rule.
+	 * @param rule Rule index
+	 * @return The rule
+	 */
+	public Rule getRule(int rule) {
+		return this.rules.get(rule);
+	}
+
+	/**
+	 * Gets the most units of a flat type that the applicants of a rule may hold at once.
+	 * @param rule Rule index
+	 * @param totalUnits Total units of the type in the project
+	 * @return The cap; totalUnits when the quota is 100 percent
+	 */
+	public int quotaFor(int rule, int totalUnits) {
+		return (int) ((long) totalUnits * this.rules.get(rule).quotaPercent / 100);
+	}
+
+	/**
+	 * Checks whether any rule has a quota below 100 percent.
+	 * @return true if quotas need counting
+	 */
+	public boolean hasQuotas() {
+		for (Rule rule : this.rules) {
+			if (rule.quotaPercent < 100) return true;
+		}
+		return false;
+	}
+
+	// Bitmask of the flat type ordinals a rule allows
+	private static long compileTypes(Rule rule) {
+		if (rule.flatTypes.isEmpty()) return ANY_TYPE;
+		long mask = 0;
+		for (String name : rule.flatTypes) {
+			FlatType type = FlatType.register(name);
+			if (type.ordinal() >= 63) {
+				throw new IllegalArgumentException("Eligibility rules can name at most 63 flat types");
+			}
+			mask |= 1L << type.ordinal();
+		}
+		return mask;
+	}
+}
@@ -0,0 +1,223 @@
+package Project;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe flat inventory of one project: total units, available units and selling price
+ * per flat type, indexed by FlatType ordinal.
+ *
+ * Units are taken with claim() and given back with release(). Both are lock-free
+ * compare-and-set loops on the type's available counter, so several officers booking at
+ * once can never take more units than are available, and a release can never push the
+ * counter above the type's total. A caller that claims a unit owns it until it either
+ * records the booking or releases it again.
+ *
+ * Each type also has a UnitMap recording which individual units are taken, so a booking
+ * can be given a specific unit. The counters stay the authority on how many units may be
+ * booked; the unit map only says which ones are.
+ *
+ * Each type's counters live in their own slot object. Registering a new flat type grows
+ * the slot array by copying the references, so a claim racing with the growth still
+ * lands on the same counter.
+ */
+public class FlatInventory {
+
+	private static final class Slot {
+		final AtomicInteger available = new AtomicInteger();
+		volatile int total;
+		volatile int price;
+		volatile UnitMap units = UnitMap.forTotal(0);
+	}
+
+	private volatile Slot[] slots;
+
+	/**
+	 * Creates an empty inventory covering every flat type registered so far.
+	 */
+	public FlatInventory() {
+		this.slots = newSlots(new Slot[0], FlatType.count());
+	}
+
+	/**
+	 * Takes one available unit of a type, if there is one.
+	 * @param type Flat type
+	 * @return true if a unit was taken; false if none are available
+	 */
+	public boolean claim(FlatType type) {
+		AtomicInteger available = slot(type).available;
+		while (true) {
+			int current = available.get();
+			if (current <= 0) return false;
+			if (available.compareAndSet(current, current - 1)) return true;
+		}
+	}
+
+	/**
+	 * Returns one unit of a type taken earlier with claim().
+	 * @param type Flat type
+	 * @return true if the unit was returned; false if the type was already at its total
+	 *         (the unit was never claimed, or was released twice)
+	 */
+	public boolean release(FlatType type) {
+		Slot slot = slot(type);
+		while (true) {
+			int current = slot.available.get();
+			if (current >= slot.total) return false;
+			if (slot.available.compareAndSet(current, current + 1)) return true;
+		}
+	}
+
+	/**
+	 * Gets the number of available units of a type.
+	 * @param type Flat type
+	 * @return Available units, 0 if the type is not offered
+	 */
+	public int getAvailable(FlatType type) {
+		Slot[] current = this.slots;
+		return (type.ordinal() < current.length) ? current[type.ordinal()].available.get() : 0;
+	}
+
+	/**
+	 * Gets the number of units of a type offered at launch.
+	 * @param type Flat type
+	 * @return Total units, 0 if the type is not offered
+	 */
+	public int getTotal(FlatType type) {
+		Slot[] current = this.slots;
+		return (type.ordinal() < current.length) ? current[type.ordinal()].total : 0;
+	}
+
+	/**
+	 * Gets the selling price of a type.
+	 * @param type Flat type
+	 * @return The price, 0 if none is set
+	 */
+	public int getPrice(FlatType type) {
+		Slot[] current = this.slots;
+		return (type.ordinal() < current.length) ? current[type.ordinal()].price : 0;
+	}
+
+	/**
+	 * Sets the number of units of a type offered at launch. Does not change the available count.
+	 * The unit map is resized to match, keeping its layout; like setAvailable, this is not
+	 * meant to run while units are being booked. A total that would drop a taken unit (one
+	 * held by a booked applicant) is refused, so no booking is left holding a unit that no
+	 * longer exists.
+	 * @param type Flat type
+	 * @param total Total units
+	 * @return true if the total was set; false if it is below a taken unit
+	 */
+	public boolean setTotal(FlatType type, int total) {
+		Slot slot = slot(type);
+		synchronized (slot) {
+			int units = Math.max(0, total);
+			if (slot.units.highestTaken() >= units) return false;
+			if (slot.units.getTotal() != units) slot.units = slot.units.resize(units);
+			slot.total = total;
+			return true;
+		}
+	}
+
+	/**
+	 * Sets the number of units of a type as setTotal does, then makes every unit the unit map
+	 * has free available, e.g. when a manager edits a launched project. Units held by booked
+	 * applicants stay taken, so the count never offers a unit that cannot be booked.
+	 * Not meant to run while units are being booked.
+	 * @param type Flat type
+	 * @param total Total units
+	 * @return true if the total was set; false if it is below a taken unit
+	 */
+	public boolean resize(FlatType type, int total) {
+		Slot slot = slot(type);
+		synchronized (slot) {
+			if (!setTotal(type, total)) return false;
+			slot.available.set(slot.units.countFree());
+			return true;
+		}
+	}
+
+	/**
+	 * Gets the smallest total a type can be set to without dropping a taken unit.
+	 * @param type Flat type
+	 * @return One more than the highest taken unit index, 0 if none are taken
+	 */
+	public int getMinimumTotal(FlatType type) {
+		return slot(type).units.highestTaken() + 1;
+	}
+
+	/**
+	 * Gets the unit map of a type.
+	 * @param type Flat type
+	 * @return The unit map (no units if the type is not offered)
+	 */
+	public UnitMap getUnits(FlatType type) {
+		return slot(type).units;
+	}
+
+	/**
+	 * Replaces the layout of a type's units (see UnitMap.getLayout), e.g. when loading.
+	 * Only allowed while none of the type's units are taken.
+	 * @param type Flat type
+	 * @param layout Layout such as "2x12x4"
+	 * @return true if the layout was applied; false if it is malformed, too small, or units are taken
+	 */
+	public boolean setLayout(FlatType type, String layout) {
+		Slot slot = slot(type);
+		synchronized (slot) {
+			UnitMap units = UnitMap.parseLayout(layout, slot.units.getTotal());
+			if (units == null || slot.units.countFree() != slot.units.getTotal()) return false;
+			slot.units = units;
+			return true;
+		}
+	}
+
+	/**
+	 * Overwrites the available count of a type, e.g. when loading or when a manager edits
+	 * the project. Not meant for bookings; use claim() and release().
+	 * @param type Flat type
+	 * @param available Available units
+	 */
+	public void setAvailable(FlatType type, int available) {
+		slot(type).available.set(available);
+	}
+
+	/**
+	 * Sets the selling price of a type.
+	 * @param type Flat type
+	 * @param price Price
+	 */
+	public void setPrice(FlatType type, int price) {
+		slot(type).price = price;
+	}
+
+	/**
+	 * Gets the number of slots, i.e. the flat types this inventory covers.
+	 * @return Number of slots; ordinals 0 to size() - 1 are covered
+	 */
+	public int size() {
+		return this.slots.length;
+	}
+
+	private Slot slot(FlatType type) {
+		Slot[] current = this.slots;
+		if (type.ordinal() < current.length) return current[type.ordinal()];
+		synchronized (this) { // Type registered after this inventory was created
+			current = this.slots;
+			if (type.ordinal() >= current.length) {
+				current = newSlots(current, Math.max(type.ordinal() + 1, FlatType.count()));
+				this.slots = current;
+			}
+			return current[type.ordinal()];
+		}
+	}
+
+	private static Slot[] newSlots(Slot[] old, int size) {
+		Slot[] grown = Arrays.copyOf(old, size);
+		for (int i = old.length; i < size; i++) {
+			grown[i] = new Slot();
+			grown[i].price = FlatType.byOrdinal(i).getDefaultPrice();
+		}
+		return grown;
+	}
+}
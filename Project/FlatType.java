@@ -0,0 +1,149 @@
+package Project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A flat type offered by BTO projects (e.g. "2-Room", "4-Room", "Executive").
+ *
+ * Types form a registry: each name is registered once and gets a small ordinal, so a project
+ * can keep its unit counts in int arrays indexed by ordinal and callers can compare types by
+ * identity instead of by string. 2-Room and 3-Room are always registered (ordinals 0 and 1);
+ * any other type is registered when it is first read from project_flats.csv.
+ *
+ * Names are matched case-insensitively; the first registered spelling is kept.
+ */
+public final class FlatType {
+
+	private static final ConcurrentHashMap<String, FlatType> BY_KEY = new ConcurrentHashMap<>();
+	private static volatile FlatType[] byOrdinal = new FlatType[0];
+
+	/** 2-Room flats, the only type open to single applicants under EligibilityPolicy.builtIn */
+	public static final FlatType TWO_ROOM = register("2-Room", 350000);
+	/** 3-Room flats */
+	public static final FlatType THREE_ROOM = register("3-Room", 450000);
+
+	private final String name;
+	private final int ordinal;
+	private final int defaultPrice;
+
+	private FlatType(String name, int ordinal, int defaultPrice) {
+		this.name = name;
+		this.ordinal = ordinal;
+		this.defaultPrice = defaultPrice;
+	}
+
+	/**
+	 * Registers a flat type, or returns the existing one with the same name.
+	 * New types have no default price; who may apply for them is up to the EligibilityPolicy.
+	 * @param name Type name as written in project_flats.csv
+	 * @return The registered type
+	 * @throws IllegalArgumentException If the name is null or blank
+	 */
+	public static FlatType register(String name) {
+		return register(name, 0);
+	}
+
+	private static FlatType register(String name, int defaultPrice) {
+		if (name == null || name.trim().isEmpty()) {
+			throw new IllegalArgumentException("Flat type name cannot be empty");
+		}
+		FlatType existing = BY_KEY.get(key(name));
+		if (existing != null) return existing;
+		synchronized (BY_KEY) { // Ordinals must stay dense
+			existing = BY_KEY.get(key(name));
+			if (existing != null) return existing;
+			FlatType[] current = byOrdinal;
+			FlatType type = new FlatType(name.trim(), current.length, defaultPrice);
+			FlatType[] grown = Arrays.copyOf(current, current.length + 1);
+			grown[type.ordinal] = type;
+			byOrdinal = grown;
+			BY_KEY.put(key(name), type);
+			return type;
+		}
+	}
+
+	/**
+	 * Finds a registered flat type by name.
+	 * @param name Type name, in any case
+	 * @return The type, or null if no type of that name is registered
+	 */
+	public static FlatType lookup(String name) {
+		return (name != null) ? BY_KEY.get(key(name)) : null;
+	}
+
+	/**
+	 * Parses a flat type typed in by a user: either a registered name, or a room count
+	 * such as "4" for "4-Room".
+	 * @param input User input
+	 * @return The type, or null if the input matches no registered type
+	 */
+	public static FlatType parse(String input) {
+		FlatType type = lookup(input);
+		if (type == null && input != null && input.trim().matches("\\d+")) {
+			type = lookup(input.trim() + "-Room");
+		}
+		return type;
+	}
+
+	/**
+	 * Gets a flat type by ordinal.
+	 * @param ordinal Ordinal, from 0 to count() - 1
+	 * @return The type
+	 */
+	public static FlatType byOrdinal(int ordinal) {
+		return byOrdinal[ordinal];
+	}
+
+	/**
+	 * Gets the number of registered flat types.
+	 * @return The number of types; ordinals are 0 to count() - 1
+	 */
+	public static int count() {
+		return byOrdinal.length;
+	}
+
+	/**
+	 * Lists all registered flat types.
+	 * @return New list, in ordinal order
+	 */
+	public static List<FlatType> values() {
+		return new ArrayList<>(Arrays.asList(byOrdinal));
+	}
+
+	private static String key(String name) {
+		return name.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Gets the name of this flat type.
+	 * @return The name, e.g. "2-Room"
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Gets the ordinal of this flat type, its index in project inventories.
+	 * @return The ordinal
+	 */
+	public int ordinal() {
+		return this.ordinal;
+	}
+
+	/**
+	 * Gets the selling price used when a project does not specify one.
+	 * @return The default price, or 0 if none
+	 */
+	public int getDefaultPrice() {
+		return this.defaultPrice;
+	}
+
+	@Override
+	public String toString() {
+		return this.name;
+	}
+}
@@ -0,0 +1,239 @@
+package Project;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Index of values by an inclusive date range, e.g. projects by application period.
+ *
+ * An augmented interval tree: an AVL tree ordered by start date, where every node also
+ * records the latest end date in its subtree. Finding the ranges that overlap a period,
+ * or that contain a day, visits O(log n + k) nodes for k results, instead of checking
+ * every range.
+ *
+ * Values are compared by identity. A value whose range is incomplete (a null date) or
+ * inverted (end before start) is remembered but never matches, which is how
+ * Project.isClashing treats such ranges.
+ */
+public class IntervalIndex<T> {
+
+	private static final class Node<T> {
+		final long start;
+		final long end;
+		final long seq; // Insertion number, orders values with the same start
+		final T value;
+		long maxEnd;
+		int height = 1;
+		Node<T> left;
+		Node<T> right;
+
+		Node(long start, long end, long seq, T value) {
+			this.start = start;
+			this.end = end;
+			this.seq = seq;
+			this.value = value;
+			this.maxEnd = end;
+		}
+	}
+
+	private final Map<T, Node<T>> nodes = new IdentityHashMap<>(); // Null for values with no usable range
+	private Node<T> root;
+	private long nextSeq = 0;
+
+	/**
+	 * Adds a value, or moves it to a new range if it is already indexed.
+	 * @param value Value to index
+	 * @param start First day of the range (inclusive), may be null
+	 * @param end Last day of the range (inclusive), may be null
+	 */
+	public synchronized void put(T value, LocalDate start, LocalDate end) {
+		remove(value);
+		Node<T> node = null;
+		if (start != null && end != null && !end.isBefore(start)) {
+			node = new Node<>(start.toEpochDay(), end.toEpochDay(), nextSeq++, value);
+			root = insert(root, node);
+		}
+		nodes.put(value, node);
+	}
+
+	/**
+	 * Removes a value.
+	 * @param value Value to remove
+	 * @return true if the value was indexed
+	 */
+	public synchronized boolean remove(T value) {
+		if (!nodes.containsKey(value)) return false;
+		Node<T> node = nodes.remove(value);
+		if (node != null) root = delete(root, node.start, node.seq);
+		return true;
+	}
+
+	/**
+	 * Checks whether a value is indexed.
+	 * @param value Value to look for
+	 * @return true if indexed
+	 */
+	public synchronized boolean contains(T value) {
+		return nodes.containsKey(value);
+	}
+
+	/**
+	 * Gets the number of indexed values, including those without a usable range.
+	 * @return Number of values
+	 */
+	public synchronized int size() {
+		return nodes.size();
+	}
+
+	/**
+	 * Lists every indexed value.
+	 * @return New list, in no particular order
+	 */
+	public synchronized List<T> values() {
+		return new ArrayList<>(nodes.keySet());
+	}
+
+	/**
+	 * Lists the values whose range overlaps the given period (both ends inclusive).
+	 * @param start First day of the period
+	 * @param end Last day of the period
+	 * @return New list in start-date order; empty if the period is incomplete or inverted
+	 */
+	public synchronized List<T> overlapping(LocalDate start, LocalDate end) {
+		List<T> result = new ArrayList<>();
+		if (start == null || end == null || end.isBefore(start)) return result;
+		collect(root, start.toEpochDay(), end.toEpochDay(), result);
+		return result;
+	}
+
+	/**
+	 * Finds the first value (in start-date order) whose range overlaps the given period and
+	 * that the filter accepts, e.g. to skip the project being edited.
+	 * @param start First day of the period
+	 * @param end Last day of the period
+	 * @param filter Values to consider, or null for all
+	 * @return The value, or null if none overlaps
+	 */
+	public synchronized T firstOverlapping(LocalDate start, LocalDate end, Predicate<? super T> filter) {
+		if (start == null || end == null || end.isBefore(start)) return null;
+		return first(root, start.toEpochDay(), end.toEpochDay(), filter);
+	}
+
+	/**
+	 * Lists the values whose range contains a day, e.g. the projects open for applications on that day.
+	 * @param day The day
+	 * @return New list in start-date order
+	 */
+	public synchronized List<T> containing(LocalDate day) {
+		return overlapping(day, day);
+	}
+
+	// === Queries ===
+
+	private static <T> void collect(Node<T> node, long start, long end, List<T> out) {
+		while (node != null && node.maxEnd >= start) { // Nothing in a subtree ending before start can overlap
+			collect(node.left, start, end, out);
+			if (node.start > end) return; // This node and everything to its right starts too late
+			if (node.end >= start) out.add(node.value);
+			node = node.right;
+		}
+	}
+
+	private static <T> T first(Node<T> node, long start, long end, Predicate<? super T> filter) {
+		while (node != null && node.maxEnd >= start) {
+			T found = first(node.left, start, end, filter);
+			if (found != null) return found;
+			if (node.start > end) return null;
+			if (node.end >= start && (filter == null || filter.test(node.value))) return node.value;
+			node = node.right;
+		}
+		return null;
+	}
+
+	// === AVL maintenance ===
+
+	private static int compare(long start, long seq, Node<?> node) {
+		if (start != node.start) return Long.compare(start, node.start);
+		return Long.compare(seq, node.seq);
+	}
+
+	private static <T> Node<T> insert(Node<T> node, Node<T> added) {
+		if (node == null) return added;
+		if (compare(added.start, added.seq, node) < 0) node.left = insert(node.left, added);
+		else node.right = insert(node.right, added);
+		return balance(node);
+	}
+
+	private static <T> Node<T> delete(Node<T> node, long start, long seq) {
+		if (node == null) return null;
+		int c = compare(start, seq, node);
+		if (c < 0) {
+			node.left = delete(node.left, start, seq);
+		} else if (c > 0) {
+			node.right = delete(node.right, start, seq);
+		} else {
+			if (node.left == null) return node.right;
+			if (node.right == null) return node.left;
+			Node<T> successor = node.right;
+			while (successor.left != null) successor = successor.left;
+			successor.right = deleteMin(node.right);
+			successor.left = node.left;
+			return balance(successor);
+		}
+		return balance(node);
+	}
+
+	private static <T> Node<T> deleteMin(Node<T> node) {
+		if (node.left == null) return node.right;
+		node.left = deleteMin(node.left);
+		return balance(node);
+	}
+
+	private static int height(Node<?> node) {
+		return (node != null) ? node.height : 0;
+	}
+
+	private static <T> void update(Node<T> node) {
+		node.height = 1 + Math.max(height(node.left), height(node.right));
+		long maxEnd = node.end;
+		if (node.left != null && node.left.maxEnd > maxEnd) maxEnd = node.left.maxEnd;
+		if (node.right != null && node.right.maxEnd > maxEnd) maxEnd = node.right.maxEnd;
+		node.maxEnd = maxEnd;
+	}
+
+	private static <T> Node<T> balance(Node<T> node) {
+		update(node);
+		int skew = height(node.left) - height(node.right);
+		if (skew > 1) {
+			if (height(node.left.left) < height(node.left.right)) node.left = rotateLeft(node.left);
+			return rotateRight(node);
+		}
+		if (skew < -1) {
+			if (height(node.right.right) < height(node.right.left)) node.right = rotateRight(node.right);
+			return rotateLeft(node);
+		}
+		return node;
+	}
+
+	private static <T> Node<T> rotateRight(Node<T> node) {
+		Node<T> pivot = node.left;
+		node.left = pivot.right;
+		pivot.right = node;
+		update(node);
+		update(pivot);
+		return pivot;
+	}
+
+	private static <T> Node<T> rotateLeft(Node<T> node) {
+		Node<T> pivot = node.right;
+		node.right = pivot.left;
+		pivot.left = node;
+		update(node);
+		update(pivot);
+		return pivot;
+	}
+}
@@ -2,12 +2,13 @@ package Project;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import Actors.Applicant;
 import Actors.Officer; 
+import data.ChangeEvents;
+import data.ChangeRecord;
 
 /**
  * Represents a BTO housing project.
@@ -24,16 +25,13 @@ public class Project {
 	private List<Officer> arrOfPendingOfficers = new ArrayList<>();
 	private List<Officer> arrOfOfficers = new ArrayList<>();
 	
-	private int no2Room;
-	private int no3Room;
-	private int avalNo2Room;
-	private int avalNo3Room;
+	private final FlatInventory inventory = new FlatInventory(); //units and prices per FlatType; bookings claim units atomically
 	
-	private List<Applicant> arrOfApplicants = new ArrayList<>(); //pending applicants (not successful or unsuccessful)
-	private List<Applicant> successfulApplicants = new ArrayList<>(); //all successful applicants who haven't booked yet or haven't withdrawn yet
-	private List<Applicant> unsuccessfulApplicants = new ArrayList<>(); //all unsuccessful applicants (initially unsuccessful or successful and then withdraw)
-	private List<Applicant> bookedApplicants = new ArrayList<>(); //all successful applicants who have booked
-	private List<Applicant> withdrawRequests = new ArrayList<>(); //all successful applicants who apply for withdrawal but don't have withdrawal decision yet
+	private final List<IntervalIndex<Project>> windowIndexes = new CopyOnWriteArrayList<>(); //indexes holding this project's application period
+	private final ApplicantStates applicants = new ApplicantStates(); //every applicant, keyed by NRIC, with their ApplicationState
+	private final Waitlist waitlist = new Waitlist(); //ballot losers per FlatType, promoted when a place frees up
+	private final List<EligibilityIndex> eligibilityIndexes = new CopyOnWriteArrayList<>(); //indexes bucketing this project by who may apply
+	private volatile ProjectCatalogue catalogue; //catalogue listing this project, null if none
 	
 
 	
@@ -56,10 +54,10 @@ public class Project {
 		this.neighbourhood=neighbourhood;
 		this.appOpeningDate=appOpeningDate;
 		this.appClosingDate=appClosingDate;
-		this.no2Room=no2Room;
-		this.no3Room=no3Room;
-		this.avalNo2Room=this.no2Room;
-		this.avalNo3Room=this.no3Room;
+		this.inventory.setTotal(FlatType.TWO_ROOM, no2Room);
+		this.inventory.setTotal(FlatType.THREE_ROOM, no3Room);
+		this.inventory.setAvailable(FlatType.TWO_ROOM, no2Room);
+		this.inventory.setAvailable(FlatType.THREE_ROOM, no3Room);
 		
 	}
 	
@@ -111,28 +109,76 @@ public class Project {
 	 * Gets the total number of 2-room flats originally offered.
 	 * @return The number of 2-room flats available at launch */
 	public int getNo2Room() {
-		return this.no2Room;
+		return getTotalUnits(FlatType.TWO_ROOM);
 	}
 	
 	/** 
 	 * Gets the total number of 3-room flats originally offered.
 	 * @return The number of 3-room flats available at launch */
 	public int getNo3Room() {
-		return this.no3Room;
+		return getTotalUnits(FlatType.THREE_ROOM);
 	}
 	
 	/** 
 	 * Gets the current number of available 2-room flats.
 	 * @return The current number of available 2-room flats */
 	public int getAvalNo2Room() {
-		return this.avalNo2Room;
+		return getAvailableUnits(FlatType.TWO_ROOM);
 	}
 	
 	/** 
 	 * Gets the current number of available 3-room flats.
 	 * @return The current number of available 3-room flats */
 	public int getAvalNo3Room() {
-		return this.avalNo3Room;
+		return getAvailableUnits(FlatType.THREE_ROOM);
+	}
+
+	/** 
+	 * Gets the total number of flats of a type originally offered.
+	 * @param type Flat type
+	 * @return The number of flats at launch, 0 if the type is not offered */
+	public int getTotalUnits(FlatType type) {
+		return this.inventory.getTotal(type);
+	}
+
+	/** 
+	 * Gets the current number of available flats of a type.
+	 * @param type Flat type
+	 * @return The number of available flats, 0 if the type is not offered */
+	public int getAvailableUnits(FlatType type) {
+		return this.inventory.getAvailable(type);
+	}
+
+	/** 
+	 * Gets the selling price of a flat type in this project.
+	 * @param type Flat type
+	 * @return The price, 0 if none is set */
+	public int getSellingPrice(FlatType type) {
+		return this.inventory.getPrice(type);
+	}
+
+	/** 
+	 * Gets the flat types this project offers (those with at least one unit at launch).
+	 * @return New list of flat types, in ordinal order */
+	public List<FlatType> getFlatTypes() {
+		List<FlatType> types = new ArrayList<>();
+		for (int i = 0; i < this.inventory.size(); i++) {
+			FlatType type = FlatType.byOrdinal(i);
+			if (this.inventory.getTotal(type) > 0) types.add(type);
+		}
+		return types;
+	}
+
+	/** 
+	 * Formats the available flats of every offered type, e.g. "2-Room: 10, 3-Room: 0".
+	 * @return The availability summary */
+	public String getAvailabilitySummary() {
+		StringBuilder summary = new StringBuilder();
+		for (FlatType type : getFlatTypes()) {
+			if (summary.length() > 0) summary.append(", ");
+			summary.append(type.getName()).append(": ").append(getAvailableUnits(type));
+		}
+		return summary.toString();
 	}
 
 	/** 
@@ -142,6 +188,13 @@ public class Project {
 		return new ArrayList<>(this.arrOfPendingOfficers);
 	}
 
+	/**
+	 * Counts the officers pending approval, without building a list.
+	 * @return Number of officers pending approval */
+	public int getPendingOfficerCount() {
+		return this.arrOfPendingOfficers.size();
+	}
+
 	/** 
 	 * Gets the list of approved officers.
 	 * @return List of approved officers */
@@ -151,71 +204,98 @@ public class Project {
 
 	/** 
 	 * Gets all applicants associated with this project, across all statuses.
-	 * @return All applicants across all statuses */
+	 * @return New list of all applicants, grouped by state */
 	public List<Applicant> getAllApplicants() {
-		Set<Applicant> uniqueApplicants = new HashSet<>(); 
-
-		// Add pending applicants
-		if (getArrOfApplicants() != null) {
-			uniqueApplicants.addAll(getArrOfApplicants());
-		}
-	
-		// Add successful applicants
-		if (getSuccessfulApplicants() != null) {
-			uniqueApplicants.addAll(getSuccessfulApplicants());
-		}
-	
-		// Add unsuccessful applicants
-		if (getUnsuccessfulApplicants() != null) {
-			uniqueApplicants.addAll(getUnsuccessfulApplicants());
-		}
-
-		// Add booked
-		if (this.bookedApplicants != null) {      
-			uniqueApplicants.addAll(this.bookedApplicants);
-		}
-
-		// Add withdrawn
-		if (this.withdrawRequests != null) {         
-				uniqueApplicants.addAll(this.withdrawRequests);
-		}
-	
-		return new ArrayList<>(uniqueApplicants);
+		return this.applicants.listAll();
 	}
 	
 	/** 
 	 * Gets the list of applicants whose applications are still pending.
-	 * @return Pending applicants list */
+	 * @return New list of pending applicants */
 	public List<Applicant> getArrOfApplicants(){
-		return this.arrOfApplicants;
+		return this.applicants.list(ApplicationState.PENDING);
 	}
 	
 	/** 
 	 * Gets the list of applicants whose applications were successful.
-	 * @return List of successful applicants */
+	 * @return New list of successful applicants (not booked or withdrawing) */
 	public List<Applicant> getSuccessfulApplicants(){
-		return this.successfulApplicants;
+		return this.applicants.list(ApplicationState.SUCCESSFUL);
 	}
 	
 	/** 
 	 * Gets the list of applicants whose applications were unsuccessful.
-	 * @return List of unsuccessful applicants */
+	 * @return New list of unsuccessful applicants */
 	public List<Applicant> getUnsuccessfulApplicants(){
-		return this.unsuccessfulApplicants;
+		return this.applicants.list(ApplicationState.UNSUCCESSFUL);
 	}
 	
 	/** 
 	 * Gets the list of applicants who have successfully booked flats.
-	 * @return List of booked applicants */
+	 * @return New list of booked applicants */
 	public List<Applicant> getBookedApplicants(){
-		return this.bookedApplicants;
+		return this.applicants.list(ApplicationState.BOOKED);
 	}
 	
 	/** 
 	 * Gets the list of applicants who have requested to withdraw.
-	 * @return List of applicants with withdrawal requests */
+	 * @return New list of applicants with withdrawal requests */
 	public List<Applicant> getWithdrawReq(){
-		return this.withdrawRequests;
+		return this.applicants.list(ApplicationState.WITHDRAW_REQUESTED);
+	}
+
+	/**
+	 * Checks whether an applicant's eligibility rule still has quota left for a flat type:
+	 * the Successful and Booked applicants of the type matched by the same rule of the default
+	 * EligibilityPolicy hold fewer units than the rule's quota of the type's total.
+	 * Reads the running count of getUnitsHeld, so it does not depend on the number of applicants.
+	 * @param applicant The applicant
+	 * @param type Flat type
+	 * @return true if the applicant may be made Successful as far as quotas go
+	 */
+	public boolean hasQuotaRoom(Applicant applicant, FlatType type) {
+		EligibilityPolicy policy = EligibilityPolicy.getDefault();
+		int rule = applicant.getEligibilityRule(policy);
+		if (rule < 0 || type == null) return false;
+		int quota = policy.quotaFor(rule, getTotalUnits(type));
+		if (quota >= getTotalUnits(type)) return true; // 100 percent: nothing to count
+		return getUnitsHeld(policy, rule, type) < quota;
+	}
+
+	/**
+	 * Counts the units of a flat type held by Successful and Booked applicants matched by one
+	 * eligibility rule. Counts are kept as applicants change state (counting starts on the first
+	 * call, and again when the policy changes).
+	 * @param policy Policy the rule belongs to
+	 * @param rule Rule index
+	 * @param type Flat type
+	 * @return Number of units held
+	 */
+	public int getUnitsHeld(EligibilityPolicy policy, int rule, FlatType type) {
+		return this.applicants.countHeld(policy, rule, type);
+	}
+
+	/**
+	 * Gets the state of an applicant's application in this project.
+	 * @param nric Applicant NRIC
+	 * @return The state, or null if the applicant has no application here */
+	public ApplicationState getApplicationState(String nric) {
+		return (nric != null) ? this.applicants.stateOf(nric) : null;
+	}
+
+	/**
+	 * Counts the applicants in one state, without building a list.
+	 * @param state State to count
+	 * @return Number of applicants in that state */
+	public int getApplicantCount(ApplicationState state) {
+		return this.applicants.count(state);
+	}
+
+	/**
+	 * Counts all applicants of this project.
+	 * @return Number of applicants across all states */
+	public int getApplicantCount() {
+		return this.applicants.size();
 	}
 	
 
@@ -225,22 +305,32 @@ public class Project {
      * @param isStaff Whether the user is a staff member
      */
 	public void viewAllDetails(boolean isStaff) {
-		System.out.println("Project Name: " + this.name);
-		System.out.println("Manager Name: " + this.creatorName);
-		if (isStaff) System.out.println("Visibility: " + this.visibility);
-		System.out.println("Neighbourhood: " + this.neighbourhood);
-		System.out.println("Application Opening: " + this.appOpeningDate);
-		System.out.println("Application Closing: " + this.appClosingDate);
+		System.out.print(appendDetails(new StringBuilder(256), isStaff)); // One write instead of one per line
+	}
+
+    /**
+     * Appends the lines viewAllDetails prints to a buffer, e.g. one holding a whole page of projects.
+     * @param out Buffer to append to
+     * @param isStaff Whether the user is a staff member
+     * @return The same buffer
+     */
+	public StringBuilder appendDetails(StringBuilder out, boolean isStaff) {
+		out.append("Project Name: ").append(this.name).append('\n');
+		out.append("Manager Name: ").append(this.creatorName).append('\n');
+		if (isStaff) out.append("Visibility: ").append(this.visibility).append('\n');
+		out.append("Neighbourhood: ").append(this.neighbourhood).append('\n');
+		out.append("Application Opening: ").append(this.appOpeningDate).append('\n');
+		out.append("Application Closing: ").append(this.appClosingDate).append('\n');
 		if (isStaff) {
-			System.out.println("Officers:");
+			out.append("Officers:\n");
 			for (Officer o : arrOfOfficers) {
-				System.out.println("- " + o.getName());
+				out.append("- ").append(o.getName()).append('\n');
 			}
 		}
-		System.out.println("Number of 2-Room: " + this.no2Room);
-		System.out.println("Number of 3-Room: " + this.no3Room);
-		System.out.println("Available rooms: [2-Room: " + this.avalNo2Room + ", 3-Room: " + this.avalNo3Room + "]");
-	
+		for (FlatType type : getFlatTypes()) {
+			out.append("Number of ").append(type.getName()).append(": ").append(getTotalUnits(type)).append('\n');
+		}
+		return out.append("Available rooms: [").append(getAvailabilitySummary()).append("]\n");
 	}
 	
 	
@@ -253,6 +343,7 @@ public class Project {
 	public void setName(String creatorName, String name) {
 		if (creatorName.equals(this.creatorName)){
 			this.name=name;
+			reindexEligibility();
 		}
 		else{
 			System.out.println("Unauthorised access!");
@@ -266,6 +357,7 @@ public class Project {
      */
 	public void setCreatorName(String creatorName) {
 		this.creatorName=creatorName;
+		reindexCreator();
 	}
 
     /**
@@ -276,6 +368,7 @@ public class Project {
 	public void setVisibility(String creatorName, Boolean visibility) {
 		if (creatorName.equals(this.creatorName)){
 			this.visibility=visibility;
+			reindexEligibility();
 		}
 		else{
 			System.out.println("Unauthorised access!");
@@ -290,6 +383,7 @@ public class Project {
 	public void setNeighbourhood(String creatorName, String neighbourhood) {
 		if (creatorName.equals(this.creatorName)){
 			this.neighbourhood=neighbourhood;
+			reindexEligibility();
 		}
 		else{
 			System.out.println("Unauthorised access!");
@@ -304,6 +398,8 @@ public class Project {
 	public void setAppOpeningDate(String creatorName, LocalDate appOpeningDate) {
 		if (creatorName.equals(this.creatorName)){
 			this.appOpeningDate=appOpeningDate;
+			reindexWindow();
+			reindexEligibility();
 		}
 		else{
 			System.out.println("Unauthorised access!");
@@ -318,6 +414,8 @@ public class Project {
 	public void setAppClosingDate(String creatorName, LocalDate appClosingDate) {
 		if (creatorName.equals(this.creatorName)){
 			this.appClosingDate=appClosingDate;
+			reindexWindow();
+			reindexEligibility();
 		}
 		else{
 			System.out.println("Unauthorised access!");
@@ -329,7 +427,7 @@ public class Project {
      * @param avalNo2Room Count
      */
 	public void setAvalNo2Room(int avalNo2Room) {
-			this.avalNo2Room=avalNo2Room;
+			setAvailableUnits(FlatType.TWO_ROOM, avalNo2Room);
 	}
 
     /**
@@ -337,7 +435,7 @@ public class Project {
      * @param avalNo3Room Count
      */
 	public void setAvalNo3Room(int avalNo3Room) {
-			this.avalNo3Room=avalNo3Room;
+			setAvailableUnits(FlatType.THREE_ROOM, avalNo3Room);
 	}
 
     /**
@@ -346,8 +444,33 @@ public class Project {
      * @param no2Room Count
      */
 	public void setNo2Room(String creatorName, int no2Room) {
+		setTotalUnits(creatorName, FlatType.TWO_ROOM, no2Room);
+	}
+
+    /**
+     * Updates initial 3-room flat count.
+     * @param creatorName Verifier
+     * @param no3Room Count
+     */
+	public void setNo3Room(String creatorName, int no3Room) {
+		setTotalUnits(creatorName, FlatType.THREE_ROOM, no3Room);
+	}
+
+    /**
+     * Updates the initial flat count of a type.
+     * @param creatorName Verifier
+     * @param type Flat type
+     * @param units Count
+     * @throws IllegalArgumentException if the count would drop a booked unit (see getMinimumTotalUnits)
+     */
+	public void setTotalUnits(String creatorName, FlatType type, int units) {
 		if (creatorName.equals(this.creatorName)){
-			this.no2Room=no2Room;
+			if (!this.inventory.setTotal(type, units)) {
+				throw new IllegalArgumentException("Cannot reduce " + type.getName() + " units of " + this.name + " to " + units
+						+ ": unit " + this.inventory.getUnits(type).label(getMinimumTotalUnits(type) - 1)
+						+ " is booked, so at least " + getMinimumTotalUnits(type) + " are needed.");
+			}
+			reindexEligibility();
 		}
 		else{
 			System.out.println("Unauthorised access!");
@@ -355,19 +478,45 @@ public class Project {
 	}
 
     /**
-     * Updates initial 3-room flat count.
+     * Changes the flat count of a type after launch, e.g. when a manager edits the project.
+     * Every unit not booked becomes available, so booked units stay out of the count.
      * @param creatorName Verifier
-     * @param no3Room Count
+     * @param type Flat type
+     * @param units Count
+     * @throws IllegalArgumentException if the count would drop a booked unit (see getMinimumTotalUnits)
      */
-	public void setNo3Room(String creatorName, int no3Room) {
+	public void resizeUnits(String creatorName, FlatType type, int units) {
 		if (creatorName.equals(this.creatorName)){
-			this.no3Room=no3Room;
+			if (!this.inventory.resize(type, units)) {
+				throw new IllegalArgumentException("Cannot reduce " + type.getName() + " units of " + this.name + " to " + units
+						+ ": at least " + getMinimumTotalUnits(type) + " are needed for the booked units.");
+			}
+			reindexEligibility();
 		}
 		else{
 			System.out.println("Unauthorised access!");
 		}
 	}
 
+    /**
+     * Directly sets the available flat count of a type.
+     * @param type Flat type
+     * @param units Count
+     */
+	public void setAvailableUnits(FlatType type, int units) {
+		this.inventory.setAvailable(type, units);
+		reindexEligibility();
+	}
+
+    /**
+     * Sets the selling price of a flat type.
+     * @param type Flat type
+     * @param price Price
+     */
+	public void setSellingPrice(FlatType type, int price) {
+		this.inventory.setPrice(type, price);
+	}
+
     /**
      * Adds officer to pending list.
      * @param officer Officer object
@@ -375,11 +524,34 @@ public class Project {
      */
 	public boolean updateArrOfPendingOfficers (Officer officer) {
      if (officer != null && !this.arrOfPendingOfficers.contains(officer)) {
-          return this.arrOfPendingOfficers.add(officer);
+          this.arrOfPendingOfficers.add(officer);
+          reindexCreator();
+          return true;
      }
      return false; 
 	}
 
+    /**
+     * Removes an officer from the pending list, e.g. when their registration is rejected.
+     * @param officer Officer object
+     * @return true if the officer was pending
+     */
+	public boolean removePendingOfficer(Officer officer) {
+		boolean removed = this.arrOfPendingOfficers.removeIf(o -> o != null && o.equals(officer));
+		if (removed) reindexCreator();
+		return removed;
+	}
+
+	/**
+	 * Empties the approved and pending officer lists, e.g. before officer assignments are
+	 * re-read from an older copy of the file. The officers' own assignments are left to the caller.
+	 */
+	public void clearOfficers() {
+		this.arrOfOfficers.clear();
+		this.arrOfPendingOfficers.clear();
+		reindexCreator();
+	}
+
 	/**
 	 * Adds an Officer to the approved list for this project, removing them
 	 * from the pending list if present. Checks authorization and limits.
@@ -401,6 +573,7 @@ public class Project {
 
 		// 1. Remove from pending list 
 		boolean wasPending = this.arrOfPendingOfficers.removeIf(p -> p != null && p.equals(officer));
+		if (wasPending) reindexCreator();
 
 		// 2. Check if already approved
 		if (this.arrOfOfficers.contains(officer)) {
@@ -419,116 +592,183 @@ public class Project {
 			return true;
 		} else {
 			System.err.println("ERROR: Failed to add officer " + officer.getNric() + " to approved list for unknown reason.");
-			if(wasPending) this.arrOfPendingOfficers.add(officer);
+			if(wasPending) {
+				this.arrOfPendingOfficers.add(officer);
+				reindexCreator();
+			}
 			return false;
 		}
 	}
 
     /**
-     * Routes applicant to correct internal list based on status.
+     * Routes applicant to the state matching their application status.
+     * Applicants with an unrecognised status are ignored. A booked applicant's unit is marked
+     * taken; if they have no valid unit (e.g. data saved before units were tracked) they are
+     * given the first free one.
      * @param applicant Applicant instance
      */
 	public void addApplicantToCorrectList(Applicant applicant){
-		switch(applicant.getAppStatus()){
-			case "Pending":
-			this.arrOfApplicants.add(applicant);
-			break;
-
-			case "Successful":
-			this.successfulApplicants.add(applicant);
-			break;
-
-			case "Unsuccessful":
-			this.unsuccessfulApplicants.add(applicant);
-			break;
+		if (applicant == null || applicant.getNric() == null) return;
+		ApplicationState state = ApplicationState.fromAppStatus(applicant.getAppStatus());
+		if (state != null) {
+			ApplicationState previous = this.applicants.stateOf(applicant.getNric());
+			if (state == ApplicationState.BOOKED && previous != ApplicationState.BOOKED) restoreUnit(applicant);
+			else if (state != ApplicationState.BOOKED && previous == ApplicationState.BOOKED) freeUnit(applicant);
+			this.applicants.put(applicant, state);
+			BookingHolds.getDefault().cancel(this, applicant.getNric());
+			if (state == ApplicationState.SUCCESSFUL) BookingHolds.getDefault().start(this, applicant);
+			reindexCreator();
+		}
+	}
 
-			case "Withdrawn":
-			this.withdrawRequests.add(applicant);
-			break;
+    /**
+     * Removes an applicant from this project, whatever their state.
+     * Used when an application row is re-applied (e.g. replaying the change journal).
+     * @param applicant Applicant to remove
+     */
+	public void removeApplicant(Applicant applicant) {
+		if (applicant == null || applicant.getNric() == null) return;
+		if (this.applicants.stateOf(applicant.getNric()) == ApplicationState.BOOKED) freeUnit(applicant);
+		this.applicants.remove(applicant.getNric());
+		BookingHolds.getDefault().cancel(this, applicant.getNric());
+		reindexCreator();
+	}
 
-			case "Booked":
-			this.bookedApplicants.add(applicant);
-			break;
-		}
+	/**
+	 * Removes every applicant and empties the waitlists, e.g. before applications are re-read
+	 * from an older copy of the file. Booked units are freed and booking holds cancelled;
+	 * ballot numbers already issued are not reused. The applicants' own state is left to the caller.
+	 * @return The applicants removed
+	 */
+	public List<Applicant> clearApplications() {
+		List<Applicant> removed = this.applicants.listAll();
+		for (Applicant applicant : removed) removeApplicant(applicant);
+		for (FlatType type : FlatType.values()) this.waitlist.clear(type);
+		return removed;
 	}
 
     /**
-     * Adds to general applicant list.
+     * Adds to pending applicants, moving the applicant out of any earlier state.
      * @param applicant New applicant
      */
 	public void updateArrOfApplicants(Applicant applicant) {
-			this.arrOfApplicants.add(applicant);
+		if (applicant != null && applicant.getNric() != null) {
+			this.applicants.put(applicant, ApplicationState.PENDING);
+			BookingHolds.getDefault().cancel(this, applicant.getNric());
+			reindexCreator();
+		}
 	}
 
     /**
-     * Moves from pending to successful list.
+     * Moves from pending to successful and starts the applicant's booking hold.
      * @param applicant Confirmed applicant
+     * @return true if the applicant was pending and has been moved
      */
-	public void updateSuccessfulApplicants(Applicant applicant) {
+	public boolean updateSuccessfulApplicants(Applicant applicant) {
 		if (applicant != null && applicant.getNric() != null) { 
-			String targetNRIC=applicant.getNric();
-			if (arrOfApplicants.removeIf(a -> a.getNric().equals(targetNRIC)))
-			{
-				this.successfulApplicants.add(applicant);
+			if (this.applicants.move(applicant, ApplicationState.PENDING, ApplicationState.SUCCESSFUL)) {
+				BookingHolds.getDefault().start(this, applicant);
+				reindexCreator();
+				return true;
 			}
 		}	
+		return false;
 	}
 
     /**
-     * Moves from pending to unsuccessful list.
+     * Moves from pending to unsuccessful.
      * @param applicant Rejected applicant
+     * @return true if the applicant was pending and has been moved
      */
-	public void updateUnsuccessfulApplicants(Applicant applicant) {
+	public boolean updateUnsuccessfulApplicants(Applicant applicant) {
 		if (applicant != null && applicant.getNric() != null) { 
-			String targetNRIC=applicant.getNric();
-			if (arrOfApplicants.removeIf(a -> a.getNric().equals(targetNRIC)))
-			{
-				this.unsuccessfulApplicants.add(applicant);
+			if (this.applicants.move(applicant, ApplicationState.PENDING, ApplicationState.UNSUCCESSFUL)) {
+				reindexCreator();
+				return true;
 			}
 		}		
+		return false;
+	}
+
+    /**
+     * Takes one available unit of a flat type, e.g. to hold it for a booking.
+     * Safe to call from several threads; never takes more units than are available.
+     * @param type Flat type
+     * @return true if a unit was taken, false if none are left
+     */
+	public boolean claimUnit(FlatType type) {
+		if (type == null || !this.inventory.claim(type)) return false;
+		reindexEligibility();
+		return true;
+	}
+
+    /**
+     * Returns a unit taken with claimUnit (or by a booking that is being undone).
+     * @param type Flat type
+     * @return true if the unit was returned, false if the type was already at its total
+     */
+	public boolean releaseUnit(FlatType type) {
+		if (type == null || !this.inventory.release(type)) return false;
+		reindexEligibility();
+		return true;
 	}
 
     /**
      * Books a unit and updates internal states.
+     * The unit is claimed first; the applicant only moves to booked once they hold one,
+     * and the unit is given back if the applicant is no longer successful (e.g. another
+     * officer booked or withdrew them at the same time).
+     * An applicant whose booking hold has run out is not booked; their place is given up instead.
+     * The applicant gets the first free unit of their flat type.
      * @param applicant The applicant being booked
      * @return true if successful
      */
 	public boolean updateBookedApplicants(Applicant applicant) {
+		return updateBookedApplicants(applicant, UnitMap.Filter.any());
+	}
+
+    /**
+     * Books a unit matching the applicant's block and floor preference, as updateBookedApplicants(Applicant).
+     * The booked unit is recorded on the applicant (see Applicant.getUnitNumber).
+     * @param applicant The applicant being booked
+     * @param filter Acceptable units
+     * @return true if successful; false if no unit is left, none matches the filter, or the applicant is not bookable
+     */
+	public boolean updateBookedApplicants(Applicant applicant, UnitMap.Filter filter) {
 		if (applicant != null && applicant.getNric() != null) { 
-			String targetNRIC=applicant.getNric();
-			if (successfulApplicants.removeIf(a -> a.getNric().equals(targetNRIC)))
-			{
-				this.bookedApplicants.add(applicant);
-				if (applicant.getTypeFlat().equals("2-Room")){
-					if (this.avalNo2Room>0){
-						this.avalNo2Room -=1;
-						return true;
-					}
-					else{
-						System.out.println("Unsuccessful Booking. No remaining 2 Room Flats.");
-						return false;
-					}
-						
-				}
-				else{
-					if (this.avalNo3Room>0){
-						this.avalNo3Room -=1;
-						return true;
-					}
-					else{
-						System.out.println("Unsuccessful Booking. No remaining 3 Room Flats.");
-						return false;
-					}
-				}
+			if (BookingHolds.getDefault().isPastDeadline(this, applicant.getNric())) {
+				expireHold(applicant); // The wheel has not reached it yet
+				System.out.println("Unsuccessful Booking. The booking hold of " + applicant.getName() + " has expired.");
+				return false;
+			}
+			FlatType type = applicant.getFlatType();
+			if (!claimUnit(type)) {
+				System.out.println("Unsuccessful Booking. No remaining " + applicant.getTypeFlat() + " Flats.");
+				return false;
+			}
+			UnitMap units = this.inventory.getUnits(type);
+			int unit = units.claimNext(filter);
+			if (unit < 0) {
+				releaseUnit(type);
+				System.out.println("Unsuccessful Booking. No free " + applicant.getTypeFlat() + " unit matches the requested block and floors.");
+				return false;
+			}
+			if (this.applicants.move(applicant, ApplicationState.SUCCESSFUL, ApplicationState.BOOKED)) {
+				applicant.setUnitNumber(units.label(unit));
+				BookingHolds.getDefault().cancel(this, applicant.getNric());
+				return true;
 			}
+			units.release(unit); // Not successful (any more); undo the claims
+			releaseUnit(type);
 		}	
 		return false;
 	}
 	
     /**
-     * Adds applicant to withdrawal queue.
+     * Moves a successful or booked applicant to the withdrawal requests.
+     * A booked applicant's flat is returned to the available count.
      * @param applicant Applicant requesting withdrawal
-     * @return true if the withdrawal request was successfully processed and added to the queue; false otherwise
+     * @return true if the applicant is now waiting for a withdrawal decision; false otherwise
      */	
 	public boolean updateWithdrawRequests(Applicant applicant) {
         if (applicant == null || applicant.getNric() == null) {
@@ -537,95 +777,50 @@ public class Project {
         }
         String targetNRIC = applicant.getNric();
 
-        // Check if already requested withdrawal
-        if (this.withdrawRequests != null && this.withdrawRequests.contains(applicant)){
-            return true; 
-        }
-
-        boolean moved = false;
-
-        // Try removing from Successful list
-        if (this.successfulApplicants != null && this.successfulApplicants.removeIf(a -> a != null && targetNRIC.equals(a.getNric()))) {
-            moved = true;
+        if (this.applicants.move(applicant, ApplicationState.SUCCESSFUL, ApplicationState.WITHDRAW_REQUESTED)) {
+            BookingHolds.getDefault().cancel(this, targetNRIC);
+            reindexCreator();
+            promoteFromWaitlist(applicant.getFlatType()); // Their place is free again
+            return true;
         }
-        // Try removing from Booked list (only if not found in successful)
-        else if (this.bookedApplicants != null && this.bookedApplicants.removeIf(a -> a != null && targetNRIC.equals(a.getNric()))) {
-             moved = true;
-             String flatType = applicant.getTypeFlat();
-              if (flatType != null) {
-                 if ("2-Room".equals(flatType)){
-                     this.avalNo2Room +=1;
-                 }
-                 else if ("3-Room".equals(flatType)){
-                     this.avalNo3Room +=1;
-                 } else {
-                      System.err.println("WARN: Booked applicant " + targetNRIC + " withdrawing had unexpected flat type '" + flatType + "'. Room count not adjusted.");
-                 }
+        if (this.applicants.move(applicant, ApplicationState.BOOKED, ApplicationState.WITHDRAW_REQUESTED)) {
+             reindexCreator();
+             // Only the thread that moved the applicant out of booked returns the unit
+             freeUnit(applicant);
+             if (releaseUnit(applicant.getFlatType())) {
+                 promoteFromWaitlist(applicant.getFlatType());
              } else {
-                 System.err.println("WARN: Booked applicant " + targetNRIC + " withdrawing had null flat type. Room count not adjusted.");
+                 System.err.println("WARN: Booked applicant " + targetNRIC + " withdrawing with flat type '" + applicant.getTypeFlat() + "' could not return the unit. Room count not adjusted.");
              }
+             return true;
         }
-
-        // If successfully removed from either list, add to withdrawRequests
-        if (moved) {
-             if (this.withdrawRequests != null) {
-                 if (!this.withdrawRequests.contains(applicant)){
-                      this.withdrawRequests.add(applicant);
-                 }
-                 return true;
-             } else {
-                  System.err.println("ERROR: withdrawRequests list is null in project " + this.name);
-                  return false;
-             }
-        } else {
-            System.err.println("Warning: Applicant " + targetNRIC + " requesting withdrawal not found in successful or booked lists for project " + this.name + ". Cannot process request.");
-            return false;
+        if (this.applicants.stateOf(targetNRIC) == ApplicationState.WITHDRAW_REQUESTED) {
+            return true; // Already requested withdrawal
         }
+
+        System.err.println("Warning: Applicant " + targetNRIC + " requesting withdrawal not found in successful or booked lists for project " + this.name + ". Cannot process request.");
+        return false;
 	}
 	    /**
      * Processes an accepted withdrawal request for an applicant.
-     * Removes the applicant from the withdrawRequests list and adds them
-     * to the unsuccessfulApplicants list to finalize their journey for this application.
+     * Moves the applicant from the withdrawal requests to unsuccessful, to finalize
+     * their journey for this application.
      * Room count should have been adjusted when the withdrawal was initially requested if they were booked.
      * @param applicant The applicant whose withdrawal was accepted.
      * @return true if the applicant was successfully moved from requests to unsuccessful, false otherwise.
      */
     public boolean processAcceptedWithdrawal(Applicant applicant) {
-        if (applicant == null) {
+        if (applicant == null || applicant.getNric() == null) {
             System.err.println("Cannot process accepted withdrawal for null applicant.");
             return false;
         }
 
-        // 1. Remove from withdrawRequests list
-        boolean removedFromWithdraw = false;
-        if (this.withdrawRequests != null) {
-            removedFromWithdraw = this.withdrawRequests.removeIf(a -> a != null && a.equals(applicant));
-        }
-
-        if (!removedFromWithdraw) {
+        if (!this.applicants.move(applicant, ApplicationState.WITHDRAW_REQUESTED, ApplicationState.UNSUCCESSFUL)) {
              System.err.println("Warning: Applicant " + applicant.getNric() + " not found in withdrawRequests list during withdrawal acceptance for project " + this.name);
              return false;
         }
-
-        // 2. Add to unsuccessful list (marks end of this application lifecycle)
-        boolean addedToUnsuccessful = false;
-        if (this.unsuccessfulApplicants != null) {
-             if (!this.unsuccessfulApplicants.contains(applicant)) {
-                 addedToUnsuccessful = this.unsuccessfulApplicants.add(applicant);
-             } else {
-                  addedToUnsuccessful = true; 
-             }
-        } else {
-             System.err.println("ERROR: unsuccessfulApplicants list is null in project " + this.name);
-             return false; 
-        }
-
-        if (addedToUnsuccessful) {
-             return true; // Successfully processed
-        } else {
-             System.err.println("ERROR: Failed to add applicant " + applicant.getNric() + " to unsuccessful list during withdrawal acceptance.");
-             return false;
-        }
+        reindexCreator();
+        return true;
     }
 
 	    /**
@@ -634,14 +829,306 @@ public class Project {
      */
 	public void updateWithdrawToUnsuccessful(Applicant applicant) {
 		if (applicant != null && applicant.getNric() != null) { 
-			String targetNRIC=applicant.getNric();
-			if (withdrawRequests.removeIf(a -> a.getNric().equals(targetNRIC)))
-			{
-				this.unsuccessfulApplicants.add(applicant);
-			}	
+			if (this.applicants.move(applicant, ApplicationState.WITHDRAW_REQUESTED, ApplicationState.UNSUCCESSFUL)) reindexCreator();
+		}
+	}
+
+	/**
+	 * Gets the unit layout of a flat type, e.g. "2x12x4" for 2 blocks of 12 floors of 4 units.
+	 * @param type Flat type
+	 * @return The layout
+	 */
+	public String getUnitLayout(FlatType type) {
+		return this.inventory.getUnits(type).getLayout();
+	}
+
+	/**
+	 * Sets the unit layout of a flat type. Units are numbered block by block, floor by floor;
+	 * the layout must hold the type's total units, and no unit of the type may be booked yet.
+	 * @param type Flat type
+	 * @param layout Layout such as "2x12x4"
+	 * @return true if the layout was applied
+	 */
+	public boolean setUnitLayout(FlatType type, String layout) {
+		return type != null && this.inventory.setLayout(type, layout);
+	}
+
+	/**
+	 * Gets the smallest initial flat count a type can be given without dropping a booked unit.
+	 * @param type Flat type
+	 * @return Minimum count, 0 if no unit is booked
+	 */
+	public int getMinimumTotalUnits(FlatType type) {
+		return this.inventory.getMinimumTotal(type);
+	}
+
+	/**
+	 * Counts the units of a flat type that are not booked, according to the unit map.
+	 * @param type Flat type
+	 * @return Number of free units
+	 */
+	public int getFreeUnitCount(FlatType type) {
+		return this.inventory.getUnits(type).countFree();
+	}
+
+	// Marks a loaded booked applicant's unit as taken, or gives them the first free unit
+	private void restoreUnit(Applicant applicant) {
+		FlatType type = applicant.getFlatType();
+		if (type == null) return;
+		UnitMap units = this.inventory.getUnits(type);
+		int unit = units.indexOf(applicant.getUnitNumber());
+		if (unit >= 0 && units.claim(unit)) return;
+		unit = units.claimNext(UnitMap.Filter.any());
+		if (unit < 0) {
+			System.err.println("WARN: No free " + type.getName() + " unit in project " + this.name + " for booked applicant " + applicant.getNric() + ".");
+			applicant.setUnitNumber(null);
+			return;
+		}
+		applicant.setUnitNumber(units.label(unit));
+	}
+
+	// Frees the unit a booked applicant held (the unit count is returned separately)
+	private void freeUnit(Applicant applicant) {
+		FlatType type = applicant.getFlatType();
+		if (type == null) return;
+		UnitMap units = this.inventory.getUnits(type);
+		units.release(units.indexOf(applicant.getUnitNumber()));
+		applicant.setUnitNumber(null);
+	}
+
+	/**
+	 * Puts an applicant who lost the ballot for lack of places on the waitlist of their flat type,
+	 * with the next ballot number of that type, so they queue behind everyone waitlisted before.
+	 * Whenever a successful or booked applicant of that type withdraws, the waitlisted applicant
+	 * with the lowest ballot number who is still eligible is made Successful.
+	 * @param applicant Unsuccessful applicant with a flat type
+	 * @return The ballot number given, or -1 if the applicant has no flat type
+	 */
+	public int addToWaitlist(Applicant applicant) {
+		if (applicant == null || applicant.getFlatType() == null) return -1;
+		return this.waitlist.add(applicant.getFlatType(), applicant);
+	}
+
+	/**
+	 * Puts an applicant back on the waitlist of their flat type with the ballot number saved
+	 * with their application.
+	 * @param applicant Unsuccessful applicant with a flat type
+	 * @param ballotNumber Position in the draw; lower numbers are promoted first
+	 */
+	public void addToWaitlist(Applicant applicant, int ballotNumber) {
+		if (applicant != null && applicant.getFlatType() != null) {
+			this.waitlist.add(applicant.getFlatType(), applicant, ballotNumber);
 		}
 	}
 
+	/**
+	 * Gets the ballot number an applicant is waitlisted with in this project.
+	 * @param nric Applicant NRIC
+	 * @return The ballot number, or -1 if the applicant is not waitlisted here
+	 */
+	public int getBallotNumber(String nric) {
+		return this.waitlist.ballotNumberOf(nric);
+	}
+
+	/**
+	 * Gets the ballot number the next waitlisted applicant of a flat type will get.
+	 * @param type Flat type
+	 * @return Next ballot number, from 1
+	 */
+	public int getNextBallotNumber(FlatType type) {
+		return this.waitlist.getNextNumber(type);
+	}
+
+	/**
+	 * Restores the next ballot number of a flat type saved earlier. Never lowers it, so
+	 * ballot numbers are not reused.
+	 * @param type Flat type
+	 * @param next Next ballot number
+	 */
+	public void setNextBallotNumber(FlatType type, int next) {
+		this.waitlist.setNextNumber(type, next);
+	}
+
+	/**
+	 * Lists the applicants waitlisted for a flat type. May include applicants who have since
+	 * left the waitlist (e.g. by applying elsewhere); they are skipped when promoting.
+	 * @param type Flat type
+	 * @return New list in ballot number order
+	 */
+	public List<Applicant> getWaitlist(FlatType type) {
+		return (type != null) ? this.waitlist.list(type) : new ArrayList<>();
+	}
+
+	/**
+	 * Gets the length of a flat type's waitlist, counted as in getWaitlist.
+	 * @param type Flat type
+	 * @return Number of waitlisted applicants
+	 */
+	public int getWaitlistSize(FlatType type) {
+		return (type != null) ? this.waitlist.size(type) : 0;
+	}
+
+	/**
+	 * Fills one freed place of a flat type from its waitlist: the applicant with the lowest
+	 * ballot number who is still an unsuccessful, eligible applicant of this project moves
+	 * to Successful. Stale entries are dropped on the way, as are applicants whose eligibility
+	 * rule has used its quota of the type (see hasQuotaRoom).
+	 * @param type Flat type whose place was freed
+	 * @return The promoted applicant, or null if nobody on the waitlist could take the place
+	 */
+	private Applicant promoteFromWaitlist(FlatType type) {
+		if (type == null) return null;
+		Applicant next;
+		while ((next = this.waitlist.poll(type)) != null) {
+			if (next.getProject() != this || !next.canApplyFor(type)
+					|| !"Unsuccessful".equalsIgnoreCase(next.getAppStatus())) {
+				continue; // Left the waitlist some other way
+			}
+			if (!hasQuotaRoom(next, type)) {
+				continue; // Their group has used its quota of this type
+			}
+			if (this.applicants.move(next, ApplicationState.UNSUCCESSFUL, ApplicationState.SUCCESSFUL)) {
+				BookingHolds.getDefault().start(this, next);
+				next.setAppStatus("Successful");
+				ChangeEvents.publish(ChangeRecord.application(next));
+				System.out.println("Applicant '" + next.getName() + "' promoted from the " + type.getName() + " waitlist of project '" + this.name + "'.");
+				return next;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the deadline of a Successful applicant's booking hold.
+	 * @param nric Applicant NRIC
+	 * @return Deadline in milliseconds since the epoch, or -1 if the applicant has no hold
+	 */
+	public long getHoldDeadline(String nric) {
+		return BookingHolds.getDefault().getDeadline(this, nric);
+	}
+
+	/**
+	 * Gives a loaded Successful applicant back the booking hold deadline saved with their
+	 * application, in place of the fresh hold addApplicantToCorrectList started. A deadline
+	 * already past expires the next time holds are checked.
+	 * @param applicant Applicant, already added to this project
+	 * @param deadline Saved deadline in milliseconds since the epoch, or -1 to keep the fresh hold
+	 */
+	public void restoreHold(Applicant applicant, long deadline) {
+		if (applicant == null || deadline < 0) return;
+		if (this.applicants.stateOf(applicant.getNric()) == ApplicationState.SUCCESSFUL) {
+			BookingHolds.getDefault().start(this, applicant, deadline);
+		}
+	}
+
+	/**
+	 * Ends the booking holds of every Successful applicant, e.g. when the project is deleted,
+	 * so the shared holds do not keep them alive.
+	 */
+	public void cancelBookingHolds() {
+		BookingHolds holds = BookingHolds.getDefault();
+		for (Applicant applicant : this.applicants.list(ApplicationState.SUCCESSFUL)) {
+			holds.cancel(this, applicant.getNric());
+		}
+	}
+
+	/**
+	 * Gives up the place of a Successful applicant whose booking hold ran out: they become
+	 * Unsuccessful and the place goes to the waitlist. Called by BookingHolds.
+	 * @param applicant Applicant whose hold expired
+	 * @return true if the applicant was still Successful and has been moved
+	 */
+	boolean expireHold(Applicant applicant) {
+		BookingHolds holds = BookingHolds.getDefault();
+		String nric = applicant.getNric();
+		if (holds.getDeadline(this, nric) != -1 && !holds.isPastDeadline(this, nric)) {
+			return false; // A new hold was started meanwhile
+		}
+		holds.cancel(this, nric);
+		if (!this.applicants.move(applicant, ApplicationState.SUCCESSFUL, ApplicationState.UNSUCCESSFUL)) {
+			return false; // Booked or withdrew in the meantime
+		}
+		applicant.setAppStatus("Unsuccessful");
+		ChangeEvents.publish(ChangeRecord.application(applicant));
+		System.out.println("Booking hold of applicant '" + applicant.getName() + "' in project '" + this.name + "' expired.");
+		promoteFromWaitlist(applicant.getFlatType());
+		return true;
+	}
+
+	/**
+	 * Adds this project's application period to an index. The index is kept up to date
+	 * when the opening or closing date changes, until the project is removed from it.
+	 * @param index Index of projects by application period (e.g. a manager's or an officer's)
+	 */
+	public void addToWindowIndex(IntervalIndex<Project> index) {
+		index.put(this, this.appOpeningDate, this.appClosingDate);
+		if (!this.windowIndexes.contains(index)) this.windowIndexes.add(index);
+	}
+
+	/**
+	 * Removes this project from an index added with addToWindowIndex.
+	 * @param index Index of projects by application period
+	 */
+	public void removeFromWindowIndex(IntervalIndex<Project> index) {
+		this.windowIndexes.remove(index);
+		index.remove(this);
+	}
+
+	// Moves this project to its new application period in every index holding it
+	private void reindexWindow() {
+		for (IntervalIndex<Project> index : this.windowIndexes) {
+			index.put(this, this.appOpeningDate, this.appClosingDate);
+		}
+	}
+
+	/**
+	 * Adds this project to an eligibility index. The index is kept up to date when the
+	 * visibility, neighbourhood, application period or inventory changes, until the project
+	 * is removed from it.
+	 * @param index Index of projects by who may apply (see ProjectCatalogue.getEligibility)
+	 */
+	public void addToEligibilityIndex(EligibilityIndex index) {
+		if (!this.eligibilityIndexes.contains(index)) this.eligibilityIndexes.add(index);
+		index.update(this);
+	}
+
+	/**
+	 * Removes this project from an index added with addToEligibilityIndex.
+	 * @param index Index of projects by who may apply
+	 */
+	public void removeFromEligibilityIndex(EligibilityIndex index) {
+		this.eligibilityIndexes.remove(index);
+		index.remove(this);
+	}
+
+	/**
+	 * Gets the catalogue listing this project.
+	 * @return The catalogue, or null if the project is not listed in one
+	 */
+	public ProjectCatalogue getCatalogue() {
+		return this.catalogue;
+	}
+
+	// Called by ProjectCatalogue when the project joins or leaves it
+	void setCatalogue(ProjectCatalogue catalogue) {
+		this.catalogue = catalogue;
+	}
+
+	// Re-buckets this project in every eligibility index holding it, and re-keys it in its catalogue
+	private void reindexEligibility() {
+		for (EligibilityIndex index : this.eligibilityIndexes) {
+			index.update(this);
+		}
+		ProjectCatalogue listedIn = this.catalogue;
+		if (listedIn != null) listedIn.update(this);
+	}
+
+	// Re-files this project under its creator, with its pending work, in its catalogue
+	private void reindexCreator() {
+		ProjectCatalogue listedIn = this.catalogue;
+		if (listedIn != null) listedIn.getCreators().update(this);
+	}
+
 	/**
 	 * Checks if the date range of this project overlaps with a given date range.
 	 * Overlap occurs if one period starts before the other ends.
@@ -0,0 +1,171 @@
+package Project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The application's projects by name, with the indexes kept over them.
+ *
+ * Built once the projects are loaded (see MainApp). Projects join and leave the catalogue
+ * only through add, remove and rename, which update the indexes in the same step; the map
+ * itself is handed out read-only, so it cannot change behind the indexes. Changes to a
+ * project already listed reach the indexes through Project, which calls update here.
+ *
+ * The catalogue owns a ProjectSearchIndex, a ProjectListing and a CreatorIndex over every
+ * project, visible or not. The EligibilityIndex is built over the default EligibilityPolicy
+ * on first use, and rebuilt if the default policy is replaced.
+ */
+public class ProjectCatalogue {
+
+	private final Map<String, Project> projects;
+	private final Map<String, Project> view;
+	private final Map<Project, Entry> entries = new IdentityHashMap<>(); // Every listed project
+	private final ProjectSearchIndex search = new ProjectSearchIndex(); // Names and neighbourhoods
+	private final ProjectListing listing = new ProjectListing(); // Every project, in each sort order
+	private final CreatorIndex creators = new CreatorIndex(); // Every project by creator, with pending work
+	private EligibilityIndex eligibility; // Null until first asked for
+
+	// What the search index last saw of a project
+	private static final class Entry {
+		String name;
+		String neighbourhood;
+	}
+
+	/**
+	 * Creates the catalogue over the loaded projects. The map is taken over: from now on it
+	 * must only be changed through this catalogue.
+	 * @param projects Map of all projects by name
+	 */
+	public ProjectCatalogue(Map<String, Project> projects) {
+		this.projects = projects;
+		this.view = Collections.unmodifiableMap(projects);
+		for (Project project : projects.values()) {
+			if (project != null) attach(project);
+		}
+	}
+
+	/**
+	 * Gets the projects by name.
+	 * @return Read-only view of the map, which follows later changes
+	 */
+	public Map<String, Project> getProjects() {
+		return this.view;
+	}
+
+	/**
+	 * Adds a new project under its name and indexes it.
+	 * @param project The project
+	 * @return true if added; false if it is null or another project has its name
+	 */
+	public synchronized boolean add(Project project) {
+		if (project == null || this.projects.containsKey(project.getName())) return false;
+		this.projects.put(project.getName(), project);
+		attach(project);
+		if (this.eligibility != null) project.addToEligibilityIndex(this.eligibility);
+		return true;
+	}
+
+	/**
+	 * Removes a project and takes it out of the indexes.
+	 * @param project The project
+	 * @return true if it was listed
+	 */
+	public synchronized boolean remove(Project project) {
+		if (project == null || this.projects.get(project.getName()) != project) return false;
+		this.projects.remove(project.getName());
+		if (this.eligibility != null) project.removeFromEligibilityIndex(this.eligibility);
+		detach(project);
+		return true;
+	}
+
+	/**
+	 * Files a project under its new name after it was renamed (see Project.setName).
+	 * The indexes already follow the rename through Project.
+	 * @param project The renamed project
+	 * @param oldName Name it was listed under
+	 */
+	public synchronized void rename(Project project, String oldName) {
+		if (project == null || project.getName().equals(oldName)) return;
+		if (this.projects.get(oldName) == project) this.projects.remove(oldName);
+		this.projects.put(project.getName(), project);
+	}
+
+	/**
+	 * Gets the index of the projects by who may apply, over the default EligibilityPolicy.
+	 * @return The index
+	 */
+	public synchronized EligibilityIndex getEligibility() {
+		EligibilityPolicy policy = EligibilityPolicy.getDefault();
+		if (this.eligibility == null || this.eligibility.getPolicy() != policy) {
+			List<Project> listed = new ArrayList<>(this.projects.values());
+			if (this.eligibility != null) {
+				for (Project project : listed) project.removeFromEligibilityIndex(this.eligibility);
+			}
+			this.eligibility = new EligibilityIndex(policy);
+			for (Project project : listed) {
+				if (project != null) project.addToEligibilityIndex(this.eligibility);
+			}
+		}
+		return this.eligibility;
+	}
+
+	/**
+	 * Gets the search index over the names and neighbourhoods of the projects.
+	 * @return The search index
+	 */
+	public ProjectSearchIndex getSearch() {
+		return this.search;
+	}
+
+	/**
+	 * Gets the sorted listing of the projects, for showing them a page at a time.
+	 * @return The listing
+	 */
+	public ProjectListing getListing() {
+		return this.listing;
+	}
+
+	/**
+	 * Gets the index of the projects by creator, with each manager's pending work.
+	 * @return The creator index
+	 */
+	public CreatorIndex getCreators() {
+		return this.creators;
+	}
+
+	/**
+	 * Re-keys a listed project in the listing and the creator index, and re-indexes it for
+	 * search if its name or neighbourhood changed. Called by Project when it changes.
+	 * @param project The project
+	 */
+	synchronized void update(Project project) {
+		Entry entry = this.entries.get(project);
+		if (entry == null) return; // Not listed, or not yet attached
+		if (!Objects.equals(project.getName(), entry.name)
+				|| !Objects.equals(project.getNeighbourhood(), entry.neighbourhood)) {
+			entry.name = project.getName();
+			entry.neighbourhood = project.getNeighbourhood();
+			this.search.put(project);
+		}
+		this.listing.update(project);
+		this.creators.update(project);
+	}
+
+	private void attach(Project project) {
+		project.setCatalogue(this);
+		this.entries.put(project, new Entry()); // Empty, so update indexes it for search
+		update(project);
+	}
+
+	private void detach(Project project) {
+		this.entries.remove(project);
+		this.search.remove(project);
+		this.listing.remove(project);
+		this.creators.remove(project);
+		project.setCatalogue(null);
+	}
+}
@@ -0,0 +1,268 @@
+package Project;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Projects in sorted orders, read a page at a time, so showing one page costs the same
+ * however many projects there are.
+ *
+ * For each Order there is a sorted set holding one key per project, and another holding the
+ * visible projects only. A page is read from a cursor, which is the key of the last project
+ * on the previous page: the next page starts just after it, so reading it is one descent of
+ * the tree and then one step per project shown, never a skip over the pages before it.
+ * Cursors stay usable while projects change: a project that moves within the order, or
+ * joins or leaves it, is simply met at its new place or not at all.
+ *
+ * Keys are kept up to date by the ProjectCatalogue that owns the listing (see
+ * ProjectCatalogue.getListing), which re-keys a project whenever its name, visibility,
+ * neighbourhood, closing date or units available change. The listing remembers each
+ * project's current keys, so a re-key drops the old one first and a renamed project is
+ * never listed twice. Pages are read under the same lock as re-keys.
+ */
+public class ProjectListing {
+
+	/**
+	 * Orders a listing can be read in. Ties are broken by project name.
+	 */
+	public enum Order {
+		/** By name, ignoring case */
+		NAME("name"),
+		/** By application closing date, soonest first; projects without one last */
+		CLOSING_DATE("closing date"),
+		/** By neighbourhood, ignoring case */
+		NEIGHBOURHOOD("neighbourhood"),
+		/** By units available over all flat types, most first */
+		AVAILABILITY("units available");
+
+		private final String label;
+
+		Order(String label) {
+			this.label = label;
+		}
+
+		/** @return Description for menus, e.g. "closing date" */
+		public String getLabel() { return this.label; }
+	}
+
+	/**
+	 * Where the next page of a listing starts.
+	 */
+	public static final class Cursor {
+		private final Order order;
+		private final boolean visibleOnly;
+		private final Key after;
+
+		Cursor(Order order, boolean visibleOnly, Key after) {
+			this.order = order;
+			this.visibleOnly = visibleOnly;
+			this.after = after;
+		}
+
+		/** @return Order being read */
+		public Order getOrder() { return this.order; }
+
+		/** @return true if only visible projects are listed */
+		public boolean isVisibleOnly() { return this.visibleOnly; }
+	}
+
+	/**
+	 * One page of a listing.
+	 */
+	public static final class Page {
+		private final List<Project> projects;
+		private final Cursor next;
+		private final int total;
+
+		Page(List<Project> projects, Cursor next, int total) {
+			this.projects = Collections.unmodifiableList(projects);
+			this.next = next;
+			this.total = total;
+		}
+
+		/** @return Projects on the page, in order */
+		public List<Project> getProjects() { return this.projects; }
+
+		/** @return Cursor for the next page, or null if this is the last */
+		public Cursor getNext() { return this.next; }
+
+		/** @return true if there is a next page */
+		public boolean hasNext() { return this.next != null; }
+
+		/** @return Number of projects in the whole listing when the page was read */
+		public int getTotal() { return this.total; }
+	}
+
+	// Sort key of one project in one order: number, then text, then name, then when it was added
+	private static final class Key implements Comparable<Key> {
+		final Project project;
+		final long number;
+		final String text;
+		final String name;
+		final long id;
+
+		Key(Project project, long number, String text, String name, long id) {
+			this.project = project;
+			this.number = number;
+			this.text = text;
+			this.name = name;
+			this.id = id;
+		}
+
+		@Override
+		public int compareTo(Key other) {
+			if (this.number != other.number) return Long.compare(this.number, other.number);
+			int byText = this.text.compareTo(other.text);
+			if (byText != 0) return byText;
+			int byName = this.name.compareTo(other.name);
+			return (byName != 0) ? byName : Long.compare(this.id, other.id);
+		}
+
+		boolean sameAs(Key other) {
+			return other != null && compareTo(other) == 0;
+		}
+	}
+
+	private static final class Entry {
+		final long id;
+		final Key[] keys = new Key[Order.values().length];
+		boolean visible;
+
+		Entry(long id) {
+			this.id = id;
+		}
+	}
+
+	private final Map<Project, Entry> entries = new IdentityHashMap<>();
+	private final List<NavigableSet<Key>> all = new ArrayList<>(); // By order ordinal
+	private final List<NavigableSet<Key>> visible = new ArrayList<>();
+	private long nextId;
+
+	/**
+	 * Creates an empty listing. Projects are added by the ProjectCatalogue that owns it.
+	 */
+	ProjectListing() {
+		for (int i = 0; i < Order.values().length; i++) {
+			this.all.add(new TreeSet<>());
+			this.visible.add(new TreeSet<>());
+		}
+	}
+
+	/**
+	 * Reads the first page of a listing.
+	 * @param order Sort order
+	 * @param visibleOnly true to list only visible projects
+	 * @param size Projects per page
+	 * @return The page
+	 */
+	public synchronized Page firstPage(Order order, boolean visibleOnly, int size) {
+		NavigableSet<Key> set = setOf(order, visibleOnly);
+		return read(order, visibleOnly, set, size, set.size());
+	}
+
+	/**
+	 * Reads the page after the one a cursor came from.
+	 * @param cursor Cursor from the previous page
+	 * @param size Projects per page
+	 * @return The page
+	 */
+	public synchronized Page nextPage(Cursor cursor, int size) {
+		NavigableSet<Key> set = setOf(cursor.order, cursor.visibleOnly);
+		return read(cursor.order, cursor.visibleOnly, set.tailSet(cursor.after, false), size, set.size());
+	}
+
+	/**
+	 * Counts the projects listed.
+	 * @param visibleOnly true to count only visible projects
+	 * @return Number of projects
+	 */
+	public synchronized int size(boolean visibleOnly) {
+		return setOf(Order.NAME, visibleOnly).size();
+	}
+
+	/**
+	 * Re-keys a project from its current details, adding it if needed.
+	 * Called by ProjectCatalogue.update.
+	 * @param project The project
+	 */
+	synchronized void update(Project project) {
+		Entry entry = this.entries.get(project);
+		if (entry == null) {
+			entry = new Entry(this.nextId++);
+			this.entries.put(project, entry);
+		}
+		boolean nowVisible = Boolean.TRUE.equals(project.getVisibility());
+		String name = lower(project.getName());
+		for (Order order : Order.values()) {
+			int i = order.ordinal();
+			Key old = entry.keys[i];
+			Key key = keyOf(order, project, name, entry.id);
+			if (key.sameAs(old) && nowVisible == entry.visible) continue;
+			if (old != null) {
+				this.all.get(i).remove(old);
+				this.visible.get(i).remove(old);
+			}
+			this.all.get(i).add(key);
+			if (nowVisible) this.visible.get(i).add(key);
+			entry.keys[i] = key;
+		}
+		entry.visible = nowVisible;
+	}
+
+	/**
+	 * Removes a project. Called by ProjectCatalogue.remove.
+	 * @param project The project
+	 */
+	synchronized void remove(Project project) {
+		Entry entry = this.entries.remove(project);
+		if (entry == null) return;
+		for (int i = 0; i < entry.keys.length; i++) {
+			this.all.get(i).remove(entry.keys[i]);
+			this.visible.get(i).remove(entry.keys[i]);
+		}
+	}
+
+	private NavigableSet<Key> setOf(Order order, boolean visibleOnly) {
+		return (visibleOnly ? this.visible : this.all).get(order.ordinal());
+	}
+
+	private static Page read(Order order, boolean visibleOnly, NavigableSet<Key> from, int size, int total) {
+		List<Project> projects = new ArrayList<>(Math.max(0, size));
+		Iterator<Key> it = from.iterator();
+		Key last = null;
+		while (projects.size() < size && it.hasNext()) {
+			last = it.next();
+			projects.add(last.project);
+		}
+		Cursor next = (last != null && it.hasNext()) ? new Cursor(order, visibleOnly, last) : null;
+		return new Page(projects, next, total);
+	}
+
+	private static Key keyOf(Order order, Project project, String name, long id) {
+		switch (order) {
+			case CLOSING_DATE:
+				LocalDate closing = project.getAppClosingDate();
+				return new Key(project, (closing != null) ? closing.toEpochDay() : Long.MAX_VALUE, "", name, id);
+			case NEIGHBOURHOOD:
+				return new Key(project, 0, lower(project.getNeighbourhood()), name, id);
+			case AVAILABILITY:
+				long available = 0;
+				for (FlatType type : project.getFlatTypes()) available += project.getAvailableUnits(type);
+				return new Key(project, -available, "", name, id);
+			default:
+				return new Key(project, 0, "", name, id);
+		}
+	}
+
+	private static String lower(String text) {
+		return (text != null) ? text.trim().toLowerCase(Locale.ROOT) : "";
+	}
+}
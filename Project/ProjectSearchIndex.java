@@ -0,0 +1,506 @@
+package Project;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Search over project names and neighbourhoods that tolerates typos and partial input, so
+ * users need not type a project name exactly.
+ *
+ * Each project is indexed under its whole name, each word of its name, its whole
+ * neighbourhood and each word of its neighbourhood, all lower case with runs of spaces
+ * collapsed. The terms live in a compressed trie (a radix tree: chains of single-child nodes
+ * are merged into one edge), so a prefix search walks one path and then collects the
+ * subtree below it. For typos, every term is also indexed by its trigrams (three-letter
+ * pieces, padded at both ends) and its length; a query's trigrams pick out the few terms of
+ * about its length that share enough of them, and only those are compared with the query by
+ * edit distance.
+ *
+ * A query of several words also matches projects that have every word somewhere in their
+ * name or neighbourhood, in any order, each word as a prefix or with a typo.
+ *
+ * Results are ranked: an exact name first, then exact neighbourhoods, name prefixes, words
+ * of a name, neighbourhood prefixes, and typo matches last, fewer edits first; a match
+ * word by word ranks just below the same match of the whole query. Ties are broken by
+ * name. Only the best results asked for are sorted.
+ *
+ * put drops the terms a project was last indexed under before adding its current ones, so
+ * a renamed project is no longer found by its old name. Searches wait while the trie is
+ * being changed.
+ */
+public class ProjectSearchIndex {
+
+	/**
+	 * One search result.
+	 */
+	public static final class Hit {
+		private final Project project;
+		private final int score;
+		private final String key; // Normalized name, for ties
+
+		Hit(Project project, int score, String key) {
+			this.project = project;
+			this.score = score;
+			this.key = key;
+		}
+
+		/** @return The project found */
+		public Project getProject() { return this.project; }
+
+		/** @return Rank of the match; higher is better */
+		public int getScore() { return this.score; }
+	}
+
+	// Kinds of term, as bits of a posting
+	private static final int NAME = 1;
+	private static final int NAME_WORD = 2;
+	private static final int NEIGHBOURHOOD = 4;
+	private static final int NEIGHBOURHOOD_WORD = 8;
+
+	private static final class Node {
+		String edge = ""; // Characters on the edge from the parent
+		final Map<Character, Node> children = new HashMap<>(4);
+		final Map<Project, Integer> postings = new IdentityHashMap<>(2); // Projects with this term -> kinds
+	}
+
+	private static final class Term {
+		final String text;
+		final int kind;
+
+		Term(String text, int kind) {
+			this.text = text;
+			this.kind = kind;
+		}
+	}
+
+	private static final int WORDS_PENALTY = 50;
+	private static final Comparator<Hit> RANK = (a, b) -> (a.score != b.score) ? Integer.compare(b.score, a.score)
+			: a.key.compareTo(b.key);
+
+	private final Node root = new Node();
+	private final Map<Project, List<Term>> termsByProject = new IdentityHashMap<>();
+	private final Map<Project, String> sortKeys = new IdentityHashMap<>(); // Normalized names
+	private final Map<String, Integer> termUsers = new HashMap<>(); // Term -> number of projects indexed under it
+	private final List<Map<String, Set<String>>> termsByTrigram = new ArrayList<>(); // By term length: trigram -> terms
+
+	/**
+	 * Indexes a project under its current name and neighbourhood, replacing what it was
+	 * indexed under before (e.g. after a rename).
+	 * @param project The project
+	 */
+	public synchronized void put(Project project) {
+		remove(project);
+		List<Term> terms = new ArrayList<>();
+		addTerms(terms, project.getName(), NAME, NAME_WORD);
+		addTerms(terms, project.getNeighbourhood(), NEIGHBOURHOOD, NEIGHBOURHOOD_WORD);
+		for (Term term : terms) {
+			Node node = insert(term.text);
+			node.postings.merge(project, term.kind, (a, b) -> a | b);
+			if (this.termUsers.merge(term.text, 1, Integer::sum) == 1) {
+				for (String trigram : trigrams(term.text)) {
+					trigramsOfLength(term.text.length()).computeIfAbsent(trigram, k -> new HashSet<>()).add(term.text);
+				}
+			}
+		}
+		this.termsByProject.put(project, terms);
+		this.sortKeys.put(project, normalize(project.getName()));
+	}
+
+	/**
+	 * Builds an index over a list of projects, e.g. the ones an applicant may apply to.
+	 * @param projects Projects to index (nulls are skipped)
+	 * @return The index
+	 */
+	public static ProjectSearchIndex of(Collection<Project> projects) {
+		ProjectSearchIndex index = new ProjectSearchIndex();
+		for (Project project : projects) {
+			if (project != null) index.put(project);
+		}
+		return index;
+	}
+
+	/**
+	 * Removes a project from the index.
+	 * @param project The project
+	 * @return true if it was indexed
+	 */
+	public synchronized boolean remove(Project project) {
+		List<Term> terms = this.termsByProject.remove(project);
+		if (terms == null) return false;
+		this.sortKeys.remove(project);
+		for (Term term : terms) {
+			removePosting(this.root, term.text, 0, project);
+			if (this.termUsers.merge(term.text, -1, Integer::sum) == 0) {
+				this.termUsers.remove(term.text);
+				for (String trigram : trigrams(term.text)) {
+					Map<String, Set<String>> buckets = trigramsOfLength(term.text.length());
+					Set<String> bucket = buckets.get(trigram);
+					if (bucket == null) continue;
+					bucket.remove(term.text);
+					if (bucket.isEmpty()) buckets.remove(trigram);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the number of projects indexed.
+	 * @return Number of projects
+	 */
+	public synchronized int size() {
+		return this.termsByProject.size();
+	}
+
+	/**
+	 * Searches names and neighbourhoods by prefix and, allowing for typos, by similarity.
+	 * @param query Text typed by the user
+	 * @param limit Maximum number of results
+	 * @return Results, best first
+	 */
+	public synchronized List<Hit> search(String query, int limit) {
+		return search(query, limit, null);
+	}
+
+	/**
+	 * Searches names and neighbourhoods as search(String, int) does, among some of the
+	 * projects only, e.g. the ones an applicant may apply to.
+	 * @param query Text typed by the user
+	 * @param limit Maximum number of results
+	 * @param filter Projects that may be returned, or null for all
+	 * @return Results, best first
+	 */
+	public synchronized List<Hit> search(String query, int limit, Predicate<? super Project> filter) {
+		String q = normalize(query);
+		List<Hit> hits = new ArrayList<>();
+		if (q.isEmpty() || limit <= 0) return hits;
+		Map<Project, Integer> scores = match(q);
+
+		// Several words: also match each word on its own, in any order; a project must match them all
+		String[] words = q.split(" ");
+		if (words.length > 1) {
+			Map<Project, Integer> all = match(words[0]);
+			for (int i = 1; i < words.length && !all.isEmpty(); i++) {
+				Map<Project, Integer> word = match(words[i]);
+				all.keySet().retainAll(word.keySet());
+				for (Map.Entry<Project, Integer> entry : all.entrySet()) entry.setValue(Math.min(entry.getValue(), word.get(entry.getKey())));
+			}
+			for (Map.Entry<Project, Integer> entry : all.entrySet()) {
+				scores.merge(entry.getKey(), entry.getValue() - WORDS_PENALTY, Math::max); // Below the same match as one phrase
+			}
+		}
+		if (filter != null) scores.keySet().removeIf(project -> !filter.test(project));
+
+		// Keep only the best `limit` results, so a short query matching many projects sorts few
+		PriorityQueue<Hit> best = new PriorityQueue<>(Math.min(limit, scores.size()) + 1, RANK.reversed());
+		for (Map.Entry<Project, Integer> entry : scores.entrySet()) {
+			Hit hit = new Hit(entry.getKey(), entry.getValue(), this.sortKeys.get(entry.getKey()));
+			if (best.size() == limit && RANK.compare(hit, best.peek()) >= 0) continue; // No better than the worst kept
+			best.add(hit);
+			if (best.size() > limit) best.poll();
+		}
+		hits.addAll(best);
+		hits.sort(RANK);
+		return hits;
+	}
+
+	// Scores every project with a term that starts with the text, or is within a few typos of it
+	private Map<Project, Integer> match(String text) {
+		Map<Project, Integer> scores = new IdentityHashMap<>();
+
+		// Prefix matches: every term in the subtree below the text's path
+		Node start = prefixNode(text);
+		if (start != null) {
+			Node exact = find(text);
+			for (Node node : subtree(start)) {
+				for (Map.Entry<Project, Integer> posting : node.postings.entrySet()) {
+					scores.merge(posting.getKey(), prefixScore(posting.getValue(), node == exact), Math::max);
+				}
+			}
+		}
+
+		// Typo matches: terms sharing trigrams with the text, checked by edit distance
+		int maxEdits = (text.length() <= 2) ? 0 : (text.length() <= 7) ? 1 : 2;
+		if (maxEdits == 0) return scores;
+		Map<String, Integer> shared = new HashMap<>();
+		List<String> textTrigrams = trigrams(text);
+		int maxLength = Math.min(text.length() + maxEdits, this.termsByTrigram.size() - 1);
+		for (int length = Math.max(1, text.length() - maxEdits); length <= maxLength; length++) { // Longer or shorter terms are too far
+			Map<String, Set<String>> buckets = this.termsByTrigram.get(length);
+			for (String trigram : textTrigrams) {
+				Set<String> bucket = buckets.get(trigram);
+				if (bucket == null) continue;
+				for (String term : bucket) shared.merge(term, 1, Integer::sum);
+			}
+		}
+		int needed = Math.max(1, textTrigrams.size() - 4 * maxEdits); // Each edit spoils at most four trigrams (a swap)
+		for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+			if (candidate.getValue() < needed) continue;
+			String term = candidate.getKey();
+			int distance = editDistance(text, term, maxEdits);
+			if (distance <= 0) continue; // Too far, or already found as a prefix
+			Node termNode = find(term);
+			if (termNode == null) continue;
+			for (Map.Entry<Project, Integer> posting : termNode.postings.entrySet()) {
+				scores.merge(posting.getKey(), fuzzyScore(posting.getValue()) - 100 * distance, Math::max);
+			}
+		}
+		return scores;
+	}
+
+	/**
+	 * Lists the names of the best matches for a query, for "did you mean" hints.
+	 * @param query Text typed by the user
+	 * @param limit Maximum number of names
+	 * @return Project names, best first
+	 */
+	public synchronized List<String> suggest(String query, int limit) {
+		return suggest(query, limit, null);
+	}
+
+	/**
+	 * Lists the names of the best matches for a query among some of the projects only.
+	 * @param query Text typed by the user
+	 * @param limit Maximum number of names
+	 * @param filter Projects that may be suggested, or null for all
+	 * @return Project names, best first
+	 */
+	public synchronized List<String> suggest(String query, int limit, Predicate<? super Project> filter) {
+		List<String> names = new ArrayList<>();
+		for (Hit hit : search(query, limit, filter)) names.add(nameOf(hit.project));
+		return names;
+	}
+
+	/**
+	 * Finds the one project a user most likely meant by a name: the project with exactly that
+	 * name ignoring case and spacing, or else the only project whose name starts with it.
+	 * Only the first is certain: callers should confirm any other match with the user
+	 * (see isExactName) before acting on it.
+	 * @param query Text typed by the user
+	 * @return The project, or null if there is none or the input is ambiguous
+	 */
+	public synchronized Project resolve(String query) {
+		return resolve(query, null);
+	}
+
+	/**
+	 * Finds the one project a user most likely meant by a name, as resolve(String) does,
+	 * among some of the projects only.
+	 * @param query Text typed by the user
+	 * @param filter Projects that may be returned, or null for all
+	 * @return The project, or null if there is none or the input is ambiguous
+	 */
+	public synchronized Project resolve(String query, Predicate<? super Project> filter) {
+		String q = normalize(query);
+		if (q.isEmpty()) return null;
+		Node exact = find(q);
+		if (exact != null) {
+			Project only = null;
+			for (Map.Entry<Project, Integer> posting : exact.postings.entrySet()) {
+				if ((posting.getValue() & NAME) == 0 || (filter != null && !filter.test(posting.getKey()))) continue;
+				if (only != null) return null; // Two projects with the same name
+				only = posting.getKey();
+			}
+			if (only != null) return only;
+		}
+		Node start = prefixNode(q);
+		if (start == null) return null;
+		Project only = null;
+		for (Node node : subtree(start)) { // Whole names in the subtree are the names starting with q
+			for (Map.Entry<Project, Integer> posting : node.postings.entrySet()) {
+				if ((posting.getValue() & NAME) == 0 || posting.getKey() == only) continue;
+				if (filter != null && !filter.test(posting.getKey())) continue;
+				if (only != null) return null;
+				only = posting.getKey();
+			}
+		}
+		return only;
+	}
+
+	/**
+	 * Checks whether a user typed a project's name exactly, ignoring case and spacing.
+	 * @param project The project
+	 * @param query Text typed by the user
+	 * @return true if the text is the project's name
+	 */
+	public static boolean isExactName(Project project, String query) {
+		String q = normalize(query);
+		return project != null && !q.isEmpty() && q.equals(normalize(project.getName()));
+	}
+
+	// Finds the node whose subtree holds exactly the terms starting with a prefix, or null
+	private Node prefixNode(String prefix) {
+		Node node = this.root;
+		int i = 0;
+		while (i < prefix.length()) {
+			Node child = node.children.get(prefix.charAt(i));
+			if (child == null) return null;
+			int common = commonPrefix(child.edge, prefix, i);
+			if (i + common == prefix.length()) return child; // The prefix ends on or inside this edge
+			if (common < child.edge.length()) return null; // Diverges inside the edge
+			i += common;
+			node = child;
+		}
+		return node;
+	}
+
+	private static List<Node> subtree(Node start) {
+		List<Node> nodes = new ArrayList<>();
+		nodes.add(start);
+		for (int i = 0; i < nodes.size(); i++) nodes.addAll(nodes.get(i).children.values());
+		return nodes;
+	}
+
+	private static int prefixScore(int kinds, boolean exact) {
+		int best = 0;
+		if ((kinds & NAME) != 0) best = Math.max(best, exact ? 1000 : 700);
+		if ((kinds & NEIGHBOURHOOD) != 0) best = Math.max(best, exact ? 800 : 500);
+		if ((kinds & NAME_WORD) != 0) best = Math.max(best, exact ? 650 : 600);
+		if ((kinds & NEIGHBOURHOOD_WORD) != 0) best = Math.max(best, exact ? 550 : 450);
+		return best;
+	}
+
+	private static int fuzzyScore(int kinds) {
+		if ((kinds & (NAME | NAME_WORD)) != 0) return 400;
+		return 350;
+	}
+
+	// Adds a text and each of its words as terms
+	private static void addTerms(List<Term> terms, String text, int wholeKind, int wordKind) {
+		String normalized = normalize(text);
+		if (normalized.isEmpty()) return;
+		terms.add(new Term(normalized, wholeKind));
+		Set<String> words = new LinkedHashSet<>();
+		for (String word : normalized.split(" ")) {
+			if (!word.isEmpty() && !word.equals(normalized)) words.add(word);
+		}
+		for (String word : words) terms.add(new Term(word, wordKind));
+	}
+
+	// Finds or creates the node of a term, splitting an edge if the term ends inside it
+	private Node insert(String term) {
+		Node node = this.root;
+		int i = 0;
+		while (i < term.length()) {
+			Node child = node.children.get(term.charAt(i));
+			if (child == null) {
+				Node leaf = new Node();
+				leaf.edge = term.substring(i);
+				node.children.put(term.charAt(i), leaf);
+				return leaf;
+			}
+			int common = commonPrefix(child.edge, term, i);
+			if (common < child.edge.length()) { // Split the edge
+				Node middle = new Node();
+				middle.edge = child.edge.substring(0, common);
+				child.edge = child.edge.substring(common);
+				middle.children.put(child.edge.charAt(0), child);
+				node.children.put(term.charAt(i), middle);
+				child = middle;
+			}
+			i += common;
+			node = child;
+		}
+		return node;
+	}
+
+	// Finds the node of an exact term, or null
+	private Node find(String term) {
+		Node node = this.root;
+		int i = 0;
+		while (i < term.length()) {
+			Node child = node.children.get(term.charAt(i));
+			if (child == null || !term.startsWith(child.edge, i)) return null;
+			i += child.edge.length();
+			node = child;
+		}
+		return node;
+	}
+
+	// Removes a posting and prunes nodes left with no postings and no children; returns true if node is now empty
+	private boolean removePosting(Node node, String term, int i, Project project) {
+		if (i == term.length()) {
+			node.postings.remove(project);
+		} else {
+			Node child = node.children.get(term.charAt(i));
+			if (child == null || !term.startsWith(child.edge, i)) return false;
+			if (removePosting(child, term, i + child.edge.length(), project)) {
+				node.children.remove(term.charAt(i));
+			} else if (child.postings.isEmpty() && child.children.size() == 1) { // Merge back into one edge
+				Node only = child.children.values().iterator().next();
+				only.edge = child.edge + only.edge;
+				node.children.put(term.charAt(i), only);
+			}
+		}
+		return node != this.root && node.postings.isEmpty() && node.children.isEmpty();
+	}
+
+	private static int commonPrefix(String edge, String text, int from) {
+		int n = Math.min(edge.length(), text.length() - from);
+		int i = 0;
+		while (i < n && edge.charAt(i) == text.charAt(from + i)) i++;
+		return i;
+	}
+
+	// Trigrams are filed by the length of their term, so a query only meets terms of a length it could be a typo of
+	private Map<String, Set<String>> trigramsOfLength(int length) {
+		while (this.termsByTrigram.size() <= length) this.termsByTrigram.add(new HashMap<>());
+		return this.termsByTrigram.get(length);
+	}
+
+	private static List<String> trigrams(String term) {
+		String padded = "  " + term + " ";
+		List<String> result = new ArrayList<>(padded.length());
+		for (int i = 0; i + 3 <= padded.length(); i++) result.add(padded.substring(i, i + 3));
+		return result;
+	}
+
+	// Edit distance counting a swap of two neighbouring letters as one edit (optimal string
+	// alignment), or -1 if it is more than max (stops early once a whole row exceeds it)
+	private static int editDistance(String a, String b, int max) {
+		if (Math.abs(a.length() - b.length()) > max) return -1;
+		int[] beforePrevious = new int[b.length() + 1];
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) previous[j] = j;
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			int rowMin = current[0];
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = (a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1;
+				current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+				if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+					current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+				}
+				rowMin = Math.min(rowMin, current[j]);
+			}
+			if (rowMin > max) return -1;
+			int[] swap = beforePrevious;
+			beforePrevious = previous;
+			previous = current;
+			current = swap;
+		}
+		return (previous[b.length()] <= max) ? previous[b.length()] : -1;
+	}
+
+	private static String nameOf(Project project) {
+		return (project.getName() != null) ? project.getName() : "";
+	}
+
+	// Lower case, trimmed, runs of spaces collapsed
+	private static String normalize(String text) {
+		if (text == null) return "";
+		return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+	}
+}
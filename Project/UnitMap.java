@@ -0,0 +1,331 @@
+package Project;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The individual units of one flat type in one project, and which of them are taken.
+ *
+ * Units are laid out as blocks of floors of units, all blocks the same size, and numbered
+ * block by block, floor by floor: unit index = (block * floors + floor) * unitsPerFloor + unit.
+ * Only the first `total` indices exist; the rest of the last block is not built. Labels are
+ * written "block-floor-unit" with 1-based numbers, e.g. "2-05-03" for block 2, #05-03.
+ *
+ * Taken units are bits in an array of 64-bit words, one bit per unit. Claiming a unit sets
+ * its bit with a compare-and-set on its word, so officers booking at the same time never get
+ * the same unit. Finding a free unit scans a word at a time: a word whose 64 units are all
+ * taken is skipped with one comparison. Because the numbering is block-major, the units of
+ * one block within a range of floors are one contiguous range of bits. The map also remembers
+ * the first word that may still have a free unit, so filling a project from the bottom up
+ * does not rescan the words it has already filled.
+ */
+public class UnitMap {
+
+	/** Floors per block in the default layout */
+	public static final int DEFAULT_FLOORS = 12;
+	/** Units per floor in the default layout */
+	public static final int DEFAULT_UNITS_PER_FLOOR = 4;
+
+	/**
+	 * Which units an applicant will accept: a block (or any block) and a range of floors.
+	 */
+	public static final class Filter {
+		private static final Filter ANY = new Filter(0, 1, Integer.MAX_VALUE);
+
+		private final int block;
+		private final int minFloor;
+		private final int maxFloor;
+
+		/**
+		 * Creates a filter.
+		 * @param block Block number from 1, or 0 for any block
+		 * @param minFloor Lowest acceptable floor, from 1
+		 * @param maxFloor Highest acceptable floor
+		 */
+		public Filter(int block, int minFloor, int maxFloor) {
+			this.block = Math.max(0, block);
+			this.minFloor = Math.max(1, minFloor);
+			this.maxFloor = maxFloor;
+		}
+
+		/**
+		 * Gets the filter that accepts every unit.
+		 * @return The filter
+		 */
+		public static Filter any() {
+			return ANY;
+		}
+	}
+
+	private final int blocks;
+	private final int floors;
+	private final int unitsPerFloor;
+	private final int total;
+	private final AtomicLongArray words;
+	private final AtomicInteger firstFreeWord = new AtomicInteger(); // No free unit in any word below this
+
+	/**
+	 * Creates a map with every unit free.
+	 * @param blocks Number of blocks
+	 * @param floors Floors per block
+	 * @param unitsPerFloor Units per floor
+	 * @param total Units that exist, at most blocks * floors * unitsPerFloor
+	 */
+	public UnitMap(int blocks, int floors, int unitsPerFloor, int total) {
+		if (blocks < 1 || floors < 1 || unitsPerFloor < 1) {
+			throw new IllegalArgumentException("Unit layout must have at least one block, floor and unit per floor");
+		}
+		if (total < 0 || (long) blocks * floors * unitsPerFloor < total) {
+			throw new IllegalArgumentException("Unit layout " + blocks + "x" + floors + "x" + unitsPerFloor + " cannot hold " + total + " units");
+		}
+		this.blocks = blocks;
+		this.floors = floors;
+		this.unitsPerFloor = unitsPerFloor;
+		this.total = total;
+		this.words = new AtomicLongArray((total + 63) / 64);
+	}
+
+	/**
+	 * Creates a map in the default layout (DEFAULT_FLOORS floors of DEFAULT_UNITS_PER_FLOOR units
+	 * per block), with as many blocks as the units need.
+	 * @param total Number of units
+	 * @return A map with every unit free
+	 */
+	public static UnitMap forTotal(int total) {
+		int perBlock = DEFAULT_FLOORS * DEFAULT_UNITS_PER_FLOOR;
+		int blocks = Math.max(1, (total + perBlock - 1) / perBlock);
+		return new UnitMap(blocks, DEFAULT_FLOORS, DEFAULT_UNITS_PER_FLOOR, total);
+	}
+
+	/**
+	 * Parses a layout written by getLayout(), e.g. "2x12x4", sized for a number of units.
+	 * @param layout Layout string
+	 * @param total Number of units
+	 * @return A map with every unit free, or null if the layout is malformed or too small
+	 */
+	public static UnitMap parseLayout(String layout, int total) {
+		if (layout == null) return null;
+		String[] parts = layout.trim().split("x");
+		if (parts.length != 3) return null;
+		try {
+			int blocks = Integer.parseInt(parts[0]);
+			int floors = Integer.parseInt(parts[1]);
+			int unitsPerFloor = Integer.parseInt(parts[2]);
+			if (blocks < 1 || floors < 1 || unitsPerFloor < 1 || (long) blocks * floors * unitsPerFloor < total) return null;
+			return new UnitMap(blocks, floors, unitsPerFloor, total);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a map for a different number of units in the same layout, adding blocks if
+	 * needed, with the same units taken.
+	 * @param newTotal Number of units
+	 * @return The new map
+	 * @throws IllegalArgumentException if a unit at or beyond the new total is taken
+	 */
+	public UnitMap resize(int newTotal) {
+		int highest = highestTaken();
+		if (highest >= newTotal) {
+			throw new IllegalArgumentException("Unit " + label(highest) + " is taken; cannot shrink to " + newTotal + " units");
+		}
+		int perBlock = this.floors * this.unitsPerFloor;
+		int newBlocks = Math.max(this.blocks, (newTotal + perBlock - 1) / perBlock);
+		UnitMap resized = new UnitMap(newBlocks, this.floors, this.unitsPerFloor, newTotal);
+		int copy = Math.min(this.words.length(), resized.words.length());
+		for (int w = 0; w < copy; w++) resized.words.set(w, this.words.get(w) & resized.wordMask(w));
+		return resized;
+	}
+
+	/**
+	 * Gets the layout as "blocks x floors x unitsPerFloor", e.g. "2x12x4".
+	 * @return The layout
+	 */
+	public String getLayout() {
+		return this.blocks + "x" + this.floors + "x" + this.unitsPerFloor;
+	}
+
+	/** @return Number of units that exist */
+	public int getTotal() {
+		return this.total;
+	}
+
+	/** @return Number of blocks */
+	public int getBlocks() {
+		return this.blocks;
+	}
+
+	/** @return Floors per block */
+	public int getFloors() {
+		return this.floors;
+	}
+
+	/**
+	 * Takes the free unit with the lowest index that the filter accepts.
+	 * @param filter Acceptable units
+	 * @return The unit index, or -1 if no acceptable unit is free
+	 */
+	public int claimNext(Filter filter) {
+		int minFloor = filter.minFloor - 1;
+		int maxFloor = Math.min(filter.maxFloor, this.floors) - 1;
+		if (minFloor > maxFloor) return -1;
+		int firstBlock = (filter.block == 0) ? 0 : filter.block - 1;
+		int lastBlock = (filter.block == 0) ? this.blocks - 1 : Math.min(filter.block - 1, this.blocks - 1);
+		int perBlock = this.floors * this.unitsPerFloor;
+		if (minFloor == 0 && maxFloor == this.floors - 1) { // Whole blocks: one contiguous range
+			return claimInRange(firstBlock * perBlock, Math.min((lastBlock + 1) * perBlock, this.total));
+		}
+		firstBlock = Math.max(firstBlock, (int) (((long) this.firstFreeWord.get() << 6) / perBlock)); // Blocks below are full
+		for (int b = firstBlock; b <= lastBlock; b++) {
+			int from = (b * this.floors + minFloor) * this.unitsPerFloor;
+			int to = Math.min((b * this.floors + maxFloor + 1) * this.unitsPerFloor, this.total);
+			if (from >= this.total) break;
+			int unit = claimInRange(from, to);
+			if (unit >= 0) return unit;
+		}
+		return -1;
+	}
+
+	/**
+	 * Takes one specific unit.
+	 * @param index Unit index
+	 * @return true if the unit existed and was free
+	 */
+	public boolean claim(int index) {
+		if (index < 0 || index >= this.total) return false;
+		int w = index >>> 6;
+		long bit = 1L << index;
+		while (true) {
+			long word = this.words.get(w);
+			if ((word & bit) != 0) return false;
+			if (this.words.compareAndSet(w, word, word | bit)) return true;
+		}
+	}
+
+	/**
+	 * Frees a unit taken earlier.
+	 * @param index Unit index
+	 * @return true if the unit was taken
+	 */
+	public boolean release(int index) {
+		if (index < 0 || index >= this.total) return false;
+		int w = index >>> 6;
+		long bit = 1L << index;
+		while (true) {
+			long word = this.words.get(w);
+			if ((word & bit) == 0) return false;
+			if (this.words.compareAndSet(w, word, word & ~bit)) {
+				this.firstFreeWord.accumulateAndGet(w, Math::min);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Checks whether a unit is taken.
+	 * @param index Unit index
+	 * @return true if taken
+	 */
+	public boolean isTaken(int index) {
+		return index >= 0 && index < this.total && (this.words.get(index >>> 6) & (1L << index)) != 0;
+	}
+
+	/**
+	 * Counts the free units.
+	 * @return Number of free units
+	 */
+	public int countFree() {
+		int taken = 0;
+		for (int w = 0; w < this.words.length(); w++) taken += Long.bitCount(this.words.get(w));
+		return this.total - taken;
+	}
+
+	/**
+	 * Finds the taken unit with the highest index.
+	 * @return The unit index, or -1 if no unit is taken
+	 */
+	public int highestTaken() {
+		for (int w = this.words.length() - 1; w >= 0; w--) {
+			long word = this.words.get(w);
+			if (word != 0) return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the label of a unit, e.g. "2-05-03".
+	 * @param index Unit index
+	 * @return The label
+	 */
+	public String label(int index) {
+		int unit = index % this.unitsPerFloor;
+		int floor = (index / this.unitsPerFloor) % this.floors;
+		int block = index / (this.unitsPerFloor * this.floors);
+		StringBuilder sb = new StringBuilder(8).append(block + 1).append('-');
+		return twoDigits(twoDigits(sb, floor + 1).append('-'), unit + 1).toString(); // Not String.format: labels are made on every booking
+	}
+
+	// Appends n zero-padded to at least two digits
+	private static StringBuilder twoDigits(StringBuilder sb, int n) {
+		if (n < 10) sb.append('0');
+		return sb.append(n);
+	}
+
+	/**
+	 * Parses a unit label written by label().
+	 * @param label The label
+	 * @return The unit index, or -1 if the label is malformed or names a unit that does not exist
+	 */
+	public int indexOf(String label) {
+		if (label == null) return -1;
+		String[] parts = label.trim().split("-");
+		if (parts.length != 3) return -1;
+		try {
+			int block = Integer.parseInt(parts[0]) - 1;
+			int floor = Integer.parseInt(parts[1]) - 1;
+			int unit = Integer.parseInt(parts[2]) - 1;
+			if (block < 0 || block >= this.blocks || floor < 0 || floor >= this.floors || unit < 0 || unit >= this.unitsPerFloor) return -1;
+			int index = (block * this.floors + floor) * this.unitsPerFloor + unit;
+			return (index < this.total) ? index : -1;
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	// Word-at-a-time scan of [from, to) for a free unit, claiming it
+	private int claimInRange(int from, int to) {
+		if (from >= to) return -1;
+		for (int w = Math.max(from >>> 6, this.firstFreeWord.get()); w <= (to - 1) >>> 6; w++) {
+			long range = rangeMask(w, from, to);
+			while (true) {
+				long word = this.words.get(w);
+				long free = ~word & range;
+				if ((~word & wordMask(w)) == 0 && this.firstFreeWord.compareAndSet(w, w + 1) // Word is full
+						&& (~this.words.get(w) & wordMask(w)) != 0) {
+					this.firstFreeWord.accumulateAndGet(w, Math::min); // A unit was released meanwhile
+				}
+				if (free == 0) break; // Every unit of the range in this word is taken
+				long bit = Long.lowestOneBit(free);
+				if (this.words.compareAndSet(w, word, word | bit)) {
+					return (w << 6) + Long.numberOfTrailingZeros(bit);
+				}
+			}
+		}
+		return -1;
+	}
+
+	// Bits of word w that lie in [from, to)
+	private static long rangeMask(int w, int from, int to) {
+		int lo = Math.max(from - (w << 6), 0);
+		int hi = Math.min(to - (w << 6), 64);
+		if (lo >= hi) return 0;
+		long upper = (hi == 64) ? -1L : (1L << hi) - 1;
+		return upper & (-1L << lo);
+	}
+
+	// Bits of word w that are existing units
+	private long wordMask(int w) {
+		return rangeMask(w, 0, this.total);
+	}
+}
@@ -0,0 +1,158 @@
+package Project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import Actors.Applicant;
+
+/**
+ * The ballot waitlists of one project: per flat type, the applicants who lost the ballot
+ * for lack of places, ordered by ballot number (their position in the draw).
+ *
+ * Each list is a binary heap, so adding an applicant and taking the next one are
+ * O(log n). Applicants are not removed when they leave the waitlist some other way (e.g.
+ * they apply to another project); the caller skips them when they come up instead.
+ *
+ * Ballot numbers are issued per flat type by a counter that only ever goes up, so a later
+ * ballot never reuses a number and its losers queue behind everyone waitlisted before them,
+ * however many of those have been promoted since. The counter is saved with the project's
+ * flats, and each waitlisted applicant's number with their application.
+ *
+ * All methods are synchronized.
+ */
+class Waitlist {
+
+	private static final class Entry {
+		final int ballotNumber;
+		final long seq; // Insertion number, breaks ties between equal ballot numbers
+		final Applicant applicant;
+
+		Entry(int ballotNumber, long seq, Applicant applicant) {
+			this.ballotNumber = ballotNumber;
+			this.seq = seq;
+			this.applicant = applicant;
+		}
+	}
+
+	private final List<PriorityQueue<Entry>> queues = new ArrayList<>(); // By flat type ordinal
+	private int[] highestIssued = new int[0]; // Highest ballot number given so far, by flat type ordinal
+	private final Map<String, Entry> byNric = new HashMap<>(); // Latest entry of each applicant
+	private long nextSeq = 0;
+
+	/**
+	 * Adds an applicant to the waitlist of a flat type with the next ballot number of that type.
+	 * @param type Flat type the applicant applied for
+	 * @param applicant The applicant
+	 * @return The ballot number given
+	 */
+	synchronized int add(FlatType type, Applicant applicant) {
+		int ballotNumber = getNextNumber(type);
+		add(type, applicant, ballotNumber);
+		return ballotNumber;
+	}
+
+	/**
+	 * Adds an applicant to the waitlist of a flat type with a given ballot number, e.g. one
+	 * saved earlier. Later numbers of the type are issued after it.
+	 * @param type Flat type the applicant applied for
+	 * @param applicant The applicant
+	 * @param ballotNumber Position in the draw; lower numbers are promoted first
+	 */
+	synchronized void add(FlatType type, Applicant applicant, int ballotNumber) {
+		Entry entry = new Entry(ballotNumber, nextSeq++, applicant);
+		queue(type).add(entry);
+		byNric.put(applicant.getNric(), entry);
+		setNextNumber(type, ballotNumber + 1);
+	}
+
+	/**
+	 * Takes the applicant with the lowest ballot number off the waitlist of a flat type.
+	 * @param type Flat type
+	 * @return The applicant, or null if the waitlist is empty
+	 */
+	synchronized Applicant poll(FlatType type) {
+		if (type.ordinal() >= queues.size()) return null;
+		Entry entry = queues.get(type.ordinal()).poll();
+		if (entry == null) return null;
+		byNric.remove(entry.applicant.getNric(), entry);
+		return entry.applicant;
+	}
+
+	/**
+	 * Gets the ballot number an applicant was last waitlisted with.
+	 * @param nric Applicant NRIC
+	 * @return The ballot number, or -1 if the applicant is not on any of this project's waitlists
+	 */
+	synchronized int ballotNumberOf(String nric) {
+		Entry entry = byNric.get(nric);
+		return (entry != null) ? entry.ballotNumber : -1;
+	}
+
+	/**
+	 * Gets the ballot number the next waitlisted applicant of a flat type will get.
+	 * @param type Flat type
+	 * @return Next ballot number, from 1
+	 */
+	synchronized int getNextNumber(FlatType type) {
+		return (type.ordinal() < highestIssued.length) ? highestIssued[type.ordinal()] + 1 : 1;
+	}
+
+	/**
+	 * Raises the next ballot number of a flat type, e.g. to one saved earlier. Never lowers it.
+	 * @param type Flat type
+	 * @param next Next ballot number
+	 */
+	synchronized void setNextNumber(FlatType type, int next) {
+		if (type.ordinal() >= highestIssued.length) {
+			highestIssued = Arrays.copyOf(highestIssued, Math.max(type.ordinal() + 1, FlatType.count()));
+		}
+		highestIssued[type.ordinal()] = Math.max(highestIssued[type.ordinal()], next - 1);
+	}
+
+	/**
+	 * Gets the number of applicants waitlisted for a flat type, including any that will be skipped.
+	 * @param type Flat type
+	 * @return Waitlist length
+	 */
+	synchronized int size(FlatType type) {
+		return (type.ordinal() < queues.size()) ? queues.get(type.ordinal()).size() : 0;
+	}
+
+	/**
+	 * Lists the applicants waitlisted for a flat type.
+	 * @param type Flat type
+	 * @return New list in ballot number order
+	 */
+	synchronized List<Applicant> list(FlatType type) {
+		List<Applicant> result = new ArrayList<>();
+		if (type.ordinal() >= queues.size()) return result;
+		Entry[] entries = queues.get(type.ordinal()).toArray(new Entry[0]);
+		Arrays.sort(entries, Waitlist::compare);
+		for (Entry entry : entries) result.add(entry.applicant);
+		return result;
+	}
+
+	/**
+	 * Empties the waitlist of a flat type. Ballot numbers already issued are not reused.
+	 * @param type Flat type
+	 */
+	synchronized void clear(FlatType type) {
+		if (type.ordinal() >= queues.size()) return;
+		for (Entry entry : queues.get(type.ordinal())) byNric.remove(entry.applicant.getNric(), entry);
+		queues.get(type.ordinal()).clear();
+	}
+
+	private PriorityQueue<Entry> queue(FlatType type) {
+		while (type.ordinal() >= queues.size()) queues.add(new PriorityQueue<>(Waitlist::compare));
+		return queues.get(type.ordinal());
+	}
+
+	private static int compare(Entry a, Entry b) {
+		if (a.ballotNumber != b.ballotNumber) return Integer.compare(a.ballotNumber, b.ballotNumber);
+		return Long.compare(a.seq, b.seq);
+	}
+}
@@ -0,0 +1,128 @@
+package Services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of one ballot run (see BallotService): for every project and flat type, how many
+ * pending applications took part, how many places there were, and how many applicants were
+ * made Successful or Unsuccessful, and how many of the latter were waitlisted.
+ *
+ * Lines are in the order the projects were passed to the ballot, then by flat type ordinal,
+ * so two runs with the same seed over the same data print the same report.
+ */
+public class AllocationReport {
+
+	/**
+	 * Outcome of the ballot for one flat type of one project.
+	 */
+	public static class Line {
+		private final String projectName;
+		private final String flatType;
+		private final int applicants;
+		private final int places;
+		private final int successful;
+		private final int unsuccessful;
+		private final int waitlisted;
+
+		Line(String projectName, String flatType, int applicants, int places, int successful, int unsuccessful, int waitlisted) {
+			this.projectName = projectName;
+			this.flatType = flatType;
+			this.applicants = applicants;
+			this.places = places;
+			this.successful = successful;
+			this.unsuccessful = unsuccessful;
+			this.waitlisted = waitlisted;
+		}
+
+		/** @return Project name */
+		public String getProjectName() { return this.projectName; }
+
+		/** @return Flat type name, or "(none)" for applications without a valid flat type */
+		public String getFlatType() { return this.flatType; }
+
+		/** @return Number of pending applications in the ballot */
+		public int getApplicants() { return this.applicants; }
+
+		/** @return Units available that were not already promised to Successful applicants */
+		public int getPlaces() { return this.places; }
+
+		/** @return Number of applicants moved to Successful */
+		public int getSuccessful() { return this.successful; }
+
+		/** @return Number of applicants moved to Unsuccessful */
+		public int getUnsuccessful() { return this.unsuccessful; }
+
+		/** @return Number of unsuccessful applicants put on the waitlist, i.e. those who lost the draw */
+		public int getWaitlisted() { return this.waitlisted; }
+	}
+
+	private final long seed;
+	private final List<Line> lines;
+	private final long elapsedMillis;
+
+	AllocationReport(long seed, List<Line> lines, long elapsedMillis) {
+		this.seed = seed;
+		this.lines = Collections.unmodifiableList(new ArrayList<>(lines));
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	/**
+	 * Gets the seed of the run. Running the ballot again with this seed over the same
+	 * pending applications gives the same winners.
+	 * @return The seed
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+
+	/**
+	 * Gets the per-project, per-flat-type outcomes.
+	 * @return Unmodifiable list of lines
+	 */
+	public List<Line> getLines() {
+		return this.lines;
+	}
+
+	/**
+	 * Gets the wall-clock time of the run.
+	 * @return Elapsed time in milliseconds
+	 */
+	public long getElapsedMillis() {
+		return this.elapsedMillis;
+	}
+
+	/** @return Total applicants moved to Successful */
+	public int getTotalSuccessful() {
+		int total = 0;
+		for (Line line : this.lines) total += line.successful;
+		return total;
+	}
+
+	/** @return Total applicants moved to Unsuccessful */
+	public int getTotalUnsuccessful() {
+		int total = 0;
+		for (Line line : this.lines) total += line.unsuccessful;
+		return total;
+	}
+
+	/**
+	 * Prints the report as a table to System.out.
+	 */
+	public void print() {
+		System.out.println("\n--- Ballot Allocation Report (seed " + this.seed + ") ---");
+		if (this.lines.isEmpty()) {
+			System.out.println("No pending applications were balloted.");
+			return;
+		}
+		System.out.println(String.format("%-25s %-12s %10s %8s %11s %13s %11s",
+				"Project", "Flat Type", "Applicants", "Places", "Successful", "Unsuccessful", "Waitlisted"));
+		for (Line line : this.lines) {
+			System.out.println(String.format("%-25s %-12s %10d %8d %11d %13d %11d",
+					line.projectName, line.flatType, line.applicants, line.places, line.successful, line.unsuccessful, line.waitlisted));
+		}
+		System.out.println("Total: " + getTotalSuccessful() + " successful, " + getTotalUnsuccessful()
+				+ " unsuccessful (" + this.elapsedMillis + " ms).");
+	}
+}
@@ -0,0 +1,224 @@
+package Services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import Actors.Applicant;
+import Project.EligibilityPolicy;
+import Project.FlatType;
+import Project.Project;
+import data.ChangeEvents;
+import data.ChangeRecord;
+
+/**
+ * Decides every pending application of a set of projects in one pass, by lottery.
+ *
+ * For each project and flat type, the pending applicants for that type are drawn in a random
+ * order and the first ones, up to the number of places, become Successful; the rest become
+ * Unsuccessful and go on the project's waitlist for that type in draw order, behind anyone
+ * waitlisted by an earlier ballot, to be promoted when a place frees up (see
+ * Project.addToWaitlist). Places are the available units less those already Successful.
+ * Applications for a type the project does not offer, or that the applicant is not
+ * eligible for, are Unsuccessful and not waitlisted. When the EligibilityPolicy sets quotas,
+ * a drawn applicant whose rule has used its quota of the type loses the draw, as if there
+ * were no places left.
+ *
+ * The draw is reproducible: applicants are sorted by NRIC before shuffling, and each project
+ * and flat type gets its own random stream derived from the seed and the two names. The
+ * result therefore depends only on the seed and the pending applications, not on their load
+ * order or on how projects are spread over threads.
+ *
+ * Projects are independent, so they are balloted in parallel, one task per project.
+ */
+public class BallotService {
+
+	private final int threads;
+
+	/**
+	 * Creates a ballot service using one thread per available processor.
+	 */
+	public BallotService() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a ballot service.
+	 * @param threads Maximum number of projects balloted at once (at least 1)
+	 */
+	public BallotService(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Runs the ballot over the pending applications of the given projects.
+	 * Every decided application is published as a change, as Manager.updateApp does.
+	 * @param projects Projects to ballot; the caller checks that it may decide them
+	 * @param seed Seed of the draw
+	 * @return The allocation report, lines in project order
+	 */
+	public AllocationReport run(List<Project> projects, long seed) {
+		long start = System.nanoTime();
+		List<AllocationReport.Line> lines = new ArrayList<>();
+		int poolSize = Math.min(this.threads, Math.max(1, projects.size()));
+		ExecutorService pool = Executors.newFixedThreadPool(poolSize);
+		try {
+			List<Future<List<AllocationReport.Line>>> results = new ArrayList<>();
+			for (Project project : projects) {
+				if (project == null) continue;
+				Callable<List<AllocationReport.Line>> task = () -> ballot(project, seed);
+				results.add(pool.submit(task));
+			}
+			for (Future<List<AllocationReport.Line>> result : results) {
+				lines.addAll(result.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			System.err.println("Ballot interrupted; some projects may not have been balloted.");
+		} catch (ExecutionException e) {
+			System.err.println("Error during ballot: " + e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		return new AllocationReport(seed, lines, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	/**
+	 * Ballots the pending applications of one project.
+	 * @param project The project
+	 * @param seed Seed of the run
+	 * @return One line per flat type with applications, by type ordinal
+	 */
+	private static List<AllocationReport.Line> ballot(Project project, long seed) {
+		int typeCount = FlatType.count();
+		List<List<Applicant>> byType = new ArrayList<>(typeCount);
+		for (int i = 0; i < typeCount; i++) byType.add(new ArrayList<>());
+		List<Applicant> invalid = new ArrayList<>();
+
+		for (Applicant applicant : project.getArrOfApplicants()) {
+			FlatType type = applicant.getFlatType();
+			if (type == null || type.ordinal() >= typeCount || project.getTotalUnits(type) <= 0) {
+				invalid.add(applicant);
+			} else {
+				byType.get(type.ordinal()).add(applicant);
+			}
+		}
+
+		// Units already promised to Successful applicants who have not booked yet
+		int[] promised = new int[typeCount];
+		for (Applicant applicant : project.getSuccessfulApplicants()) {
+			FlatType type = applicant.getFlatType();
+			if (type != null && type.ordinal() < typeCount) promised[type.ordinal()]++;
+		}
+
+		EligibilityPolicy policy = EligibilityPolicy.getDefault();
+		List<AllocationReport.Line> lines = new ArrayList<>();
+		for (int i = 0; i < typeCount; i++) {
+			List<Applicant> entrants = byType.get(i);
+			if (entrants.isEmpty()) continue;
+			FlatType type = FlatType.byOrdinal(i);
+			int places = Math.max(0, project.getAvailableUnits(type) - promised[i]);
+
+			List<Applicant> drawn = new ArrayList<>(entrants.size());
+			int unsuccessful = 0;
+			for (Applicant applicant : entrants) {
+				if (policy.admits(applicant.getEligibilityRule(policy), type)) {
+					drawn.add(applicant);
+				} else if (decide(project, applicant, false)) {
+					unsuccessful++;
+				}
+			}
+			shuffle(drawn, streamFor(seed, project.getName(), type.getName()));
+			int[] held = policy.hasQuotas() ? unitsHeldByRule(project, type, policy) : null;
+
+			int successful = 0;
+			int waitlisted = 0;
+			for (Applicant applicant : drawn) {
+				int rule = applicant.getEligibilityRule(policy);
+				boolean withinQuota = held == null || held[rule] < policy.quotaFor(rule, project.getTotalUnits(type));
+				if (successful < places && withinQuota) {
+					if (decide(project, applicant, true)) {
+						successful++;
+						if (held != null) held[rule]++;
+					}
+				} else if (decide(project, applicant, false, true)) {
+					unsuccessful++;
+					waitlisted++;
+				}
+			}
+			if (waitlisted > 0) ChangeEvents.publish(ChangeRecord.flats(project, type)); // Saves the next ballot number
+			lines.add(new AllocationReport.Line(project.getName(), type.getName(), entrants.size(), places, successful, unsuccessful, waitlisted));
+		}
+
+		if (!invalid.isEmpty()) {
+			int unsuccessful = 0;
+			for (Applicant applicant : invalid) {
+				if (decide(project, applicant, false)) unsuccessful++;
+			}
+			lines.add(new AllocationReport.Line(project.getName(), "(none)", invalid.size(), 0, 0, unsuccessful, 0));
+		}
+		return lines;
+	}
+
+	/**
+	 * Gets the units of a flat type held (Successful or Booked) per eligibility rule,
+	 * from the project's running counts (see Project.getUnitsHeld).
+	 */
+	private static int[] unitsHeldByRule(Project project, FlatType type, EligibilityPolicy policy) {
+		int[] held = new int[policy.ruleCount()];
+		for (int rule = 0; rule < held.length; rule++) held[rule] = project.getUnitsHeld(policy, rule, type);
+		return held;
+	}
+
+	/**
+	 * Moves one pending applicant to Successful or Unsuccessful and publishes the change.
+	 * @return false if the applicant was no longer pending (e.g. decided elsewhere meanwhile)
+	 */
+	private static boolean decide(Project project, Applicant applicant, boolean accept) {
+		return decide(project, applicant, accept, false);
+	}
+
+	/**
+	 * Moves one pending applicant to Successful or Unsuccessful, waitlisting a rejected one if
+	 * asked (before publishing, so the published application carries the ballot number).
+	 * @return false if the applicant was no longer pending (e.g. decided elsewhere meanwhile)
+	 */
+	private static boolean decide(Project project, Applicant applicant, boolean accept, boolean waitlist) {
+		boolean moved = accept ? project.updateSuccessfulApplicants(applicant)
+				: project.updateUnsuccessfulApplicants(applicant);
+		if (!moved) return false;
+		if (!accept && waitlist) project.addToWaitlist(applicant);
+		applicant.setAppStatus(accept ? "Successful" : "Unsuccessful");
+		ChangeEvents.publish(ChangeRecord.application(applicant));
+		return true;
+	}
+
+	/**
+	 * Shuffles applicants into draw order: sorted by NRIC, then a Fisher-Yates shuffle.
+	 */
+	private static void shuffle(List<Applicant> applicants, SplittableRandom random) {
+		applicants.sort(Comparator.comparing(Applicant::getNric));
+		for (int i = applicants.size() - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			Applicant swap = applicants.get(i);
+			applicants.set(i, applicants.get(j));
+			applicants.set(j, swap);
+		}
+	}
+
+	/**
+	 * Derives the random stream of one project and flat type from the run seed.
+	 */
+	private static SplittableRandom streamFor(long seed, String projectName, String flatType) {
+		long mixed = seed;
+		mixed = mixed * 0x9E3779B97F4A7C15L + projectName.hashCode();
+		mixed = mixed * 0x9E3779B97F4A7C15L + flatType.hashCode();
+		return new SplittableRandom(mixed);
+	}
+}
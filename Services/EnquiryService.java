@@ -1,40 +1,132 @@
 package Services;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 
 import Actors.Enquiry;
 import Actors.Reply;
+import data.ChangeEvents;
+import data.ChangeRecord;
 
 /**
  * Service class that manages enquiries and their replies.
  * Handles creation, lookup, and editing of enquiries and replies.
+ *
+ * Enquiries are either all held in memory (loadExistingEnquiries) or read on demand from a
+ * Source (attachSource), e.g. an offset index over the CSV files. In the on-demand mode only
+ * the index is resident; enquiries read from it are kept in an LRU cache of cacheCapacity
+ * entries, and enquiries created or changed in this session are kept in memory until the
+ * service is reloaded, since the source may still hold their old version.
+ *
+ * Methods are synchronized, because the background persistence thread reads enquiries
+ * while the CLI changes them (and the LRU cache changes on every read).
  */
 public class EnquiryService {
-	private final Map<Integer, Enquiry> enquiryMap;
+
+	/**
+	 * On-demand source of stored enquiries. Its contents only change when the enquiries of
+	 * this service are saved over the files it reads (see EnquiryIndex.rewriteEnquiries).
+	 */
+	public interface Source {
+		/**
+		 * Gets the IDs of every stored enquiry.
+		 * @return Sorted enquiry IDs
+		 */
+		int[] getIds();
+
+		/**
+		 * Gets the IDs of the enquiries submitted by an applicant.
+		 * @param applicantNRIC Applicant NRIC
+		 * @return Sorted enquiry IDs (empty if none)
+		 */
+		int[] getIdsByApplicant(String applicantNRIC);
+
+		/**
+		 * Gets the IDs of the enquiries about a project.
+		 * @param project Project name
+		 * @return Sorted enquiry IDs (empty if none)
+		 */
+		int[] getIdsByProject(String project);
+
+		/**
+		 * Reads one enquiry with its replies.
+		 * @param enquiryId Enquiry ID
+		 * @return A new Enquiry object, or null if the ID is not stored
+		 * @throws IOException If the stored data cannot be read
+		 */
+		Enquiry read(int enquiryId) throws IOException;
+
+		/**
+		 * Reads every stored enquiry with its replies in one sequential pass.
+		 * @return Map of enquiry ID to new Enquiry objects
+		 * @throws IOException If the stored data cannot be read
+		 */
+		Map<Integer, Enquiry> readAll() throws IOException;
+
+		/**
+		 * Releases the source (e.g. open files). Called when it is replaced.
+		 */
+		void close();
+	}
+
+	/** Default number of on-demand enquiries kept in the LRU cache. */
+	public static final int DEFAULT_CACHE_CAPACITY = 256;
+
+	private final Map<Integer, Enquiry> enquiryMap; // All enquiries, or with a source: those created or changed in this session
+	private final Map<Integer, Enquiry> cache; // Unchanged enquiries read from the source, least recently used first
+	private final Set<Integer> deletedIds = new HashSet<>(); // Source enquiries deleted in this session
+	private Source source; // Null when every enquiry is in enquiryMap
 
     /**
      * Constructs a new empty enquiry service.
      */
 	public EnquiryService() {
+		this(DEFAULT_CACHE_CAPACITY);
+	}
+
+    /**
+     * Constructs a new empty enquiry service with the given on-demand cache size.
+     * @param cacheCapacity Number of unchanged enquiries to keep after reading them from a source
+     */
+	public EnquiryService(int cacheCapacity) {
 		this.enquiryMap = new HashMap<>();
+		final int capacity = Math.max(1, cacheCapacity);
+		this.cache = new LinkedHashMap<Integer, Enquiry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, Enquiry> eldest) {
+				return size() > capacity;
+			}
+		};
 	}
 
     /**
      * Retrieves an enquiry by ID.
      * @param enquiryId The enquiry ID
      * @return The matching enquiry or null
+     * @throws UncheckedIOException If the enquiry source cannot be read
      */
-	public Enquiry getEnquiryById(int enquiryId) {
-		return enquiryMap.get(enquiryId);
+	public synchronized Enquiry getEnquiryById(int enquiryId) {
+		return lookup(enquiryId);
 	}
 
     /**
      * Gets enquiries related to a specific project.
      * @param project Project name
      * @return List of enquiries
+     * @throws UncheckedIOException If the enquiry source cannot be read
      */
-	public List<Enquiry> getEnquiriesByProject(String project) {
+	public synchronized List<Enquiry> getEnquiriesByProject(String project) {
 		List<Enquiry> list = new ArrayList<>();
+		if (source != null) {
+			int[] ids = source.getIdsByProject(project);
+			collect(ids, list);
+			for (Enquiry e : enquiryMap.values()) {
+				if (e.getProject().equals(project) && Arrays.binarySearch(ids, e.getId()) < 0) list.add(e);
+			}
+			list.sort(Comparator.comparingInt(Enquiry::getId));
+			return list;
+		}
 		for (Enquiry e : enquiryMap.values()) {
 			if (e.getProject().equals(project)) {
 				list.add(e);
@@ -47,9 +139,19 @@ public class EnquiryService {
      * Gets all enquiries submitted by a specific applicant.
      * @param applicantNRIC The applicant's NRIC
      * @return List of enquiries
+     * @throws UncheckedIOException If the enquiry source cannot be read
      */
-	public List<Enquiry> getEnquiryByApplicantNRIC(String applicantNRIC) {
+	public synchronized List<Enquiry> getEnquiryByApplicantNRIC(String applicantNRIC) {
 		List<Enquiry> list = new ArrayList<>();
+		if (source != null) {
+			int[] ids = source.getIdsByApplicant(applicantNRIC);
+			collect(ids, list);
+			for (Enquiry e : enquiryMap.values()) {
+				if (e.getApplicantNRIC().equals(applicantNRIC) && Arrays.binarySearch(ids, e.getId()) < 0) list.add(e);
+			}
+			list.sort(Comparator.comparingInt(Enquiry::getId));
+			return list;
+		}
 		for (Enquiry e : enquiryMap.values()) {
 			if (e.getApplicantNRIC().equals(applicantNRIC)) {
 				list.add(e);
@@ -59,11 +161,32 @@ public class EnquiryService {
 	}
 
     /**
-     * Gets all enquiries in the system.
+     * Gets all enquiries in the system. With a source, the unchanged enquiries are read
+     * in one pass and returned without being cached.
      * @return List of all enquiries
+     * @throws UncheckedIOException If the enquiry source cannot be read
+     */
+	public synchronized List<Enquiry> getAllEnquiries() {
+		if (source == null) {
+			return new ArrayList<>(enquiryMap.values());
+		}
+		Map<Integer, Enquiry> all;
+		try {
+			all = new TreeMap<>(source.readAll());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read stored enquiries: " + e.getMessage(), e);
+		}
+		all.keySet().removeAll(deletedIds);
+		all.putAll(enquiryMap);
+		return new ArrayList<>(all.values());
+	}
+
+    /**
+     * Gets the number of enquiries currently held in memory (all of them without a source).
+     * @return Resident enquiry count
      */
-	public List<Enquiry> getAllEnquiries() {
-		return new ArrayList<>(enquiryMap.values());
+	public synchronized int getResidentCount() {
+		return enquiryMap.size() + cache.size();
 	}
 
     /**
@@ -73,9 +196,10 @@ public class EnquiryService {
      * @param project Project name
      * @return The created enquiry
      */
-	public Enquiry submitEnquiry(String applicantNRIC, String content, String project) {
+	public synchronized Enquiry submitEnquiry(String applicantNRIC, String content, String project) {
 		Enquiry enquiry = new Enquiry(applicantNRIC, content, project);
 		enquiryMap.put(enquiry.getId(), enquiry);
+		ChangeEvents.publish(ChangeRecord.enquiry(enquiry));
 		return enquiry;
 	}
 
@@ -86,10 +210,12 @@ public class EnquiryService {
      * @param newContent New enquiry text
      * @return true if successful
      */
-	public boolean editEnquiry(int enquiryId, String applicantNRIC,  String newContent) {
-		Enquiry enquiry = enquiryMap.get(enquiryId);
+	public synchronized boolean editEnquiry(int enquiryId, String applicantNRIC,  String newContent) {
+		Enquiry enquiry = lookup(enquiryId);
 		if (enquiry != null && enquiry.getApplicantNRIC().equals(applicantNRIC)) {
+			pin(enquiry);
 			enquiry.setContent(newContent);
+			ChangeEvents.publish(ChangeRecord.enquiry(enquiry));
 			return true;
 		}
 		return false;
@@ -101,10 +227,11 @@ public class EnquiryService {
      * @param applicantNRIC Owner NRIC
      * @return true if successful
      */
-	public boolean deleteEnquiry(int enquiryId, String applicantNRIC) {
-		Enquiry enquiry = enquiryMap.get(enquiryId);
+	public synchronized boolean deleteEnquiry(int enquiryId, String applicantNRIC) {
+		Enquiry enquiry = lookup(enquiryId);
 		if (enquiry != null && enquiry.getApplicantNRIC().equals(applicantNRIC)) {
-			enquiryMap.remove(enquiryId);
+			forget(enquiryId);
+			ChangeEvents.publish(ChangeRecord.enquiryDeleted(enquiryId));
 			return true;
 		}
 		return false;
@@ -117,11 +244,13 @@ public class EnquiryService {
      * @param content Reply message
      * @return true if successful
      */
-	public boolean replyToEnquiry(int enquiryId, String responderNRIC, String content) {
-		Enquiry enquiry = enquiryMap.get(enquiryId);
+	public synchronized boolean replyToEnquiry(int enquiryId, String responderNRIC, String content) {
+		Enquiry enquiry = lookup(enquiryId);
 		if (enquiry != null) {
+			pin(enquiry);
 			Reply reply = new Reply(enquiry, responderNRIC, content);
 			enquiry.addReply(reply);
+			ChangeEvents.publish(ChangeRecord.reply(reply));
 			return true;
 		}
 		return false;
@@ -135,12 +264,14 @@ public class EnquiryService {
      * @param newContent New reply text
      * @return true if updated
      */
-	public boolean editReply(int enquiryId, int replyId, String responderNRIC, String newContent) {
-		Enquiry enquiry = enquiryMap.get(enquiryId);
+	public synchronized boolean editReply(int enquiryId, int replyId, String responderNRIC, String newContent) {
+		Enquiry enquiry = lookup(enquiryId);
 		if (enquiry != null) {
 			for (Reply reply : enquiry.getReplies()) {
 				if(reply.getId() == replyId && reply.getResponderNRIC().equals(responderNRIC)) {
+					pin(enquiry);
 					reply.setContent(newContent);
+					ChangeEvents.publish(ChangeRecord.reply(reply));
 					return true;
 				}
 			}
@@ -153,20 +284,68 @@ public class EnquiryService {
      * @param enquiryId Enquiry ID
      * @return List of replies
      */
-	public List<Reply> viewReplies(int enquiryId) {
-		Enquiry enquiry = enquiryMap.get(enquiryId);
+	public synchronized List<Reply> viewReplies(int enquiryId) {
+		Enquiry enquiry = lookup(enquiryId);
 		if (enquiry != null) {
 			return enquiry.getReplies();
 		}
 		return new ArrayList<>();
 	}
 	
+	/**
+	 * Inserts or updates an enquiry restored from storage (used when replaying the change journal).
+	 * @param enquiry Enquiry with its persisted ID
+	 */
+	public synchronized void restoreEnquiry(Enquiry enquiry) {
+		if (enquiry == null) return;
+		Enquiry existing = lookup(enquiry.getId());
+		if (existing != null) {
+			pin(existing);
+			existing.setContent(enquiry.getContent());
+		} else {
+			deletedIds.remove(enquiry.getId());
+			enquiryMap.put(enquiry.getId(), enquiry);
+		}
+	}
+
+	/**
+	 * Inserts or updates a reply restored from storage (used when replaying the change journal).
+	 * @param enquiryId Parent enquiry ID
+	 * @param replyId Persisted reply ID
+	 * @param responderNRIC Responder NRIC
+	 * @param content Reply text
+	 * @return false if the parent enquiry does not exist
+	 */
+	public synchronized boolean restoreReply(int enquiryId, int replyId, String responderNRIC, String content) {
+		Enquiry parent = lookup(enquiryId);
+		if (parent == null) return false;
+		pin(parent);
+		for (Reply reply : parent.getReplies()) {
+			if (reply.getId() == replyId) {
+				reply.setContent(content);
+				return true;
+			}
+		}
+		parent.addReply(new Reply(parent, responderNRIC, content, replyId));
+		Reply.updateIdCounter(enquiryId, replyId);
+		return true;
+	}
+
+	/**
+	 * Removes an enquiry regardless of owner (used when replaying the change journal).
+	 * @param enquiryId Enquiry ID
+	 */
+	public synchronized void removeEnquiry(int enquiryId) {
+		forget(enquiryId);
+	}
+
 	/**
 	 * Loads existing enquiries into the service (called by DataManager).
 	 * Clears the current map before loading.
 	 * @param loadedEnquiries A map of Enquiry objects loaded from file.
 	 */
-	public void loadExistingEnquiries(Map<Integer, Enquiry> loadedEnquiries) {
+	public synchronized void loadExistingEnquiries(Map<Integer, Enquiry> loadedEnquiries) {
+		detachSource();
 		if (loadedEnquiries != null) {
 			this.enquiryMap.clear(); // Clear existing map
 			this.enquiryMap.putAll(loadedEnquiries);
@@ -176,4 +355,61 @@ public class EnquiryService {
 			System.out.println("No enquiry data loaded, EnquiryService is empty.");
 		}
 	}
+
+	/**
+	 * Switches to on-demand loading: clears the service and reads stored enquiries from
+	 * the source when they are asked for.
+	 * @param source Index over the stored enquiries
+	 */
+	public synchronized void attachSource(Source source) {
+		detachSource();
+		this.enquiryMap.clear();
+		this.source = source;
+		System.out.println("EnquiryService attached to an on-demand source of " + source.getIds().length + " enquiries.");
+	}
+
+	// Finds an enquiry in memory or reads it from the source (caller holds the lock)
+	private Enquiry lookup(int enquiryId) {
+		Enquiry enquiry = enquiryMap.get(enquiryId);
+		if (enquiry != null || source == null || deletedIds.contains(enquiryId)) return enquiry;
+		enquiry = cache.get(enquiryId);
+		if (enquiry != null) return enquiry;
+		try {
+			enquiry = source.read(enquiryId);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read enquiry " + enquiryId + ": " + e.getMessage(), e);
+		}
+		if (enquiry != null) cache.put(enquiryId, enquiry);
+		return enquiry;
+	}
+
+	// Keeps an enquiry about to be changed in memory, so eviction cannot lose the change
+	private void pin(Enquiry enquiry) {
+		if (source == null) return;
+		cache.remove(enquiry.getId());
+		enquiryMap.put(enquiry.getId(), enquiry);
+	}
+
+	private void forget(int enquiryId) {
+		enquiryMap.remove(enquiryId);
+		if (source != null) {
+			cache.remove(enquiryId);
+			deletedIds.add(enquiryId);
+		}
+	}
+
+	// Reads the listed enquiries that were not deleted (caller holds the lock)
+	private void collect(int[] ids, List<Enquiry> list) {
+		for (int id : ids) {
+			Enquiry enquiry = lookup(id);
+			if (enquiry != null) list.add(enquiry);
+		}
+	}
+
+	private void detachSource() {
+		if (source != null) source.close();
+		source = null;
+		cache.clear();
+		deletedIds.clear();
+	}
 }
@@ -0,0 +1,78 @@
+package bench;
+
+import Actors.Applicant;
+import Project.ApplicationState;
+import Project.Project;
+import Services.AllocationReport;
+import Services.BallotService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Times the batch ballot over several large projects, first on one thread and then on one
+ * thread per processor, and checks that both runs with the same seed pick the same winners.
+ *
+ * Usage: java -cp out bench.BallotBenchmark [projects] [applicantsPerProject]
+ * (defaults to 8 projects of 50000 applicants)
+ */
+public class BallotBenchmark {
+
+    private static final long SEED = 20250401L;
+
+    public static void main(String[] args) {
+        int projectCount = (args.length > 0) ? Integer.parseInt(args[0]) : 8;
+        int perProject = (args.length > 1) ? Integer.parseInt(args[1]) : 50_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        List<Project> single = newProjects(projectCount, perProject);
+        long start = System.nanoTime();
+        AllocationReport first = new BallotService(1).run(single, SEED);
+        long oneThread = System.nanoTime() - start;
+
+        List<Project> parallel = newProjects(projectCount, perProject);
+        start = System.nanoTime();
+        AllocationReport second = new BallotService(cores).run(parallel, SEED);
+        long allThreads = System.nanoTime() - start;
+
+        for (int p = 0; p < projectCount; p++) {
+            List<String> a = nrics(single.get(p).getSuccessfulApplicants());
+            List<String> b = nrics(parallel.get(p).getSuccessfulApplicants());
+            if (!a.equals(b) || single.get(p).getApplicantCount(ApplicationState.PENDING) != 0) {
+                throw new IllegalStateException("Ballot of project " + p + " is not reproducible");
+            }
+        }
+
+        System.out.println(String.format("%d projects x %d applicants: %d successful, %d unsuccessful",
+                projectCount, perProject, second.getTotalSuccessful(), second.getTotalUnsuccessful()));
+        System.out.println(String.format("1 thread: %d ms, %d threads: %d ms (same winners)",
+                oneThread / 1_000_000, cores, allThreads / 1_000_000));
+        if (first.getTotalSuccessful() != second.getTotalSuccessful()) {
+            throw new IllegalStateException("Reports differ between runs");
+        }
+    }
+
+    private static List<Project> newProjects(int count, int perProject) {
+        List<Project> projects = new ArrayList<>();
+        for (int p = 0; p < count; p++) {
+            Project project = new Project("Bench Project " + p, true, "Bench Manager", "Yishun",
+                    LocalDate.now().minusDays(1), LocalDate.now().plusDays(30), perProject / 5, perProject / 10);
+            for (int i = 0; i < perProject; i++) {
+                Applicant applicant = new Applicant("Applicant " + i, String.format("S%03d%04dA", p, i), "password", "Married", 30);
+                applicant.setTypeFlat((i % 3 == 0) ? "3-Room" : "2-Room");
+                applicant.setAppStatus("Pending");
+                applicant.setProject(project);
+                project.updateArrOfApplicants(applicant);
+            }
+            projects.add(project);
+        }
+        return projects;
+    }
+
+    private static List<String> nrics(List<Applicant> applicants) {
+        List<String> result = new ArrayList<>();
+        for (Applicant applicant : applicants) result.add(applicant.getNric());
+        return result;
+    }
+}
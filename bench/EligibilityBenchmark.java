@@ -0,0 +1,95 @@
+package bench;
+
+import Project.EligibilityPolicy;
+import Project.FlatType;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Times eligibility checks per million: the original string comparisons on marital status
+ * against the compiled EligibilityPolicy over pre-encoded applicants, and checks that both
+ * give the same answers.
+ *
+ * Usage: java -cp out bench.EligibilityBenchmark [applicants] [rounds]
+ * (defaults to 1000000 applicants, 10 rounds of one check per applicant and flat type)
+ */
+public class EligibilityBenchmark {
+
+    private static final String[] STATUSES = {"Single", "Married", "Divorced"};
+    // Flat types the built-in policy opens to singles (only 2-Room), for the string rules
+    private static final List<String> SINGLES_FLAT_TYPES = singlesFlatTypes(EligibilityPolicy.builtIn());
+
+    public static void main(String[] args) {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        FlatType[] types = {FlatType.TWO_ROOM, FlatType.THREE_ROOM};
+
+        SplittableRandom random = new SplittableRandom(42);
+        String[] statuses = new String[count];
+        int[] ages = new int[count];
+        for (int i = 0; i < count; i++) {
+            statuses[i] = new String(STATUSES[random.nextInt(STATUSES.length)]); // Not interned, like values read from CSV
+            ages[i] = 18 + random.nextInt(60);
+        }
+
+        EligibilityPolicy policy = EligibilityPolicy.builtIn();
+        int[] rules = new int[count];
+        long checks = (long) count * types.length;
+        long encodeBest = Long.MAX_VALUE;
+        long legacyBest = Long.MAX_VALUE;
+        long compiledBest = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) rules[i] = policy.ruleFor(policy.encode(statuses[i], ages[i]));
+            encodeBest = Math.min(encodeBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            int legacy = 0;
+            for (int i = 0; i < count; i++) {
+                for (FlatType type : types) {
+                    if (legacyCanApply(statuses[i], ages[i], type)) legacy++;
+                }
+            }
+            legacyBest = Math.min(legacyBest, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            int compiled = 0;
+            for (int i = 0; i < count; i++) {
+                for (FlatType type : types) {
+                    if (policy.admits(rules[i], type)) compiled++;
+                }
+            }
+            compiledBest = Math.min(compiledBest, System.nanoTime() - start);
+
+            if (legacy != compiled) {
+                throw new IllegalStateException("Compiled policy disagrees with the original rules: " + compiled + " vs " + legacy);
+            }
+        }
+
+        System.out.println(String.format("%d applicants x %d flat types, best of %d rounds", count, types.length, rounds));
+        System.out.println(String.format("String rules:    %7.2f ms per million checks", perMillion(legacyBest, checks)));
+        System.out.println(String.format("Compiled policy: %7.2f ms per million checks (+ %.2f ms per million applicants to encode once)",
+                perMillion(compiledBest, checks), perMillion(encodeBest, count)));
+    }
+
+    // The rules as Applicant.canApplyFor wrote them before the policy was compiled
+    private static boolean legacyCanApply(String maritalStatus, int age, FlatType type) {
+        if (maritalStatus.equals("Single") && age >= 35) {
+            return SINGLES_FLAT_TYPES.contains(type.getName());
+        }
+        return maritalStatus.equals("Married") && age >= 21;
+    }
+
+    private static List<String> singlesFlatTypes(EligibilityPolicy policy) {
+        for (int rule = 0; rule < policy.ruleCount(); rule++) {
+            if (policy.getRule(rule).getMaritalStatus().equals("Single")) return policy.getRule(rule).getFlatTypes();
+        }
+        return Collections.emptyList();
+    }
+
+    private static double perMillion(long nanos, long operations) {
+        return nanos / 1e6 / (operations / 1e6);
+    }
+}
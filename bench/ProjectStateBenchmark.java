@@ -0,0 +1,71 @@
+package bench;
+
+import Actors.Applicant;
+import Project.ApplicationState;
+import Project.Project;
+
+import java.time.LocalDate;
+
+/**
+ * Times the application lifecycle of one large project: every applicant applies, is approved
+ * or rejected, half of the successful ones book, and some of those withdraw and have the
+ * withdrawal accepted. Each step goes through the same Project methods the CLI uses.
+ *
+ * Usage: java -cp out bench.ProjectStateBenchmark [applicantCount ...]
+ * (defaults to 10000 50000 200000)
+ */
+public class ProjectStateBenchmark {
+
+    public static void main(String[] args) {
+        int[] sizes = { 10_000, 50_000, 200_000 };
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+        }
+        System.out.println(String.format("%-10s %10s %10s %10s %10s %10s", "applicants", "apply", "decide", "book", "withdraw", "lists"));
+        for (int size : sizes) run(size);
+    }
+
+    private static void run(int size) {
+        Project project = new Project("Bench Project", true, "Bench Manager", "Yishun",
+                LocalDate.now().minusDays(1), LocalDate.now().plusDays(30), size, size);
+        Applicant[] applicants = new Applicant[size];
+        for (int i = 0; i < size; i++) {
+            applicants[i] = new Applicant("Applicant " + i, String.format("S%07dA", i), "password", "Married", 30);
+            applicants[i].setTypeFlat((i % 2 == 0) ? "2-Room" : "3-Room");
+        }
+
+        long start = System.nanoTime();
+        for (Applicant applicant : applicants) project.updateArrOfApplicants(applicant);
+        long apply = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            if (i % 4 == 3) project.updateUnsuccessfulApplicants(applicants[i]);
+            else project.updateSuccessfulApplicants(applicants[i]);
+        }
+        long decide = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < size; i += 2) project.updateBookedApplicants(applicants[i]);
+        long book = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < size; i += 8) {
+            if (project.updateWithdrawRequests(applicants[i])) project.processAcceptedWithdrawal(applicants[i]);
+        }
+        long withdraw = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int listed = project.getAllApplicants().size() + project.getSuccessfulApplicants().size()
+                + project.getBookedApplicants().size();
+        long lists = System.nanoTime() - start;
+
+        if (project.getApplicantCount() != size || listed < size) {
+            throw new IllegalStateException("Applicant states out of step for " + size + " applicants");
+        }
+        System.out.println(String.format("%-10d %8d ms %8d ms %8d ms %8d ms %8d ms   (booked %d, unsuccessful %d)",
+                size, apply / 1_000_000, decide / 1_000_000, book / 1_000_000, withdraw / 1_000_000, lists / 1_000_000,
+                project.getApplicantCount(ApplicationState.BOOKED), project.getApplicantCount(ApplicationState.UNSUCCESSFUL)));
+    }
+}
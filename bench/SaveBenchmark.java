@@ -0,0 +1,88 @@
+package bench;
+
+import Actors.Applicant;
+import Actors.User;
+import Project.Project;
+import Services.EnquiryService;
+import data.ChangeEvents;
+import data.ChangeRecord;
+import data.CsvRepository;
+import data.DataManager;
+import data.Repository;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * Compares the bytes written per logout by a full save against a change-tracked save.
+ * For each size, a synthetic data set (see SnapshotBenchmark) is loaded and then saved
+ * after a typical single-user session:
+ *   - "reply": an officer replies to one enquiry,
+ *   - "status": a manager approves one application.
+ * The full save rewrites every CSV file; the tracked save only rewrites the dirty tables.
+ *
+ * Usage: java -cp out bench.SaveBenchmark [applicantCount ...]
+ * (defaults to 10000 100000)
+ */
+public class SaveBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = { 10_000, 100_000 };
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        PrintStream console = System.out;
+        console.println(String.format("%-10s %-8s %14s %14s %10s", "applicants", "session", "full bytes", "tracked bytes", "ratio"));
+        for (int size : sizes) {
+            File folder = new File(System.getProperty("java.io.tmpdir"), "bto-save-bench-" + size);
+            SnapshotBenchmark.deleteRecursively(folder);
+            SnapshotBenchmark.silence();
+            SnapshotBenchmark.generate(new CsvRepository(folder.getPath(), false), size);
+
+            for (String session : new String[] { "reply", "status" }) {
+                long full = measure(folder, session, false);
+                long tracked = measure(folder, session, true);
+                System.setOut(console);
+                console.println(String.format("%-10d %-8s %14d %14d %9.1fx",
+                        size, session, full, tracked, (double) full / Math.max(1, tracked)));
+                SnapshotBenchmark.silence();
+            }
+            System.setOut(console);
+            SnapshotBenchmark.deleteRecursively(folder);
+        }
+    }
+
+    // Loads the data, runs one session and returns the bytes written by the logout save
+    private static long measure(File folder, String session, boolean tracked) throws Exception {
+        DataManager dataManager = new DataManager(new CsvRepository(folder.getPath(), false));
+        EnquiryService enquiryService = new EnquiryService();
+        Repository.Contents contents = dataManager.load(enquiryService);
+        Map<String, User> users = contents.getUsers();
+        Map<String, Project> projects = contents.getProjects();
+        if (tracked) dataManager.trackChanges();
+
+        try {
+            if (session.equals("reply")) {
+                int enquiryId = enquiryService.getAllEnquiries().get(0).getId();
+                enquiryService.replyToEnquiry(enquiryId, "G0000000Z", "Reply from the benchmark");
+            } else {
+                for (User user : users.values()) {
+                    if (user instanceof Applicant && "Pending".equals(((Applicant) user).getAppStatus())) {
+                        Applicant applicant = (Applicant) user;
+                        applicant.setAppStatus("Successful");
+                        ChangeEvents.publish(ChangeRecord.application(applicant));
+                        break;
+                    }
+                }
+            }
+            long before = dataManager.getBytesWritten();
+            dataManager.saveChanges(users, projects, enquiryService);
+            return dataManager.getBytesWritten() - before;
+        } finally {
+            if (tracked) ChangeEvents.removeListener(dataManager.getChangeSet());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package bench;
+
+import Actors.Applicant;
+import Actors.Manager;
+import Actors.Officer;
+import Actors.User;
+import Project.Project;
+import Services.EnquiryService;
+import data.CsvRepository;
+import data.Repository;
+import data.StartupLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares cold-start load time of the CSV files against the binary snapshot.
+ * For each size, a synthetic data set with that many applicants is generated into a
+ * temporary data folder, saved both as CSV and as a snapshot, and then loaded with:
+ *   - the sequential CSV loaders (as MainApp did before the StartupLoader),
+ *   - the parallel StartupLoader over the CSV files,
+ *   - the binary snapshot.
+ * The best of several runs is reported.
+ *
+ * Usage: java -Xmx4g -cp out bench.SnapshotBenchmark [applicantCount ...]
+ * (defaults to 10000 100000 1000000)
+ */
+public class SnapshotBenchmark {
+
+    private static final int RUNS = 3;
+    private static final String[] NEIGHBOURHOODS = { "Tampines", "Bedok", "Yishun", "Punggol", "Jurong", "Woodlands", "Queenstown", "Sengkang" };
+    private static final String[] STATUSES = { "Pending", "Successful", "Unsuccessful", "Booked" };
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = { 10_000, 100_000, 1_000_000 };
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        PrintStream console = System.out;
+        console.println(String.format("%-10s %12s %12s %14s %14s %14s",
+                "applicants", "csv bytes", "snap bytes", "csv seq ms", "csv par ms", "snapshot ms"));
+        for (int size : sizes) {
+            File folder = new File(System.getProperty("java.io.tmpdir"), "bto-bench-" + size);
+            deleteRecursively(folder);
+            silence();
+            CsvRepository repository = new CsvRepository(folder.getPath(), true);
+            generate(repository, size);
+
+            long csvSequential = Long.MAX_VALUE;
+            long csvParallel = Long.MAX_VALUE;
+            long snapshot = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                csvSequential = Math.min(csvSequential, time(() -> loadSequential(repository)));
+                csvParallel = Math.min(csvParallel, time(() -> new StartupLoader(repository, new EnquiryService()).load()));
+                snapshot = Math.min(snapshot, time(() -> repository.loadSnapshot(new EnquiryService())));
+            }
+            System.setOut(console);
+
+            long csvBytes = 0;
+            for (File file : folder.listFiles((dir, name) -> name.endsWith(".csv"))) csvBytes += file.length();
+            long snapshotBytes = new File(folder, "snapshot.bin").length();
+            console.println(String.format("%-10d %12d %12d %14d %14d %14d",
+                    size, csvBytes, snapshotBytes, csvSequential, csvParallel, snapshot));
+            deleteRecursively(folder);
+        }
+    }
+
+    // Builds and saves a synthetic data set: one application per applicant, one enquiry per ten applicants
+    static void generate(Repository repository, int applicantCount) throws IOException {
+        Random random = new Random(42);
+        String salt = "942K1LGe++bYJinnYvOkUQ==";
+        String hash = User.hashPassword("password", salt);
+
+        Map<String, User> users = new HashMap<>();
+        Map<String, Project> projects = new HashMap<>();
+        EnquiryService enquiryService = new EnquiryService();
+
+        int managerCount = 10;
+        for (int m = 0; m < managerCount; m++) {
+            users.put(nric('T', m), Manager.restore("Manager " + m, nric('T', m), 40, "Married", hash, salt));
+        }
+        int projectCount = Math.max(10, applicantCount / 1000);
+        Project[] projectTable = new Project[projectCount];
+        LocalDate base = LocalDate.of(2025, 1, 1);
+        for (int p = 0; p < projectCount; p++) {
+            LocalDate open = base.plusDays(random.nextInt(365));
+            projectTable[p] = new Project("Project " + p, random.nextBoolean(), "Manager " + (p % managerCount),
+                    NEIGHBOURHOODS[p % NEIGHBOURHOODS.length], open, open.plusDays(30), 1000, 1000);
+            projects.put(projectTable[p].getName(), projectTable[p]);
+        }
+        for (int o = 0; o < 50; o++) {
+            Officer officer = Officer.restore("Officer " + o, nric('G', o), 30, "Single", hash, salt);
+            users.put(officer.getNric(), officer);
+            Project project = projectTable[o % projectCount];
+            officer.updateProjectAssignment(project, "Approved");
+            project.updateArrOfOfficers(project.getCreatorName(), officer);
+        }
+        for (int a = 0; a < applicantCount; a++) {
+            boolean married = random.nextBoolean();
+            Applicant applicant = Applicant.restore("Applicant " + a, nric('S', a), married ? 21 + random.nextInt(40) : 35 + random.nextInt(30),
+                    married ? "Married" : "Single", hash, salt);
+            applicant.setPreferredNeighbourhood(NEIGHBOURHOODS[random.nextInt(NEIGHBOURHOODS.length)]);
+            users.put(applicant.getNric(), applicant);
+
+            Project project = projectTable[random.nextInt(projectCount)];
+            applicant.setProject(project);
+            applicant.setTypeFlat(married && random.nextBoolean() ? "3-Room" : "2-Room");
+            applicant.setAppStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            applicant.setApplied(true);
+            project.addApplicantToCorrectList(applicant);
+
+            if (a % 10 == 0) {
+                enquiryService.submitEnquiry(applicant.getNric(), "Enquiry, with a comma, from applicant " + a, project.getName());
+            }
+        }
+
+        repository.saveAll(users, projects, enquiryService); // The CSV backend also writes its snapshot
+    }
+
+    private static void loadSequential(CsvRepository repository) throws IOException {
+        Map<String, User> users = repository.loadUsers();
+        Map<String, Project> projects = repository.loadProjectsCore();
+        repository.loadProjectFlats(projects);
+        repository.loadProjectOfficers(projects, users);
+        repository.loadApplications(projects, users);
+        repository.loadEnquiries(new EnquiryService());
+    }
+
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    private static long time(Task task) throws IOException {
+        System.gc();
+        long start = System.nanoTime();
+        task.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static String nric(char prefix, int number) {
+        return prefix + String.format("%07d", number) + "Z";
+    }
+
+    // Loader progress messages would drown the results table
+    static void silence() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) deleteRecursively(child);
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,88 @@
+package bench;
+
+import Actors.Applicant;
+import Actors.User;
+import Services.EnquiryService;
+import data.ChangeEvents;
+import data.ChangeRecord;
+import data.CsvRepository;
+import data.DataManager;
+import data.InMemoryRepository;
+import data.Repository;
+import data.SnapshotRepository;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the same workload against every storage backend (Repository):
+ *   1. build a synthetic data set (see SnapshotBenchmark) and save it as a whole,
+ *   2. load it back through a fresh DataManager,
+ *   3. run a number of sessions that each approve one application and then save
+ *      the changed tables, as a logout does.
+ * The CSV backend runs without its snapshot cache, so each engine is measured on its own.
+ *
+ * Usage: java -cp out bench.StorageBenchmark [applicantCount] [sessions]
+ * (defaults to 100000 and 50)
+ */
+public class StorageBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int size = (args.length > 0) ? Integer.parseInt(args[0]) : 100_000;
+        int sessions = (args.length > 1) ? Integer.parseInt(args[1]) : 50;
+
+        PrintStream console = System.out;
+        console.println("applicants=" + size + ", sessions=" + sessions);
+        console.println(String.format("%-8s %12s %10s %16s %16s", "backend", "build+save ms", "load ms", "ms per session", "bytes per session"));
+        for (String backend : new String[] { "memory", "csv", "binary" }) {
+            File folder = new File(System.getProperty("java.io.tmpdir"), "bto-storage-bench-" + backend);
+            SnapshotBenchmark.deleteRecursively(folder);
+            SnapshotBenchmark.silence();
+            Repository repository = create(backend, folder);
+
+            long start = System.nanoTime();
+            SnapshotBenchmark.generate(repository, size);
+            long saveAllMillis = (System.nanoTime() - start) / 1_000_000;
+
+            System.gc();
+            DataManager dataManager = new DataManager(repository);
+            EnquiryService enquiryService = new EnquiryService();
+            start = System.nanoTime();
+            Repository.Contents contents = dataManager.load(enquiryService);
+            long loadMillis = (System.nanoTime() - start) / 1_000_000;
+            dataManager.trackChanges();
+
+            List<Applicant> pending = new ArrayList<>();
+            for (User user : contents.getUsers().values()) {
+                if (user instanceof Applicant && "Pending".equals(((Applicant) user).getAppStatus())) {
+                    pending.add((Applicant) user);
+                }
+            }
+            long bytesBefore = dataManager.getBytesWritten();
+            start = System.nanoTime();
+            for (int i = 0; i < sessions && i < pending.size(); i++) {
+                Applicant applicant = pending.get(i);
+                applicant.setAppStatus("Successful");
+                ChangeEvents.publish(ChangeRecord.application(applicant));
+                dataManager.saveChanges(contents.getUsers(), contents.getProjects(), enquiryService);
+            }
+            double sessionMillis = (System.nanoTime() - start) / 1_000_000.0 / sessions;
+            long sessionBytes = (dataManager.getBytesWritten() - bytesBefore) / sessions;
+            ChangeEvents.removeListener(dataManager.getChangeSet());
+
+            System.setOut(console);
+            console.println(String.format("%-8s %12d %10d %16.2f %16d", backend, saveAllMillis, loadMillis, sessionMillis, sessionBytes));
+            SnapshotBenchmark.deleteRecursively(folder);
+        }
+    }
+
+    private static Repository create(String backend, File folder) {
+        switch (backend) {
+            case "memory": return new InMemoryRepository();
+            case "binary": return new SnapshotRepository(folder.getPath());
+            default: return new CsvRepository(folder.getPath(), false);
+        }
+    }
+}
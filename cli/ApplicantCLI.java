@@ -2,10 +2,18 @@ package cli;
 
 import Actors.Applicant;
 import Actors.User;
+import Project.EligibilityIndex;
+import Project.EligibilityPolicy;
+import Project.FlatType;
 import Project.Project;
+import Project.ProjectCatalogue;
+import Project.ProjectListing;
 import Services.EnquiryService;
+import data.ChangeEvents;
+import data.ChangeRecord;
 import data.DataManager;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -24,7 +32,8 @@ public class ApplicantCLI {
     private Scanner scanner;
     private DataManager dataManager;
     private final EnquiryService enquiryService;
-    private final Map<String, Project> allProjectsMap;
+    private final ProjectCatalogue catalogue;
+    private final Map<String, Project> allProjectsMap; // Read-only view of the catalogue
     private final Map<String, User> allUsersMap;
     
     /**
@@ -33,16 +42,17 @@ public class ApplicantCLI {
      * @param scanner Input scanner
      * @param enquiryService Enquiry handling service
      * @param dataManager Data persistence utility
-     * @param allProjectsMap All loaded projects
+     * @param catalogue Catalogue of all loaded projects
      * @param allUsersMap All loaded users
      */
     public ApplicantCLI(Applicant applicant, Scanner scanner, EnquiryService enquiryService, DataManager dataManager,
-            Map<String, Project> allProjectsMap, Map<String, User> allUsersMap) {
+            ProjectCatalogue catalogue, Map<String, User> allUsersMap) {
         this.applicant = applicant;
         this.scanner = scanner;
         this.dataManager = dataManager;
         this.enquiryService = enquiryService;
-        this.allProjectsMap = allProjectsMap;
+        this.catalogue = catalogue;
+        this.allProjectsMap = catalogue.getProjects();
         this.allUsersMap = allUsersMap;
     }
 
@@ -102,6 +112,7 @@ public class ApplicantCLI {
         System.out.print("Enter your preferred neighbourhood (or leave blank to clear): ");
         String input = scanner.nextLine();
         applicant.setPreferredNeighbourhood(input); 
+        ChangeEvents.publish(ChangeRecord.user(applicant));
     
         String newPref = applicant.getPreferredNeighbourhood();
         if (newPref != null) {
@@ -114,43 +125,33 @@ public class ApplicantCLI {
 
     /**
      * Displays ALL visible projects the applicant MIGHT be eligible for.
-     * Shows full details using Project.viewAllDetails.
-     * Afterwards, offers to filter by preferred neighbourhood (if set) OR
-     * allows filtering by any entered neighbourhood.
+     * Shows full details a page at a time from the catalogue's sorted listing (see ProjectPager).
+     * Afterwards, shows facet counts and offers to filter by preferred neighbourhood (if set) OR
+     * allows filtering by any entered neighbourhood. Filtering is a lookup in the
+     * neighbourhood index (see EligibilityIndex), not a scan of the list.
      */
     private void handleViewProjectsWithPreference() {
-        // 1. Get ALL potentially visible projects
-        List<Project> visibleProjects = applicant.getProjectsVisibleForEnquiry(allProjectsMap);
+        // 1. Check there is anything visible to this applicant, without listing it
+        EligibilityIndex index = catalogue.getEligibility();
 
         System.out.println("\n--- Browse All Visible Projects ---");
 
-        if (visibleProjects.isEmpty()) {
+        if (applicant.getEligibilityRule(index.getPolicy()) < 0 || catalogue.getListing().size(true) == 0) {
             System.out.println("There are currently no projects visible based on your basic eligibility.");
             return;
         }
 
-        // 2. Display ALL visible projects first
-        int displayIndex = 1;
-        for (Project p : visibleProjects) {
-            if (p == null) continue;
-            System.out.println("\n====================================");
-            System.out.println("Project #" + displayIndex++); // Keep index for reference, though not selecting here
-            System.out.println("====================================");
-            try {
-                p.viewAllDetails(false); // Show full details
-                // Display available units for this applicant
-                String status = applicant.getMaritalStatus();
-                int age = applicant.getAge();
-                List<String> unitsAvailable = new ArrayList<>();
-                if (status.equals("Single") && age >= 35) { if (p.getAvalNo2Room() > 0) unitsAvailable.add("2-Room: " + p.getAvalNo2Room()); }
-                else if (status.equals("Married") && age >= 21) { if (p.getAvalNo2Room() > 0) unitsAvailable.add("2-Room: " + p.getAvalNo2Room()); if (p.getAvalNo3Room() > 0) unitsAvailable.add("3-Room: " + p.getAvalNo3Room());}
-                if (!unitsAvailable.isEmpty()) System.out.println("-> Available Units You Can Apply For: [" + String.join(", ", unitsAvailable) + "]");
-                else System.out.println("-> Available Units You Can Apply For: [None currently matching eligibility/stock]");
-            } catch (Exception e) { /* Basic error handling */ System.err.println("Error displaying details for project: " + p.getName());}
-        }
-        System.out.println("===================================="); // Footer
+        // 2. Display the visible projects a page at a time, with the units this applicant can apply for
+        new ProjectPager(scanner).browse(catalogue.getListing(), true, ProjectListing.Order.NAME, false, (p, out) -> {
+            List<String> unitsAvailable = unitsAvailableTo(applicant, p);
+            out.append("-> Available Units You Can Apply For: [")
+                    .append(unitsAvailable.isEmpty() ? "None currently matching eligibility/stock" : String.join(", ", unitsAvailable)).append("]\n");
+        });
 
-        // 3. Handle Filtering Options
+        // 3. Facet counts, straight from the index
+        printFacets(index.getFacets(LocalDate.now()));
+
+        // 4. Handle Filtering Options
         String preference = applicant.getPreferredNeighbourhood();
         boolean wantsToFilter = false;
         String filterNeighbourhood = null;
@@ -172,10 +173,7 @@ public class ApplicantCLI {
                 System.out.print("Enter neighbourhood name to filter by: ");
                 String inputNeighbourhood = scanner.nextLine().trim();
                 if (!inputNeighbourhood.isEmpty()) {
-                     // Validate if this neighbourhood actually exists in the visible list? Optional.
-                     boolean exists = visibleProjects.stream()
-                                       .anyMatch(p -> p!= null && inputNeighbourhood.equalsIgnoreCase(p.getNeighbourhood()));
-                     if(exists){
+                     if (index.countVisibleIn(inputNeighbourhood) > 0) {
                           wantsToFilter = true;
                           filterNeighbourhood = inputNeighbourhood; // Use user input for filtering
                      } else {
@@ -187,26 +185,22 @@ public class ApplicantCLI {
             }
         }
 
-        // 4. Display Filtered Results (if requested)
+        // 5. Display Filtered Results (if requested)
         if (wantsToFilter && filterNeighbourhood != null) {
             System.out.println("\n--- Showing Projects Filtered by Neighbourhood: " + filterNeighbourhood + " ---");
             boolean foundMatches = false;
-            for (Project p : visibleProjects) { // Iterate the original visible list
-                if (p != null && filterNeighbourhood.equalsIgnoreCase(p.getNeighbourhood())) {
-                    System.out.println("\n====================================");
-                    System.out.println("Project: " + p.getName()); // No index needed for filtered view
-                    System.out.println("====================================");
-                     try {
-                          p.viewAllDetails(false);
-                          // Display available units again
-                           String status = applicant.getMaritalStatus(); int age = applicant.getAge(); List<String> unitsAvailable = new ArrayList<>();
-                           if (status.equals("Single") && age >= 35) { if (p.getAvalNo2Room() > 0) unitsAvailable.add("2-Room: " + p.getAvalNo2Room()); }
-                           else if (status.equals("Married") && age >= 21) { if (p.getAvalNo2Room() > 0) unitsAvailable.add("2-Room: " + p.getAvalNo2Room()); if (p.getAvalNo3Room() > 0) unitsAvailable.add("3-Room: " + p.getAvalNo3Room());}
-                           if (!unitsAvailable.isEmpty()) System.out.println("-> Available Units You Can Apply For: [" + String.join(", ", unitsAvailable) + "]");
-                           else System.out.println("-> Available Units You Can Apply For: [None]");
-                           foundMatches = true;
-                     } catch (Exception e) { /* Error handling */ System.err.println("Error displaying details for project: " + p.getName());}
-                }
+            for (Project p : index.getVisibleIn(filterNeighbourhood)) {
+                System.out.println("\n====================================");
+                System.out.println("Project: " + p.getName()); // No index needed for filtered view
+                System.out.println("====================================");
+                 try {
+                      p.viewAllDetails(false);
+                      // Display available units again
+                       List<String> unitsAvailable = unitsAvailableTo(applicant, p);
+                       if (!unitsAvailable.isEmpty()) System.out.println("-> Available Units You Can Apply For: [" + String.join(", ", unitsAvailable) + "]");
+                       else System.out.println("-> Available Units You Can Apply For: [None]");
+                       foundMatches = true;
+                 } catch (Exception e) { /* Error handling */ System.err.println("Error displaying details for project: " + p.getName());}
             }
             if (!foundMatches) {
                 System.out.println("No currently visible projects match the filter: " + filterNeighbourhood);
@@ -219,6 +213,25 @@ public class ApplicantCLI {
     }
 
 
+    /**
+     * Prints facet counts of the visible projects: per neighbourhood, per flat type in stock,
+     * and open or closed for applications today.
+     * @param facets Counts from the eligibility index
+     */
+    private static void printFacets(EligibilityIndex.Facets facets) {
+        List<String> neighbourhoods = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : facets.getNeighbourhoodCounts().entrySet()) {
+            neighbourhoods.add(entry.getKey() + " (" + entry.getValue() + ")");
+        }
+        List<String> flatTypes = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : facets.getFlatTypeCounts().entrySet()) {
+            flatTypes.add(entry.getKey() + " (" + entry.getValue() + ")");
+        }
+        System.out.println("\nNeighbourhoods: " + (neighbourhoods.isEmpty() ? "None" : String.join(", ", neighbourhoods)));
+        System.out.println("Flat types in stock: " + (flatTypes.isEmpty() ? "None" : String.join(", ", flatTypes)));
+        System.out.println("Open for applications today: " + facets.getOpenCount() + ", not open: " + facets.getClosedCount());
+    }
+
     // Ensure readYesNoInput helper exists and uses this.scanner
     private boolean readYesNoInput() {
         String input = "";
@@ -241,7 +254,7 @@ public class ApplicantCLI {
      * @return The list of available/eligible Project objects, or an empty list if none.
      */
     private List<Project> handleViewAvailableProjects() {
-        List<Project> potentiallyEligibleProjects = applicant.viewAvailProjects(allProjectsMap);
+        List<Project> potentiallyEligibleProjects = applicant.viewAvailProjects(catalogue);
 
         System.out.println("\n--- Available Projects You Are Eligible For ---");
 
@@ -254,34 +267,14 @@ public class ApplicantCLI {
 
         List<Project> displayableProjects = new ArrayList<>();
         int displayIndex = 1;
-        String status = applicant.getMaritalStatus();
-        int age = applicant.getAge();
+        EligibilityPolicy policy = EligibilityPolicy.getDefault();
+        int rule = applicant.getEligibilityRule(policy);
 
         for (Project p : potentiallyEligibleProjects) {
             if (p == null) continue;
 
-            boolean canApply2Room = p.getAvalNo2Room() > 0;
-            boolean canApply3Room = p.getAvalNo3Room() > 0;
-            boolean eligibleForAnyFlatInThisProject = false; 
-
-            List<String> unitsAvailableToApplicant = new ArrayList<>();
-
-            if (status.equals("Single") && age >= 35) {
-                if (canApply2Room) {
-                    unitsAvailableToApplicant.add("2-Room: " + p.getAvalNo2Room());
-                    eligibleForAnyFlatInThisProject = true; 
-                }
-               
-            } else if (status.equals("Married") && age >= 21) {
-                if (canApply2Room) {
-                    unitsAvailableToApplicant.add("2-Room: " + p.getAvalNo2Room());
-                    eligibleForAnyFlatInThisProject = true;
-                }
-                if (canApply3Room) {
-                    unitsAvailableToApplicant.add("3-Room: " + p.getAvalNo3Room());
-                    eligibleForAnyFlatInThisProject = true; 
-                }
-            }
+            List<String> unitsAvailableToApplicant = unitsAvailableTo(applicant, p);
+            boolean eligibleForAnyFlatInThisProject = !unitsAvailableToApplicant.isEmpty(); 
 
             if (eligibleForAnyFlatInThisProject) {
                 displayableProjects.add(p); 
@@ -294,8 +287,8 @@ public class ApplicantCLI {
 
                     System.out.println("-> Available Units You Can Apply For: [" + String.join(", ", unitsAvailableToApplicant) + "]");
 
-                    if (status.equals("Single") && age >= 35 && canApply3Room) {
-                        System.out.println("-> Note: 3-Room flats listed above are not available for Single applicants.");
+                    if (rule >= 0 && unitsAvailableToApplicant.size() < p.getFlatTypes().size()) {
+                        System.out.println("-> Note: " + policy.getRule(rule).describeLimit());
                     }
 
                 } catch (Exception e) {
@@ -353,24 +346,49 @@ public class ApplicantCLI {
         String chosenFlatType = null;
         while(chosenFlatType == null) {
             System.out.println("\nSelected Project: " + selectedProject.getName());
-            System.out.print("Enter desired flat type (2-Room or 3-Room, or 0 to cancel): ");
+            System.out.print("Enter desired flat type (" + flatTypeChoices(selectedProject) + ", or 0 to cancel): ");
             String inputType = scanner.nextLine().trim();
 
+            FlatType type = FlatType.parse(inputType);
             if ("0".equals(inputType)) {
                 System.out.println("Application cancelled.");
                 return;
-            } else if ("2-Room".equalsIgnoreCase(inputType) || "2".equals(inputType)) {
-                chosenFlatType = "2-Room";
-            } else if ("3-Room".equalsIgnoreCase(inputType) || "3".equals(inputType)) {
-                chosenFlatType = "3-Room";
+            } else if (type != null) {
+                chosenFlatType = type.getName();
             } else {
-                System.out.println("Invalid input. Please enter '2-Room', '3-Room', '2', '3', or '0'.");
+                System.out.println("Invalid input. Please enter one of: " + flatTypeChoices(selectedProject) + ", or '0'.");
             }
         }
 
         applicant.applyProject(availableProjects, selectedProject.getName(), chosenFlatType);
     }
 
+    /**
+     * Lists the flat types of a project that the applicant is eligible for and that have units left.
+     * @param applicant The applicant
+     * @param project The project
+     * @return Entries such as "2-Room: 10", in flat type order
+     */
+    private static List<String> unitsAvailableTo(Applicant applicant, Project project) {
+        List<String> units = new ArrayList<>();
+        for (FlatType type : project.getFlatTypes()) {
+            int available = project.getAvailableUnits(type);
+            if (available > 0 && applicant.canApplyFor(type)) units.add(type.getName() + ": " + available);
+        }
+        return units;
+    }
+
+    /**
+     * Formats the flat types a project offers for an input prompt.
+     * @param project The project
+     * @return e.g. "2-Room or 3-Room"
+     */
+    private static String flatTypeChoices(Project project) {
+        List<String> names = new ArrayList<>();
+        for (FlatType type : project.getFlatTypes()) names.add(type.getName());
+        return names.isEmpty() ? "none offered" : String.join(" or ", names);
+    }
+
     /**
      * Shows the applied project details and current application status.
      */
@@ -408,7 +426,7 @@ public class ApplicantCLI {
         Map<Integer, String> optionMap = new HashMap<>();
         int currentIndex = 1;
 
-        List<Project> available = applicant.getProjectsVisibleForEnquiry(allProjectsMap);
+        List<Project> available = applicant.getProjectsVisibleForEnquiry(catalogue);
         if (!available.isEmpty()) {
             System.out.println("Available Projects:");
             for (Project p : available) {
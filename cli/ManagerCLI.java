@@ -4,7 +4,12 @@ import Actors.Manager;
 import Actors.User; // Needed for type casting or methods accepting User
 import Actors.Applicant;
 import Actors.Officer;
+import Project.ApplicationState;
+import Project.CreatorIndex;
 import Project.Project;
+import Project.ProjectCatalogue;
+import Project.ProjectListing;
+import Services.AllocationReport;
 import Services.EnquiryService;
 import data.DataManager;
 import java.time.LocalDate;
@@ -13,17 +18,14 @@ import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map; // Needed to accept the main data maps
 import java.util.Scanner;
-import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.InputMismatchException;
-import java.util.stream.Collectors; // Added for cleaner filtering
 
 /**
  * Provides a Command Line Interface (CLI) for users logged in as a Manager.
  * Handles user input, calls methods on the Manager logic object, and displays results.
  * Interacts with DataManager to fetch lists for selection and potentially EnquiryCLI for enquiry handling.
- * Modifies the main data maps (allProjectsMap, allUsersMap) directly for operations like creation/deletion.
+ * Adds and removes projects through the ProjectCatalogue, and modifies allUsersMap directly.
  * Does NOT handle saving data directly; expects the calling class (e.g., MainApp)
  * to save data after the manager session ends (e.g., on logout).
  */
@@ -35,7 +37,8 @@ public class ManagerCLI {
     private final EnquiryService enquiryService; // Instance for handling enquiry UI flows
 
     // References to the main application data maps, loaded at startup
-    private final Map<String, Project> allProjectsMap;
+    private final ProjectCatalogue catalogue; // Changes to the set of projects go through it
+    private final Map<String, Project> allProjectsMap; // Read-only view of the catalogue
     private final Map<String, User> allUsersMap;
 
     /**
@@ -45,17 +48,19 @@ public class ManagerCLI {
      * @param scanner        The Scanner instance for reading user input.
      * @param dataManager    The DataManager instance for fetching data.
      * @param enquiryService Main logic for holding all enquires/replies
-     * @param allProjectsMap A reference to the Map holding all loaded Project objects.
+     * @param catalogue      The catalogue holding all loaded Project objects.
      * @param allUsersMap    A reference to the Map holding all loaded User objects.
      */
     public ManagerCLI(Manager manager, Scanner scanner, DataManager dataManager, EnquiryService enquiryService,
-                      Map<String, Project> allProjectsMap, Map<String, User> allUsersMap) {
+                      ProjectCatalogue catalogue, Map<String, User> allUsersMap) {
         this.manager = manager;
         this.scanner = scanner;
         this.dataManager = dataManager;
         this.enquiryService = enquiryService; 
-        this.allProjectsMap = allProjectsMap;
+        this.catalogue = catalogue;
+        this.allProjectsMap = catalogue.getProjects();
         this.allUsersMap = allUsersMap;
+        manager.indexManagedProjects(getProjectsManagedByThisManager());
     }
 
     /**
@@ -68,6 +73,7 @@ public class ManagerCLI {
         int choice;
         do {
             System.out.println("\n--- Manager Menu (" + manager.getName() + ") ---");
+            printDashboard();
             System.out.println("1. Create New Project");
             System.out.println("2. View/Edit/Delete MY Created Projects"); 
             System.out.println("3. View ALL Projects (Regardless of Creator/Visibility)");
@@ -78,6 +84,7 @@ public class ManagerCLI {
             System.out.println("8. Accept/Reject Applicant Withdrawal (For MY Projects)");
             System.out.println("9. Generate Applicant Report (For MY Project)");
             System.out.println("10. Manage Project Enquiries");
+            System.out.println("11. Run Ballot for Pending Applications (For MY Projects)");
             System.out.println("0. Logout");
             System.out.print("Enter choice: ");
 
@@ -95,6 +102,7 @@ public class ManagerCLI {
                     case 8: handleUpdateWithdrawal(); break;
                     case 9: handleGenerateReport(); break; 
                     case 10: manageAllEnquiries(); break;
+                    case 11: handleRunBallot(); break;
                     case 0:
                         System.out.println("Preparing to logout manager " + manager.getName() + "...");
                         break;
@@ -110,12 +118,19 @@ public class ManagerCLI {
         } while (choice != 0);
     }
 
-    /** @return List of projects managed by this manager */
+    /** @return List of projects managed by this manager, from the catalogue's CreatorIndex */
     private List<Project> getProjectsManagedByThisManager() {
-        String currentManagerName = manager.getName(); // Get manager's name
-        return allProjectsMap.values().stream() // Stream all projects from the main map
-                .filter(p -> p != null && currentManagerName.equals(p.getCreatorName())) // Filter by creator name
-                .collect(Collectors.toList()); // Collect results into a list
+        return catalogue.getCreators().getProjects(manager.getName());
+    }
+
+    /**
+     * Prints a one-line summary of the work waiting on this manager.
+     * Read from the running totals of the catalogue's CreatorIndex, so it costs the same however many projects there are.
+     */
+    private void printDashboard() {
+        CreatorIndex.Workload work = catalogue.getCreators().getWorkload(manager.getName());
+        System.out.println("My projects: " + work.getProjectCount() + " | Pending: " + work.getPendingApplications() + " application(s), "
+                + work.getPendingWithdrawals() + " withdrawal(s), " + work.getPendingOfficerRegistrations() + " officer registration(s)");
     }
 
     /**
@@ -200,16 +215,15 @@ public class ManagerCLI {
 
         System.out.print("Enter Number of 2-Room Flats: "); int num2Rooms = readIntInput();
         System.out.print("Enter Number of 3-Room Flats: "); int num3Rooms = readIntInput();
-        List<Project> managedProjects = getProjectsManagedByThisManager();
 
         // Call Manager logic (Manager now uses its own name as creator)
         Project newProject = manager.createProject(name, visibility, neighbourhood,
-                                                  openingDate, closingDate, num2Rooms, num3Rooms, managedProjects);
+                                                  openingDate, closingDate, num2Rooms, num3Rooms);
 
         if (newProject != null) {
             // Add the newly created project to the main map being tracked by the application
             // This makes it immediately visible in the current session.
-            allProjectsMap.put(newProject.getName(), newProject);
+            catalogue.add(newProject); // Also indexes it for applicants
             System.out.println("Project '" + newProject.getName() + "' created successfully IN MEMORY.");
             System.out.println("Changes will be saved on logout.");
         } else {
@@ -288,20 +302,17 @@ public class ManagerCLI {
         System.out.print("Enter new Number of 3-Room Flats (Current: " + projectToEdit.getNo3Room() + ", Enter non-number to skip): ");
         Integer num3Rooms = readOptionalIntInput();
 
-        List<Project> managedProjects = getProjectsManagedByThisManager();
-
         // Call Manager logic, operating on the object from the map
         // Manager.editProject now primarily calls setters on the project object passed to it.
         boolean success = manager.editProject(projectToEdit, placeName, neighbourhood,
-                                            openingDate, closingDate, num2Rooms, num3Rooms, managedProjects);
+                                            openingDate, closingDate, num2Rooms, num3Rooms);
 
         if (success) {
             System.out.println("Project updated successfully IN MEMORY.");
             String newName = projectToEdit.getName(); 
             if (!originalName.equals(newName)) {
                  System.out.println("Project name changed from '" + originalName + "' to '" + newName + "'. Updating map reference.");
-                 allProjectsMap.remove(originalName); // Remove entry with the old key
-                 allProjectsMap.put(newName, projectToEdit); // Add entry with the new key
+                 catalogue.rename(projectToEdit, originalName); // Re-file under the new key
             System.out.println("Changes will be saved on logout.");
         }
         }
@@ -323,7 +334,7 @@ public class ManagerCLI {
 
             if (success) {
                 // Also remove from the main map tracked by the application
-                allProjectsMap.remove(projectToDelete.getName());
+                catalogue.remove(projectToDelete); // Also drops it from the applicants' index
                 System.out.println("Project deleted successfully IN MEMORY.");
                  System.out.println("Changes will be saved on logout.");
                 // NO SAVE TO FILE HERE
@@ -380,7 +391,7 @@ public class ManagerCLI {
     private void handleUpdateOfficerReg() {
         System.out.println("\n--- Update Officer Registration ---");
         // Use DataManager helper, passing the main maps for context
-        List<Officer> pendingOfficers = dataManager.getAllPendingOfficersForManager(manager.getName(), allProjectsMap, allUsersMap);
+        List<Officer> pendingOfficers = dataManager.getAllPendingOfficersForManager(manager.getName(), catalogue, allUsersMap);
 
         if (pendingOfficers == null || pendingOfficers.isEmpty()) { // Added null check
             System.out.println("No pending officer registrations found for your projects.");
@@ -405,7 +416,7 @@ public class ManagerCLI {
         boolean approve = readYesNoInput();
 
         // Call Manager logic, passing the globally tracked Officer object
-        boolean success = manager.updateRegOfficer(allProjectsMap, officerFromMap, approve);
+        boolean success = manager.updateRegOfficer(catalogue, officerFromMap, approve);
 
         if (success) {
             System.out.println("Officer registration status updated successfully IN MEMORY.");
@@ -462,7 +473,7 @@ public class ManagerCLI {
     private void handleUpdateApplicant() {
         System.out.println("\n--- Accept/Reject Applicant Application ---");
         // Use DataManager helper, passing maps
-        List<Applicant> pendingApplicants = dataManager.getAllPendingApplicantsForManager(manager.getName(), allProjectsMap, allUsersMap);
+        List<Applicant> pendingApplicants = dataManager.getAllPendingApplicantsForManager(manager.getName(), catalogue, allUsersMap);
 
         if (pendingApplicants == null || pendingApplicants.isEmpty()) { // Added null check
             System.out.println("No pending applicant applications found for your projects.");
@@ -503,7 +514,7 @@ public class ManagerCLI {
     private void handleUpdateWithdrawal() {
         System.out.println("\n--- Accept/Reject Applicant Withdrawal ---");
         // Use DataManager helper, passing maps
-        List<Applicant> withdrawalApplicants = dataManager.getAllWithdrawalApplicantsForManager(manager.getName(), allProjectsMap, allUsersMap);
+        List<Applicant> withdrawalApplicants = dataManager.getAllWithdrawalApplicantsForManager(manager.getName(), catalogue, allUsersMap);
 
         if (withdrawalApplicants == null || withdrawalApplicants.isEmpty()) { // Added null check
             System.out.println("No pending applicant withdrawals found for your projects.");
@@ -570,6 +581,41 @@ public class ManagerCLI {
         }
     }
 
+    /**
+     * Handles running the ballot over all pending applications of the manager's projects.
+     * The seed is printed with the report so the draw can be reproduced.
+     */
+    private void handleRunBallot() {
+        System.out.println("\n--- Run Ballot for Pending Applications ---");
+        List<Project> projects = getProjectsManagedByThisManager();
+        int pending = 0;
+        for (Project project : projects) pending += project.getApplicantCount(ApplicationState.PENDING);
+        if (pending == 0) {
+            System.out.println("No pending applicant applications found for your projects.");
+            return;
+        }
+
+        System.out.print("Enter ballot seed (blank for a random seed): ");
+        String seedInput = scanner.nextLine().trim();
+        long seed;
+        if (seedInput.isEmpty()) {
+            seed = System.nanoTime();
+        } else {
+            try {
+                seed = Long.parseLong(seedInput);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid seed. Please enter a whole number."); return;
+            }
+        }
+
+        System.out.print("Ballot " + pending + " pending application(s) across " + projects.size() + " project(s)? (yes/no): ");
+        if (!readYesNoInput()) { System.out.println("Ballot cancelled."); return; }
+
+        AllocationReport report = manager.runBallot(projects, seed);
+        report.print();
+        System.out.println("Changes will be saved on logout.");
+    }
+
 
     // --- Helper Methods for Input and Selection (Keep implementations mostly as provided) ---
 
@@ -783,6 +829,7 @@ public class ManagerCLI {
     /**
      * Displays details for ALL projects in the system, ignoring visibility
      * and creator, as per Manager requirements.
+     * Shown a page at a time from the catalogue's sorted listing (see ProjectPager).
      */
     private void handleViewAllProjects() {
         System.out.println("\n--- Viewing ALL Projects ---");
@@ -791,27 +838,10 @@ public class ManagerCLI {
             return;
         }
 
-        // Sort projects by name for consistent display (optional)
-        List<Project> sortedProjects = new ArrayList<>(allProjectsMap.values());
-        sortedProjects.sort(Comparator.comparing(Project::getName, String.CASE_INSENSITIVE_ORDER));
-
-        for (Project p : sortedProjects) {
-            if (p == null) continue; // Safety check
-
-            System.out.println("\n====================================");
-            System.out.println("Project: " + p.getName());
-            System.out.println("====================================");
-            try {
-                p.viewAllDetails(true);
-
-                System.out.println("-> Available Units: [2-Room: " + p.getAvalNo2Room() + ", 3-Room: " + p.getAvalNo3Room() + "]");
-
-            } catch (Exception e) {
-                System.err.println("Error displaying details for project: " + p.getName() + " - " + e.getMessage());
-                System.out.println("(Error retrieving full details)");
-            }
-        }
-        System.out.println("====================================");
+        // Sorted by name to start with; the manager can re-sort between pages
+        ProjectListing listing = catalogue.getListing();
+        new ProjectPager(scanner).browse(listing, false, ProjectListing.Order.NAME, true,
+                (p, out) -> out.append("-> Available Units: [").append(p.getAvailabilitySummary()).append("]\n"));
         System.out.println("--- End of All Projects List ---");
     }
 
@@ -3,9 +3,16 @@ package cli;
 import Actors.Applicant;
 import Actors.Officer;
 import Actors.User; 
+import Project.FlatType;
+import Project.UnitMap;
 import Project.Project;
+import Project.ProjectCatalogue;
+import Project.ProjectSearchIndex;
 import Services.EnquiryService;
 import data.DataManager; 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
@@ -18,11 +25,13 @@ import java.util.List;
  * Provides functions for officers to register for projects, book flats, and manage enquiries.
  */
 public class OfficerCLI {
+    private static final DateTimeFormatter HOLD_FORMAT = DateTimeFormatter.ofPattern("dd-MMM-yyyy HH:mm").withZone(ZoneId.systemDefault());
     private final Officer officer; // The specific Officer object
     private final Scanner scanner; // Use scanner passed from MainApp
     private final DataManager dataManager; 
     private final EnquiryService enquiryService; // For managing enquiries
-    private final Map<String, Project> allProjectsMap; // Needed for registration
+    private final ProjectCatalogue catalogue; // Needed for registration
+    private final Map<String, Project> allProjectsMap; // Read-only view of the catalogue
     private final Map<String, User> allUsersMap; // Needed for registration checks
 
     /**
@@ -31,17 +40,18 @@ public class OfficerCLI {
      * @param scanner Input scanner
      * @param dataManager Data persistence utility
      * @param enquiryService Service for managing enquiries
-     * @param allProjectsMap All loaded projects
+     * @param catalogue Catalogue of all loaded projects
      * @param allUsersMap All loaded users
      */
     public OfficerCLI(Officer officer, Scanner scanner, DataManager dataManager,
                       EnquiryService enquiryService,
-                      Map<String, Project> allProjectsMap, Map<String, User> allUsersMap) {
+                      ProjectCatalogue catalogue, Map<String, User> allUsersMap) {
         this.officer = officer;
         this.scanner = scanner;
         this.dataManager = dataManager;
         this.enquiryService = enquiryService;
-        this.allProjectsMap = allProjectsMap;
+        this.catalogue = catalogue;
+        this.allProjectsMap = catalogue.getProjects();
         this.allUsersMap = allUsersMap;
     }
 
@@ -117,9 +127,28 @@ public class OfficerCLI {
         }
 
         System.out.print("Enter Project Name to register for: ");
-        String projectName = scanner.nextLine();
+        String projectName = confirmProjectName(scanner.nextLine());
+        if (projectName == null) {
+            System.out.println("Registration cancelled.");
+            return;
+        }
         // Call the officer's registration logic
-        officer.registerProject(projectName, allProjectsMap, allUsersMap);
+        officer.registerProject(projectName, catalogue, allUsersMap);
+    }
+
+    /**
+     * Resolves a typed project name, asking the officer before using any project whose name
+     * was not typed exactly (e.g. the only project starting with the text).
+     * @param typed Text the officer typed
+     * @return The name to register with (unchanged when there is nothing to confirm), or null if declined
+     */
+    private String confirmProjectName(String typed) {
+        if (typed == null || allProjectsMap.containsKey(typed.trim())) return typed;
+        Project match = catalogue.getSearch().resolve(typed);
+        if (match == null || ProjectSearchIndex.isExactName(match, typed)) return typed; // registerProject reports a miss
+        System.out.print("Did you mean project '" + match.getName() + "'? (y/N): ");
+        String answer = scanner.nextLine().trim();
+        return (answer.equalsIgnoreCase("y") || answer.equalsIgnoreCase("yes")) ? match.getName() : null;
     }
 
     private void showOfficerProfile() {
@@ -165,15 +194,7 @@ public class OfficerCLI {
         System.out.println("Operating on project: " + handledProject.getName());
 
         // 2. Get the list of applicants eligible for booking *from the specific handled project*
-        List<Applicant> successfulList = handledProject.getSuccessfulApplicants();
-        List<Applicant> bookableApplicants = new ArrayList<>();
-        if (successfulList != null) {
-             for (Applicant app : successfulList) {
-                  if (app != null && "Successful".equals(app.getAppStatus())) {
-                       bookableApplicants.add(app);
-                  }
-             }
-        }
+        List<Applicant> bookableApplicants = officer.getBookableApplicants(handledProject);
 
         if (bookableApplicants.isEmpty()) {
             System.out.println("No applicants currently eligible for booking in project '" + handledProject.getName() + "'.");
@@ -185,8 +206,10 @@ public class OfficerCLI {
         System.out.println("Project: " + handledProject.getName());
         for (int i = 0; i < bookableApplicants.size(); i++) {
             Applicant app = bookableApplicants.get(i);
-            System.out.printf("%d. %s (%s) - Applied for: %s%n",
-                              (i + 1), app.getName(), app.getNric(), app.getTypeFlat());
+            long holdDeadline = handledProject.getHoldDeadline(app.getNric());
+            String hold = (holdDeadline < 0) ? "" : " (hold until " + HOLD_FORMAT.format(Instant.ofEpochMilli(holdDeadline)) + ")";
+            System.out.printf("%d. %s (%s) - Applied for: %s%s%n",
+                              (i + 1), app.getName(), app.getNric(), app.getTypeFlat(), hold);
         }
         System.out.println("0. Cancel Booking");
 
@@ -204,8 +227,27 @@ public class OfficerCLI {
                 System.out.println("Invalid selection. Please enter a number between 0 and " + bookableApplicants.size() + ".");
             }
         }
-        boolean success = officer.bookFlatForApplicant(applicantToBook, handledProject);
 
+        // 5. Optional unit preference: a block and a range of floors
+        FlatType typeToBook = applicantToBook.getFlatType();
+        UnitMap.Filter unitFilter = UnitMap.Filter.any();
+        if (typeToBook != null) {
+            System.out.println("Unit layout for " + typeToBook.getName() + ": " + describeLayout(handledProject.getUnitLayout(typeToBook))
+                    + ", " + handledProject.getFreeUnitCount(typeToBook) + " unit(s) free.");
+            int block = readIntInput("Preferred block (0 for any): ");
+            int minFloor = readIntInput("Lowest acceptable floor (0 for any): ");
+            int maxFloor = readIntInput("Highest acceptable floor (0 for any): ");
+            unitFilter = new UnitMap.Filter(block, Math.max(1, minFloor), (maxFloor <= 0) ? Integer.MAX_VALUE : maxFloor);
+        }
+        boolean success = officer.bookFlatForApplicant(applicantToBook, handledProject, unitFilter);
+
+    }
+
+    // "2x12x4" -> "2 block(s) x 12 floors x 4 units per floor"
+    private static String describeLayout(String layout) {
+        String[] parts = layout.split("x");
+        if (parts.length != 3) return layout;
+        return parts[0] + " block(s) x " + parts[1] + " floors x " + parts[2] + " units per floor";
     }
 
     /**
@@ -300,7 +342,7 @@ public class OfficerCLI {
               switch(choice) {
                 case 1:
                     // Display available projects by calling the logic method on officer
-                    List<Project> available = officer.viewAvailProjects(allProjectsMap);
+                    List<Project> available = officer.viewAvailProjects(catalogue);
                     displayAvailableProjectsForOfficer(available);
                     break;
                 case 2:
@@ -380,12 +422,11 @@ public class OfficerCLI {
          int displayIndex = 1;
          for (Project p : availableProjects) {
               if (p == null) continue;
-              System.out.printf("%d. Project: %s (%s) - Flats Available: [%s%s]%n",
+              System.out.printf("%d. Project: %s (%s) - Flats Available: [%s]%n",
                    displayIndex++,
                    p.getName(),
                    p.getNeighbourhood(),
-                   (p.getAvalNo2Room() > 0 ? "2-Room: " + p.getAvalNo2Room() + " " : ""),
-                   (p.getAvalNo3Room() > 0 ? "3-Room: " + p.getAvalNo3Room() : "")
+                   p.getAvailabilitySummary()
               );
          }
           System.out.println("----------------------------------------------");
@@ -398,7 +439,7 @@ public class OfficerCLI {
      */
     private void handleOfficerApplyForProject() {
         // 1. Get available projects first
-        List<Project> availableProjects = officer.viewAvailProjects(allProjectsMap);
+        List<Project> availableProjects = officer.viewAvailProjects(catalogue);
 
          // 2. Display them using the helper
         displayAvailableProjectsForOfficer(availableProjects);
@@ -426,11 +467,11 @@ public class OfficerCLI {
         String chosenFlatType = null;
         while (chosenFlatType == null) {
             System.out.println("\nSelected Project: " + selectedProject.getName());
-            System.out.print("Enter desired flat type (2-Room or 3-Room, or 0 to cancel): ");
+            System.out.print("Enter desired flat type (" + selectedProject.getAvailabilitySummary() + "), or 0 to cancel: ");
             String inputType = scanner.nextLine().trim();
+            FlatType type = FlatType.parse(inputType);
             if ("0".equals(inputType)) { System.out.println("Application cancelled."); return; }
-            else if ("2-Room".equalsIgnoreCase(inputType) || "2".equals(inputType)) chosenFlatType = "2-Room";
-            else if ("3-Room".equalsIgnoreCase(inputType) || "3".equals(inputType)) chosenFlatType = "3-Room";
+            else if (type != null) chosenFlatType = type.getName();
             else System.out.println("Invalid input.");
         }
 
@@ -0,0 +1,139 @@
+package cli;
+
+import java.io.PrintStream;
+import java.util.Scanner;
+
+import Project.Project;
+import Project.ProjectListing;
+
+/**
+ * Shows a ProjectListing a page at a time.
+ * Each page is formatted into one StringBuilder, reused from page to page, and written to
+ * the console with a single print, instead of a println per line per project. Between pages
+ * the user can go on to the next page, change the sort order, or stop.
+ */
+public class ProjectPager {
+
+    /** Projects shown per page */
+    public static final int PAGE_SIZE = 10;
+
+    /**
+     * Adds lines of its own under each project's details,
+     * e.g. the units an applicant can apply for.
+     */
+    public interface Extra {
+        /**
+         * Appends lines for a project.
+         * @param project The project shown
+         * @param out Buffer holding the page
+         */
+        void append(Project project, StringBuilder out);
+    }
+
+    private static final String RULE = "====================================\n";
+
+    private final Scanner scanner;
+    private final PrintStream out;
+    private final StringBuilder page = new StringBuilder(8192);
+
+    /**
+     * Constructs a pager that reads choices from a scanner and prints to System.out.
+     * @param scanner Scanner object for reading input
+     */
+    public ProjectPager(Scanner scanner) {
+        this(scanner, System.out);
+    }
+
+    /**
+     * Constructs a pager.
+     * @param scanner Scanner object for reading input
+     * @param out Stream pages are written to
+     */
+    public ProjectPager(Scanner scanner, PrintStream out) {
+        this.scanner = scanner;
+        this.out = out;
+    }
+
+    /**
+     * Shows a listing from its first page until the user stops or the last page is shown.
+     * The user is only prompted when there are more pages to show.
+     *
+     * @param listing Listing to show (see ProjectCatalogue.getListing)
+     * @param visibleOnly true to show only visible projects
+     * @param order Sort order to start with
+     * @param isStaff Whether to show staff-only details
+     * @param extra Extra lines per project, or null
+     * @return Number of projects shown
+     */
+    public int browse(ProjectListing listing, boolean visibleOnly, ProjectListing.Order order, boolean isStaff, Extra extra) {
+        ProjectListing.Page current = listing.firstPage(order, visibleOnly, PAGE_SIZE);
+        int shown = 0;
+        int number = 1;
+        while (true) {
+            render(current, number, order, isStaff, extra);
+            shown += current.getProjects().size();
+            number += current.getProjects().size();
+            if (!current.hasNext()) return shown;
+
+            this.out.print("[Enter] next page, 's' to change sort order, 'q' to stop: ");
+            String input = this.scanner.nextLine().trim().toLowerCase();
+            if (input.equals("q")) return shown;
+            if (input.equals("s")) {
+                order = readOrder(order);
+                current = listing.firstPage(order, visibleOnly, PAGE_SIZE);
+                number = 1;
+            } else {
+                current = listing.nextPage(current.getNext(), PAGE_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Formats one page and writes it with a single print.
+     *
+     * @param current Page to show
+     * @param firstNumber Number shown for the page's first project
+     * @param order Order the page was read in
+     * @param isStaff Whether to show staff-only details
+     * @param extra Extra lines per project, or null
+     */
+    public void render(ProjectListing.Page current, int firstNumber, ProjectListing.Order order, boolean isStaff, Extra extra) {
+        this.page.setLength(0);
+        int number = firstNumber;
+        for (Project p : current.getProjects()) {
+            this.page.append('\n').append(RULE);
+            this.page.append("Project #").append(number++).append('\n');
+            this.page.append(RULE);
+            try {
+                p.appendDetails(this.page, isStaff);
+                if (extra != null) extra.append(p, this.page);
+            } catch (Exception e) {
+                this.page.append("(Error retrieving full details)\n");
+            }
+        }
+        this.page.append(RULE);
+        if (current.getTotal() > 0) {
+            this.page.append("Showing ").append(firstNumber).append('-').append(number - 1)
+                    .append(" of ").append(current.getTotal()).append(", sorted by ").append(order.getLabel()).append('\n');
+        }
+        this.out.print(this.page);
+        this.out.flush();
+    }
+
+    // Asks for a sort order, keeping the current one on invalid input
+    private ProjectListing.Order readOrder(ProjectListing.Order current) {
+        ProjectListing.Order[] orders = ProjectListing.Order.values();
+        for (int i = 0; i < orders.length; i++) {
+            this.out.println((i + 1) + ". Sort by " + orders[i].getLabel());
+        }
+        this.out.print("Enter choice: ");
+        try {
+            int choice = Integer.parseInt(this.scanner.nextLine().trim());
+            if (choice >= 1 && choice <= orders.length) return orders[choice - 1];
+        } catch (NumberFormatException e) {
+            // Fall through
+        }
+        this.out.println("Invalid choice. Keeping sort by " + current.getLabel() + ".");
+        return current;
+    }
+}
@@ -0,0 +1,244 @@
+package data;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Crash-safe replacement of data files.
+ * A new version of a file is written to "name.tmp" followed by a one-line checksum footer
+ * ("#crc32c=" + 8 hex digits + "\n") over everything before it, forced to disk, and then
+ * renamed over the target with an atomic move. The version it replaces is kept as
+ * "name.prev", so a reader that finds a damaged file can fall back to the previous
+ * generation. A crash at any point leaves either the old or the new file in place,
+ * never a truncated one.
+ *
+ * Readers use openVerified(), which checks the footer while streaming: the last
+ * FOOTER_LENGTH bytes are held back and compared at end of input, so verification
+ * needs no second pass and the footer is never passed on to the caller. Files without
+ * a footer (e.g. CSVs edited by hand) are read unchecked.
+ */
+public final class AtomicFile {
+
+    private static final String FOOTER_PREFIX = "#crc32c=";
+    private static final int FOOTER_LENGTH = FOOTER_PREFIX.length() + 8 + 1;
+    private static final String PREVIOUS_SUFFIX = ".prev";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Writes the body of a file.
+     */
+    public interface Body {
+        /**
+         * Writes the file contents. The stream must not be closed.
+         * @param out Stream to write to
+         * @throws IOException If writing fails
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Signals that a file's contents do not match its checksum footer.
+     */
+    public static class ChecksumMismatchException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final String path;
+
+        /**
+         * Creates the exception.
+         * @param path Path of the damaged file
+         * @param expected Checksum stored in the footer
+         * @param actual Checksum of the contents
+         */
+        public ChecksumMismatchException(String path, long expected, long actual) {
+            super(String.format("Checksum mismatch in %s (expected %08x, found %08x).", path, expected, actual));
+            this.path = path;
+        }
+
+        /**
+         * Gets the path of the damaged file.
+         * @return File path
+         */
+        public String getPath() {
+            return path;
+        }
+    }
+
+    private AtomicFile() {
+    }
+
+    /**
+     * Atomically replaces the file with the given contents plus a checksum footer.
+     * @param filePath Path of the file to replace
+     * @param body Writes the new contents
+     * @return Size of the new file in bytes
+     * @throws IOException If writing, syncing or renaming fails (the old file is left untouched)
+     */
+    public static long write(String filePath, Body body) throws IOException {
+        Path target = Paths.get(filePath);
+        Path temp = Paths.get(filePath + TEMP_SUFFIX);
+        if (target.getParent() != null) Files.createDirectories(target.getParent());
+
+        CRC32C crc = new CRC32C();
+        try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+            OutputStream checked = new BufferedOutputStream(new FilterOutputStream(file) {
+                @Override
+                public void write(byte[] bytes, int off, int len) throws IOException {
+                    crc.update(bytes, off, len);
+                    out.write(bytes, off, len);
+                }
+
+                @Override
+                public void write(int b) throws IOException {
+                    crc.update(b);
+                    out.write(b);
+                }
+            }, 1 << 16);
+            body.writeTo(checked);
+            checked.flush();
+            file.write(footer(crc.getValue()));
+            file.getFD().sync(); // Contents must be on disk before the rename makes them visible
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        if (Files.exists(target)) {
+            // Keep the current version as the previous generation
+            Path previous = Paths.get(filePath + PREVIOUS_SUFFIX);
+            Files.deleteIfExists(previous);
+            try {
+                Files.createLink(previous, target);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(target, previous, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target.toAbsolutePath().getParent());
+        return Files.size(target);
+    }
+
+    /**
+     * Opens a file for reading, verifying its checksum footer (if it has one) at end of input.
+     * @param filePath Path of the file
+     * @return Stream of the contents without the footer; its read() throws
+     *         ChecksumMismatchException at end of input if the contents are damaged
+     * @throws IOException If the file cannot be opened
+     */
+    public static InputStream openVerified(String filePath) throws IOException {
+        return new VerifyingInputStream(new FileInputStream(filePath), filePath);
+    }
+
+    /**
+     * Gets the path of the previous generation of a file.
+     * @param filePath Path of the file
+     * @return Path of the file's previous version
+     */
+    public static String previousGeneration(String filePath) {
+        return filePath + PREVIOUS_SUFFIX;
+    }
+
+    private static byte[] footer(long crc) {
+        return String.format("%s%08x\n", FOOTER_PREFIX, crc).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Makes the rename itself durable; not every platform can open a directory, which is fine
+    private static void syncDirectory(Path directory) {
+        if (directory == null) return;
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort only
+        }
+    }
+
+    /**
+     * Passes bytes through while updating a CRC32C, holding back the last FOOTER_LENGTH
+     * bytes until end of input, where they are checked as a footer.
+     */
+    private static class VerifyingInputStream extends InputStream {
+        private final InputStream in;
+        private final String path;
+        private final CRC32C crc = new CRC32C();
+        private final byte[] buffer = new byte[8192 + FOOTER_LENGTH];
+        private int available = 0; // Bytes in buffer not yet passed on
+        private boolean endOfInput = false;
+        private boolean hasFooter = false;
+
+        VerifyingInputStream(InputStream in, String path) {
+            this.in = in;
+            this.path = path;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return (n == -1) ? -1 : (one[0] & 0xff);
+        }
+
+        @Override
+        public int read(byte[] bytes, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            while (!endOfInput && available <= FOOTER_LENGTH) {
+                int n = in.read(buffer, available, buffer.length - available);
+                if (n < 0) {
+                    endOfInput = true;
+                    hasFooter = isFooter();
+                } else {
+                    available += n;
+                }
+            }
+            int releasable = (endOfInput && !hasFooter) ? available : available - FOOTER_LENGTH;
+            if (releasable <= 0) {
+                if (hasFooter) verify();
+                return -1;
+            }
+            int n = Math.min(len, releasable);
+            System.arraycopy(buffer, 0, bytes, off, n);
+            crc.update(buffer, 0, n);
+            System.arraycopy(buffer, n, buffer, 0, available - n);
+            available -= n;
+            return n;
+        }
+
+        // Checks whether the held-back tail looks like a footer
+        private boolean isFooter() {
+            if (available < FOOTER_LENGTH) return false;
+            int start = available - FOOTER_LENGTH;
+            for (int i = 0; i < FOOTER_PREFIX.length(); i++) {
+                if (buffer[start + i] != FOOTER_PREFIX.charAt(i)) return false;
+            }
+            if (buffer[available - 1] != '\n') return false;
+            for (int i = start + FOOTER_PREFIX.length(); i < available - 1; i++) {
+                if (Character.digit(buffer[i], 16) < 0) return false;
+            }
+            return true;
+        }
+
+        private void verify() throws IOException {
+            String hex = new String(buffer, FOOTER_PREFIX.length(), 8, StandardCharsets.US_ASCII);
+            long expected = Long.parseLong(hex, 16);
+            if (expected != crc.getValue()) {
+                throw new ChecksumMismatchException(path, expected, crc.getValue());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package data;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Static hub that domain classes use to announce persisted state changes.
+ * Listeners (such as the ChangeJournal) are registered by the application at startup.
+ * Publishing with no listeners registered is a no-op, so domain logic and tests
+ * work unchanged without any persistence attached.
+ */
+public class ChangeEvents {
+
+    /**
+     * Receives change records as they are published.
+     */
+    public interface Listener {
+        /**
+         * Called once for every published record.
+         * @param record The change that happened
+         */
+        void onChange(ChangeRecord record);
+    }
+
+    /**
+     * A listener that persists records and can confirm when they are safely on disk.
+     */
+    public interface DurableListener extends Listener {
+        /**
+         * Blocks until every record this listener has received so far is durable.
+         * @throws IOException If the records could not be persisted
+         */
+        void awaitDurable() throws IOException;
+    }
+
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private ChangeEvents() {
+    }
+
+    /**
+     * Registers a listener.
+     * @param listener Listener to add
+     */
+    public static void addListener(Listener listener) {
+        if (listener != null && !listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * Unregisters a listener.
+     * @param listener Listener to remove
+     */
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Publishes a change to every registered listener.
+     * @param record The change record
+     */
+    public static void publish(ChangeRecord record) {
+        if (record == null) return;
+        for (Listener listener : listeners) {
+            try {
+                listener.onChange(record);
+            } catch (Exception e) {
+                System.err.println("Error recording change (" + record.getType() + "): " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Publishes a change and waits until every durable listener has persisted it.
+     * Used for critical operations (such as booking a flat) that must not be acknowledged
+     * to the user before they survive a crash.
+     * @param record The change record
+     * @return true if the change is durable (or no durable listener is registered), false if persisting failed
+     */
+    public static boolean publishDurable(ChangeRecord record) {
+        if (record == null) return true;
+        publish(record);
+        boolean durable = true;
+        for (Listener listener : listeners) {
+            if (!(listener instanceof DurableListener)) continue;
+            try {
+                ((DurableListener) listener).awaitDurable();
+            } catch (Exception e) {
+                System.err.println("Error persisting change (" + record.getType() + "): " + e.getMessage());
+                durable = false;
+            }
+        }
+        return durable;
+    }
+}
@@ -0,0 +1,182 @@
+package data;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only write-ahead journal of state changes.
+ * Every published ChangeRecord is written as one CSV line ("TYPE,field1,field2,...")
+ * to the end of the journal file, so a status change costs one short append instead
+ * of rewriting every CSV table. The journal is folded back into the CSV snapshot by
+ * DataManager.compact() and truncated afterwards.
+ */
+public class ChangeJournal implements ChangeEvents.DurableListener {
+
+    private final File file;
+    private FileOutputStream out;
+    private BufferedWriter writer;
+    private int recordCount = 0;
+    private boolean structuralChange = false;
+    private boolean tornTail = false;
+
+    /**
+     * Opens (or creates) the journal file for appending.
+     * @param filePath Path of the journal file
+     * @throws IOException If the file cannot be opened
+     */
+    public ChangeJournal(String filePath) throws IOException {
+        this.file = new File(filePath);
+        File parentDir = file.getParentFile();
+        if (parentDir != null && !parentDir.exists() && !parentDir.mkdirs()) {
+            throw new IOException("Failed to create directory for journal: " + parentDir.getPath());
+        }
+        // Count existing records so the compaction threshold survives restarts
+        List<ChangeRecord> existing = readAll();
+        if (tornTail) {
+            // Rewrite without the torn record, otherwise the next append would be glued onto it
+            openWriter(false);
+            appendAll(existing);
+        } else {
+            openWriter(true);
+            for (ChangeRecord record : existing) {
+                recordCount++;
+                if (!record.isReplayable()) structuralChange = true;
+            }
+        }
+    }
+
+    /**
+     * Appends the record to the journal as soon as it is published.
+     * @param record The change record
+     */
+    @Override
+    public void onChange(ChangeRecord record) {
+        try {
+            append(record);
+        } catch (IOException e) {
+            System.err.println("Error appending to change journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forces everything appended so far onto the disk.
+     * @throws IOException If the sync fails
+     */
+    @Override
+    public void awaitDurable() throws IOException {
+        sync();
+    }
+
+    /**
+     * Appends one record and flushes it to the file.
+     * @param record The record to append
+     * @throws IOException If writing fails
+     */
+    public synchronized void append(ChangeRecord record) throws IOException {
+        writeRecord(record);
+        writer.flush();
+    }
+
+    /**
+     * Appends a batch of records with a single flush (a group commit).
+     * @param records The records to append, oldest first
+     * @throws IOException If writing fails
+     */
+    public synchronized void appendAll(List<ChangeRecord> records) throws IOException {
+        for (ChangeRecord record : records) {
+            writeRecord(record);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Flushes buffered records and forces them onto the disk (fsync).
+     * @throws IOException If the sync fails
+     */
+    public synchronized void sync() throws IOException {
+        writer.flush();
+        out.getFD().sync();
+    }
+
+    private void writeRecord(ChangeRecord record) throws IOException {
+        StringBuilder line = new StringBuilder(record.getType().name());
+        for (String field : record.getFields()) {
+            line.append(',').append(CsvRepository.escapeCsvField(field));
+        }
+        writer.write(line.toString());
+        writer.newLine();
+        recordCount++;
+        if (!record.isReplayable()) structuralChange = true;
+    }
+
+    private void openWriter(boolean append) throws IOException {
+        this.out = new FileOutputStream(file, append);
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads every complete record currently in the journal, oldest first.
+     * A torn final line (e.g. from a crash mid-append) is skipped.
+     * @return List of journal records
+     * @throws IOException If the file cannot be read
+     */
+    public synchronized List<ChangeRecord> readAll() throws IOException {
+        List<ChangeRecord> records = new ArrayList<>();
+        if (!file.exists()) return records;
+
+        try (CsvCursor row = CsvCursor.open(file.getPath())) {
+            while (row.nextNonBlank()) {
+                // Every complete record ends with a newline, so an unterminated one was torn mid-append
+                if (!row.isTerminated()) {
+                    System.err.println("Warning: Ignoring incomplete record at end of change journal.");
+                    tornTail = true;
+                    break;
+                }
+                String[] fields = row.toArray();
+                try {
+                    ChangeRecord.Type type = ChangeRecord.Type.valueOf(fields[0]);
+                    records.add(new ChangeRecord(type, Arrays.copyOfRange(fields, 1, fields.length)));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Warning: Skipping unreadable journal record of type '" + fields[0] + "'.");
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Empties the journal after its contents have been folded into the CSV snapshot.
+     * @throws IOException If the file cannot be truncated
+     */
+    public synchronized void truncate() throws IOException {
+        writer.close();
+        openWriter(false);
+        recordCount = 0;
+        structuralChange = false;
+    }
+
+    /**
+     * Closes the journal file.
+     * @throws IOException If closing fails
+     */
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * Gets the number of records appended since the last truncate.
+     * @return Record count */
+    public synchronized int size() {
+        return recordCount;
+    }
+
+    /**
+     * Checks whether a change the journal cannot replay has been recorded.
+     * @return true if a full save is required to persist all changes */
+    public synchronized boolean hasStructuralChanges() {
+        return structuralChange;
+    }
+}
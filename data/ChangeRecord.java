@@ -0,0 +1,169 @@
+package data;
+
+import Actors.Applicant;
+import Actors.Enquiry;
+import Actors.Reply;
+import Actors.User;
+import Project.FlatType;
+import Project.Project;
+
+import java.util.EnumSet;
+
+/**
+ * A single state change that can be appended to the change journal.
+ * Each record carries the full row of the entity that changed, using the same
+ * column layout as the matching CSV table, so replaying a record is an idempotent upsert.
+ */
+public class ChangeRecord {
+
+    /**
+     * The kind of entity a record describes.
+     * STRUCTURE marks a change the journal cannot replay (e.g. project creation or
+     * officer approval); it forces a full save at the next compaction.
+     */
+    public enum Type { USER, APPLICATION, FLATS, ENQUIRY, ENQUIRY_DELETE, REPLY, STRUCTURE }
+
+    /**
+     * The CSV tables a change has to be written to.
+     */
+    public enum Table { USERS, PROJECTS, FLATS, OFFICERS, APPLICATIONS, ENQUIRIES, REPLIES }
+
+    private final Type type;
+    private final String[] fields;
+    private final EnumSet<Table> structureTables; // Tables touched by a STRUCTURE change; all if unknown
+
+    /**
+     * Constructs a record from its type and row fields.
+     * @param type Record type
+     * @param fields Row fields in CSV column order
+     */
+    public ChangeRecord(Type type, String[] fields) {
+        this(type, fields, EnumSet.allOf(Table.class));
+    }
+
+    private ChangeRecord(Type type, String[] fields, EnumSet<Table> structureTables) {
+        this.type = type;
+        this.fields = (fields != null) ? fields : new String[0];
+        this.structureTables = structureTables;
+    }
+
+    /**
+     * Gets the record type.
+     * @return The record type */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the row fields carried by this record.
+     * @return Row fields in CSV column order */
+    public String[] getFields() {
+        return fields;
+    }
+
+    /**
+     * Gets the CSV tables that must be rewritten for this change to reach the CSV files.
+     * @return Set of affected tables
+     */
+    public EnumSet<Table> getTables() {
+        switch (type) {
+            case USER: return EnumSet.of(Table.USERS);
+            case APPLICATION: return EnumSet.of(Table.APPLICATIONS);
+            case FLATS: return EnumSet.of(Table.FLATS);
+            case ENQUIRY: return EnumSet.of(Table.ENQUIRIES);
+            case ENQUIRY_DELETE: return EnumSet.of(Table.ENQUIRIES, Table.REPLIES); // Replies go with their enquiry
+            case REPLY: return EnumSet.of(Table.REPLIES);
+            default: return EnumSet.copyOf(structureTables);
+        }
+    }
+
+    /**
+     * Gets the key of the entity this record describes (NRIC, project name or enquiry ID).
+     * @return Entity key, or the description for STRUCTURE records
+     */
+    public String getKey() {
+        if (fields.length == 0) return "";
+        if (type == Type.REPLY) return fields[0] + "/" + (fields.length > 1 ? fields[1] : "");
+        return fields[0];
+    }
+
+    /**
+     * Checks whether this record can be replayed on top of the last snapshot.
+     * @return true for every type except STRUCTURE
+     */
+    public boolean isReplayable() {
+        return type != Type.STRUCTURE;
+    }
+
+    // --- Factories (rows match the CSV headers in CsvRepository) ---
+
+    /**
+     * Creates a record for a user's credentials and preferences (e.g. after setPassword).
+     * @param user The changed user
+     * @return The change record
+     */
+    public static ChangeRecord user(User user) {
+        return new ChangeRecord(Type.USER, CsvRepository.userRow(user));
+    }
+
+    /**
+     * Creates a record for the current application state of an applicant.
+     * @param applicant The applicant whose application changed
+     * @return The change record, or a STRUCTURE record if the applicant has no project
+     */
+    public static ChangeRecord application(Applicant applicant) {
+        if (applicant == null || applicant.getProject() == null) {
+            return structure("application without project", Table.APPLICATIONS);
+        }
+        return new ChangeRecord(Type.APPLICATION, CsvRepository.applicationRow(applicant, applicant.getProject()));
+    }
+
+    /**
+     * Creates a record for the unit counts of one flat type in a project.
+     * @param project The project whose inventory changed
+     * @param flatType The flat type
+     * @return The change record
+     */
+    public static ChangeRecord flats(Project project, FlatType flatType) {
+        return new ChangeRecord(Type.FLATS, CsvRepository.flatRow(project, flatType));
+    }
+
+    /**
+     * Creates a record for a new or edited enquiry.
+     * @param enquiry The enquiry
+     * @return The change record
+     */
+    public static ChangeRecord enquiry(Enquiry enquiry) {
+        return new ChangeRecord(Type.ENQUIRY, CsvRepository.enquiryRow(enquiry));
+    }
+
+    /**
+     * Creates a record for a deleted enquiry.
+     * @param enquiryId ID of the deleted enquiry
+     * @return The change record
+     */
+    public static ChangeRecord enquiryDeleted(int enquiryId) {
+        return new ChangeRecord(Type.ENQUIRY_DELETE, new String[] { String.valueOf(enquiryId) });
+    }
+
+    /**
+     * Creates a record for a new or edited reply.
+     * @param reply The reply
+     * @return The change record
+     */
+    public static ChangeRecord reply(Reply reply) {
+        return new ChangeRecord(Type.REPLY, CsvRepository.replyRow(reply));
+    }
+
+    /**
+     * Creates a marker for a change the journal does not model row by row.
+     * @param description Short description used in log output
+     * @param tables The CSV tables the change affects
+     * @return The change record
+     */
+    public static ChangeRecord structure(String description, Table... tables) {
+        EnumSet<Table> affected = EnumSet.noneOf(Table.class);
+        for (Table table : tables) affected.add(table);
+        return new ChangeRecord(Type.STRUCTURE, new String[] { description }, affected);
+    }
+}
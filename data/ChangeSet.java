@@ -0,0 +1,116 @@
+package data;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects which entities changed since the data was last written to the CSV files.
+ * Every published ChangeRecord marks its entity (user, application, flat counts, enquiry
+ * or reply) dirty under the CSV tables it belongs to, so DataManager.saveChanges() can skip
+ * every table that holds no changed row.
+ */
+public class ChangeSet implements ChangeEvents.Listener {
+
+    private final Map<ChangeRecord.Table, Set<String>> dirtyKeys = new EnumMap<>(ChangeRecord.Table.class);
+
+    /**
+     * Marks the entity described by the record as dirty. A STRUCTURE record has no entity
+     * key, so it marks its tables dirty as a whole.
+     * @param record The change record
+     */
+    @Override
+    public synchronized void onChange(ChangeRecord record) {
+        String key = record.isReplayable() ? record.getKey() : "*";
+        for (ChangeRecord.Table table : record.getTables()) {
+            dirtyKeys.computeIfAbsent(table, t -> new HashSet<>()).add(key);
+        }
+    }
+
+    /**
+     * Marks a whole table dirty (e.g. when it was loaded in an outdated format).
+     * @param table The table to rewrite at the next save
+     */
+    public synchronized void markDirty(ChangeRecord.Table table) {
+        dirtyKeys.computeIfAbsent(table, t -> new HashSet<>()).add("*");
+    }
+
+    /**
+     * Marks every table dirty.
+     */
+    public synchronized void markAllDirty() {
+        for (ChangeRecord.Table table : ChangeRecord.Table.values()) markDirty(table);
+    }
+
+    /**
+     * Checks whether a table holds any changed entity.
+     * @param table The table
+     * @return true if the table must be rewritten
+     */
+    public synchronized boolean isDirty(ChangeRecord.Table table) {
+        return dirtyKeys.containsKey(table);
+    }
+
+    /**
+     * Checks whether anything changed at all.
+     * @return true if at least one table is dirty
+     */
+    public synchronized boolean isEmpty() {
+        return dirtyKeys.isEmpty();
+    }
+
+    /**
+     * Gets the dirty tables.
+     * @return Set of tables to rewrite
+     */
+    public synchronized EnumSet<ChangeRecord.Table> getDirtyTables() {
+        return dirtyKeys.isEmpty() ? EnumSet.noneOf(ChangeRecord.Table.class) : EnumSet.copyOf(dirtyKeys.keySet());
+    }
+
+    /**
+     * Gets the number of distinct changed entities in a table.
+     * @param table The table
+     * @return Number of dirty entities
+     */
+    public synchronized int getDirtyCount(ChangeRecord.Table table) {
+        Set<String> keys = dirtyKeys.get(table);
+        return (keys != null) ? keys.size() : 0;
+    }
+
+    /**
+     * Forgets the listed tables after they were written.
+     * @param tables Tables that are now clean
+     */
+    public synchronized void clear(Set<ChangeRecord.Table> tables) {
+        for (ChangeRecord.Table table : tables) dirtyKeys.remove(table);
+    }
+
+    /**
+     * Takes every dirty key and forgets it, in one step.
+     * @return Changed keys per table ("*" for a whole table)
+     */
+    public synchronized Map<ChangeRecord.Table, Set<String>> drain() {
+        Map<ChangeRecord.Table, Set<String>> drained = new EnumMap<>(dirtyKeys);
+        dirtyKeys.clear();
+        return drained;
+    }
+
+    /**
+     * Marks previously drained keys dirty again (e.g. after a failed save).
+     * @param changes Keys returned by drain()
+     */
+    public synchronized void restore(Map<ChangeRecord.Table, Set<String>> changes) {
+        for (Map.Entry<ChangeRecord.Table, Set<String>> entry : changes.entrySet()) {
+            dirtyKeys.computeIfAbsent(entry.getKey(), t -> new HashSet<>()).addAll(entry.getValue());
+        }
+    }
+
+    /**
+     * Forgets every change.
+     */
+    public synchronized void clear() {
+        dirtyKeys.clear();
+    }
+}
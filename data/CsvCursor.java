@@ -0,0 +1,272 @@
+package data;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming RFC-4180 CSV reader that walks a file one record at a time.
+ * Input is pulled through a fixed char buffer and the current record is decoded into
+ * a reusable field buffer, so memory use is bounded by the longest record rather than
+ * the file size. Quoted fields may contain commas, doubled quotes ("") and line breaks,
+ * which is exactly what CsvRepository.escapeCsvField() writes.
+ *
+ * The cursor itself is the row view: after next() returns true, size() and get(i)
+ * describe the current record until the following call to next().
+ */
+public class CsvCursor implements CsvRow, Closeable {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] readBuffer = new char[READ_BUFFER_SIZE];
+    private int readPos = 0;
+    private int readLimit = 0;
+    private boolean endOfInput = false;
+
+    // Current record: field text is stored back to back in recordChars, fieldEnds[i] marks the end of field i
+    private char[] recordChars = new char[256];
+    private int recordLength = 0;
+    private int[] fieldEnds = new int[16];
+    private int fieldCount = 0;
+    private boolean terminated = false;
+    private long recordNumber = 0;
+
+    /**
+     * Creates a cursor over an already opened reader.
+     * @param reader Source of CSV text (closed by close())
+     */
+    public CsvCursor(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Opens a UTF-8 CSV file for streaming, verifying its checksum footer (see AtomicFile).
+     * @param filePath Path of the file
+     * @return Cursor positioned before the first record
+     * @throws IOException If the file cannot be opened
+     */
+    public static CsvCursor open(String filePath) throws IOException {
+        return open(filePath, true);
+    }
+
+    /**
+     * Opens a UTF-8 CSV file for streaming.
+     * @param filePath Path of the file
+     * @param verify true to check the checksum footer at end of input (next() then throws
+     *               AtomicFile.ChecksumMismatchException for a damaged file)
+     * @return Cursor positioned before the first record
+     * @throws IOException If the file cannot be opened
+     */
+    public static CsvCursor open(String filePath, boolean verify) throws IOException {
+        InputStream in = verify ? AtomicFile.openVerified(filePath) : new FileInputStream(filePath);
+        return new CsvCursor(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a cursor with no records (used when a data file does not exist).
+     * @return Empty cursor
+     */
+    public static CsvCursor empty() {
+        return new CsvCursor(new StringReader(""));
+    }
+
+    /**
+     * Advances to the next record.
+     * @return true if a record was read, false at end of input
+     * @throws IOException If reading fails
+     */
+    public boolean next() throws IOException {
+        recordLength = 0;
+        fieldCount = 0;
+        terminated = false;
+
+        int c = read();
+        if (c == -1) return false;
+
+        boolean inQuotes = false;
+        while (true) {
+            if (c == -1) {
+                if (inQuotes) {
+                    System.err.println("Warning: Unterminated quoted field at end of CSV input (record " + (recordNumber + 1) + ").");
+                }
+                break;
+            }
+            char ch = (char) c;
+            if (inQuotes) {
+                if (ch == '"') {
+                    int nextChar = peek();
+                    if (nextChar == '"') {
+                        read();
+                        appendChar('"');
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    appendChar(ch);
+                }
+            } else if (ch == '"') {
+                inQuotes = true;
+            } else if (ch == ',') {
+                endField();
+            } else if (ch == '\n') {
+                terminated = true;
+                break;
+            } else if (ch == '\r') {
+                if (peek() == '\n') read();
+                terminated = true;
+                break;
+            } else {
+                appendChar(ch);
+            }
+            c = read();
+        }
+        endField();
+        recordNumber++;
+        return true;
+    }
+
+    /**
+     * Advances to the next record that is not blank, skipping empty lines.
+     * @return true if a record was read, false at end of input
+     * @throws IOException If reading fails
+     */
+    public boolean nextNonBlank() throws IOException {
+        while (next()) {
+            if (!isBlank()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of fields in the current record.
+     * @return Field count
+     */
+    @Override
+    public int size() {
+        return fieldCount;
+    }
+
+    /**
+     * Gets one field of the current record.
+     * @param index Zero-based column index
+     * @return The unquoted field value
+     */
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+        }
+        int start = (index == 0) ? 0 : fieldEnds[index - 1];
+        return new String(recordChars, start, fieldEnds[index] - start);
+    }
+
+    /**
+     * Checks whether the current record has no content (an empty or whitespace-only line).
+     * @return true if the record is blank
+     */
+    public boolean isBlank() {
+        if (fieldCount > 1) return false;
+        for (int i = 0; i < recordLength; i++) {
+            if (!Character.isWhitespace(recordChars[i])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the current record ended with a line break.
+     * Only the last record of a file can be unterminated; append-only files use this
+     * to detect a record torn by a crash mid-write.
+     * @return true if the record was followed by a line break
+     */
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    /**
+     * Gets the 1-based number of the current record (a quoted line break does not start a new record).
+     * @return Record number
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    /**
+     * Copies the current record into a new array (for callers that must keep the row).
+     * @return Array of field values
+     */
+    public String[] toArray() {
+        String[] values = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            values[i] = get(i);
+        }
+        return values;
+    }
+
+    /**
+     * Returns the current record re-joined with commas (for log messages).
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(recordLength + fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            if (i > 0) sb.append(',');
+            int start = (i == 0) ? 0 : fieldEnds[i - 1];
+            sb.append(recordChars, start, fieldEnds[i] - start);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Closes the underlying reader.
+     * @throws IOException If closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // --- Buffer helpers ---
+
+    private int read() throws IOException {
+        if (readPos >= readLimit && !fill()) return -1;
+        return readBuffer[readPos++];
+    }
+
+    private int peek() throws IOException {
+        if (readPos >= readLimit && !fill()) return -1;
+        return readBuffer[readPos];
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfInput) return false;
+        int n;
+        do {
+            n = reader.read(readBuffer, 0, readBuffer.length);
+        } while (n == 0);
+        if (n < 0) {
+            endOfInput = true;
+            return false;
+        }
+        readPos = 0;
+        readLimit = n;
+        return true;
+    }
+
+    private void appendChar(char ch) {
+        if (recordLength == recordChars.length) {
+            char[] grown = new char[recordChars.length * 2];
+            System.arraycopy(recordChars, 0, grown, 0, recordLength);
+            recordChars = grown;
+        }
+        recordChars[recordLength++] = ch;
+    }
+
+    private void endField() {
+        if (fieldCount == fieldEnds.length) {
+            int[] grown = new int[fieldEnds.length * 2];
+            System.arraycopy(fieldEnds, 0, grown, 0, fieldCount);
+            fieldEnds = grown;
+        }
+        fieldEnds[fieldCount++] = recordLength;
+    }
+}
@@ -0,0 +1,1311 @@
+package data;
+
+import Actors.User;
+import Actors.Applicant;
+import Actors.Enquiry;
+import Actors.Manager;
+import Actors.Officer;
+import Actors.Reply;
+import Project.FlatType;
+import Project.Project;
+// Add imports for Enquiry if needed
+import Services.EnquiryService;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.HashMap; // For building relationships
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * CSV storage backend: every table is kept in its own CSV file in the data folder
+ * (users.csv, project.csv, project_flats.csv, project_officers.csv, applications.csv,
+ * enquiries.csv and replies.csv). Files are streamed on load and replaced atomically on save.
+ * Optionally, a binary snapshot of all tables is kept next to the CSVs as a load cache:
+ * it is used instead of the CSVs whenever it is at least as new as all of them.
+ */
+public class CsvRepository implements Repository {
+
+    // Define file paths using a consistent structure
+    private final String dataFolder;
+    private final String usersCsvPath;
+    private final String projectsCsvPath; // Corrected name from project_core
+    private final String projectFlatsCsvPath;
+    private final String projectOfficersCsvPath;
+    private final String applicationsCsvPath;
+    private final String enquiriesCsvPath; 
+    private final String repliesCsvPath;     
+    private final String snapshotPath;
+    private final boolean useSnapshot;
+
+    // Rows per chunk when a file is parsed in parallel
+    private static final int PARSE_CHUNK_SIZE = 2048;
+
+    // Consistent date formatter
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE; // YYYY-MM-DD
+
+    // Define CSV Headers
+    private static final String USERS_HEADER = "NRIC,Name,Age,MaritalStatus,PasswordHash,Salt,Role,PreferredNeighbourhood";
+    private static final String PROJECTS_HEADER = "ProjectName,Neighborhood,Visibility,CreatorName,AppOpeningDate,AppClosingDate";
+    private static final String FLATS_HEADER = "ProjectName,FlatType,TotalUnits,AvailableUnits,SellingPrice,UnitLayout,NextBallotNumber"; // UnitLayout: blocks x floors x units per floor, e.g. 2x12x4; NextBallotNumber: next waitlist position of the type
+    static final String OFFICERS_HEADER = "ProjectName,OfficerNRIC,Status"; // Status: Approved | Pending
+    static final String APPLICATIONS_HEADER = "ApplicantNRIC,ProjectName,FlatTypeApplied,ApplicationStatus,WithdrawalStatus,HasApplied,UnitNumber,HoldDeadline,BallotNumber"; // Status: Pending | Successful | Unsuccessful | Withdrawn | Booked; UnitNumber: block-floor-unit of a booked flat; HoldDeadline: epoch millis a Successful applicant may book until; BallotNumber: waitlist position of an Unsuccessful applicant
+    private static final String ENQUIRIES_HEADER = "EnquiryID,SubmitterNRIC,ProjectName,EnquiryContent"; 
+    private static final String REPLIES_HEADER = "EnquiryID,ReplyID,ResponderNRIC,ReplyContent"; 
+
+    private final AtomicLong bytesWritten = new AtomicLong(); // Total bytes written to data files by this repository (files may be written in parallel)
+    // Tables found stale while loading (outdated format, damaged file): rewritten at the next save
+    private final Set<ChangeRecord.Table> staleTables = ConcurrentHashMap.newKeySet();
+    // Files whose checksum failed during the current load: path -> file to read instead
+    private final Map<String, String> readOverrides = new ConcurrentHashMap<>();
+    private final Set<String> uncheckedPaths = ConcurrentHashMap.newKeySet();
+    private boolean snapshotDamaged = false;
+    private volatile boolean lazyEnquiries = false;
+    private volatile EnquiryIndex enquiryIndex; // Index attached by the last lazy load; closed once the service drops it
+
+    /**
+     * Creates the CSV backend over the given data folder and ensures required files exist.
+     * @param dataFolder Folder holding the CSV files (and the snapshot).
+     * @param useSnapshot Whether to keep snapshot.bin as a load cache next to the CSVs.
+     */
+    public CsvRepository(String dataFolder, boolean useSnapshot) {
+        this.dataFolder = dataFolder;
+        this.usersCsvPath = dataFolder + "/users.csv";
+        this.projectsCsvPath = dataFolder + "/project.csv";
+        this.projectFlatsCsvPath = dataFolder + "/project_flats.csv";
+        this.projectOfficersCsvPath = dataFolder + "/project_officers.csv";
+        this.applicationsCsvPath = dataFolder + "/applications.csv";
+        this.enquiriesCsvPath = dataFolder + "/enquiries.csv";
+        this.repliesCsvPath = dataFolder + "/replies.csv";
+        this.snapshotPath = dataFolder + "/snapshot.bin";
+        this.useSnapshot = useSnapshot;
+
+        // Ensure data files exist on initialization (optional but recommended)
+        ensureFileExists(usersCsvPath, USERS_HEADER);
+        ensureFileExists(projectsCsvPath, PROJECTS_HEADER);
+        ensureFileExists(projectFlatsCsvPath, FLATS_HEADER);
+        ensureFileExists(projectOfficersCsvPath, OFFICERS_HEADER);
+        ensureFileExists(applicationsCsvPath, APPLICATIONS_HEADER);
+        ensureFileExists(enquiriesCsvPath, ENQUIRIES_HEADER); 
+        ensureFileExists(repliesCsvPath, REPLIES_HEADER);
+    }
+
+    @Override
+    public String getName() {
+        return "csv";
+    }
+
+    @Override
+    public String getDataFolder() {
+        return dataFolder;
+    }
+
+    /**
+     * Loads everything: from the binary snapshot when it is fresh, otherwise from the CSV
+     * files with the parallel StartupLoader. A snapshot that fails to load is ignored (and
+     * rewritten at the next save).
+     * @param enquiryService Service to populate with enquiries and replies
+     * @return The loaded users and projects
+     * @throws IOException If the CSV files cannot be read
+     */
+    @Override
+    public Contents load(EnquiryService enquiryService) throws IOException {
+        staleTables.clear();
+        if (useSnapshot && hasFreshSnapshot()) {
+            System.out.println("Loading binary snapshot...");
+            try {
+                SnapshotCodec.Contents snapshot = loadSnapshot(enquiryService);
+                return new Contents(snapshot.getUsers(), snapshot.getProjects(), staleTables);
+            } catch (IOException | RuntimeException e) { // A damaged snapshot may fail before its checksum is reached
+                System.err.println("Warning: Could not load binary snapshot (" + e.getMessage() + "). Falling back to CSV files.");
+            }
+        }
+        System.out.println("Loading users, projects, applications and enquiries...");
+        StartupLoader loader = new StartupLoader(this, enquiryService);
+        loader.load();
+        return new Contents(loader.getUsers(), loader.getProjects(), staleTables);
+    }
+
+    /**
+     * Rewrites the CSV file of every given table, then refreshes the snapshot cache.
+     * @param tables Tables to write
+     * @param users Map of all users
+     * @param projects Map of all projects
+     * @param enquiryService Service holding all enquiries
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void save(Set<ChangeRecord.Table> tables, Map<String, User> users, Map<String, Project> projects,
+                     EnquiryService enquiryService) throws IOException {
+        if (tables.contains(ChangeRecord.Table.USERS)) saveUsers(users);
+        if (tables.contains(ChangeRecord.Table.PROJECTS)) saveProjectsCore(projects);
+        if (tables.contains(ChangeRecord.Table.FLATS)) saveProjectFlats(projects);
+        if (tables.contains(ChangeRecord.Table.OFFICERS)) saveProjectOfficers(projects, users);
+        if (tables.contains(ChangeRecord.Table.APPLICATIONS)) saveApplications(projects);
+        if (tables.contains(ChangeRecord.Table.ENQUIRIES) || tables.contains(ChangeRecord.Table.REPLIES)) {
+            saveEnquiryTables(enquiryService, tables.contains(ChangeRecord.Table.ENQUIRIES), tables.contains(ChangeRecord.Table.REPLIES));
+        }
+        if (useSnapshot && (!tables.isEmpty() || snapshotDamaged)) {
+            saveSnapshot(users, projects, enquiryService);
+        }
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /**
+     * Chooses how enquiries are loaded from the CSV files: all into memory (the default), or
+     * only as an EnquiryIndex that EnquiryService reads enquiries through on demand. Has no
+     * effect when the binary snapshot is loaded instead.
+     * @param lazy true to index enquiries instead of loading them
+     */
+    public void setLazyEnquiries(boolean lazy) {
+        this.lazyEnquiries = lazy;
+    }
+
+    /**
+     * Asks for a table to be rewritten at the next save, e.g. because a subclass loaded it
+     * from an older source. Reported through load().
+     * @param table The stale table
+     */
+    protected void markStale(ChangeRecord.Table table) {
+        staleTables.add(table);
+    }
+
+    // --- File Existence Check ---
+    private void ensureFileExists(String filePath, String header) {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            System.out.println("File not found, creating: " + filePath);
+            try {
+                // Ensure parent directory exists
+                File parentDir = file.getParentFile();
+                if (parentDir != null && !parentDir.exists()) {
+                    if (parentDir.mkdirs()) {
+                         System.out.println("Created directory: " + parentDir.getPath());
+                    } else {
+                         System.err.println("Failed to create directory: " + parentDir.getPath());
+                         // Consider throwing an exception here if directory is crucial
+                    }
+                }
+
+                if (file.createNewFile()) {
+                    // Write header to the new file
+                    try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
+                        bw.write(header);
+                        bw.newLine();
+                         System.out.println("Header written to " + filePath);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error creating file or writing header for: " + filePath);
+                e.printStackTrace();
+                 // Consider re-throwing or handling more gracefully
+            }
+        }
+    }
+
+    // --- Generic CSV Reading (Streaming) ---
+    /**
+     * Opens a CSV file for streaming and skips its header row.
+     * Rows are read one at a time through the returned cursor, so files are never held in memory as a whole.
+     * @param filePath Path of the CSV file.
+     * @return Cursor positioned before the first data row (empty if the file does not exist).
+     * @throws IOException If the file cannot be opened or read.
+     */
+    CsvCursor openCsvFile(String filePath) throws IOException {
+        File file = new File(filePath);
+
+        // Check if file exists before attempting to read
+        if (!file.exists()) {
+             System.err.println("Warning: File not found during read: " + filePath + ". Returning empty data.");
+             return CsvCursor.empty();
+        }
+
+        // During a fallback, read the previous generation (or the damaged file unchecked) instead
+        String readPath = readOverrides.getOrDefault(filePath, filePath);
+        CsvCursor cursor = CsvCursor.open(readPath, !uncheckedPaths.contains(filePath));
+        try {
+            cursor.next(); // Skip header row
+        } catch (IOException e) {
+            System.err.println("Error reading CSV file: " + filePath);
+            cursor.close();
+            throw e; // Re-throw IOE
+        }
+        return cursor;
+    }
+
+
+    /**
+     * Streams a CSV file in chunks of PARSE_CHUNK_SIZE rows and parses each chunk with the given parser.
+     * With a pool, chunks are parsed in parallel while the file is still being read; only the rows of
+     * chunks in flight are held in memory.
+     * @param filePath Path of the CSV file.
+     * @param parsePool Pool to parse chunks on, or null to parse on the calling thread.
+     * @param parser Turns one chunk of rows into a partial result.
+     * @return Partial results in file order.
+     * @throws IOException If the file cannot be read or a chunk fails to parse.
+     */
+    private <R> List<R> parseInChunks(String filePath, ExecutorService parsePool, Function<List<CsvRow>, R> parser) throws IOException {
+        List<Future<R>> futures = new ArrayList<>();
+        List<R> results = new ArrayList<>();
+        try (CsvCursor row = openCsvFile(filePath)) {
+            List<CsvRow> chunk = new ArrayList<>();
+            boolean more = row.nextNonBlank();
+            while (more) {
+                chunk.add(CsvRow.of(row.toArray())); // Copy out of the reusable cursor buffer
+                more = row.nextNonBlank();
+                if (chunk.size() == PARSE_CHUNK_SIZE || !more) {
+                    final List<CsvRow> rows = chunk;
+                    if (parsePool != null) {
+                        futures.add(parsePool.submit(() -> parser.apply(rows)));
+                    } else {
+                        results.add(parser.apply(rows));
+                    }
+                    chunk = new ArrayList<>();
+                }
+            }
+        }
+        for (Future<R> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while parsing " + filePath, e);
+            } catch (ExecutionException e) {
+                throw new IOException("Error parsing " + filePath + ": " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return results;
+    }
+
+
+    // A load step that may throw IOException
+    interface LoadStep<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Runs a load step that builds a fresh result, retrying it from the previous generation of
+     * any file whose checksum footer does not match (see withFallback(LoadStep, Runnable)).
+     * @param step The load step
+     * @return Result of the step
+     * @throws IOException If reading fails for another reason
+     */
+    <T> T withFallback(LoadStep<T> step) throws IOException {
+        return withFallback(step, null);
+    }
+
+    /**
+     * Runs a load step, retrying it from the previous generation of any file whose checksum
+     * footer does not match. Files without a previous generation are re-read unchecked.
+     * The checksum is only known at the end of the file, so rows of the damaged file may
+     * already have been applied; reset undoes them before each retry, so rows found only in
+     * the damaged file do not survive it. A recovered file is marked dirty so the next save
+     * writes a good copy.
+     * @param step The load step
+     * @param reset Clears what the step applies to existing objects, or null if it builds a fresh result
+     * @return Result of the step
+     * @throws IOException If reading fails for another reason
+     */
+    <T> T withFallback(LoadStep<T> step, Runnable reset) throws IOException {
+        List<String> recovered = new ArrayList<>();
+        try {
+            while (true) {
+                try {
+                    T result = step.run();
+                    for (String path : recovered) staleTables.add(tableForPath(path));
+                    return result;
+                } catch (AtomicFile.ChecksumMismatchException e) {
+                    String path = e.getPath();
+                    if (recovered.contains(path)) throw e; // The previous generation is damaged too
+                    recovered.add(path);
+                    File previous = new File(AtomicFile.previousGeneration(path));
+                    if (previous.isFile()) {
+                        System.err.println("Warning: " + e.getMessage() + " Loading previous generation " + previous.getPath() + " instead.");
+                        readOverrides.put(path, previous.getPath());
+                    } else {
+                        System.err.println("Warning: " + e.getMessage() + " No previous generation exists, loading it unchecked.");
+                        uncheckedPaths.add(path);
+                    }
+                    if (reset != null) reset.run();
+                }
+            }
+        } finally {
+            for (String path : recovered) {
+                readOverrides.remove(path);
+                uncheckedPaths.remove(path);
+            }
+        }
+    }
+
+    ChangeRecord.Table tableForPath(String path) {
+        if (path.equals(usersCsvPath)) return ChangeRecord.Table.USERS;
+        if (path.equals(projectsCsvPath)) return ChangeRecord.Table.PROJECTS;
+        if (path.equals(projectFlatsCsvPath)) return ChangeRecord.Table.FLATS;
+        if (path.equals(projectOfficersCsvPath)) return ChangeRecord.Table.OFFICERS;
+        if (path.equals(applicationsCsvPath)) return ChangeRecord.Table.APPLICATIONS;
+        if (path.equals(enquiriesCsvPath)) return ChangeRecord.Table.ENQUIRIES;
+        return ChangeRecord.Table.REPLIES;
+    }
+
+
+    // --- Generic CSV Writing (Simplified) ---
+    void writeCsvFile(String filePath, List<String[]> data, String header) throws IOException {
+        // Ensure directory exists before writing
+        File file = new File(filePath);
+         File parentDir = file.getParentFile();
+         if (parentDir != null && !parentDir.exists()) {
+             if (!parentDir.mkdirs()) {
+                  throw new IOException("Failed to create directory for saving: " + parentDir.getPath());
+             }
+         }
+
+        // Written to a temp file with a checksum footer and renamed over the old file, so a crash never truncates it
+        long size;
+        try {
+            size = AtomicFile.write(filePath, out -> {
+                BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                bw.write(header); // Write header every time
+                bw.newLine();
+                for (String[] rowData : data) {
+                     if (rowData != null) { // Basic null check for row
+                         // Escape each field before joining
+                         List<String> escapedFields = new ArrayList<>();
+                         for (String field : rowData) {
+                             escapedFields.add(escapeCsvField(field));
+                         }
+                         bw.write(String.join(",", escapedFields));
+                         bw.newLine();
+                     }
+                }
+                bw.flush();
+            });
+        } catch (IOException e) {
+            System.err.println("Error writing to CSV file: " + filePath);
+            e.printStackTrace();
+            throw e; // Re-throw
+        }
+        bytesWritten.addAndGet(size);
+    }
+
+
+    // === Loading Methods ===
+
+    /**
+     * Loads all users (Applicants, Officers, Managers) from users.csv.
+     * @return A Map where the key is NRIC and the value is the User object.
+     * @throws IOException If the file is missing or unreadable.
+     */
+     public Map<String, User> loadUsers() throws IOException {
+         return loadUsers(null);
+     }
+
+    /**
+     * Loads all users from users.csv, parsing chunks of rows in parallel on the given pool.
+     * Building a User hashes a password, which makes this the most CPU-heavy file to load.
+     * @param parsePool Pool used to parse row chunks, or null to parse on the calling thread.
+     * @return A Map where the key is NRIC and the value is the User object.
+     * @throws IOException If the file is missing or unreadable.
+     */
+     public Map<String, User> loadUsers(ExecutorService parsePool) throws IOException {
+         return withFallback(() -> readUsers(parsePool));
+     }
+
+     private Map<String, User> readUsers(ExecutorService parsePool) throws IOException {
+         // NRIC[0],Name[1],Age[2],MaritalStatus[3],PasswordHash[4],Salt[5],Role[6],PreferredNeighbourhood[7]
+
+         // Format is decided by the first data row
+         int columnCount = 0;
+         try (CsvCursor row = openCsvFile(usersCsvPath)) {
+             if (row.nextNonBlank()) columnCount = row.size();
+         }
+         final boolean isLoadingHashed = columnCount >= 7; // Flag to track format
+         final boolean hasPrefNeighbourhoodColumn = columnCount >= 8; // New flag
+         if (isLoadingHashed) {
+            System.out.println("Detected 7+ columns, attempting to load hashed passwords and salts.");
+         } else if (columnCount > 0) {
+              System.out.println("Detected 6 columns, assuming initial load with plain passwords.");
+              staleTables.add(ChangeRecord.Table.USERS); // Rewrite with hashed passwords at the next save
+         }
+
+         List<Map<String, User>> parts = parseInChunks(usersCsvPath, parsePool, chunk -> {
+             Map<String, User> part = new HashMap<>();
+             for (CsvRow row : chunk) {
+                 applyUserRow(row, part, isLoadingHashed, hasPrefNeighbourhoodColumn);
+             }
+             return part;
+         });
+
+         Map<String, User> users = new HashMap<>();
+         for (Map<String, User> part : parts) {
+             users.putAll(part); // Chunks are merged in file order, so later rows still win
+         }
+        System.out.println("Loaded " + users.size() + " users.");
+        return users;
+    }
+
+    /**
+     * Creates or updates a single user from a users.csv row.
+     * Shared by loadUsers and journal replay.
+     * @param row Row fields
+     * @param users Map of users to add to
+     * @param isLoadingHashed Whether the row carries a password hash and salt
+     * @param hasPrefNeighbourhoodColumn Whether the row carries a preferred neighbourhood
+     */
+    static void applyUserRow(CsvRow row, Map<String, User> users, boolean isLoadingHashed, boolean hasPrefNeighbourhoodColumn) {
+        int expectedLength = 6; // Base
+        if (isLoadingHashed) expectedLength = 7;
+        if (hasPrefNeighbourhoodColumn) expectedLength = 8;
+
+        if (row.size() < expectedLength) {
+            System.err.println("Skipping malformed user row (expected " + expectedLength + " columns): " + row);
+            return;
+        }
+
+        try {
+            String nric = row.get(0).trim();
+            String name = row.get(1).trim();
+            int age = Integer.parseInt(row.get(2).trim());
+            String maritalStatus = row.get(3).trim();
+            String role = isLoadingHashed ? row.get(6).trim() : row.get(5).trim(); // Get role from correct index
+            if (nric.isEmpty()) return;
+
+            User user = users.get(nric.toUpperCase()); // Existing user when replaying the journal
+
+            String tempPasswordForConstructor = "password"; 
+
+            if (user == null && isLoadingHashed) {
+                // Stored hash and salt are restored as-is, skipping a throwaway hash of the temp password
+                user = DataManager.restoreUser(role, name, nric, age, maritalStatus, row.get(4), row.get(5));
+                if (user == null) { System.err.println("Warning: Invalid role '" + role + "' for NRIC " + nric); return; }
+            } else if (user == null) {
+                switch (role.toLowerCase()) {
+                    case "manager": user = new Manager(name, nric, tempPasswordForConstructor, maritalStatus, age); break;
+                    case "officer": user = new Officer(name, nric, tempPasswordForConstructor, maritalStatus, age); break;
+                    case "applicant": user = new Applicant(name, nric, tempPasswordForConstructor, maritalStatus, age); break;
+                    default: System.err.println("Warning: Invalid role '" + role + "' for NRIC " + nric); return;
+                }
+            }
+
+            // Now, load credentials based on detected format
+            if (isLoadingHashed) {
+                // Loading existing hash and salt
+                String loadedPasswordHash = row.get(4);
+                String loadedSalt = row.get(5);
+                // Use a method to directly set the loaded hash and salt
+                user.loadCredentials(loadedPasswordHash, loadedSalt);
+            } else {
+                String plainPasswordFromCsv = row.get(4);
+                if (!"password".equals(plainPasswordFromCsv) && !plainPasswordFromCsv.isEmpty()) {
+                    user.setPassword(plainPasswordFromCsv); // Re-call setPassword to hash this specific plain pass
+                }
+            }
+            if (user instanceof Applicant && hasPrefNeighbourhoodColumn) {
+                String prefNeighbourhoodStr = row.get(7).trim(); // Read from column 8
+                if (prefNeighbourhoodStr != null && !prefNeighbourhoodStr.isEmpty() && !"null".equalsIgnoreCase(prefNeighbourhoodStr)) {
+                    ((Applicant) user).setPreferredNeighbourhood(prefNeighbourhoodStr);
+                } else {
+                    ((Applicant) user).setPreferredNeighbourhood(null); // Set null if empty/missing
+                }
+            }
+
+            users.put(nric.toUpperCase(), user); // Use consistent key casing
+
+        } catch (NumberFormatException e) { System.err.println("Error parsing age for user row: " + row + ". Skipping.");
+        } catch (IllegalArgumentException e) { System.err.println("Error creating user object: " + e.getMessage() + ". Skipping row: " + row);
+        } catch (Exception e) { System.err.println("Unexpected error processing user row: " + row); e.printStackTrace(); }
+    }
+
+
+
+
+    /**
+     * Loads the core project data from projects.csv.
+     * Does NOT load related data like flats, officers, or applicants yet.
+     * @return A Map where the key is ProjectName and the value is the Project object.
+     * @throws IOException If the file cannot be read.
+     */
+    public Map<String, Project> loadProjectsCore() throws IOException {
+        return withFallback(this::readProjectsCore);
+    }
+
+    private Map<String, Project> readProjectsCore() throws IOException {
+        Map<String, Project> projects = new HashMap<>();
+        // Header: ProjectName[0],Neighborhood[1],Visibility[2],CreatorName[3],AppOpeningDate[4],AppClosingDate[5]
+
+        try (CsvCursor row = openCsvFile(projectsCsvPath)) {
+            while (row.nextNonBlank()) {
+                if (row.size() < 6) {
+                    System.err.println("Skipping malformed project row: " + row);
+                     continue;
+                }
+                try {
+                    String projectName = row.get(0).trim();
+                    String neighborhood = row.get(1).trim();
+                    boolean visibility = Boolean.parseBoolean(row.get(2).trim().toLowerCase());
+                    String creatorName = row.get(3).trim(); // Manager's Name (used for linking/filtering)
+                    LocalDate openDate = LocalDate.parse(row.get(4).trim(), DATE_FORMATTER);
+                    LocalDate closeDate = LocalDate.parse(row.get(5).trim(), DATE_FORMATTER);
+
+                     if (projectName.isEmpty()) {
+                         System.err.println("Skipping project row with empty Project Name.");
+                         continue;
+                     }
+                     if (creatorName.isEmpty()) {
+                          System.err.println("Warning: Project row with empty Creator Name: " + projectName);
+                          // Decide if this is allowed or should be skipped
+                     }
+
+                    // Assume a Project constructor that takes core info and initializes lists/counts
+                    // Example: Project(name, visibility, creatorName, neighborhood, openDate, closeDate, num2R, num3R)
+                    // We initialize room counts to 0 here; they will be updated by loadProjectFlats.
+                    Project project = new Project(projectName, visibility, creatorName, neighborhood,
+                                                  openDate, closeDate, 0, 0);
+
+                     if (projects.containsKey(projectName)) {
+                         System.err.println("Warning: Duplicate Project Name found: " + projectName + ". Overwriting previous entry.");
+                     }
+                    projects.put(projectName, project);
+
+                } catch (DateTimeParseException e) {
+                    System.err.println("Error parsing date for project row: " + row + ". Skipping.");
+                } catch (IllegalArgumentException e) { // Catch potential errors in Boolean.parseBoolean or Project constructor
+                     System.err.println("Error processing project data: " + e.getMessage() + ". Skipping row: " + row);
+                } catch (Exception e) {
+                     System.err.println("Unexpected error processing project row: " + row);
+                     e.printStackTrace();
+                }
+            }
+        }
+        System.out.println("Loaded " + projects.size() + " core projects.");
+        return projects;
+    }
+
+
+    /**
+     * Loads flat information and adds it to the corresponding Project objects.
+     * Must be called *after* loadProjectsCore.
+     * @param projects The map of projects loaded by loadProjectsCore.
+     * @throws IOException If the file cannot be read.
+     */
+    public void loadProjectFlats(Map<String, Project> projects) throws IOException {
+        withFallback(() -> { readProjectFlats(projects); return null; }, () -> clearFlats(projects));
+    }
+
+    private void readProjectFlats(Map<String, Project> projects) throws IOException {
+        int flatsLoaded = 0;
+        // Header: ProjectName[0],FlatType[1],TotalUnits[2],AvailableUnits[3],SellingPrice[4]
+
+        try (CsvCursor row = openCsvFile(projectFlatsCsvPath)) {
+            while (row.nextNonBlank()) {
+                if (applyFlatRow(row, projects)) flatsLoaded++;
+            }
+        }
+        System.out.println("Loaded flat info for " + flatsLoaded + " entries.");
+    }
+
+    // Undoes flat rows applied from a damaged file before it is re-read
+    private static void clearFlats(Map<String, Project> projects) {
+        for (Project project : projects.values()) {
+            for (FlatType type : project.getFlatTypes()) {
+                project.setTotalUnits(project.getCreatorName(), type, 0);
+                project.setAvailableUnits(type, 0);
+            }
+        }
+    }
+
+    /**
+     * Applies a single project_flats.csv row to its project.
+     * Shared by loadProjectFlats and journal replay.
+     * @param row Row fields
+     * @param projects Map of projects
+     * @return true if the row was applied
+     */
+    static boolean applyFlatRow(CsvRow row, Map<String, Project> projects) {
+        if (row.size() < 5) { // Expect at least 5 columns now
+            System.err.println("Skipping malformed project flat row: " + row);
+            return false;
+        }
+        try {
+            String projectName = row.get(0).trim();
+            Project project = projects.get(projectName); // Find the project object
+
+            if (project != null) {
+                String flatType = row.get(1).trim();
+                int totalUnits = Integer.parseInt(row.get(2).trim());
+                int availableUnits = Integer.parseInt(row.get(3).trim());
+                String price = row.get(4).trim();
+                if (flatType.isEmpty()) {
+                     System.err.println("Warning: Empty flat type for project '" + projectName + "'. Skipping flat info.");
+                     return false;
+                }
+
+                FlatType type = FlatType.register(flatType); // New types (4-Room, Executive, ...) are added to the registry
+                project.setTotalUnits(project.getCreatorName(), type, totalUnits);
+                project.setAvailableUnits(type, availableUnits);
+                if (!price.isEmpty()) project.setSellingPrice(type, (int) Double.parseDouble(price));
+                // Optional unit layout (files written before units were tracked use the default layout)
+                String layout = (row.size() > 5) ? row.get(5).trim() : "";
+                if (!layout.isEmpty() && !layout.equals(project.getUnitLayout(type)) && !project.setUnitLayout(type, layout)) {
+                    System.err.println("Warning: Unit layout '" + layout + "' cannot be used for " + flatType + " in project '" + projectName + "'. Keeping " + project.getUnitLayout(type) + ".");
+                }
+                // Optional next ballot number (files written before it was saved start from the waitlisted applicants' numbers)
+                String nextBallot = (row.size() > 6) ? row.get(6).trim() : "";
+                if (!nextBallot.isEmpty()) project.setNextBallotNumber(type, parseBallotNumber(nextBallot, flatType + " in project '" + projectName + "'"));
+                return true;
+            } else {
+                 System.err.println("Warning: Project '" + projectName + "' not found for flat info. Skipping row.");
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Error parsing number for project flat row: " + row + ". Skipping.");
+        } catch (Exception e) {
+             System.err.println("Unexpected error processing project flat row: " + row);
+             e.printStackTrace();
+        }
+        return false;
+    }
+
+
+    /**
+     * Loads officer assignments, links Officer objects to Projects, and sets officer status.
+     * Must be called *after* loadProjectsCore and loadUsers.
+     * @param projects The map of projects loaded by loadProjectsCore.
+     * @param users The map of users loaded by loadUsers.
+     * @throws IOException If the file cannot be read.
+     */
+    public void loadProjectOfficers(Map<String, Project> projects, Map<String, User> users) throws IOException {
+        withFallback(() -> { readProjectOfficers(projects, users); return null; }, () -> clearOfficers(projects));
+    }
+
+    private void readProjectOfficers(Map<String, Project> projects, Map<String, User> users) throws IOException {
+        int assignmentsLoaded = 0;
+        // Header: ProjectName[0],OfficerNRIC[1],Status[2] (Approved | Pending)
+
+        try (CsvCursor row = openCsvFile(projectOfficersCsvPath)) {
+            while (row.nextNonBlank()) {
+                if (applyOfficerRow(row, projects, users)) assignmentsLoaded++;
+            }
+        }
+        System.out.println("Loaded " + assignmentsLoaded + " officer assignments.");
+    }
+
+    // Undoes officer rows applied from a damaged file before it is re-read
+    private static void clearOfficers(Map<String, Project> projects) {
+        for (Project project : projects.values()) {
+            List<Officer> officers = project.getArrOfOfficers();
+            officers.addAll(project.getPendingOfficerRegistrations());
+            project.clearOfficers();
+            for (Officer officer : officers) officer.updateProjectAssignment(project, null);
+        }
+    }
+
+    /**
+     * Applies a single project_officers.csv row: records the assignment on the officer and
+     * adds the officer to the project's approved or pending list.
+     * @param row Row fields
+     * @param projects Map of projects
+     * @param users Map of users
+     * @return true if the row was applied
+     */
+    static boolean applyOfficerRow(CsvRow row, Map<String, Project> projects, Map<String, User> users) {
+        if (row.size() < 3) {
+            System.err.println("Skipping malformed project officer row: " + row);
+            return false;
+        }
+        try {
+            String projectName = row.get(0).trim();
+            String officerNric = row.get(1).trim();
+            String status = row.get(2).trim(); // "Approved" or "Pending"
+
+            Project project = projects.get(projectName);
+            User user = users.get(officerNric);
+
+            if (project == null) {
+                 System.err.println("Warning: Project '" + projectName + "' not found for officer assignment. Skipping row.");
+                 return false;
+            }    
+            if (user == null) {
+                System.err.println("Warning: Officer NRIC '" + officerNric + "' not found in users list for project '" + projectName + "'. Skipping row.");
+                return false;
+            }
+
+            if (user instanceof Officer) { // Check if user is actually an Officer
+                Officer officer = (Officer) user;
+                boolean isApproved = "Approved".equalsIgnoreCase(status);
+                officer.updateProjectAssignment(project, status);
+            
+                if (isApproved) {
+                    project.updateArrOfOfficers(project.getCreatorName(), officer); //Adds approved officers 
+                } else {
+                    project.updateArrOfPendingOfficers(officer); //Adds pending officers
+                    System.out.println("Note: Logic to add Officer to Project's *pending* list needs implementation in Project class for NRIC " + officerNric);
+                }
+                return true;
+            } else {
+                // User exists but is not an Officer
+                System.err.println("Warning: User '" + officerNric + "' assigned to project '" + projectName + "' is not an Officer (Role: " + user.getRole() + "). Skipping assignment.");
+            }
+
+        } catch (Exception e) {
+             System.err.println("Unexpected error processing project officer row: " + row);
+             e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Loads application data, links Applicant objects to Projects, and updates Applicant state.
+     * Must be called *after* loadProjectsCore and loadUsers.
+     * @param projects Map of projects loaded by loadProjectsCore.
+     * @param users Map of users loaded by loadUsers.
+     * @throws IOException If the file cannot be read.
+     */
+    public void loadApplications(Map<String, Project> projects, Map<String, User> users) throws IOException {
+        withFallback(() -> { readApplications(projects, users); return null; }, () -> clearApplications(projects));
+    }
+
+    private void readApplications(Map<String, Project> projects, Map<String, User> users) throws IOException {
+        int appsLoaded = 0;
+        // Header: ApplicantNRIC[0],ProjectName[1],FlatTypeApplied[2],ApplicationStatus[3],WithdrawalStatus[4],HasApplied[5]
+
+        try (CsvCursor row = openCsvFile(applicationsCsvPath)) {
+            while (row.nextNonBlank()) {
+                if (applyApplicationRow(row, projects, users)) appsLoaded++;
+            }
+        }
+        System.out.println("Loaded " + appsLoaded + " applications.");
+    }
+
+    // Undoes application rows applied from a damaged file before it is re-read
+    private static void clearApplications(Map<String, Project> projects) {
+        for (Project project : projects.values()) {
+            for (Applicant applicant : project.clearApplications()) applicant.setAppStatus(null);
+        }
+    }
+
+    /**
+     * Applies a single applications.csv row: links the applicant to the project and
+     * places them in the project's list for their status.
+     * Shared by loadApplications and journal replay; an applicant already linked to a
+     * project is first removed from that project's lists, so replaying a row is an upsert.
+     * @param row Row fields
+     * @param projects Map of projects
+     * @param users Map of users
+     * @return true if the row was applied
+     */
+    static boolean applyApplicationRow(CsvRow row, Map<String, Project> projects, Map<String, User> users) {
+        if (row.size() < 6) {
+            System.err.println("Skipping malformed application row: " + row);
+            return false;
+        }
+        try {
+            String applicantNric = row.get(0).trim();
+            String projectName = row.get(1).trim();
+            String flatTypeApplied = row.get(2).trim();
+            String appStatus = row.get(3).trim(); // "Pending", "Successful", "Unsuccessful", "Withdrawn", "Booked"
+            boolean withdrawalStatus = Boolean.parseBoolean(row.get(4).trim().toLowerCase()); // Check meaning - True if withdrawn/pending withdrawal?
+            boolean hasApplied = Boolean.parseBoolean(row.get(5).trim().toLowerCase()); // If they submitted
+            String unitNumber = (row.size() > 6) ? row.get(6).trim() : ""; // Optional; only for booked applicants
+            String holdDeadline = (row.size() > 7) ? row.get(7).trim() : ""; // Optional; only for successful applicants
+            String ballotNumber = (row.size() > 8) ? row.get(8).trim() : ""; // Optional; only for waitlisted applicants
+
+            Project project = projects.get(projectName);
+            User user = users.get(applicantNric);
+
+             if (project == null) {
+                 System.err.println("Warning: Project '" + projectName + "' not found for application. Skipping row: " + applicantNric);
+                 return false;
+             }
+              if (user == null) {
+                   System.err.println("Warning: Applicant NRIC '" + applicantNric + "' not found in users list for project '" + projectName + "'. Skipping row.");
+                   return false;
+              }
+
+            if (user instanceof Applicant) {
+                Applicant applicant = (Applicant) user;
+                DataManager.linkApplication(applicant, project, flatTypeApplied, appStatus, withdrawalStatus, hasApplied, unitNumber,
+                        parseHoldDeadline(holdDeadline, applicantNric), parseBallotNumber(ballotNumber, "applicant " + applicantNric));
+                return true;
+            } else {
+                System.err.println("Warning: User '" + applicantNric + "' applying to project '" + projectName + "' is not an Applicant (Role: " + user.getRole() + "). Skipping application.");
+            }
+        } catch (IllegalArgumentException e) { // Catch potential errors in Boolean.parseBoolean
+             System.err.println("Error processing application data: " + e.getMessage() + ". Skipping row: " + row);
+         } catch (Exception e) {
+              System.err.println("Unexpected error processing application row: " + row);
+              e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Loads Enquiries and their Replies from CSV files.
+     * Populates the passed EnquiryService instance.
+     * Resets static ID counters in Enquiry and Reply classes.
+     * @param enquiryService The EnquiryService to populate.
+     * @throws IOException If reading the file fails.
+     */
+    public void loadEnquiries(EnquiryService enquiryService) throws IOException {
+        loadEnquiries(enquiryService, null);
+    }
+
+    /**
+     * Loads Enquiries and their Replies, parsing chunks of enquiry rows in parallel on the given pool.
+     * Replies are linked on the calling thread once all enquiries are parsed.
+     * @param enquiryService The EnquiryService to populate.
+     * @param parsePool Pool used to parse row chunks, or null to parse on the calling thread.
+     * @throws IOException If reading the file fails.
+     */
+    public void loadEnquiries(EnquiryService enquiryService, ExecutorService parsePool) throws IOException {
+        withFallback(() -> { readEnquiries(enquiryService, parsePool); return null; });
+    }
+
+    private void readEnquiries(EnquiryService enquiryService, ExecutorService parsePool) throws IOException {
+        if (enquiryService == null) {
+            System.err.println("EnquiryService is null, cannot load enquiries.");
+            return;
+        }
+        if (lazyEnquiries) {
+            indexEnquiries(enquiryService);
+            return;
+        }
+        Map<Integer, Enquiry> loadedEnquiries = new HashMap<>(); // Temp map
+
+        // 1. Load Enquiries
+        System.out.println("Reading enquiry rows...");
+        List<Map<Integer, Enquiry>> parts = parseInChunks(enquiriesCsvPath, parsePool, chunk -> {
+            Map<Integer, Enquiry> part = new HashMap<>();
+            for (CsvRow row : chunk) {
+                if (row.size() < 4) continue;
+                try {
+                    int enquiryId = Integer.parseInt(row.get(0).trim());
+                    String submitterNric = row.get(1).trim();
+                    String projectName = row.get(2).trim();
+                    String content = row.get(3).trim(); // Quoted commas/newlines are unescaped by the cursor
+
+                    Enquiry enquiry = new Enquiry(submitterNric, content, projectName, enquiryId); // Use loading constructor
+                    part.put(enquiryId, enquiry);
+
+                } catch (Exception e) { System.err.println("Error processing enquiry row: " + row + " -> " + e.getMessage()); }
+            }
+            return part;
+        });
+        int maxEnquiryId = 0;
+        for (Map<Integer, Enquiry> part : parts) {
+            loadedEnquiries.putAll(part);
+            for (int enquiryId : part.keySet()) {
+                if (enquiryId > maxEnquiryId) maxEnquiryId = enquiryId;
+            }
+        }
+        Enquiry.resetIdCounter(maxEnquiryId); // Reset static counter
+
+        // 2. Load Replies
+        int repliesLoaded = 0;
+        Map<Integer, Integer> replyCounters = new HashMap<>(); // Max reply ID per enquiry
+        System.out.println("Reading reply rows...");
+        try (CsvCursor row = openCsvFile(repliesCsvPath)) {
+            while (row.nextNonBlank()) {
+                if (row.size() < 4) continue;
+                try {
+                    int enquiryId = Integer.parseInt(row.get(0).trim());
+                    int replyId = Integer.parseInt(row.get(1).trim());
+                    String responderNric = row.get(2).trim();
+                    String content = row.get(3).trim(); // Quoted commas/newlines are unescaped by the cursor
+
+                    Enquiry parentEnquiry = loadedEnquiries.get(enquiryId);
+                    if (parentEnquiry != null) {
+                        Reply reply = new Reply(parentEnquiry, responderNric, content, replyId); // Use loading constructor
+                        parentEnquiry.addReply(reply);
+                        repliesLoaded++;
+                        replyCounters.put(enquiryId, Math.max(replyCounters.getOrDefault(enquiryId, 0), replyId));
+                    } else System.err.println("Warning: Cannot load reply - parent enquiry ID " + enquiryId + " not found.");
+                } catch (Exception e) { System.err.println("Error processing reply row: " + row + " -> " + e.getMessage()); }
+            }
+        }
+        Reply.resetIdCounters(replyCounters); // Reset static counters
+
+        // 3. Populate Service
+        enquiryService.loadExistingEnquiries(loadedEnquiries); // Add method to EnquiryService
+        System.out.println("Loaded " + loadedEnquiries.size() + " enquiries and " + repliesLoaded + " replies into service.");
+    }
+
+
+    private void indexEnquiries(EnquiryService enquiryService) throws IOException {
+        System.out.println("Indexing enquiry and reply rows...");
+        EnquiryIndex index = EnquiryIndex.build(indexPath(enquiriesCsvPath), !uncheckedPaths.contains(enquiriesCsvPath),
+                                                indexPath(repliesCsvPath), !uncheckedPaths.contains(repliesCsvPath));
+        Enquiry.resetIdCounter(index.getMaxEnquiryId());
+        Reply.resetIdCounters(index.getMaxReplyIds());
+        enquiryService.attachSource(index);
+        enquiryIndex = index;
+    }
+
+    // The file to index for a data file (its previous generation during a fallback), or null if it does not exist
+    private String indexPath(String filePath) {
+        if (!new File(filePath).exists()) {
+            System.err.println("Warning: File not found during read: " + filePath + ". Returning empty data.");
+            return null;
+        }
+        return readOverrides.getOrDefault(filePath, filePath);
+    }
+
+
+    // === Binary Snapshot Cache ===
+
+    /**
+     * Checks whether a binary snapshot exists that is at least as new as every CSV file.
+     * A CSV edited after the snapshot was written (e.g. an import) makes the snapshot stale.
+     * @return true if loadSnapshot() can be used instead of the CSV loaders
+     */
+    public boolean hasFreshSnapshot() {
+        File snapshot = new File(snapshotPath);
+        if (!snapshot.isFile()) return false;
+        String[] csvPaths = { usersCsvPath, projectsCsvPath, projectFlatsCsvPath, projectOfficersCsvPath,
+                              applicationsCsvPath, enquiriesCsvPath, repliesCsvPath };
+        for (String csvPath : csvPaths) {
+            if (new File(csvPath).lastModified() > snapshot.lastModified()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Loads users, projects (with flats, officers and applications) and enquiries from the binary snapshot.
+     * @param enquiryService Service to populate with enquiries.
+     * @return The restored users and projects.
+     * @throws IOException If the snapshot is missing, unreadable or corrupt.
+     */
+    public SnapshotCodec.Contents loadSnapshot(EnquiryService enquiryService) throws IOException {
+        try {
+            return SnapshotCodec.read(snapshotPath, enquiryService);
+        } catch (IOException | RuntimeException e) {
+            snapshotDamaged = true; // Rewrite it at the next save even if no table changed
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the binary snapshot of all data next to the CSV files.
+     * @param users Map of all users.
+     * @param projects Map of all projects.
+     * @param enquiryService Service holding all enquiries.
+     * @throws IOException If writing fails.
+     */
+    public void saveSnapshot(Map<String, User> users, Map<String, Project> projects, EnquiryService enquiryService) throws IOException {
+        long bytes = SnapshotCodec.write(snapshotPath, users, projects, enquiryService);
+        bytesWritten.addAndGet(bytes);
+        snapshotDamaged = false;
+        System.out.println("Binary snapshot saved (" + bytes + " bytes).");
+    }
+
+    // === Saving Methods ===
+
+    /**
+     * Saves all user data back to users.csv.
+     * @param users The map of all users (NRIC -> User object).
+     * @throws IOException If writing to file fails.
+     */
+    public void saveUsers(Map<String, User> users) throws IOException {
+        List<String[]> csvData = new ArrayList<>();
+        // Header defined as constant: USERS_HEADER
+
+        for (User user : users.values()) {
+            if (user == null) continue; // Safety check
+            csvData.add(userRow(user));
+        }
+        writeCsvFile(usersCsvPath, csvData, USERS_HEADER);
+         System.out.println("User data saved.");
+    }
+
+    /**
+     * Saves all project-related data (core, flats, officers, applications).
+     * Takes the authoritative map of projects as input.
+     * @param projects The map of all Project objects.
+     * @throws IOException If any write operation fails.
+     */
+    public void saveAllProjectData(Map<String, Project> projects, Map<String, User> users) throws IOException {
+        saveProjectsCore(projects);
+        saveProjectFlats(projects);
+        saveProjectOfficers(projects, users);
+        saveApplications(projects);
+        System.out.println("Completed saving all project-related data.");
+    }
+
+
+    // --- Private helper save methods ---
+
+    private void saveProjectsCore(Map<String, Project> projects) throws IOException {
+        List<String[]> csvData = new ArrayList<>();
+        // Header defined as constant: PROJECTS_HEADER
+
+        for (Project project : projects.values()) {
+             if (project == null) continue;
+             try {
+                csvData.add(new String[] {
+                    project.getName(),
+                    project.getNeighbourhood(),
+                    String.valueOf(project.getVisibility()),
+                    project.getCreatorName(),
+                    project.getAppOpeningDate().format(DATE_FORMATTER), // Format dates
+                    project.getAppClosingDate().format(DATE_FORMATTER)
+                });
+             } catch (NullPointerException npe) {
+                  System.err.println("Error saving core data for project: " + (project.getName() != null ? project.getName() : "UNKNOWN") + ". Missing required fields (e.g., dates). Skipping.");
+             }
+        }
+        writeCsvFile(projectsCsvPath, csvData, PROJECTS_HEADER);
+         System.out.println("Core project data saved.");
+    }
+
+    private void saveProjectFlats(Map<String, Project> projects) throws IOException {
+        List<String[]> csvData = new ArrayList<>();
+        // Header defined as constant: FLATS_HEADER
+
+        for (Project project : projects.values()) {
+             if (project == null) continue;
+            try {
+                 for (FlatType type : project.getFlatTypes()) { // Only types with units
+                     csvData.add(flatRow(project, type));
+                 }
+            } catch (Exception e) {
+                 System.err.println("Error saving flat data for project: " + project.getName() + ". Skipping project flats.");
+                 e.printStackTrace(); // For debugging
+            }
+        }
+        writeCsvFile(projectFlatsCsvPath, csvData, FLATS_HEADER);
+         System.out.println("Project flat data saved.");
+    }
+
+    private void saveProjectOfficers(Map<String, Project> projects, Map<String, User> users) throws IOException {
+        List<String[]> csvData = new ArrayList<>();
+        // Header defined as constant: OFFICERS_HEADER
+
+        for (User user : users.values()) {
+            if (user instanceof Officer) {
+                Officer officer = (Officer) user;
+                Map<Project, String> assignments = officer.getProjectAssignments(); // Get the map
+
+                for (Map.Entry<Project, String> entry : assignments.entrySet()) {
+                     Project project = entry.getKey();
+                     String status = entry.getValue();
+                     if (project != null && officer.getNric() != null && status != null) {
+                         csvData.add(officerRow(project, officer, status));
+                     }
+                }
+            }
+        }
+        // This correctly reflects the state stored within each Officer object
+        writeCsvFile(projectOfficersCsvPath, csvData, OFFICERS_HEADER);
+        System.out.println("Project officer assignment data saved.");
+    }
+
+
+    private void saveApplications(Map<String, Project> projects) throws IOException {
+        List<String[]> csvData = new ArrayList<>();
+        // Header defined as constant: APPLICATIONS_HEADER
+
+        for (Project project : projects.values()) {
+             if (project == null) continue;
+             try {
+                // **Need method in Project to get ALL applicants associated with it, regardless of list**
+                List<Applicant> allProjectApplicants = project.getAllApplicants();
+                if (allProjectApplicants != null) {
+                    for (Applicant applicant : allProjectApplicants) {
+                        if (applicant == null) continue; // Null check
+                        
+                         try {
+                             csvData.add(applicationRow(applicant, project));
+                         } catch (NullPointerException npe_app) {
+                              System.err.println("Error saving application for applicant: " + (applicant.getNric() != null ? applicant.getNric() : "UNKNOWN") + " in project " + project.getName() + ". Missing required fields. Skipping application.");
+                         }
+                    }
+                }
+             } catch (Exception e) {
+                  System.err.println("Error saving application data for project: " + project.getName() + ". Skipping project applications.");
+                  e.printStackTrace();
+             }
+        }
+        writeCsvFile(applicationsCsvPath, csvData, APPLICATIONS_HEADER);
+         System.out.println("Application data saved.");
+    }
+
+    /**
+     * Saves all Enquiries and their Replies to CSV files.
+     * Retrieves data from the EnquiryService.
+     * @param enquiryService The service holding the enquiry data.
+     * @throws IOException If saving the file fails.
+     */
+    public void saveEnquiries(EnquiryService enquiryService) throws IOException {
+        saveEnquiryTables(enquiryService, true, true);
+    }
+
+    private void saveEnquiryTables(EnquiryService enquiryService, boolean writeEnquiries, boolean writeReplies) throws IOException {
+        if (enquiryService == null) {
+            System.err.println("EnquiryService is null, cannot save enquiries.");
+            return;
+        }
+
+        List<String[]> enquiryCsvData = new ArrayList<>();
+        List<String[]> replyCsvData = new ArrayList<>();
+
+        List<Enquiry> allEnquiries = enquiryService.getAllEnquiries(); 
+
+        for (Enquiry enquiry : allEnquiries) {
+            if (enquiry == null) continue;
+            // Save enquiry data (Order matches ENQUIRIES_HEADER)
+            enquiryCsvData.add(enquiryRow(enquiry));
+
+            // Save associated replies (Order matches REPLIES_HEADER)
+            List<Reply> replies = enquiry.getReplies();
+            if (replies != null) {
+                for (Reply reply : replies) {
+                    if (reply != null) {
+                        replyCsvData.add(replyRow(reply));
+                    }
+                }
+            }
+        }
+
+        // The index closes the file it reads while the new file is renamed over it, then indexes the new file
+        EnquiryIndex index = enquiryIndex;
+        if (writeEnquiries) {
+            if (index != null) index.rewriteEnquiries(enquiriesCsvPath, () -> writeCsvFile(enquiriesCsvPath, enquiryCsvData, ENQUIRIES_HEADER));
+            else writeCsvFile(enquiriesCsvPath, enquiryCsvData, ENQUIRIES_HEADER);
+        }
+        if (writeReplies) {
+            if (index != null) index.rewriteReplies(repliesCsvPath, () -> writeCsvFile(repliesCsvPath, replyCsvData, REPLIES_HEADER));
+            else writeCsvFile(repliesCsvPath, replyCsvData, REPLIES_HEADER);
+        }
+        System.out.println((writeEnquiries && writeReplies) ? "Enquiry and Reply data saved." : (writeEnquiries ? "Enquiry data saved." : "Reply data saved."));
+    }
+
+
+    // --- Row builders (column order matches the CSV headers) ---
+
+    static String[] userRow(User user) {
+        String prefNeighbourhoodStr = "";
+        if (user instanceof Applicant) {
+            String pref = ((Applicant) user).getPreferredNeighbourhood();
+            prefNeighbourhoodStr = (pref != null) ? pref : ""; 
+        }
+        return new String[] {
+            user.getNric(),
+            user.getName(),
+            String.valueOf(user.getAge()),
+            user.getMaritalStatus(),
+            user.getPassword(), 
+            user.getSalt(),
+            user.getRole(),
+            prefNeighbourhoodStr
+        };
+    }
+
+    static String[] officerRow(Project project, Officer officer, String status) {
+        return new String[] {
+            project.getName(),
+            officer.getNric(),
+            status // "Pending" or "Approved"
+        };
+    }
+
+    static String[] flatRow(Project project, FlatType flatType) {
+        return new String[] {
+            project.getName(),
+            flatType.getName(),
+            String.valueOf(project.getTotalUnits(flatType)),
+            String.valueOf(project.getAvailableUnits(flatType)),
+            String.valueOf(project.getSellingPrice(flatType)),
+            project.getUnitLayout(flatType),
+            String.valueOf(project.getNextBallotNumber(flatType))
+        };
+    }
+
+    static String[] applicationRow(Applicant applicant, Project project) {
+        return new String[] {
+            applicant.getNric(),
+            project.getName(), // Project name from the project context
+            applicant.getTypeFlat(),
+            applicant.getAppStatus(),
+            String.valueOf(applicant.getWithdrawalStatus()),
+            String.valueOf(applicant.isApplied()),
+            (applicant.getUnitNumber() != null) ? applicant.getUnitNumber() : "",
+            holdDeadlineField(project.getHoldDeadline(applicant.getNric())),
+            ballotNumberField(applicant, project)
+        };
+    }
+
+    private static String ballotNumberField(Applicant applicant, Project project) {
+        int ballotNumber = "Unsuccessful".equalsIgnoreCase(applicant.getAppStatus()) ? project.getBallotNumber(applicant.getNric()) : -1;
+        return (ballotNumber > 0) ? String.valueOf(ballotNumber) : "";
+    }
+
+    // A malformed deadline only costs the applicant their saved hold, not the whole application
+    private static long parseHoldDeadline(String field, String nric) {
+        if (field.isEmpty()) return -1;
+        try {
+            return Long.parseLong(field);
+        } catch (NumberFormatException e) {
+            System.err.println("Warning: Invalid hold deadline '" + field + "' for applicant " + nric + "; starting a new hold.");
+            return -1;
+        }
+    }
+
+    // A malformed ballot number is ignored (the applicant is not waitlisted, or the counter is not restored) rather than skipping the row
+    private static int parseBallotNumber(String field, String owner) {
+        if (field.isEmpty()) return -1;
+        try {
+            return Integer.parseInt(field);
+        } catch (NumberFormatException e) {
+            System.err.println("Warning: Invalid ballot number '" + field + "' for " + owner + "; ignored.");
+            return -1;
+        }
+    }
+
+    private static String holdDeadlineField(long deadline) {
+        return (deadline >= 0) ? String.valueOf(deadline) : "";
+    }
+
+    static String[] enquiryRow(Enquiry enquiry) {
+        return new String[] {
+            String.valueOf(enquiry.getId()),
+            enquiry.getApplicantNRIC(),
+            enquiry.getProject(),
+            enquiry.getContent() // Content for enquiry itself
+        };
+    }
+
+    static String[] replyRow(Reply reply) {
+        return new String[] {
+            String.valueOf(reply.getEnquiryId()), // Link back to enquiry
+            String.valueOf(reply.getId()),
+            reply.getResponderNRIC(),
+            reply.getContent() // Content for reply
+        };
+    }
+
+    // --- Helper to escape fields for CSV writing ---
+    static String escapeCsvField(String field) {
+        if (field == null) return ""; // Represent null as empty string in CSV
+
+        // If field contains comma, quote, or newline, enclose in double quotes
+        // and escape existing double quotes by doubling them ("" -> """")
+        if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
+            return "\"" + field.replace("\"", "\"\"") + "\"";
+        }
+        // Otherwise, return the field as is
+        return field;
+    }
+}
@@ -0,0 +1,48 @@
+package data;
+
+/**
+ * Read-only view of the fields of one CSV record.
+ * Loaders read rows through this interface so the same row handling works for
+ * records streamed by a CsvCursor and for rows held in memory (e.g. journal records).
+ */
+public interface CsvRow {
+
+    /**
+     * Gets the number of fields in the row.
+     * @return Field count
+     */
+    int size();
+
+    /**
+     * Gets one field of the row, with CSV quoting already removed.
+     * @param index Zero-based column index
+     * @return The field value
+     * @throws IndexOutOfBoundsException If index is not below size()
+     */
+    String get(int index);
+
+    /**
+     * Wraps an array of fields as a row.
+     * @param fields Row fields in column order
+     * @return Row view over the array
+     */
+    static CsvRow of(String[] fields) {
+        final String[] values = (fields != null) ? fields : new String[0];
+        return new CsvRow() {
+            @Override
+            public int size() {
+                return values.length;
+            }
+
+            @Override
+            public String get(int index) {
+                return values[index];
+            }
+
+            @Override
+            public String toString() {
+                return String.join(",", values);
+            }
+        };
+    }
+}
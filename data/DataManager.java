@@ -5,811 +5,392 @@ import Actors.Applicant;
 import Actors.Enquiry;
 import Actors.Manager;
 import Actors.Officer;
-import Actors.Reply;
+import Project.EligibilityPolicy;
 import Project.Project;
+import Project.ProjectCatalogue;
 // Add imports for Enquiry if needed
 import Services.EnquiryService;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap; // For building relationships
+import java.util.Set;
 
 /**
- * Handles loading from and saving data to CSV files.
- * Acts as the persistence layer for the application.
- * Provides methods to retrieve filtered data subsets based on application state.
+ * Persistence layer for the application, in front of a pluggable storage backend (Repository).
+ * Loads and saves through the backend, and adds what every backend shares: tracking of
+ * changed tables, the change journal with replay and compaction, and background persistence.
+ * Also provides methods to retrieve filtered data subsets based on application state.
  */
 public class DataManager {
 
-    // Define file paths using a consistent structure
-    private static final String DATA_FOLDER = "data_folders"; // Define base folder
-    private static final String USERS_CSV_PATH = DATA_FOLDER + "/users.csv";
-    private static final String PROJECTS_CSV_PATH = DATA_FOLDER + "/project.csv"; // Corrected name from project_core
-    private static final String PROJECT_FLATS_CSV_PATH = DATA_FOLDER + "/project_flats.csv";
-    private static final String PROJECT_OFFICERS_CSV_PATH = DATA_FOLDER + "/project_officers.csv";
-    private static final String APPLICATIONS_CSV_PATH = DATA_FOLDER + "/applications.csv";
-    private static final String ENQUIRIES_CSV_PATH = DATA_FOLDER + "/enquiries.csv"; 
-    private static final String REPLIES_CSV_PATH = DATA_FOLDER + "/replies.csv";     
-
-    // Consistent date formatter
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE; // YYYY-MM-DD
-
-    // Define CSV Headers
-    private static final String USERS_HEADER = "NRIC,Name,Age,MaritalStatus,PasswordHash,Salt,Role,PreferredNeighbourhood";
-    private static final String PROJECTS_HEADER = "ProjectName,Neighborhood,Visibility,CreatorName,AppOpeningDate,AppClosingDate";
-    private static final String FLATS_HEADER = "ProjectName,FlatType,TotalUnits,AvailableUnits,SellingPrice"; // Added SellingPrice for completeness
-    private static final String OFFICERS_HEADER = "ProjectName,OfficerNRIC,Status"; // Status: Approved | Pending
-    private static final String APPLICATIONS_HEADER = "ApplicantNRIC,ProjectName,FlatTypeApplied,ApplicationStatus,WithdrawalStatus,HasApplied"; // Status: Pending | Successful | Unsuccessful | Withdrawn | Booked
-    private static final String ENQUIRIES_HEADER = "EnquiryID,SubmitterNRIC,ProjectName,EnquiryContent"; 
-    private static final String REPLIES_HEADER = "EnquiryID,ReplyID,ResponderNRIC,ReplyContent"; 
+    private static final String DEFAULT_DATA_FOLDER = "data_folders"; // Define base folder
+    private final Repository repository;
+    private final String dataFolder; // Null for backends that store nothing on disk
+    private final String journalPath;
+
+    // Journal size (in records) after which a save folds the journal back into the CSVs
+    private static final int COMPACTION_THRESHOLD = 500;
+
+    private ChangeJournal journal; // Null unless journal mode is enabled
+    private final ChangeSet changeSet = new ChangeSet(); // Entities changed since the data was last written
+    private boolean trackingChanges = false;
 
     /**
-     * Constructs the DataManager and ensures required files exist.
+     * Constructs the DataManager over the CSV files in the default data folder.
      */
     public DataManager() {
-        // Ensure data files exist on initialization (optional but recommended)
-        ensureFileExists(USERS_CSV_PATH, USERS_HEADER);
-        ensureFileExists(PROJECTS_CSV_PATH, PROJECTS_HEADER);
-        ensureFileExists(PROJECT_FLATS_CSV_PATH, FLATS_HEADER);
-        ensureFileExists(PROJECT_OFFICERS_CSV_PATH, OFFICERS_HEADER);
-        ensureFileExists(APPLICATIONS_CSV_PATH, APPLICATIONS_HEADER);
-        ensureFileExists(ENQUIRIES_CSV_PATH, ENQUIRIES_HEADER); 
-        ensureFileExists(REPLIES_CSV_PATH, REPLIES_HEADER);
+        this(DEFAULT_DATA_FOLDER);
     }
 
-    // --- File Existence Check ---
-    private void ensureFileExists(String filePath, String header) {
-        File file = new File(filePath);
-        if (!file.exists()) {
-            System.out.println("File not found, creating: " + filePath);
-            try {
-                // Ensure parent directory exists
-                File parentDir = file.getParentFile();
-                if (parentDir != null && !parentDir.exists()) {
-                    if (parentDir.mkdirs()) {
-                         System.out.println("Created directory: " + parentDir.getPath());
-                    } else {
-                         System.err.println("Failed to create directory: " + parentDir.getPath());
-                         // Consider throwing an exception here if directory is crucial
-                    }
-                }
-
-                if (file.createNewFile()) {
-                    // Write header to the new file
-                    try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8))) {
-                        bw.write(header);
-                        bw.newLine();
-                         System.out.println("Header written to " + filePath);
-                    }
-                }
-            } catch (IOException e) {
-                System.err.println("Error creating file or writing header for: " + filePath);
-                e.printStackTrace();
-                 // Consider re-throwing or handling more gracefully
-            }
-        }
+    /**
+     * Constructs the DataManager over the CSV files in the given data folder.
+     * @param dataFolder Folder holding the CSV files, journal and snapshot.
+     */
+    public DataManager(String dataFolder) {
+        this(new CsvRepository(dataFolder, true));
     }
 
-    // --- Generic CSV Reading (Simplified) ---
-    private List<String[]> readCsvFile(String filePath) throws IOException {
-        List<String[]> data = new ArrayList<>();
-        File file = new File(filePath);
-
-        // Check if file exists before attempting to read
-        if (!file.exists()) {
-             // Returning empty list might be okay if file creation failed silently earlier
-             // Or throw FileNotFoundException for clarity
-             System.err.println("Warning: File not found during read: " + filePath + ". Returning empty data.");
-            // throw new FileNotFoundException("CSV file not found: " + filePath);
-             return data;
-        }
-
-
-        try (BufferedReader br = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
-            String line;
-            br.readLine(); // Skip header row
-            while ((line = br.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    // Basic CSV split - doesn't handle quoted commas well.
-                    // For this project, ensure data doesn't contain commas within fields
-                    // or use a proper CSV library if needed.
-                    String[] values = line.split(",", -1); // Keep trailing empty fields
-                    data.add(values);
-                }
-            }
-        } catch (FileNotFoundException e) {
-             // Should be caught by the check above, but good practice to keep
-             System.err.println("Error: File not found when reading: " + filePath);
-             throw e; // Re-throw FNF
-        } catch (IOException e) {
-            System.err.println("Error reading CSV file: " + filePath);
-            e.printStackTrace();
-            throw e; // Re-throw IOE
-        }
-        return data;
+    /**
+     * Constructs the DataManager over the given storage backend.
+     * @param repository Backend that stores the tables.
+     */
+    public DataManager(Repository repository) {
+        this.repository = repository;
+        this.dataFolder = repository.getDataFolder();
+        this.journalPath = (dataFolder != null) ? dataFolder + "/journal.log" : null;
     }
 
-
-    // --- Generic CSV Writing (Simplified) ---
-    private void writeCsvFile(String filePath, List<String[]> data, String header) throws IOException {
-        // Ensure directory exists before writing
-        File file = new File(filePath);
-         File parentDir = file.getParentFile();
-         if (parentDir != null && !parentDir.exists()) {
-             if (!parentDir.mkdirs()) {
-                  throw new IOException("Failed to create directory for saving: " + parentDir.getPath());
-             }
-         }
-
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(filePath, StandardCharsets.UTF_8))) { // Overwrite mode
-            bw.write(header); // Write header every time
-            bw.newLine();
-            for (String[] rowData : data) {
-                 if (rowData != null) { // Basic null check for row
-                     // Escape each field before joining
-                     List<String> escapedFields = new ArrayList<>();
-                     for (String field : rowData) {
-                         escapedFields.add(escapeCsvField(field));
-                     }
-                     bw.write(String.join(",", escapedFields));
-                     bw.newLine();
-                 }
-            }
-        } catch (IOException e) {
-            System.err.println("Error writing to CSV file: " + filePath);
-            e.printStackTrace();
-            throw e; // Re-throw
-        }
+    /**
+     * Gets the default data folder.
+     * @return Default data folder path
+     */
+    public static String getDefaultDataFolder() {
+        return DEFAULT_DATA_FOLDER;
     }
 
-
-    // === Loading Methods ===
-
     /**
-     * Loads all users (Applicants, Officers, Managers) from users.csv.
-     * @return A Map where the key is NRIC and the value is the User object.
-     * @throws IOException If the file is missing or unreadable.
+     * Gets the storage backend.
+     * @return The repository
      */
-     public Map<String, User> loadUsers() throws IOException {
-         Map<String, User> users = new HashMap<>();
-         List<String[]> csvData = readCsvFile(USERS_CSV_PATH);
-         // NRIC[0],Name[1],Age[2],MaritalStatus[3],PasswordHash[4],Salt[5],Role[6],PreferredNeighbourhood[7]
- 
-         boolean isLoadingHashed = false; // Flag to track format
-         boolean hasPrefNeighbourhoodColumn = false; // New flag
-
-         if (!csvData.isEmpty() && csvData.get(0).length >= 7) {
-            isLoadingHashed = true;
-            System.out.println("Detected 7+ columns, attempting to load hashed passwords and salts.");
-            if (csvData.get(0).length >= 8) { 
-                hasPrefNeighbourhoodColumn = true;
-            }
-         } else if (!csvData.isEmpty()) {
-              System.out.println("Detected 6 columns, assuming initial load with plain passwords.");
-         }
- 
- 
-         for (String[] values : csvData) {
-            int expectedLength = 6; // Base
-            if (isLoadingHashed) expectedLength = 7;
-            if (hasPrefNeighbourhoodColumn) expectedLength = 8;
-
-            if (values.length < expectedLength) {
-                System.err.println("Skipping malformed user row (expected " + expectedLength + " columns): " + String.join(",", values));
-                continue;
-            }
+    public Repository getRepository() {
+        return repository;
+    }
 
-            try {
-                String nric = values[0].trim();
-                String name = values[1].trim();
-                int age = Integer.parseInt(values[2].trim());
-                String maritalStatus = values[3].trim();
-                String role = isLoadingHashed ? values[6].trim() : values[5].trim(); // Get role from correct index
-                if (nric.isEmpty()) continue;
-
-                User user = null;
-
-                String tempPasswordForConstructor = "password"; 
-
-                switch (role.toLowerCase()) {
-                    case "manager": user = new Manager(name, nric, tempPasswordForConstructor, maritalStatus, age); break;
-                    case "officer": user = new Officer(name, nric, tempPasswordForConstructor, maritalStatus, age); break;
-                    case "applicant": user = new Applicant(name, nric, tempPasswordForConstructor, maritalStatus, age); break;
-                    default: System.err.println("Warning: Invalid role '" + role + "' for NRIC " + nric); continue;
-                }
+    /**
+     * Gets the folder this DataManager reads from and writes to.
+     * @return Data folder path, or null if the backend stores nothing on disk
+     */
+    public String getDataFolder() {
+        return dataFolder;
+    }
 
-                // Now, load credentials based on detected format
-                if (isLoadingHashed) {
-                    // Loading existing hash and salt
-                    String loadedPasswordHash = values[4];
-                    String loadedSalt = values[5];
-                    // Use a method to directly set the loaded hash and salt
-                    user.loadCredentials(loadedPasswordHash, loadedSalt);
-                } else {
-                    String plainPasswordFromCsv = values[4];
-                    if (!"password".equals(plainPasswordFromCsv) && !plainPasswordFromCsv.isEmpty()) {
-                        user.setPassword(plainPasswordFromCsv); // Re-call setPassword to hash this specific plain pass
-                    }
-                }
-                if (user instanceof Applicant && hasPrefNeighbourhoodColumn) {
-                String prefNeighbourhoodStr = values[7].trim(); // Read from column 8
-                if (prefNeighbourhoodStr != null && !prefNeighbourhoodStr.isEmpty() && !"null".equalsIgnoreCase(prefNeighbourhoodStr)) {
-                    ((Applicant) user).setPreferredNeighbourhood(prefNeighbourhoodStr);
-                } else {
-                    ((Applicant) user).setPreferredNeighbourhood(null); // Set null if empty/missing
-                }
-            }
 
-            users.put(nric.toUpperCase(), user); // Use consistent key casing
+    // === Loading ===
 
-            } catch (NumberFormatException e) { System.err.println("Error parsing age for user row: " + String.join(",", values) + ". Skipping.");
-            } catch (IllegalArgumentException e) { System.err.println("Error creating user object: " + e.getMessage() + ". Skipping row: " + String.join(",", values));
-            } catch (Exception e) { System.err.println("Unexpected error processing user row: " + String.join(",", values)); e.printStackTrace(); }
+    /**
+     * Loads the eligibility policy from eligibility_policy.csv in the data folder, if there is
+     * one, and makes it the default (see EligibilityPolicy). Without the file, or for backends
+     * with no data folder, the built-in rules stay in force.
+     * @return true if a policy file was loaded
+     * @throws IOException If the file exists but cannot be read or has a malformed rule.
+     */
+    public boolean loadEligibilityPolicy() throws IOException {
+        if (dataFolder == null) return false;
+        File file = new File(dataFolder, "eligibility_policy.csv");
+        if (!file.exists()) return false;
+        try {
+            EligibilityPolicy.setDefault(EligibilityPolicy.parse(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file.getPath() + ": " + e.getMessage(), e);
         }
-        System.out.println("Loaded " + users.size() + " users.");
-        return users;
+        return true;
     }
 
-
-
+    /**
+     * Loads all data from the backend. Tables the backend reports as stale are marked
+     * dirty, so the next save rewrites them.
+     * @param enquiryService Service to populate with enquiries and replies.
+     * @return The loaded users and projects.
+     * @throws IOException If the data cannot be read.
+     */
+    public Repository.Contents load(EnquiryService enquiryService) throws IOException {
+        Repository.Contents contents = repository.load(enquiryService);
+        for (ChangeRecord.Table table : contents.getStaleTables()) {
+            changeSet.markDirty(table);
+        }
+        return contents;
+    }
 
     /**
-     * Loads the core project data from projects.csv.
-     * Does NOT load related data like flats, officers, or applicants yet.
-     * @return A Map where the key is ProjectName and the value is the Project object.
-     * @throws IOException If the file cannot be read.
+     * Links an applicant to a project with the given application state and
+     * places them in the project's list for their status.
+     * An applicant already linked to a project is first removed from that project's lists.
+     * @param applicant The applicant.
+     * @param project The project applied to.
+     * @param flatType Flat type applied for.
+     * @param appStatus Application status.
+     * @param withdrawalStatus Whether a withdrawal is requested.
+     * @param hasApplied Whether the application was submitted.
+     * @param unitNumber Booked unit (e.g. "2-05-03"), or null/empty if none.
+     * @param holdDeadline Saved booking hold deadline of a Successful applicant (milliseconds since the epoch), or -1 if none.
+     * @param ballotNumber Saved waitlist ballot number of an Unsuccessful applicant, or -1 if not waitlisted.
      */
-    public Map<String, Project> loadProjectsCore() throws IOException {
-        Map<String, Project> projects = new HashMap<>();
-        List<String[]> csvData = readCsvFile(PROJECTS_CSV_PATH);
-        // Header: ProjectName[0],Neighborhood[1],Visibility[2],CreatorName[3],AppOpeningDate[4],AppClosingDate[5]
-
-        for (String[] values : csvData) {
-            if (values.length < 6) {
-                System.err.println("Skipping malformed project row: " + String.join(",", values));
-                 continue;
-            }
-            try {
-                String projectName = values[0].trim();
-                String neighborhood = values[1].trim();
-                boolean visibility = Boolean.parseBoolean(values[2].trim().toLowerCase());
-                String creatorName = values[3].trim(); // Manager's Name (used for linking/filtering)
-                LocalDate openDate = LocalDate.parse(values[4].trim(), DATE_FORMATTER);
-                LocalDate closeDate = LocalDate.parse(values[5].trim(), DATE_FORMATTER);
-
-                 if (projectName.isEmpty()) {
-                     System.err.println("Skipping project row with empty Project Name.");
-                     continue;
-                 }
-                 if (creatorName.isEmpty()) {
-                      System.err.println("Warning: Project row with empty Creator Name: " + projectName);
-                      // Decide if this is allowed or should be skipped
-                 }
+    static void linkApplication(Applicant applicant, Project project, String flatType, String appStatus, boolean withdrawalStatus, boolean hasApplied, String unitNumber, long holdDeadline, int ballotNumber) {
+        // Drop any previous placement (only happens when replaying the journal)
+        if (applicant.getProject() != null) {
+            applicant.getProject().removeApplicant(applicant);
+        }
 
-                // Assume a Project constructor that takes core info and initializes lists/counts
-                // Example: Project(name, visibility, creatorName, neighborhood, openDate, closeDate, num2R, num3R)
-                // We initialize room counts to 0 here; they will be updated by loadProjectFlats.
-                Project project = new Project(projectName, visibility, creatorName, neighborhood,
-                                              openDate, closeDate, 0, 0);
+        // **Update applicant object state**
+        applicant.setProject(project);    // Link applicant to project object 
+        applicant.setTypeFlat(flatType);
+        applicant.setAppStatus(appStatus);
+        applicant.setWithdrawalStatus(withdrawalStatus);
+        applicant.setApplied(hasApplied);
+        applicant.setUnitNumber((unitNumber != null && !unitNumber.isEmpty()) ? unitNumber : null);
+
+        // Adds applicant to the correct list within the project based on status
+        project.addApplicantToCorrectList(applicant); 
+        project.restoreHold(applicant, holdDeadline);
+        if (ballotNumber > 0 && "Unsuccessful".equalsIgnoreCase(appStatus)) project.addToWaitlist(applicant, ballotNumber);
+    }
 
-                 if (projects.containsKey(projectName)) {
-                     System.err.println("Warning: Duplicate Project Name found: " + projectName + ". Overwriting previous entry.");
-                 }
-                projects.put(projectName, project);
 
-            } catch (DateTimeParseException e) {
-                System.err.println("Error parsing date for project row: " + String.join(",", values) + ". Skipping.");
-            } catch (IllegalArgumentException e) { // Catch potential errors in Boolean.parseBoolean or Project constructor
-                 System.err.println("Error processing project data: " + e.getMessage() + ". Skipping row: " + String.join(",", values));
-            } catch (Exception e) {
-                 System.err.println("Unexpected error processing project row: " + String.join(",", values));
-                 e.printStackTrace();
-            }
+    // === Change Journal ===
+
+    /**
+     * Switches on journal mode: every published state change is appended to journal.log
+     * instead of waiting for a full CSV rewrite.
+     * @throws IOException If the journal file cannot be opened.
+     */
+    public void enableJournal() throws IOException {
+        if (journal != null) return;
+        if (journalPath == null) {
+            System.out.println("Change journal not available for " + repository.getName() + " storage.");
+            return;
         }
-        System.out.println("Loaded " + projects.size() + " core projects.");
-        return projects;
+        journal = new ChangeJournal(journalPath);
+        ChangeEvents.addListener(journal);
+        System.out.println("Change journal enabled (" + journal.size() + " pending records).");
     }
 
-
     /**
-     * Loads flat information and adds it to the corresponding Project objects.
-     * Must be called *after* loadProjectsCore.
-     * @param projects The map of projects loaded by loadProjectsCore.
-     * @throws IOException If the file cannot be read.
+     * Moves journal writes onto a background thread: published changes are group-committed to
+     * the journal (if enabled) instead of being appended on the caller's thread. Checkpoints
+     * still run on the caller's thread, through PersistenceService.checkpoint().
+     * @param checkpoint Full write to run for PersistenceService.checkpoint()
+     * @param commitIntervalMillis Longest time a change waits before its batch is committed
+     * @param batchSize Number of queued changes that triggers an immediate commit
+     * @return The started persistence service
      */
-    public void loadProjectFlats(Map<String, Project> projects) throws IOException {
-        List<String[]> csvData = readCsvFile(PROJECT_FLATS_CSV_PATH);
-        int flatsLoaded = 0;
-        // Header: ProjectName[0],FlatType[1],TotalUnits[2],AvailableUnits[3],SellingPrice[4]
-
-        for (String[] values : csvData) {
-            if (values.length < 5) { // Expect at least 5 columns now
-                System.err.println("Skipping malformed project flat row: " + String.join(",", values));
-                continue;
-            }
-            try {
-                String projectName = values[0].trim();
-                Project project = projects.get(projectName); // Find the project object
-
-                if (project != null) {
-                    String flatType = values[1].trim();
-                    int totalUnits = Integer.parseInt(values[2].trim());
-                    int availableUnits = Integer.parseInt(values[3].trim());
-                    // double sellingPrice = Double.parseDouble(values[4].trim()); // If needed
-
-                    if ("2-Room".equalsIgnoreCase(flatType)) {
-                        project.setNo2Room(project.getCreatorName(), totalUnits);
-                        project.setAvalNo2Room(availableUnits);
-                    } else if ("3-Room".equalsIgnoreCase(flatType)) {
-                        project.setNo3Room(project.getCreatorName(),totalUnits);
-                        project.setAvalNo3Room(availableUnits);
-                    } else {
-                         System.err.println("Warning: Unknown flat type '" + flatType + "' for project '" + projectName + "'. Skipping flat info.");
-                         continue; // Skip this flat type
-                    }
-                    flatsLoaded++;
-                } else {
-                     System.err.println("Warning: Project '" + projectName + "' not found for flat info. Skipping row.");
-                }
-            } catch (NumberFormatException e) {
-                System.err.println("Error parsing number for project flat row: " + String.join(",", values) + ". Skipping.");
-            } catch (Exception e) {
-                 System.err.println("Unexpected error processing project flat row: " + String.join(",", values));
-                 e.printStackTrace();
-            }
-        }
-        System.out.println("Loaded flat info for " + flatsLoaded + " entries.");
+    public PersistenceService startPersistence(PersistenceService.Checkpoint checkpoint, long commitIntervalMillis, int batchSize) {
+        if (journal != null) ChangeEvents.removeListener(journal); // The service appends from now on
+        PersistenceService service = new PersistenceService(journal, checkpoint, commitIntervalMillis, batchSize);
+        ChangeEvents.addListener(service);
+        System.out.println("Background persistence started (group commit every " + commitIntervalMillis + " ms or " + batchSize + " changes).");
+        return service;
     }
 
+    /**
+     * Checks whether journal mode is active.
+     * @return true if changes are being journaled
+     */
+    public boolean isJournalEnabled() {
+        return journal != null;
+    }
 
     /**
-     * Loads officer assignments, links Officer objects to Projects, and sets officer status.
-     * Must be called *after* loadProjectsCore and loadUsers.
-     * @param projects The map of projects loaded by loadProjectsCore.
-     * @param users The map of users loaded by loadUsers.
-     * @throws IOException If the file cannot be read.
+     * Replays the journal tail on top of the data loaded from the CSV snapshot.
+     * Must be called *after* all load methods.
+     * @param projects Map of loaded projects.
+     * @param users Map of loaded users.
+     * @param enquiryService Service holding the loaded enquiries.
+     * @return Number of records replayed.
+     * @throws IOException If the journal cannot be read.
      */
-    public void loadProjectOfficers(Map<String, Project> projects, Map<String, User> users) throws IOException {
-        List<String[]> csvData = readCsvFile(PROJECT_OFFICERS_CSV_PATH);
-        int assignmentsLoaded = 0;
-        // Header: ProjectName[0],OfficerNRIC[1],Status[2] (Approved | Pending)
-
-        for (String[] values : csvData) {
-            if (values.length < 3) {
-                System.err.println("Skipping malformed project officer row: " + String.join(",", values));
-                continue;
-            }
-            try {
-                String projectName = values[0].trim();
-                String officerNric = values[1].trim();
-                String status = values[2].trim(); // "Approved" or "Pending"
-
-                Project project = projects.get(projectName);
-                User user = users.get(officerNric);
-
-                if (project == null) {
-                     System.err.println("Warning: Project '" + projectName + "' not found for officer assignment. Skipping row.");
-                     continue;
-                }    
-                if (user == null) {
-                    System.err.println("Warning: Officer NRIC '" + officerNric + "' not found in users list for project '" + projectName + "'. Skipping row.");
-                    continue;
-                }
+    public int replayJournal(Map<String, Project> projects, Map<String, User> users, EnquiryService enquiryService) throws IOException {
+        if (journal == null) return 0;
+        int replayed = 0;
+        int maxEnquiryId = 0;
 
-                if (user instanceof Officer) { // Check if user is actually an Officer
-                    Officer officer = (Officer) user;
-                    boolean isApproved = "Approved".equalsIgnoreCase(status);
-                    officer.updateProjectAssignment(project, status);
-                    
-                    if (isApproved) {
-                        project.updateArrOfOfficers(project.getCreatorName(), officer); //Adds approved officers 
-                    } else {
-                        project.updateArrOfPendingOfficers(officer); //Adds pending officers
-                        System.out.println("Note: Logic to add Officer to Project's *pending* list needs implementation in Project class for NRIC " + officerNric);
+        for (ChangeRecord record : journal.readAll()) {
+            CsvRow row = CsvRow.of(record.getFields());
+            try {
+                switch (record.getType()) {
+                    case USER:
+                        CsvRepository.applyUserRow(row, users, true, true);
+                        break;
+                    case APPLICATION:
+                        CsvRepository.applyApplicationRow(row, projects, users);
+                        break;
+                    case FLATS:
+                        CsvRepository.applyFlatRow(row, projects);
+                        break;
+                    case ENQUIRY: {
+                        int enquiryId = Integer.parseInt(row.get(0).trim());
+                        enquiryService.restoreEnquiry(new Enquiry(row.get(1).trim(), row.get(3), row.get(2).trim(), enquiryId));
+                        maxEnquiryId = Math.max(maxEnquiryId, enquiryId);
+                        break;
+                    }
+                    case ENQUIRY_DELETE:
+                        enquiryService.removeEnquiry(Integer.parseInt(row.get(0).trim()));
+                        break;
+                    case REPLY: {
+                        int enquiryId = Integer.parseInt(row.get(0).trim());
+                        int replyId = Integer.parseInt(row.get(1).trim());
+                        if (!enquiryService.restoreReply(enquiryId, replyId, row.get(2).trim(), row.get(3))) {
+                            System.err.println("Warning: Cannot replay reply - parent enquiry ID " + enquiryId + " not found.");
+                            continue;
+                        }
+                        break;
                     }
-                    assignmentsLoaded++;
-                } else {
-                    // User exists but is not an Officer
-                    System.err.println("Warning: User '" + officerNric + "' assigned to project '" + projectName + "' is not an Officer (Role: " + user.getRole() + "). Skipping assignment.");
+                    case STRUCTURE:
+                        // Not replayable: the change was lost unless a full save ran afterwards
+                        System.err.println("Warning: Journal contains an unsaved structural change (" + row + ").");
+                        continue;
                 }
-
+                changeSet.onChange(record); // Still to be written to the CSVs at the next compaction
+                replayed++;
             } catch (Exception e) {
-                 System.err.println("Unexpected error processing project officer row: " + String.join(",", values));
-                 e.printStackTrace();
+                System.err.println("Error replaying journal record " + record.getType() + ": " + e.getMessage());
             }
         }
-        System.out.println("Loaded " + assignmentsLoaded + " officer assignments.");
+        if (maxEnquiryId > 0) Enquiry.resetIdCounter(maxEnquiryId);
+        System.out.println("Replayed " + replayed + " journal records.");
+        return replayed;
     }
 
     /**
-     * Loads application data, links Applicant objects to Projects, and updates Applicant state.
-     * Must be called *after* loadProjectsCore and loadUsers.
-     * @param projects Map of projects loaded by loadProjectsCore.
-     * @param users Map of users loaded by loadUsers.
-     * @throws IOException If the file cannot be read.
+     * Checks whether the journal should be folded back into the CSV snapshot,
+     * either because it has grown past the threshold or because it holds a change it cannot replay.
+     * @return true if compact() should run at the next save point
      */
-    public void loadApplications(Map<String, Project> projects, Map<String, User> users) throws IOException {
-        List<String[]> csvData = readCsvFile(APPLICATIONS_CSV_PATH);
-        int appsLoaded = 0;
-        // Header: ApplicantNRIC[0],ProjectName[1],FlatTypeApplied[2],ApplicationStatus[3],WithdrawalStatus[4],HasApplied[5]
-
-        for (String[] values : csvData) {
-            if (values.length < 6) {
-                System.err.println("Skipping malformed application row: " + String.join(",", values));
-                continue;
-            }
-            try {
-                String applicantNric = values[0].trim();
-                String projectName = values[1].trim();
-                String flatTypeApplied = values[2].trim();
-                String appStatus = values[3].trim(); // "Pending", "Successful", "Unsuccessful", "Withdrawn", "Booked"
-                boolean withdrawalStatus = Boolean.parseBoolean(values[4].trim().toLowerCase()); // Check meaning - True if withdrawn/pending withdrawal?
-                boolean hasApplied = Boolean.parseBoolean(values[5].trim().toLowerCase()); // If they submitted
-
-                Project project = projects.get(projectName);
-                User user = users.get(applicantNric);
-
-                 if (project == null) {
-                     System.err.println("Warning: Project '" + projectName + "' not found for application. Skipping row: " + applicantNric);
-                     continue;
-                 }
-                  if (user == null) {
-                       System.err.println("Warning: Applicant NRIC '" + applicantNric + "' not found in users list for project '" + projectName + "'. Skipping row.");
-                       continue;
-                  }
-
-                if (user instanceof Applicant) {
-                    Applicant applicant = (Applicant) user;
-
-                    // **Update applicant object state based on CSV**
-                   
-                    applicant.setProject(project);    // Link applicant to project object 
-                    applicant.setTypeFlat(flatTypeApplied);
-                    applicant.setAppStatus(appStatus);
-                    applicant.setWithdrawalStatus(withdrawalStatus);
-                    applicant.setApplied(hasApplied);
-
-
-                    // Adds applicant to the correct list within the project based on status
-                    project.addApplicantToCorrectList(applicant); 
-
-                    appsLoaded++;
-                } else {
-                    System.err.println("Warning: User '" + applicantNric + "' applying to project '" + projectName + "' is not an Applicant (Role: " + user.getRole() + "). Skipping application.");
-                }
-            } catch (IllegalArgumentException e) { // Catch potential errors in Boolean.parseBoolean
-                 System.err.println("Error processing application data: " + e.getMessage() + ". Skipping row: " + String.join(",", values));
-             } catch (Exception e) {
-                  System.err.println("Unexpected error processing application row: " + String.join(",", values));
-                  e.printStackTrace();
-            }
-        }
-        System.out.println("Loaded " + appsLoaded + " applications.");
+    public boolean needsCompaction() {
+        return journal == null || journal.hasStructuralChanges() || journal.size() >= COMPACTION_THRESHOLD;
     }
 
     /**
-     * Loads Enquiries and their Replies from CSV files.
-     * Populates the passed EnquiryService instance.
-     * Resets static ID counters in Enquiry and Reply classes.
-     * @param enquiryService The EnquiryService to populate.
-     * @throws IOException If reading the file fails.
+     * Folds the journal into the stored tables: rewrites the tables it touched, then empties the journal.
+     * @param users Map of all users.
+     * @param projects Map of all projects.
+     * @param enquiryService Service holding all enquiries.
+     * @throws IOException If any write fails (the journal is kept in that case).
      */
-    public void loadEnquiries(EnquiryService enquiryService) throws IOException {
-        if (enquiryService == null) {
-            System.err.println("EnquiryService is null, cannot load enquiries.");
-            return;
+    public void compact(Map<String, User> users, Map<String, Project> projects, EnquiryService enquiryService) throws IOException {
+        saveChanges(users, projects, enquiryService);
+        if (journal != null) {
+            journal.truncate();
+            System.out.println("Change journal compacted.");
         }
-        Map<Integer, Enquiry> loadedEnquiries = new HashMap<>(); // Temp map
-
-        // 1. Load Enquiries
-        List<String[]> enquiryData = readCsvFile(ENQUIRIES_CSV_PATH);
-        int maxEnquiryId = 0;
-        System.out.println("Reading " + enquiryData.size() + " enquiry rows...");
-        for (String[] values : enquiryData) {
-            if (values.length < 4) continue;
-            try {
-                int enquiryId = Integer.parseInt(values[0].trim());
-                String submitterNric = values[1].trim();
-                String projectName = values[2].trim();
-                String content = values[3].trim(); // Assuming content is not escaped complexly
-
-                Enquiry enquiry = new Enquiry(submitterNric, content, projectName, enquiryId); // Use loading constructor
-                loadedEnquiries.put(enquiryId, enquiry);
-                if (enquiryId > maxEnquiryId) maxEnquiryId = enquiryId;
-
-            } catch (Exception e) { System.err.println("Error processing enquiry row: " + String.join(",", values) + " -> " + e.getMessage()); }
-        }
-        Enquiry.resetIdCounter(maxEnquiryId); // Reset static counter
-
-        // 2. Load Replies
-        List<String[]> replyData = readCsvFile(REPLIES_CSV_PATH);
-        int repliesLoaded = 0;
-        Map<Integer, Integer> replyCounters = new HashMap<>(); // Max reply ID per enquiry
-        System.out.println("Reading " + replyData.size() + " reply rows...");
-        for (String[] values : replyData) {
-            if (values.length < 4) continue;
-            try {
-                int enquiryId = Integer.parseInt(values[0].trim());
-                int replyId = Integer.parseInt(values[1].trim());
-                String responderNric = values[2].trim();
-                String content = values[3].trim(); // Assuming simple content
-
-                Enquiry parentEnquiry = loadedEnquiries.get(enquiryId);
-                if (parentEnquiry != null) {
-                    Reply reply = new Reply(parentEnquiry, responderNric, content, replyId); // Use loading constructor
-                    parentEnquiry.addReply(reply);
-                    repliesLoaded++;
-                    replyCounters.put(enquiryId, Math.max(replyCounters.getOrDefault(enquiryId, 0), replyId));
-                } else System.err.println("Warning: Cannot load reply - parent enquiry ID " + enquiryId + " not found.");
-            } catch (Exception e) { System.err.println("Error processing reply row: " + String.join(",", values) + " -> " + e.getMessage()); }
-        }
-        Reply.resetIdCounters(replyCounters); // Reset static counters
-
-        // 3. Populate Service
-        enquiryService.loadExistingEnquiries(loadedEnquiries); // Add method to EnquiryService
-        System.out.println("Loaded " + loadedEnquiries.size() + " enquiries and " + repliesLoaded + " replies into service.");
     }
 
 
     // === Saving Methods ===
 
     /**
-     * Saves all user data back to users.csv.
-     * @param users The map of all users (NRIC -> User object).
-     * @throws IOException If writing to file fails.
+     * Starts collecting published changes in the change set, so saveChanges() only
+     * rewrites the tables that hold changed rows.
      */
-    public void saveUsers(Map<String, User> users) throws IOException {
-        List<String[]> csvData = new ArrayList<>();
-        // Header defined as constant: USERS_HEADER
-
-        for (User user : users.values()) {
-            if (user == null) continue; // Safety check
-            // Use getters to ensure order matches header
-            String prefNeighbourhoodStr = "";
-            if (user instanceof Applicant) {
-                String pref = ((Applicant) user).getPreferredNeighbourhood();
-                prefNeighbourhoodStr = (pref != null) ? pref : ""; 
-            }
-    
-            csvData.add(new String[] {
-                user.getNric(),
-                user.getName(),
-                String.valueOf(user.getAge()),
-                user.getMaritalStatus(),
-                user.getPassword(), 
-                user.getSalt(),
-                user.getRole(),
-                prefNeighbourhoodStr
-            });
-        }
-        writeCsvFile(USERS_CSV_PATH, csvData, USERS_HEADER);
-         System.out.println("User data saved.");
+    public void trackChanges() {
+        if (trackingChanges) return;
+        ChangeEvents.addListener(changeSet);
+        trackingChanges = true;
     }
 
     /**
-     * Saves all project-related data (core, flats, officers, applications).
-     * Takes the authoritative map of projects as input.
-     * @param projects The map of all Project objects.
-     * @throws IOException If any write operation fails.
+     * Gets the set of entities changed since the data was last written.
+     * @return The change set
      */
-    public void saveAllProjectData(Map<String, Project> projects, Map<String, User> users) throws IOException {
-        saveProjectsCore(projects);
-        saveProjectFlats(projects);
-        saveProjectOfficers(projects, users);
-        saveApplications(projects);
-        System.out.println("Completed saving all project-related data.");
+    public ChangeSet getChangeSet() {
+        return changeSet;
     }
 
-
-    // --- Private helper save methods ---
-
-    private void saveProjectsCore(Map<String, Project> projects) throws IOException {
-        List<String[]> csvData = new ArrayList<>();
-        // Header defined as constant: PROJECTS_HEADER
-
-        for (Project project : projects.values()) {
-             if (project == null) continue;
-             try {
-                csvData.add(new String[] {
-                    project.getName(),
-                    project.getNeighbourhood(),
-                    String.valueOf(project.getVisibility()),
-                    project.getCreatorName(),
-                    project.getAppOpeningDate().format(DATE_FORMATTER), // Format dates
-                    project.getAppClosingDate().format(DATE_FORMATTER)
-                });
-             } catch (NullPointerException npe) {
-                  System.err.println("Error saving core data for project: " + (project.getName() != null ? project.getName() : "UNKNOWN") + ". Missing required fields (e.g., dates). Skipping.");
-             }
-        }
-        writeCsvFile(PROJECTS_CSV_PATH, csvData, PROJECTS_HEADER);
-         System.out.println("Core project data saved.");
-    }
-
-    private void saveProjectFlats(Map<String, Project> projects) throws IOException {
-        List<String[]> csvData = new ArrayList<>();
-        // Header defined as constant: FLATS_HEADER
-
-        for (Project project : projects.values()) {
-             if (project == null) continue;
-            try {
-                 if (project.getNo2Room() > 0) { // Only save if 2-room units exist
-                     csvData.add(new String[] {
-                         project.getName(),
-                         "2-Room",
-                         String.valueOf(project.getNo2Room()),
-                         String.valueOf(project.getAvalNo2Room()),
-                         "350000" 
-                     });
-                 }
-                 if (project.getNo3Room() > 0) { // Only save if 3-room units exist
-                     csvData.add(new String[] {
-                         project.getName(),
-                         "3-Room",
-                         String.valueOf(project.getNo3Room()),
-                         String.valueOf(project.getAvalNo3Room()),
-                         "450000"
-                     });
-                 }
-            } catch (Exception e) {
-                 System.err.println("Error saving flat data for project: " + project.getName() + ". Skipping project flats.");
-                 e.printStackTrace(); // For debugging
-            }
-        }
-        writeCsvFile(PROJECT_FLATS_CSV_PATH, csvData, FLATS_HEADER);
-         System.out.println("Project flat data saved.");
-    }
-
-    private void saveProjectOfficers(Map<String, Project> projects, Map<String, User> users) throws IOException {
-        List<String[]> csvData = new ArrayList<>();
-        // Header defined as constant: OFFICERS_HEADER
-
-        for (User user : users.values()) {
-            if (user instanceof Officer) {
-                Officer officer = (Officer) user;
-                Map<Project, String> assignments = officer.getProjectAssignments(); // Get the map
-
-                for (Map.Entry<Project, String> entry : assignments.entrySet()) {
-                     Project project = entry.getKey();
-                     String status = entry.getValue();
-                     if (project != null && officer.getNric() != null && status != null) {
-                         csvData.add(new String[] {
-                             project.getName(),
-                             officer.getNric(),
-                             status // "Pending" or "Approved"
-                         });
-                     }
-                }
-            }
-        }
-        // This correctly reflects the state stored within each Officer object
-        writeCsvFile(PROJECT_OFFICERS_CSV_PATH, csvData, OFFICERS_HEADER);
-        System.out.println("Project officer assignment data saved.");
-    }
-
-
-    private void saveApplications(Map<String, Project> projects) throws IOException {
-        List<String[]> csvData = new ArrayList<>();
-        // Header defined as constant: APPLICATIONS_HEADER
-
-        for (Project project : projects.values()) {
-             if (project == null) continue;
-             try {
-                // **Need method in Project to get ALL applicants associated with it, regardless of list**
-                List<Applicant> allProjectApplicants = project.getAllApplicants();
-                if (allProjectApplicants != null) {
-                    for (Applicant applicant : allProjectApplicants) {
-                        if (applicant == null) continue; // Null check
-                        
-                         try {
-                             csvData.add(new String[] {
-                                 applicant.getNric(),
-                                 project.getName(), // Project name from the project context
-                                 applicant.getTypeFlat(),
-                                 applicant.getAppStatus(),
-                                 String.valueOf(applicant.getWithdrawalStatus()),
-                                 String.valueOf(applicant.isApplied())
-                             });
-                         } catch (NullPointerException npe_app) {
-                              System.err.println("Error saving application for applicant: " + (applicant.getNric() != null ? applicant.getNric() : "UNKNOWN") + " in project " + project.getName() + ". Missing required fields. Skipping application.");
-                         }
-                    }
-                }
-             } catch (Exception e) {
-                  System.err.println("Error saving application data for project: " + project.getName() + ". Skipping project applications.");
-                  e.printStackTrace();
-             }
-        }
-        writeCsvFile(APPLICATIONS_CSV_PATH, csvData, APPLICATIONS_HEADER);
-         System.out.println("Application data saved.");
+    /**
+     * Gets the total number of bytes the backend has written to data files.
+     * @return Bytes written
+     */
+    public long getBytesWritten() {
+        return repository.getBytesWritten();
     }
 
     /**
-     * Saves all Enquiries and their Replies to CSV files.
-     * Retrieves data from the EnquiryService.
-     * @param enquiryService The service holding the enquiry data.
-     * @throws IOException If saving the file fails.
+     * Writes changed data to the backend. With change tracking on, the backend is given the
+     * changed keys of each table (and rewrites only those tables, or only those rows);
+     * otherwise every table is rewritten.
+     * @param users The map of all users.
+     * @param projects The map of all projects.
+     * @param enquiryService Service holding all enquiries.
+     * @return Number of bytes written.
+     * @throws IOException If any write fails (the tables stay dirty in that case).
      */
-    public void saveEnquiries(EnquiryService enquiryService) throws IOException {
-        if (enquiryService == null) {
-            System.err.println("EnquiryService is null, cannot save enquiries.");
-            return;
+    public long saveChanges(Map<String, User> users, Map<String, Project> projects, EnquiryService enquiryService) throws IOException {
+        long before = repository.getBytesWritten();
+        if (!trackingChanges) {
+            repository.saveAll(users, projects, enquiryService);
+            return repository.getBytesWritten() - before;
         }
 
-        List<String[]> enquiryCsvData = new ArrayList<>();
-        List<String[]> replyCsvData = new ArrayList<>();
-
-        List<Enquiry> allEnquiries = enquiryService.getAllEnquiries(); 
-
-        for (Enquiry enquiry : allEnquiries) {
-            if (enquiry == null) continue;
-            // Save enquiry data (Order matches ENQUIRIES_HEADER)
-            enquiryCsvData.add(new String[] {
-                String.valueOf(enquiry.getId()),
-                enquiry.getApplicantNRIC(),
-                enquiry.getProject(),
-                enquiry.getContent() // Content for enquiry itself
-            });
-
-            // Save associated replies (Order matches REPLIES_HEADER)
-            List<Reply> replies = enquiry.getReplies();
-            if (replies != null) {
-                for (Reply reply : replies) {
-                    if (reply != null) {
-                        replyCsvData.add(new String[] {
-                            String.valueOf(enquiry.getId()), // Link back to enquiry
-                            String.valueOf(reply.getId()),
-                            reply.getResponderNRIC(),
-                            reply.getContent() // Content for reply
-                        });
-                    }
-                }
-            }
+        // Clear before writing, so a change published while the files are written marks its
+        // entity dirty again instead of being forgotten
+        Map<ChangeRecord.Table, Set<String>> changes = changeSet.drain();
+        for (Map.Entry<ChangeRecord.Table, Set<String>> entry : changes.entrySet()) {
+            System.out.println("Saving " + entry.getKey().name().toLowerCase() + " (" + entry.getValue().size() + " changed)...");
         }
-
-        writeCsvFile(ENQUIRIES_CSV_PATH, enquiryCsvData, ENQUIRIES_HEADER);
-        writeCsvFile(REPLIES_CSV_PATH, replyCsvData, REPLIES_HEADER);
-        System.out.println("Enquiry and Reply data saved.");
+        if (changes.isEmpty()) {
+            System.out.println("No changes to save.");
+        }
+        try {
+            repository.saveChanges(changes, users, projects, enquiryService); // Called even when clean, so a backend can repair its files
+        } catch (IOException | RuntimeException e) {
+            changeSet.restore(changes); // Retry at the next save
+            throw e;
+        }
+        return repository.getBytesWritten() - before;
     }
 
+    // === Shared restore helpers (used by every backend) ===
 
-    // --- Helper to escape fields for CSV writing ---
-    private String escapeCsvField(String field) {
-        if (field == null) return ""; // Represent null as empty string in CSV
-
-        // If field contains comma, quote, or newline, enclose in double quotes
-        // and escape existing double quotes by doubling them ("" -> """")
-        if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
-            return "\"" + field.replace("\"", "\"\"") + "\"";
+    /**
+     * Creates a user of the given role from stored credentials, without hashing.
+     * @param role Role name ("Manager", "Officer" or "Applicant", case-insensitive).
+     * @param name User's name.
+     * @param nric User's NRIC.
+     * @param age User's age.
+     * @param maritalStatus User's marital status.
+     * @param passwordHash Stored password hash.
+     * @param salt Stored salt.
+     * @return The restored user, or null if the role is unknown.
+     */
+    static User restoreUser(String role, String name, String nric, int age, String maritalStatus, String passwordHash, String salt) {
+        switch (role.toLowerCase()) {
+            case "manager": return Manager.restore(name, nric, age, maritalStatus, passwordHash, salt);
+            case "officer": return Officer.restore(name, nric, age, maritalStatus, passwordHash, salt);
+            case "applicant": return Applicant.restore(name, nric, age, maritalStatus, passwordHash, salt);
+            default: return null;
         }
-        // Otherwise, return the field as is
-        return field;
     }
 
-
     // === Methods to get specific filtered data (as requested by CLI before) ===
     // These now operate on the loaded data (maps/lists) passed as arguments
 
     /**
      * Gets a list of applicants with "Pending" status for projects created by a specific manager.
-     * Assumes Project class has a method getApplicantsByStatus(String status).
+     * Only the manager's projects are visited, from the catalogue's CreatorIndex.
      * @param managerName Manager's name.
-     * @param allProjects Project map.
+     * @param catalogue Catalogue of all projects.
      * @param allUsers User map.
      * @return List of pending applicants.
      */
     public List<Applicant> getAllPendingApplicantsForManager(String managerName,
-                                                             Map<String, Project> allProjects, Map<String, User> allUsers) {
+                                                             ProjectCatalogue catalogue, Map<String, User> allUsers) {
         List<Applicant> pending = new ArrayList<>();
-        if (managerName == null || allProjects == null) return pending; // Basic null checks
+        if (managerName == null || catalogue == null) return pending; // Basic null checks
 
-        for (Project p : allProjects.values()) {
+        for (Project p : catalogue.getCreators().getProjects(managerName)) {
             if (p != null && managerName.equals(p.getCreatorName())) {
                 try {
                     List<Applicant> projectPending = p.getArrOfApplicants(); // Replace with actual method name
@@ -830,18 +411,18 @@ public class DataManager {
 
     /**
      * Gets a list of officers with "Pending" status for projects created by a specific manager.
-     * Assumes Project class has a method getOfficersByStatus(String status) or similar.
+     * Only the manager's projects are visited, from the catalogue's CreatorIndex.
      * @param managerName Manager's name.
-     * @param allProjects All project records.
+     * @param catalogue Catalogue of all projects.
      * @param allUsers All users.
      * @return List of pending officers.
      */
     public List<Officer> getAllPendingOfficersForManager(String managerName,
-                                                         Map<String, Project> allProjects, Map<String, User> allUsers) {
+                                                         ProjectCatalogue catalogue, Map<String, User> allUsers) {
         List<Officer> pending = new ArrayList<>();
-         if (managerName == null || allProjects == null) return pending;
+         if (managerName == null || catalogue == null) return pending;
 
-        for (Project p : allProjects.values()) {
+        for (Project p : catalogue.getCreators().getProjects(managerName)) {
             if (p != null && managerName.equals(p.getCreatorName())) {
                 // Assumes Project has a method to get *pending* officers
                 // E.g., p.getPendingOfficerRegistrations() used in saving logic
@@ -863,18 +444,18 @@ public class DataManager {
 
     /**
      * Gets a list of applicants who have requested withdrawal for projects created by a specific manager.
-     * Assumes Project class has a method getWithdrawReq().
+     * Only the manager's projects are visited, from the catalogue's CreatorIndex.
      * @param managerName Name of manager.
-     * @param allProjects Project map.
+     * @param catalogue Catalogue of all projects.
      * @param allUsers User map.
      * @return List of applicants with withdrawal requests.
      */
     public List<Applicant> getAllWithdrawalApplicantsForManager(String managerName,
-                                                               Map<String, Project> allProjects, Map<String, User> allUsers) {
+                                                               ProjectCatalogue catalogue, Map<String, User> allUsers) {
         List<Applicant> withdrawing = new ArrayList<>();
-         if (managerName == null || allProjects == null) return withdrawing;
+         if (managerName == null || catalogue == null) return withdrawing;
 
-        for (Project p : allProjects.values()) {
+        for (Project p : catalogue.getCreators().getProjects(managerName)) {
             if (p != null && managerName.equals(p.getCreatorName())) {
                 // Assumes Project has a method to get applicants requesting withdrawal
                  try {
@@ -0,0 +1,582 @@
+package data;
+
+import Actors.Enquiry;
+import Actors.Reply;
+import Services.EnquiryService;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact offset index over enquiries.csv and replies.csv, used by EnquiryService to read
+ * enquiries on demand instead of holding them all in memory.
+ *
+ * Built with one streaming pass over both files (checksums are verified on the way). It
+ * keeps, in primitive arrays, the byte offset and length of every enquiry record sorted by
+ * enquiry ID and of every reply record sorted by parent enquiry ID, plus posting lists of
+ * enquiry IDs per submitter NRIC and per project. Enquiry contents are not kept.
+ *
+ * Records are read back with positional reads on channels opened at build time. Saving
+ * replaces a CSV file by renaming a new file over it, which Windows refuses while the file
+ * is open, so saves go through rewriteEnquiries and rewriteReplies: they close the file's
+ * channel, run the write, and then index and open the new file. The new file holds what
+ * the service saved, so the enquiries EnquiryService keeps in memory still match it.
+ * All methods are synchronized, so reads wait while a file is being replaced.
+ */
+public class EnquiryIndex implements EnquiryService.Source {
+
+    /**
+     * Writes a new generation of one of the indexed files.
+     */
+    public interface Rewrite {
+        /**
+         * Writes the file, e.g. with AtomicFile.write.
+         * @throws IOException If writing fails
+         */
+        void write() throws IOException;
+    }
+
+    private static final int[] NO_IDS = new int[0];
+
+    private boolean closed = false;
+
+    private FileChannel enquiryChannel; // Null if there is no file, or it could not be reopened
+    private String enquiryPath; // File indexed, null if none
+    private long enquirySize;
+    private FileChannel replyChannel;
+    private String replyPath;
+    private long replySize;
+
+    // Enquiry records, sorted by ID
+    private int[] ids = NO_IDS;
+    private long[] offsets = new long[0];
+    private int[] lengths = NO_IDS;
+
+    // Reply records, sorted by parent enquiry ID (file order within one enquiry)
+    private int[] replyParents = NO_IDS;
+    private long[] replyOffsets = new long[0];
+    private int[] replyLengths = NO_IDS;
+
+    private Map<String, int[]> idsByApplicant = new HashMap<>();
+    private Map<String, int[]> idsByProject = new HashMap<>();
+    private int maxEnquiryId = 0;
+    private Map<Integer, Integer> maxReplyIds = new HashMap<>(); // Max reply ID per enquiry, for Reply.resetIdCounters
+
+    private EnquiryIndex() {
+    }
+
+    /**
+     * Builds the index with one pass over each file.
+     * @param enquiriesPath Path of the enquiries CSV to index, or null if there is none
+     * @param verifyEnquiries true to check the file's checksum footer
+     * @param repliesPath Path of the replies CSV to index, or null if there is none
+     * @param verifyReplies true to check the file's checksum footer
+     * @return The index, holding both files open
+     * @throws IOException If a file cannot be read (AtomicFile.ChecksumMismatchException if it is damaged)
+     */
+    public static EnquiryIndex build(String enquiriesPath, boolean verifyEnquiries,
+                                     String repliesPath, boolean verifyReplies) throws IOException {
+        EnquiryIndex index = new EnquiryIndex();
+        synchronized (index) {
+            try {
+                index.indexEnquiries(enquiriesPath, verifyEnquiries);
+                index.indexReplies(repliesPath, verifyReplies);
+            } catch (IOException | RuntimeException e) {
+                index.close();
+                throw e;
+            }
+            System.out.println("Indexed " + index.ids.length + " enquiries and " + index.replyParents.length + " replies.");
+        }
+        return index;
+    }
+
+    /**
+     * Replaces the indexed enquiries file: closes its channel, runs the write, then indexes
+     * and opens the file written. If the write fails the old file is reopened, unless it
+     * changed, in which case enquiries can no longer be read from the index.
+     * On a closed index the write is simply run.
+     * @param path Path the write puts the new file at
+     * @param write Write that renames the new file over the old one
+     * @throws IOException If writing fails, or the new file cannot be indexed
+     */
+    public synchronized void rewriteEnquiries(String path, Rewrite write) throws IOException {
+        if (closed) {
+            write.write();
+            return;
+        }
+        closeQuietly(enquiryChannel);
+        enquiryChannel = null;
+        try {
+            write.write();
+        } catch (IOException | RuntimeException e) {
+            enquiryChannel = reopen(enquiryPath, enquirySize, e);
+            throw e;
+        }
+        indexEnquiries(path, false); // Just written
+    }
+
+    /**
+     * Replaces the indexed replies file, as rewriteEnquiries does for the enquiries file.
+     * @param path Path the write puts the new file at
+     * @param write Write that renames the new file over the old one
+     * @throws IOException If writing fails, or the new file cannot be indexed
+     */
+    public synchronized void rewriteReplies(String path, Rewrite write) throws IOException {
+        if (closed) {
+            write.write();
+            return;
+        }
+        closeQuietly(replyChannel);
+        replyChannel = null;
+        try {
+            write.write();
+        } catch (IOException | RuntimeException e) {
+            replyChannel = reopen(replyPath, replySize, e);
+            throw e;
+        }
+        indexReplies(path, false);
+    }
+
+    // Indexes an enquiries file and keeps it open, replacing the enquiry records held (caller holds the lock)
+    private void indexEnquiries(String path, boolean verify) throws IOException {
+        Columns enquiries = new Columns();
+        Map<String, IntList> byApplicant = new HashMap<>();
+        Map<String, IntList> byProject = new HashMap<>();
+        FileChannel channel = null;
+        if (path != null) {
+            channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+            try (RecordScanner record = new RecordScanner(open(path, verify), 3)) {
+                record.next(); // Header: EnquiryID,SubmitterNRIC,ProjectName,EnquiryContent
+                while (record.next()) {
+                    if (record.size() < 4) continue;
+                    int enquiryId;
+                    try {
+                        enquiryId = Integer.parseInt(record.get(0).trim());
+                    } catch (NumberFormatException e) {
+                        System.err.println("Error processing enquiry row at offset " + record.start() + " -> " + e.getMessage());
+                        continue;
+                    }
+                    int row = enquiries.add(enquiryId, record.start(), record.length());
+                    byApplicant.computeIfAbsent(record.get(1).trim(), k -> new IntList()).add(enquiryId);
+                    byProject.computeIfAbsent(record.get(2).trim(), k -> new IntList()).add(enquiryId);
+                    if (row % 100_000 == 99_999) System.out.println("Indexed " + (row + 1) + " enquiries...");
+                }
+            } catch (IOException | RuntimeException e) {
+                closeQuietly(channel);
+                throw e;
+            }
+        }
+
+        int[] order = enquiries.sortedOrder(true);
+        this.ids = new int[order.length];
+        this.offsets = new long[order.length];
+        this.lengths = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            ids[i] = enquiries.keys.get(order[i]);
+            offsets[i] = enquiries.offsets[order[i]];
+            lengths[i] = enquiries.lengths.get(order[i]);
+        }
+        this.maxEnquiryId = (ids.length > 0) ? ids[ids.length - 1] : 0;
+        this.idsByApplicant = toPostings(byApplicant);
+        this.idsByProject = toPostings(byProject);
+        this.enquiryChannel = channel;
+        this.enquiryPath = path;
+        this.enquirySize = (channel != null) ? channel.size() : 0;
+    }
+
+    // Indexes a replies file and keeps it open, replacing the reply records held (caller holds the lock)
+    private void indexReplies(String path, boolean verify) throws IOException {
+        Columns replies = new Columns();
+        Map<Integer, Integer> maxIds = new HashMap<>();
+        FileChannel channel = null;
+        if (path != null) {
+            channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+            try (RecordScanner record = new RecordScanner(open(path, verify), 2)) {
+                record.next(); // Header: EnquiryID,ReplyID,ResponderNRIC,ReplyContent
+                while (record.next()) {
+                    if (record.size() < 4) continue;
+                    try {
+                        int enquiryId = Integer.parseInt(record.get(0).trim());
+                        int replyId = Integer.parseInt(record.get(1).trim());
+                        replies.add(enquiryId, record.start(), record.length());
+                        maxIds.merge(enquiryId, replyId, Math::max);
+                    } catch (NumberFormatException e) {
+                        System.err.println("Error processing reply row at offset " + record.start() + " -> " + e.getMessage());
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                closeQuietly(channel);
+                throw e;
+            }
+        }
+
+        int[] order = replies.sortedOrder(false);
+        this.replyParents = new int[order.length];
+        this.replyOffsets = new long[order.length];
+        this.replyLengths = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            replyParents[i] = replies.keys.get(order[i]);
+            replyOffsets[i] = replies.offsets[order[i]];
+            replyLengths[i] = replies.lengths.get(order[i]);
+        }
+        this.maxReplyIds = maxIds;
+        this.replyChannel = channel;
+        this.replyPath = path;
+        this.replySize = (channel != null) ? channel.size() : 0;
+    }
+
+    // Reopens a file after a failed rewrite, or returns null if it is gone or changed (the failure records why)
+    private static FileChannel reopen(String path, long size, Exception failure) {
+        if (path == null) return null;
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+            if (channel.size() == size) return channel;
+            failure.addSuppressed(new IOException(path + " changed during the failed write; its enquiries cannot be read until the data is reloaded."));
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+        closeQuietly(channel);
+        return null;
+    }
+
+    // The channel of an indexed file, which is null only if the file could not be reopened after a rewrite
+    private static FileChannel opened(FileChannel channel, String path) throws IOException {
+        if (channel == null) throw new IOException(path + " is no longer open; reload the data to read its enquiries.");
+        return channel;
+    }
+
+    private static InputStream open(String path, boolean verify) throws IOException {
+        return verify ? AtomicFile.openVerified(path) : new FileInputStream(path); // RecordScanner buffers
+    }
+
+    /**
+     * Gets the highest indexed enquiry ID.
+     * @return Max enquiry ID, 0 if none
+     */
+    public synchronized int getMaxEnquiryId() {
+        return maxEnquiryId;
+    }
+
+    /**
+     * Gets the highest reply ID of every enquiry that has replies.
+     * @return Map of enquiry ID to max reply ID
+     */
+    public synchronized Map<Integer, Integer> getMaxReplyIds() {
+        return maxReplyIds;
+    }
+
+    @Override
+    public synchronized int[] getIds() {
+        return ids.clone();
+    }
+
+    @Override
+    public synchronized int[] getIdsByApplicant(String applicantNRIC) {
+        return idsByApplicant.getOrDefault(applicantNRIC, NO_IDS).clone();
+    }
+
+    @Override
+    public synchronized int[] getIdsByProject(String project) {
+        return idsByProject.getOrDefault(project, NO_IDS).clone();
+    }
+
+    /**
+     * Reads one enquiry and its replies with positional reads.
+     * @param enquiryId Enquiry ID
+     * @return A new Enquiry object, or null if the ID is not indexed
+     * @throws IOException If a record cannot be read
+     */
+    @Override
+    public synchronized Enquiry read(int enquiryId) throws IOException {
+        int i = Arrays.binarySearch(ids, enquiryId);
+        if (i < 0) return null;
+        String[] row = readRecord(opened(enquiryChannel, enquiryPath), offsets[i], lengths[i]);
+        if (row.length < 4) throw new IOException("Enquiry record " + enquiryId + " is damaged.");
+        Enquiry enquiry = new Enquiry(row[1].trim(), row[3].trim(), row[2].trim(), enquiryId);
+
+        int first = lowerBound(replyParents, enquiryId);
+        for (int r = first; r < replyParents.length && replyParents[r] == enquiryId; r++) {
+            String[] reply = readRecord(opened(replyChannel, replyPath), replyOffsets[r], replyLengths[r]);
+            if (reply.length < 4) throw new IOException("Reply record of enquiry " + enquiryId + " is damaged.");
+            enquiry.addReply(new Reply(enquiry, reply[2].trim(), reply[3].trim(), Integer.parseInt(reply[1].trim())));
+        }
+        return enquiry;
+    }
+
+    /**
+     * Reads every indexed enquiry and reply with one sequential pass over each file.
+     * @return Map of enquiry ID to new Enquiry objects
+     * @throws IOException If a file cannot be read
+     */
+    @Override
+    public synchronized Map<Integer, Enquiry> readAll() throws IOException {
+        Map<Integer, Enquiry> all = new HashMap<>();
+        if (enquiryPath != null) {
+            CsvCursor row = sequentialCursor(opened(enquiryChannel, enquiryPath)); // Not closed: that would close the channel
+            row.next(); // Header
+            while (row.nextNonBlank()) {
+                if (row.size() < 4) continue; // Also skips the checksum footer
+                try {
+                    int enquiryId = Integer.parseInt(row.get(0).trim());
+                    all.put(enquiryId, new Enquiry(row.get(1).trim(), row.get(3).trim(), row.get(2).trim(), enquiryId));
+                } catch (NumberFormatException e) {
+                    // Reported when the index was built
+                }
+            }
+        }
+        if (replyPath != null) {
+            CsvCursor row = sequentialCursor(opened(replyChannel, replyPath));
+            row.next();
+            while (row.nextNonBlank()) {
+                if (row.size() < 4) continue;
+                try {
+                    Enquiry parent = all.get(Integer.parseInt(row.get(0).trim()));
+                    if (parent != null) parent.addReply(new Reply(parent, row.get(2).trim(), row.get(3).trim(), Integer.parseInt(row.get(1).trim())));
+                } catch (NumberFormatException e) {
+                    // Reported when the index was built
+                }
+            }
+        }
+        return all;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        closeQuietly(enquiryChannel);
+        closeQuietly(replyChannel);
+        enquiryChannel = null;
+        replyChannel = null;
+    }
+
+    // === Helpers ===
+
+    private static CsvCursor sequentialCursor(FileChannel channel) throws IOException {
+        channel.position(0);
+        return new CsvCursor(new InputStreamReader(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16), StandardCharsets.UTF_8));
+    }
+
+    private static String[] readRecord(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) throw new EOFException("Record beyond end of file at offset " + offset);
+        }
+        try (CsvCursor row = new CsvCursor(new StringReader(new String(buffer.array(), StandardCharsets.UTF_8)))) {
+            return row.next() ? row.toArray() : new String[0];
+        }
+    }
+
+    private static int lowerBound(int[] sorted, int key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+
+    private static Map<String, int[]> toPostings(Map<String, IntList> lists) {
+        Map<String, int[]> postings = new HashMap<>(lists.size() * 2);
+        for (Map.Entry<String, IntList> entry : lists.entrySet()) {
+            int[] sorted = entry.getValue().toArray();
+            Arrays.sort(sorted);
+            int unique = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) sorted[unique++] = sorted[i];
+            }
+            postings.put(entry.getKey(), Arrays.copyOf(sorted, unique));
+        }
+        return postings;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+
+    /**
+     * Growable int array.
+     */
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Records collected while scanning one file: sort key, offset and length per record.
+     */
+    private static class Columns {
+        final IntList keys = new IntList();
+        final IntList lengths = new IntList();
+        long[] offsets = new long[16];
+
+        int add(int key, long offset, int length) {
+            int row = keys.size();
+            if (row == offsets.length) offsets = Arrays.copyOf(offsets, row * 2);
+            offsets[row] = offset;
+            keys.add(key);
+            lengths.add(length);
+            return row;
+        }
+
+        // Record positions sorted by key, then file order; with lastWins, only the last record of each key is kept
+        int[] sortedOrder(boolean lastWins) {
+            long[] packed = new long[keys.size()];
+            for (int i = 0; i < packed.length; i++) {
+                packed[i] = ((long) keys.get(i) << 32) | i; // i < 2^31, so the low half never carries
+            }
+            Arrays.sort(packed);
+            IntList order = new IntList();
+            for (int i = 0; i < packed.length; i++) {
+                if (lastWins && i + 1 < packed.length && (packed[i] >> 32) == (packed[i + 1] >> 32)) continue;
+                order.add((int) packed[i]);
+            }
+            return order.toArray();
+        }
+    }
+
+    /**
+     * Streams CSV records from bytes, tracking the byte offset and length of each record.
+     * Only the first maxFields fields are decoded; the rest of a record is skipped.
+     * Quoting follows CsvCursor: a field starting with a quote runs to the closing quote,
+     * with doubled quotes standing for one quote, and may span lines.
+     */
+    private static class RecordScanner implements Closeable {
+        private final InputStream in;
+        private final int maxFields;
+        private final byte[] buffer = new byte[1 << 16];
+        private int bufferPos = 0;
+        private int bufferLimit = 0;
+        private byte[] field = new byte[256];
+        private int fieldLength = 0;
+        private final String[] fields;
+        private int size = 0;
+        private long position = 0; // File offset of the next byte
+        private long start = 0;
+
+        RecordScanner(InputStream in, int maxFields) {
+            this.in = in;
+            this.maxFields = maxFields;
+            this.fields = new String[maxFields];
+        }
+
+        boolean next() throws IOException {
+            size = 0;
+            fieldLength = 0;
+            int b = read();
+            if (b < 0) return false;
+            start = position - 1;
+            boolean quoted = false;
+            boolean fieldStart = true;
+            int fieldIndex = 0;
+            while (true) {
+                if (b < 0) {
+                    endField(fieldIndex);
+                    break;
+                }
+                if (quoted) {
+                    if (b == '"') {
+                        int following = read();
+                        if (following != '"') {
+                            quoted = false;
+                            b = following;
+                            continue;
+                        }
+                    }
+                    append(fieldIndex, b);
+                } else if (b == '"' && fieldStart) {
+                    quoted = true;
+                    fieldStart = false;
+                } else if (b == ',') {
+                    endField(fieldIndex++);
+                    fieldStart = true;
+                } else if (b == '\n') {
+                    endField(fieldIndex);
+                    break;
+                } else if (b != '\r') {
+                    append(fieldIndex, b);
+                    fieldStart = false;
+                }
+                b = read();
+            }
+            return true;
+        }
+
+        // Number of fields in the record, counting those beyond maxFields
+        int size() {
+            return size;
+        }
+
+        // One of the first maxFields fields
+        String get(int index) {
+            return fields[index];
+        }
+
+        long start() {
+            return start;
+        }
+
+        int length() {
+            return (int) (position - start);
+        }
+
+        private int read() throws IOException {
+            if (bufferPos == bufferLimit) {
+                int n = in.read(buffer, 0, buffer.length);
+                if (n <= 0) return -1;
+                bufferPos = 0;
+                bufferLimit = n;
+            }
+            position++;
+            return buffer[bufferPos++] & 0xff;
+        }
+
+        private void append(int fieldIndex, int b) {
+            if (fieldIndex >= maxFields) return;
+            if (fieldLength == field.length) field = Arrays.copyOf(field, fieldLength * 2);
+            field[fieldLength++] = (byte) b;
+        }
+
+        private void endField(int fieldIndex) {
+            if (fieldIndex < maxFields) fields[fieldIndex] = new String(field, 0, fieldLength, StandardCharsets.UTF_8);
+            fieldLength = 0;
+            size = fieldIndex + 1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package data;
+
+import Actors.Enquiry;
+import Actors.Reply;
+import Actors.User;
+import Project.Project;
+import Services.EnquiryService;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory storage backend for benchmarks and tests. Saving keeps the saved tables as
+ * they are (no copying of the domain objects, no serialisation, no disk I/O) and loading
+ * hands them back, so it measures the cost of everything except storage.
+ *
+ * It can be seeded from another backend, which is read on the first load only; nothing is
+ * ever written back to it.
+ */
+public class InMemoryRepository implements Repository {
+
+    private final Repository seed; // Null to start empty
+    private boolean seeded = false;
+    private Map<String, User> users = new HashMap<>();
+    private Map<String, Project> projects = new HashMap<>();
+    private Map<Integer, Enquiry> enquiries = new HashMap<>();
+    private long saveCount = 0;
+
+    /**
+     * Creates an empty in-memory backend.
+     */
+    public InMemoryRepository() {
+        this(null);
+    }
+
+    /**
+     * Creates an in-memory backend that starts with the data of another backend.
+     * @param seed Backend to load once at the first load (may be null)
+     */
+    public InMemoryRepository(Repository seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public String getDataFolder() {
+        return null; // Nothing is stored on disk
+    }
+
+    @Override
+    public synchronized Contents load(EnquiryService enquiryService) throws IOException {
+        if (seed != null && !seeded) {
+            seeded = true;
+            Contents contents = seed.load(enquiryService);
+            users = new HashMap<>(contents.getUsers());
+            projects = new HashMap<>(contents.getProjects());
+            enquiries = collectEnquiries(enquiryService);
+            return new Contents(contents.getUsers(), contents.getProjects(), EnumSet.noneOf(ChangeRecord.Table.class));
+        }
+
+        int maxEnquiryId = 0;
+        Map<Integer, Integer> replyCounters = new HashMap<>();
+        for (Enquiry enquiry : enquiries.values()) {
+            maxEnquiryId = Math.max(maxEnquiryId, enquiry.getId());
+            for (Reply reply : enquiry.getReplies()) {
+                replyCounters.merge(enquiry.getId(), reply.getId(), Math::max);
+            }
+        }
+        if (enquiryService != null) {
+            Enquiry.resetIdCounter(maxEnquiryId);
+            Reply.resetIdCounters(replyCounters);
+            enquiryService.loadExistingEnquiries(new HashMap<>(enquiries));
+        }
+        return new Contents(new HashMap<>(users), new HashMap<>(projects), EnumSet.noneOf(ChangeRecord.Table.class));
+    }
+
+    @Override
+    public synchronized void save(Set<ChangeRecord.Table> tables, Map<String, User> users, Map<String, Project> projects,
+                                  EnquiryService enquiryService) throws IOException {
+        if (tables.contains(ChangeRecord.Table.USERS)) {
+            this.users = new HashMap<>(users);
+        }
+        if (tables.contains(ChangeRecord.Table.PROJECTS) || tables.contains(ChangeRecord.Table.FLATS)
+                || tables.contains(ChangeRecord.Table.OFFICERS) || tables.contains(ChangeRecord.Table.APPLICATIONS)) {
+            this.projects = new HashMap<>(projects);
+        }
+        if (tables.contains(ChangeRecord.Table.ENQUIRIES) || tables.contains(ChangeRecord.Table.REPLIES)) {
+            this.enquiries = collectEnquiries(enquiryService);
+        }
+        if (!tables.isEmpty()) saveCount++;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return 0;
+    }
+
+    /**
+     * Gets the number of saves that wrote at least one table.
+     * @return Save count
+     */
+    public synchronized long getSaveCount() {
+        return saveCount;
+    }
+
+    private static Map<Integer, Enquiry> collectEnquiries(EnquiryService enquiryService) {
+        Map<Integer, Enquiry> collected = new HashMap<>();
+        if (enquiryService == null) return collected;
+        for (Enquiry enquiry : enquiryService.getAllEnquiries()) {
+            collected.put(enquiry.getId(), enquiry);
+        }
+        return collected;
+    }
+}
@@ -0,0 +1,275 @@
+package data;
+
+import Actors.Applicant;
+import Actors.Enquiry;
+import Actors.Reply;
+import Actors.User;
+import Project.Project;
+import Services.EnquiryService;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Storage backend that keeps applications and enquiries in embedded log-structured stores
+ * (see LsmStore) and every other table in its CSV file, as CsvRepository does.
+ *
+ * Applications are keyed by applicant NRIC, enquiries by enquiry ID; an enquiry's replies
+ * are stored in the same row as the enquiry, so adding a reply rewrites one row. A save
+ * writes only the changed keys as a new segment, so its cost follows the number of changes
+ * rather than the number of applications or enquiries.
+ *
+ * Stores live in data_folder/lsm/. While a store has never been written, its table is
+ * loaded from the CSV file and imported into the store at the next save; from then on the
+ * CSV file is no longer read or written.
+ */
+public class LsmRepository extends CsvRepository {
+
+    private final LsmStore applications;
+    private final LsmStore enquiries;
+
+    /**
+     * Creates the backend over the given data folder. The stores are opened on first use.
+     * @param dataFolder Folder holding the CSV files and the lsm/ store directory
+     */
+    public LsmRepository(String dataFolder) {
+        super(dataFolder, false); // The binary snapshot would load (and rewrite) every row again
+        this.applications = new LsmStore(dataFolder + "/lsm/applications");
+        this.enquiries = new LsmStore(dataFolder + "/lsm/enquiries");
+    }
+
+    @Override
+    public String getName() {
+        return "lsm";
+    }
+
+    // === Loading ===
+
+    /**
+     * Loads applications from the application store, or from applications.csv if the store
+     * has never been written.
+     * @param projects Map of projects loaded by loadProjectsCore.
+     * @param users Map of users loaded by loadUsers.
+     * @throws IOException If the store cannot be read.
+     */
+    @Override
+    public void loadApplications(Map<String, Project> projects, Map<String, User> users) throws IOException {
+        if (!applications.exists()) {
+            super.loadApplications(projects, users);
+            markStale(ChangeRecord.Table.APPLICATIONS); // Import into the store at the next save
+            return;
+        }
+        int[] appsLoaded = { 0 };
+        applications.forEach((nric, row) -> {
+            if (applyApplicationRow(CsvRow.of(row), projects, users)) appsLoaded[0]++;
+        });
+        System.out.println("Loaded " + appsLoaded[0] + " applications from the application store.");
+    }
+
+    /**
+     * Loads enquiries and their replies from the enquiry store, or from the CSV files if the
+     * store has never been written. Resets the Enquiry and Reply ID counters.
+     * @param enquiryService The EnquiryService to populate.
+     * @param parsePool Only used when reading the CSV files.
+     * @throws IOException If the store cannot be read.
+     */
+    @Override
+    public void loadEnquiries(EnquiryService enquiryService, ExecutorService parsePool) throws IOException {
+        if (!enquiries.exists()) {
+            super.loadEnquiries(enquiryService, parsePool);
+            markStale(ChangeRecord.Table.ENQUIRIES);
+            markStale(ChangeRecord.Table.REPLIES);
+            return;
+        }
+        if (enquiryService == null) {
+            System.err.println("EnquiryService is null, cannot load enquiries.");
+            return;
+        }
+        Map<Integer, Enquiry> loadedEnquiries = new HashMap<>();
+        Map<Integer, Integer> replyCounters = new HashMap<>(); // Max reply ID per enquiry
+        int[] maxEnquiryId = { 0 };
+        int[] repliesLoaded = { 0 };
+        enquiries.forEach((key, row) -> {
+            Enquiry enquiry = toEnquiry(key, row);
+            if (enquiry == null) return;
+            loadedEnquiries.put(enquiry.getId(), enquiry);
+            maxEnquiryId[0] = Math.max(maxEnquiryId[0], enquiry.getId());
+            for (Reply reply : enquiry.getReplies()) {
+                replyCounters.merge(enquiry.getId(), reply.getId(), Math::max);
+                repliesLoaded[0]++;
+            }
+        });
+        Enquiry.resetIdCounter(maxEnquiryId[0]);
+        Reply.resetIdCounters(replyCounters);
+        enquiryService.loadExistingEnquiries(loadedEnquiries);
+        System.out.println("Loaded " + loadedEnquiries.size() + " enquiries and " + repliesLoaded[0] + " replies from the enquiry store.");
+    }
+
+    // === Saving ===
+
+    /**
+     * Writes the given tables; applications and enquiries are rewritten as a whole store.
+     * @param tables Tables to write
+     * @param users Map of all users
+     * @param projects Map of all projects
+     * @param enquiryService Service holding all enquiries
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void save(Set<ChangeRecord.Table> tables, Map<String, User> users, Map<String, Project> projects,
+                     EnquiryService enquiryService) throws IOException {
+        Map<ChangeRecord.Table, Set<String>> changes = new HashMap<>();
+        for (ChangeRecord.Table table : tables) changes.put(table, Set.of("*"));
+        saveChanges(changes, users, projects, enquiryService);
+    }
+
+    /**
+     * Writes the changed rows: CSV tables are rewritten as in CsvRepository, while changed
+     * applications and enquiries are written to their stores key by key.
+     * @param changes Changed keys per table ("*" for a whole table)
+     * @param users Map of all users
+     * @param projects Map of all projects
+     * @param enquiryService Service holding all enquiries
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void saveChanges(Map<ChangeRecord.Table, Set<String>> changes, Map<String, User> users,
+                            Map<String, Project> projects, EnquiryService enquiryService) throws IOException {
+        EnumSet<ChangeRecord.Table> csvTables = EnumSet.noneOf(ChangeRecord.Table.class);
+        for (ChangeRecord.Table table : changes.keySet()) {
+            if (table != ChangeRecord.Table.APPLICATIONS && table != ChangeRecord.Table.ENQUIRIES
+                    && table != ChangeRecord.Table.REPLIES) {
+                csvTables.add(table);
+            }
+        }
+        super.save(csvTables, users, projects, enquiryService);
+
+        Set<String> applicationKeys = changes.get(ChangeRecord.Table.APPLICATIONS);
+        if (applicationKeys != null) saveApplicationKeys(applicationKeys, users, projects);
+
+        // Reply keys are "enquiryId/replyId"; both tables map to the enquiry's row
+        Set<String> enquiryKeys = new HashSet<>();
+        for (ChangeRecord.Table table : EnumSet.of(ChangeRecord.Table.ENQUIRIES, ChangeRecord.Table.REPLIES)) {
+            Set<String> keys = changes.get(table);
+            if (keys == null) continue;
+            for (String key : keys) {
+                int slash = key.indexOf('/');
+                enquiryKeys.add((slash >= 0) ? key.substring(0, slash) : key);
+            }
+        }
+        if (!enquiryKeys.isEmpty()) saveEnquiryKeys(enquiryKeys, enquiryService);
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return super.getBytesWritten() + applications.getBytesWritten() + enquiries.getBytesWritten();
+    }
+
+    private void saveApplicationKeys(Set<String> keys, Map<String, User> users, Map<String, Project> projects) throws IOException {
+        if (keys.contains("*")) {
+            TreeMap<String, String[]> rows = new TreeMap<>();
+            for (Project project : projects.values()) {
+                if (project == null) continue;
+                for (Applicant applicant : project.getAllApplicants()) {
+                    if (applicant != null) rows.put(applicant.getNric(), applicationRow(applicant, project));
+                }
+            }
+            applications.replaceAll(rows);
+            System.out.println("Application store rewritten (" + rows.size() + " applications).");
+            return;
+        }
+        for (String nric : keys) {
+            String[] row = currentApplicationRow(nric, users, projects);
+            if (row != null) applications.put(nric, row); else applications.delete(nric);
+        }
+        int written = applications.commit();
+        System.out.println("Application store updated (" + written + " changed).");
+    }
+
+    // The applicant's row as saveApplications would write it, or null if they hold no application
+    private static String[] currentApplicationRow(String nric, Map<String, User> users, Map<String, Project> projects) {
+        User user = users.get(nric);
+        if (!(user instanceof Applicant)) return null;
+        Applicant applicant = (Applicant) user;
+        Project project = applicant.getProject();
+        if (project == null || projects.get(project.getName()) != project) return null;
+        return (project.getApplicationState(nric) != null) ? applicationRow(applicant, project) : null;
+    }
+
+    private void saveEnquiryKeys(Set<String> keys, EnquiryService enquiryService) throws IOException {
+        if (enquiryService == null) {
+            System.err.println("EnquiryService is null, cannot save enquiries.");
+            return;
+        }
+        if (keys.contains("*")) {
+            TreeMap<String, String[]> rows = new TreeMap<>();
+            for (Enquiry enquiry : enquiryService.getAllEnquiries()) {
+                if (enquiry != null) rows.put(enquiryKey(enquiry.getId()), enquiryValue(enquiry));
+            }
+            enquiries.replaceAll(rows);
+            System.out.println("Enquiry store rewritten (" + rows.size() + " enquiries).");
+            return;
+        }
+        for (String key : keys) {
+            int enquiryId;
+            try {
+                enquiryId = Integer.parseInt(key.trim());
+            } catch (NumberFormatException e) {
+                System.err.println("Warning: Ignoring change to enquiry with invalid ID '" + key + "'.");
+                continue;
+            }
+            Enquiry enquiry = enquiryService.getEnquiryById(enquiryId);
+            if (enquiry != null) enquiries.put(enquiryKey(enquiryId), enquiryValue(enquiry));
+            else enquiries.delete(enquiryKey(enquiryId));
+        }
+        int written = enquiries.commit();
+        System.out.println("Enquiry store updated (" + written + " changed).");
+    }
+
+    // --- Enquiry rows: submitter, project, content, then responder ID, responder, content per reply ---
+
+    // Zero-padded, so the store's key order is the numeric order
+    private static String enquiryKey(int enquiryId) {
+        return String.format("%010d", enquiryId);
+    }
+
+    private static String[] enquiryValue(Enquiry enquiry) {
+        List<Reply> replies = enquiry.getReplies();
+        int replyCount = (replies != null) ? replies.size() : 0;
+        String[] row = new String[3 + 3 * replyCount];
+        row[0] = enquiry.getApplicantNRIC();
+        row[1] = enquiry.getProject();
+        row[2] = enquiry.getContent();
+        for (int i = 0; i < replyCount; i++) {
+            Reply reply = replies.get(i);
+            row[3 + 3 * i] = String.valueOf(reply.getId());
+            row[4 + 3 * i] = reply.getResponderNRIC();
+            row[5 + 3 * i] = reply.getContent();
+        }
+        return row;
+    }
+
+    private static Enquiry toEnquiry(String key, String[] row) {
+        if (row.length < 3 || (row.length - 3) % 3 != 0) {
+            System.err.println("Skipping malformed enquiry record: " + key);
+            return null;
+        }
+        try {
+            Enquiry enquiry = new Enquiry(row[0], row[2], row[1], Integer.parseInt(key));
+            for (int i = 3; i < row.length; i += 3) {
+                enquiry.addReply(new Reply(enquiry, row[i + 1], row[i + 2], Integer.parseInt(row[i])));
+            }
+            return enquiry;
+        } catch (NumberFormatException e) {
+            System.err.println("Skipping enquiry record with invalid ID: " + key);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,633 @@
+package data;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small embedded log-structured key-value store (String key to a row of String fields).
+ *
+ * Writes go to an in-memory sorted memtable. commit() writes the memtable out as a new
+ * immutable, sorted segment file, so saving costs as much as the number of changed keys
+ * instead of the size of the table. Deletes are written as tombstones. A point read
+ * checks the memtable and then the segments from newest to oldest; each segment has a
+ * sparse index (every INDEX_INTERVAL-th key with its byte offset) and its key range, so a
+ * lookup reads at most INDEX_INTERVAL records of a segment and skips segments whose range
+ * cannot hold the key.
+ *
+ * Once more than MAX_SEGMENTS segments exist, a background thread merges them into one
+ * (newest version of every key wins, tombstones are dropped) and swaps it in.
+ *
+ * On disk, in the store directory:
+ *   - seg-NNNNNN.sst: records "P,key,field..." (put) or "D,key" (delete), sorted by key
+ *   - seg-NNNNNN.idx: "count,firstKey,lastKey,dataLength" followed by "key,offset" lines
+ *   - MANIFEST: "next,N" followed by the live segment numbers, oldest first
+ * Every file is written with AtomicFile, and a segment only becomes visible once the
+ * MANIFEST naming it has been replaced, so a crash during a commit or compaction leaves
+ * the previous state in place. Files the MANIFEST does not name are deleted on open().
+ */
+public class LsmStore {
+
+    /**
+     * Receives the entries of the store in key order.
+     */
+    public interface EntryConsumer {
+        /**
+         * Handles one live entry.
+         * @param key The key
+         * @param row The stored fields
+         * @throws IOException If handling the entry fails
+         */
+        void accept(String key, String[] row) throws IOException;
+    }
+
+    private static final int INDEX_INTERVAL = 32;
+    private static final int MAX_SEGMENTS = 4;
+    private static final String[] TOMBSTONE = new String[0]; // Compared by identity
+    private static final String MANIFEST = "MANIFEST";
+
+    private final File directory;
+    private final ExecutorService compactor;
+
+    private final Object manifestLock = new Object(); // Serialises commit, replaceAll and the compaction swap
+    private volatile List<Segment> segments = Collections.emptyList(); // Oldest first; replaced, never modified
+    private boolean opened = false;
+    private long nextSegmentId = 1;
+    private long bytesWritten = 0;
+    private boolean compactionQueued = false;
+
+    // Guarded by this
+    private TreeMap<String, String[]> memtable = new TreeMap<>();
+    private TreeMap<String, String[]> flushing = null; // Memtable being written by commit()
+
+    /**
+     * Creates a store over the given directory. Nothing is read until open().
+     * @param directory Directory holding the store files (created on the first commit)
+     */
+    public LsmStore(String directory) {
+        this.directory = new File(directory);
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "lsm-compaction");
+            thread.setDaemon(true); // A compaction cut short at exit leaves the old segments in place
+            return thread;
+        });
+    }
+
+    /**
+     * Reads the MANIFEST and the segment indexes, and deletes files left over by an
+     * interrupted commit or compaction. Called by every other method; does nothing once opened.
+     * @throws IOException If the MANIFEST or an index cannot be read
+     */
+    public void open() throws IOException {
+        synchronized (manifestLock) {
+            if (opened) return;
+            List<Segment> loaded = new ArrayList<>();
+            File manifest = new File(directory, MANIFEST);
+            if (manifest.isFile()) {
+                try (CsvCursor row = CsvCursor.open(manifest.getPath())) {
+                    while (row.nextNonBlank()) {
+                        if ("next".equals(row.get(0))) {
+                            nextSegmentId = Long.parseLong(row.get(1));
+                        } else {
+                            loaded.add(Segment.open(directory, Long.parseLong(row.get(0))));
+                        }
+                    }
+                } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                    throw new IOException("Malformed manifest in " + directory + ": " + e.getMessage(), e);
+                }
+            }
+            segments = Collections.unmodifiableList(loaded);
+            deleteUnreferencedFiles();
+            opened = true;
+        }
+    }
+
+    /**
+     * Checks whether the store has been written before (a MANIFEST exists).
+     * @return true if the store holds committed data, even if every key was deleted
+     */
+    public boolean exists() {
+        return new File(directory, MANIFEST).isFile();
+    }
+
+    /**
+     * Stores a row under the key. Visible to get() at once, durable after commit().
+     * @param key The key
+     * @param row The fields to store
+     */
+    public synchronized void put(String key, String[] row) {
+        memtable.put(key, row.clone());
+    }
+
+    /**
+     * Deletes the key. Visible to get() at once, durable after commit().
+     * @param key The key
+     */
+    public synchronized void delete(String key) {
+        memtable.put(key, TOMBSTONE);
+    }
+
+    /**
+     * Reads the current row of one key without loading the rest of the store.
+     * @param key The key
+     * @return The stored fields, or null if the key is absent or deleted
+     * @throws IOException If a segment cannot be read
+     */
+    public String[] get(String key) throws IOException {
+        open();
+        synchronized (this) {
+            String[] row = memtable.get(key);
+            if (row == null && flushing != null) row = flushing.get(key);
+            if (row != null) return (row == TOMBSTONE) ? null : row.clone();
+        }
+        for (int attempt = 0; ; attempt++) {
+            List<Segment> current = segments;
+            try {
+                for (int i = current.size() - 1; i >= 0; i--) {
+                    String[] row = current.get(i).find(key);
+                    if (row != null) return (row == TOMBSTONE) ? null : row;
+                }
+                return null;
+            } catch (FileNotFoundException e) {
+                if (attempt > 0) throw e; // Segment was compacted away under us; retry with the new list
+            }
+        }
+    }
+
+    /**
+     * Streams every live entry in key order. Memory use does not depend on the store size.
+     * @param consumer Receives each key and row
+     * @throws IOException If a segment cannot be read or the consumer fails
+     */
+    public void forEach(EntryConsumer consumer) throws IOException {
+        open();
+        List<Segment> current = segments;
+        List<EntrySource> sources = new ArrayList<>();
+        for (Segment segment : current) sources.add(segment.scan());
+        synchronized (this) {
+            if (flushing != null) sources.add(new MapSource(new TreeMap<>(flushing)));
+            sources.add(new MapSource(new TreeMap<>(memtable)));
+        }
+        try (MergingSource merged = new MergingSource(sources)) {
+            while (merged.next()) {
+                if (merged.row() != TOMBSTONE) consumer.accept(merged.key(), merged.row());
+            }
+        }
+    }
+
+    /**
+     * Writes the memtable out as a new segment. Does nothing when the memtable is empty.
+     * @return Number of keys written
+     * @throws IOException If writing fails (the changes stay in the memtable)
+     */
+    public int commit() throws IOException {
+        synchronized (manifestLock) {
+            open();
+            TreeMap<String, String[]> batch;
+            synchronized (this) {
+                if (memtable.isEmpty()) return 0;
+                batch = memtable;
+                flushing = batch;
+                memtable = new TreeMap<>();
+            }
+            try {
+                Segment segment = Segment.write(directory, nextSegmentId, new MapSource(batch), false);
+                List<Segment> updated = new ArrayList<>(segments);
+                updated.add(segment);
+                installSegments(updated, nextSegmentId + 1, segment.fileBytes);
+            } catch (IOException | RuntimeException e) {
+                synchronized (this) {
+                    batch.putAll(memtable); // Changes made since the swap are newer
+                    memtable = batch;
+                }
+                throw e;
+            } finally {
+                synchronized (this) {
+                    flushing = null;
+                }
+            }
+            scheduleCompaction();
+            return batch.size();
+        }
+    }
+
+    /**
+     * Replaces the whole contents of the store with the given rows in a single segment.
+     * Pending puts and deletes are discarded.
+     * @param rows Every live key with its row
+     * @throws IOException If writing fails (the store is unchanged)
+     */
+    public void replaceAll(SortedMap<String, String[]> rows) throws IOException {
+        synchronized (manifestLock) {
+            open();
+            Segment segment = Segment.write(directory, nextSegmentId, new MapSource(rows), true);
+            List<Segment> updated = new ArrayList<>();
+            updated.add(segment);
+            installSegments(updated, nextSegmentId + 1, segment.fileBytes);
+            synchronized (this) {
+                memtable = new TreeMap<>();
+            }
+        }
+    }
+
+    /**
+     * Merges all segments into one, dropping overwritten versions and tombstones.
+     * Normally run in the background; callable directly (e.g. from benchmarks).
+     * @throws IOException If writing the merged segment fails (the old segments stay)
+     */
+    public void compact() throws IOException {
+        List<Segment> merging;
+        long id;
+        synchronized (manifestLock) {
+            merging = segments;
+            if (merging.size() < 2) return;
+            id = nextSegmentId++; // Reserved, so a concurrent commit picks another number
+        }
+        List<EntrySource> sources = new ArrayList<>();
+        for (Segment segment : merging) sources.add(segment.scan());
+        Segment merged;
+        try (MergingSource source = new MergingSource(sources)) {
+            // All segments take part, so nothing older can resurface once tombstones are dropped
+            merged = Segment.write(directory, id, source, true);
+        }
+        synchronized (manifestLock) {
+            List<Segment> current = segments;
+            if (current.size() < merging.size() || !current.subList(0, merging.size()).equals(merging)) {
+                merged.deleteFiles(); // replaceAll() ran meanwhile; the merge is obsolete
+                return;
+            }
+            List<Segment> updated = new ArrayList<>();
+            updated.add(merged);
+            updated.addAll(current.subList(merging.size(), current.size()));
+            installSegments(updated, nextSegmentId, merged.fileBytes);
+        }
+    }
+
+    /**
+     * Gets the number of live segment files.
+     * @return Segment count
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Gets the number of bytes this store has written (segments, indexes and MANIFEST).
+     * @return Bytes written
+     */
+    public long getBytesWritten() {
+        synchronized (manifestLock) {
+            return bytesWritten;
+        }
+    }
+
+    /**
+     * Stops the compaction thread, letting a running compaction finish.
+     */
+    public void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // === Internals ===
+
+    // Caller holds manifestLock. Writes the MANIFEST, then retires the segments it no longer names.
+    private void installSegments(List<Segment> updated, long next, long segmentBytes) throws IOException {
+        long manifestBytes = AtomicFile.write(new File(directory, MANIFEST).getPath(), out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            writer.write("next," + next + "\n");
+            for (Segment segment : updated) writer.write(segment.id + "\n");
+            writer.flush();
+        });
+        List<Segment> retired = new ArrayList<>(segments);
+        retired.removeAll(updated);
+        segments = Collections.unmodifiableList(updated);
+        nextSegmentId = next;
+        bytesWritten += segmentBytes + manifestBytes;
+        for (Segment segment : retired) segment.deleteFiles();
+    }
+
+    private void scheduleCompaction() {
+        synchronized (manifestLock) {
+            if (compactionQueued || segments.size() <= MAX_SEGMENTS || compactor.isShutdown()) return;
+            compactionQueued = true;
+        }
+        compactor.execute(() -> {
+            synchronized (manifestLock) {
+                compactionQueued = false;
+            }
+            try {
+                compact();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Warning: Compaction of " + directory + " failed: " + e.getMessage());
+            }
+        });
+    }
+
+    private void deleteUnreferencedFiles() {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        Set<String> live = new HashSet<>();
+        for (Segment segment : segments) {
+            live.add(segment.dataFile.getName());
+            live.add(segment.indexFile.getName());
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith("seg-") && !live.contains(name)) file.delete();
+        }
+    }
+
+    // === Segments ===
+
+    /**
+     * One immutable sorted segment and its sparse index, which is kept in memory.
+     */
+    private static class Segment {
+        final long id;
+        final File dataFile;
+        final File indexFile;
+        final int count;
+        final String firstKey;
+        final String lastKey;
+        final long dataLength;
+        final long fileBytes;
+        final String[] indexKeys;
+        final long[] indexOffsets;
+
+        private Segment(File directory, long id, int count, String firstKey, String lastKey, long dataLength,
+                        long fileBytes, List<String> keys, List<Long> offsets) {
+            this.id = id;
+            this.dataFile = dataFile(directory, id);
+            this.indexFile = indexFile(directory, id);
+            this.count = count;
+            this.firstKey = firstKey;
+            this.lastKey = lastKey;
+            this.dataLength = dataLength;
+            this.fileBytes = fileBytes;
+            this.indexKeys = keys.toArray(new String[0]);
+            this.indexOffsets = new long[offsets.size()];
+            for (int i = 0; i < indexOffsets.length; i++) indexOffsets[i] = offsets.get(i);
+        }
+
+        static File dataFile(File directory, long id) {
+            return new File(directory, String.format("seg-%06d.sst", id));
+        }
+
+        static File indexFile(File directory, long id) {
+            return new File(directory, String.format("seg-%06d.idx", id));
+        }
+
+        // Writes the entries of the source (in key order) as segment number id
+        static Segment write(File directory, long id, EntrySource source, boolean dropTombstones) throws IOException {
+            List<String> keys = new ArrayList<>();
+            List<Long> offsets = new ArrayList<>();
+            long[] position = { 0 };
+            int[] count = { 0 };
+            String[] range = { null, null };
+            long dataBytes = AtomicFile.write(dataFile(directory, id).getPath(), out -> {
+                while (source.next()) {
+                    String[] row = source.row();
+                    if (row == TOMBSTONE && dropTombstones) continue;
+                    if (count[0] % INDEX_INTERVAL == 0) {
+                        keys.add(source.key());
+                        offsets.add(position[0]);
+                    }
+                    byte[] line = encode(source.key(), row).getBytes(StandardCharsets.UTF_8);
+                    out.write(line);
+                    position[0] += line.length;
+                    if (range[0] == null) range[0] = source.key();
+                    range[1] = source.key();
+                    count[0]++;
+                }
+            });
+            long indexBytes = AtomicFile.write(indexFile(directory, id).getPath(), out -> {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                writer.write(count[0] + "," + CsvRepository.escapeCsvField(range[0]) + ","
+                        + CsvRepository.escapeCsvField(range[1]) + "," + position[0] + "\n");
+                for (int i = 0; i < keys.size(); i++) {
+                    writer.write(CsvRepository.escapeCsvField(keys.get(i)) + "," + offsets.get(i) + "\n");
+                }
+                writer.flush();
+            });
+            return new Segment(directory, id, count[0], range[0], range[1], position[0], dataBytes + indexBytes, keys, offsets);
+        }
+
+        // Reads the index of an existing segment
+        static Segment open(File directory, long id) throws IOException {
+            File index = indexFile(directory, id);
+            List<String> keys = new ArrayList<>();
+            List<Long> offsets = new ArrayList<>();
+            try (CsvCursor row = CsvCursor.open(index.getPath())) {
+                if (!row.next() || row.size() < 4) throw new IOException("Malformed segment index: " + index);
+                int count = Integer.parseInt(row.get(0));
+                String firstKey = row.get(1);
+                String lastKey = row.get(2);
+                long dataLength = Long.parseLong(row.get(3));
+                while (row.nextNonBlank()) {
+                    keys.add(row.get(0));
+                    offsets.add(Long.parseLong(row.get(1)));
+                }
+                return new Segment(directory, id, count, firstKey, lastKey, dataLength, 0, keys, offsets);
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                throw new IOException("Malformed segment index: " + index, e);
+            }
+        }
+
+        // Looks up one key: TOMBSTONE if deleted here, null if this segment does not hold it
+        String[] find(String key) throws IOException {
+            if (count == 0 || key.compareTo(firstKey) < 0 || key.compareTo(lastKey) > 0) return null;
+            int low = 0;
+            int high = indexKeys.length - 1;
+            while (low < high) { // Last index entry whose key is <= key
+                int mid = (low + high + 1) >>> 1;
+                if (indexKeys[mid].compareTo(key) <= 0) low = mid; else high = mid - 1;
+            }
+            try (FileInputStream in = new FileInputStream(dataFile)) { // Closed even if positioning or decoding fails
+                in.getChannel().position(indexOffsets[low]);
+                CsvCursor row = new CsvCursor(new InputStreamReader(new BufferedInputStream(in, 4096), StandardCharsets.UTF_8));
+                // Unverified read of a few records; scan() verifies the whole file
+                for (int i = 0; i < INDEX_INTERVAL && row.next(); i++) {
+                    if (row.size() < 2) break; // Reached the checksum footer
+                    int order = row.get(1).compareTo(key);
+                    if (order == 0) return decode(row);
+                    if (order > 0) break;
+                }
+            }
+            return null;
+        }
+
+        // Sequential, checksum-verified reader over the whole segment
+        EntrySource scan() throws IOException {
+            CsvCursor row = CsvCursor.open(dataFile.getPath());
+            return new EntrySource() {
+                private String[] current;
+
+                @Override
+                public boolean next() throws IOException {
+                    while (row.nextNonBlank()) {
+                        if (row.size() < 2) throw new IOException("Malformed record in " + dataFile);
+                        current = decode(row);
+                        return true;
+                    }
+                    return false;
+                }
+
+                @Override
+                public String key() {
+                    return row.get(1);
+                }
+
+                @Override
+                public String[] row() {
+                    return current;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    row.close();
+                }
+            };
+        }
+
+        void deleteFiles() {
+            dataFile.delete();
+            indexFile.delete();
+        }
+
+        private static String encode(String key, String[] row) {
+            StringBuilder line = new StringBuilder((row == TOMBSTONE) ? "D," : "P,");
+            line.append(CsvRepository.escapeCsvField(key));
+            if (row != TOMBSTONE) {
+                for (String field : row) line.append(',').append(CsvRepository.escapeCsvField(field));
+            }
+            return line.append('\n').toString();
+        }
+
+        private static String[] decode(CsvRow record) {
+            if ("D".equals(record.get(0))) return TOMBSTONE;
+            String[] row = new String[record.size() - 2];
+            for (int i = 0; i < row.length; i++) row[i] = record.get(i + 2);
+            return row;
+        }
+    }
+
+    // === Entry sources and merging ===
+
+    // Entries in ascending key order; row() is TOMBSTONE for a delete
+    private interface EntrySource extends Closeable {
+        boolean next() throws IOException;
+        String key();
+        String[] row();
+
+        @Override
+        default void close() throws IOException {
+        }
+    }
+
+    private static class MapSource implements EntrySource {
+        private final Iterator<Map.Entry<String, String[]>> entries;
+        private Map.Entry<String, String[]> current;
+
+        MapSource(SortedMap<String, String[]> map) {
+            this.entries = map.entrySet().iterator();
+        }
+
+        @Override
+        public boolean next() {
+            if (!entries.hasNext()) return false;
+            current = entries.next();
+            return true;
+        }
+
+        @Override
+        public String key() {
+            return current.getKey();
+        }
+
+        @Override
+        public String[] row() {
+            return current.getValue();
+        }
+    }
+
+    /**
+     * k-way merge of sources given oldest first: each key is returned once, with the row
+     * of the newest source holding it.
+     */
+    private static class MergingSource implements EntrySource {
+        private final List<EntrySource> sources;
+        private final PriorityQueue<Integer> heap; // Source positions, smallest key first, newest first on ties
+        private String key;
+        private String[] row;
+
+        MergingSource(List<EntrySource> sources) throws IOException {
+            this.sources = sources;
+            this.heap = new PriorityQueue<>((a, b) -> {
+                int order = sources.get(a).key().compareTo(sources.get(b).key());
+                return (order != 0) ? order : Integer.compare(b, a);
+            });
+            try {
+                for (int i = 0; i < sources.size(); i++) {
+                    if (sources.get(i).next()) heap.add(i);
+                }
+            } catch (IOException | RuntimeException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (heap.isEmpty()) return false;
+            int newest = heap.poll();
+            key = sources.get(newest).key();
+            row = sources.get(newest).row();
+            if (sources.get(newest).next()) heap.add(newest);
+            while (!heap.isEmpty() && sources.get(heap.peek()).key().equals(key)) {
+                int older = heap.poll(); // Shadowed by the newer version
+                if (sources.get(older).next()) heap.add(older);
+            }
+            return true;
+        }
+
+        @Override
+        public String key() {
+            return key;
+        }
+
+        @Override
+        public String[] row() {
+            return row;
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException first = null;
+            for (EntrySource source : sources) {
+                try {
+                    source.close();
+                } catch (IOException e) {
+                    if (first == null) first = e;
+                }
+            }
+            if (first != null) throw first;
+        }
+    }
+}
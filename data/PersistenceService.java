@@ -0,0 +1,236 @@
+package data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Background persistence thread that takes journal I/O off the interactive path.
+ * Published change records are queued and written to the change journal in group
+ * commits: a batch is committed once it holds batchSize records or its oldest record
+ * has waited commitIntervalMillis, whichever comes first.
+ *
+ * Callers that must not continue before a change is on disk (e.g. booking a flat)
+ * use ChangeEvents.publishDurable(), which waits in awaitDurable() until the batch
+ * holding the record has been committed and synced.
+ *
+ * Checkpoints (journal compaction, or a CSV save when journaling is off) read the
+ * domain objects, which are plain collections changed only by the CLI thread. They
+ * therefore run on the thread that asks for them, after the queued records have been
+ * committed, so no change can land halfway through a checkpoint. The persistence
+ * thread itself only ever touches the change records, which are immutable.
+ */
+public class PersistenceService implements ChangeEvents.DurableListener {
+
+    /**
+     * A full write of the in-memory data, run on the thread that changes that data.
+     */
+    public interface Checkpoint {
+        /**
+         * Writes the current data to disk.
+         * @throws IOException If writing fails
+         */
+        void run() throws IOException;
+    }
+
+    private static final long DURABLE_TIMEOUT_MILLIS = 10_000;
+
+    private final ChangeJournal journal; // Null when journaling is off
+    private final Checkpoint checkpoint;
+    private final long commitIntervalMillis;
+    private final int batchSize;
+    private final Thread thread;
+
+    // All fields below are guarded by this
+    private final List<ChangeRecord> pending = new ArrayList<>();
+    private long oldestPendingAt;
+    private long enqueued = 0;
+    private long committed = 0;
+    private int commitFailures = 0;
+    private IOException lastCommitError;
+    private boolean flushRequested = false;
+    private boolean closed = false;
+
+    /**
+     * Creates and starts the persistence thread.
+     * @param journal Journal to group-commit records to, or null to only run checkpoints
+     * @param checkpoint Full write to run from checkpoint()
+     * @param commitIntervalMillis Longest time a record waits before its batch is committed
+     * @param batchSize Number of queued records that triggers an immediate commit
+     */
+    public PersistenceService(ChangeJournal journal, Checkpoint checkpoint, long commitIntervalMillis, int batchSize) {
+        this.journal = journal;
+        this.checkpoint = checkpoint;
+        this.commitIntervalMillis = Math.max(1, commitIntervalMillis);
+        this.batchSize = Math.max(1, batchSize);
+        this.thread = new Thread(this::runLoop, "persistence");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues the record for the next group commit.
+     * @param record The change record
+     */
+    @Override
+    public synchronized void onChange(ChangeRecord record) {
+        if (journal == null || closed) return; // Without a journal, the ChangeSet and checkpoints cover it
+        boolean first = pending.isEmpty();
+        if (first) oldestPendingAt = System.currentTimeMillis();
+        pending.add(record);
+        enqueued++;
+        if (first || pending.size() >= batchSize) notifyAll(); // The first record starts the commit interval
+    }
+
+    /**
+     * Waits until everything queued so far has been committed and synced. Without a
+     * journal, a checkpoint is run instead.
+     * @throws IOException If the commit or checkpoint failed, or the commit did not finish in time
+     */
+    @Override
+    public void awaitDurable() throws IOException {
+        if (journal == null) {
+            checkpoint.run();
+            return;
+        }
+        synchronized (this) {
+            long target = enqueued;
+            int failuresBefore = commitFailures;
+            flushRequested = true;
+            notifyAll();
+            waitFor(() -> committed >= target, "commit");
+            // Batches are committed in order, so any failure since we started covered our records
+            if (commitFailures > failuresBefore) {
+                throw new IOException("Group commit failed: " + lastCommitError.getMessage(), lastCommitError);
+            }
+        }
+    }
+
+    /**
+     * Commits the queued records, then runs a checkpoint on the calling thread, which must be
+     * the thread that changes the data (the CLI thread). A failed commit does not stop the
+     * checkpoint: its records are still dirty in the ChangeSet, so the checkpoint writes them.
+     * @throws IOException If the checkpoint failed
+     */
+    public void checkpoint() throws IOException {
+        if (journal != null) {
+            try {
+                awaitDurable();
+            } catch (IOException e) {
+                System.err.println("Warning: " + e.getMessage() + " Running the checkpoint anyway.");
+            }
+        }
+        checkpoint.run();
+    }
+
+    /**
+     * Commits the queued records and stops the thread.
+     * @param finalCheckpoint true to run one last checkpoint (on the calling thread) once the thread has stopped
+     * @throws IOException If the final commit or checkpoint failed
+     */
+    public void close(boolean finalCheckpoint) throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        ChangeEvents.removeListener(this);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing persistence thread.", e);
+        }
+        IOException commitError;
+        synchronized (this) {
+            commitError = (lastCommitError != null && enqueued > committed) ? lastCommitError : null;
+        }
+        if (finalCheckpoint) checkpoint.run(); // Also writes any records a failed commit left dirty
+        else if (commitError != null) throw commitError;
+    }
+
+    /**
+     * Gets the number of records committed to the journal so far.
+     * @return Committed record count
+     */
+    public synchronized long getCommittedCount() {
+        return committed;
+    }
+
+    // === Persistence thread ===
+
+    private void runLoop() {
+        while (true) {
+            List<ChangeRecord> batch;
+            boolean stop;
+            synchronized (this) {
+                while (!closed && !flushRequested && pending.size() < batchSize) {
+                    try {
+                        if (pending.isEmpty()) {
+                            wait();
+                        } else {
+                            long remaining = oldestPendingAt + commitIntervalMillis - System.currentTimeMillis();
+                            if (remaining <= 0) break;
+                            wait(remaining);
+                        }
+                    } catch (InterruptedException e) {
+                        closed = true;
+                    }
+                }
+                batch = new ArrayList<>(pending);
+                pending.clear();
+                flushRequested = false;
+                stop = closed;
+            }
+
+            if (!batch.isEmpty()) commit(batch);
+            if (stop) {
+                synchronized (this) {
+                    if (pending.isEmpty()) return;
+                }
+            }
+        }
+    }
+
+    private void commit(List<ChangeRecord> batch) {
+        IOException error = null;
+        try {
+            journal.appendAll(batch);
+            journal.sync();
+        } catch (IOException e) {
+            // The records are still dirty in the ChangeSet, so the next checkpoint writes them
+            System.err.println("Error committing " + batch.size() + " change(s) to the journal: " + e.getMessage());
+            error = e;
+        }
+        synchronized (this) {
+            committed += batch.size();
+            if (error != null) {
+                commitFailures++;
+                lastCommitError = error;
+            }
+            notifyAll();
+        }
+    }
+
+    // A condition over the fields guarded by this
+    private interface Condition {
+        boolean holds();
+    }
+
+    // Caller must hold the lock
+    private void waitFor(Condition condition, String what) throws IOException {
+        long deadline = System.currentTimeMillis() + DURABLE_TIMEOUT_MILLIS;
+        while (!condition.holds()) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0 || (closed && !thread.isAlive())) {
+                throw new IOException("Timed out waiting for " + what + ".");
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for " + what + ".", e);
+            }
+        }
+    }
+}
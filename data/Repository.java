@@ -0,0 +1,135 @@
+package data;
+
+import Actors.User;
+import Project.Project;
+import Services.EnquiryService;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Storage backend for the application data: users, projects (with their flats, officer
+ * assignments and applications) and enquiries (with their replies).
+ * DataManager sits in front of a Repository and adds change tracking, the change journal
+ * and background persistence, so every backend gets those for free.
+ *
+ * Available backends:
+ *   - CsvRepository: one CSV file per table (the default), with a binary snapshot as load cache
+ *   - ShardedCsvRepository: CSV files, with applications and officer assignments split per project
+ *   - SnapshotRepository: a single binary file, rewritten as a whole on every save
+ *   - LsmRepository: CSV files, except applications and enquiries, which live in log-structured stores
+ *   - InMemoryRepository: keeps the last saved data in memory only (benchmarks and tests)
+ */
+public interface Repository {
+
+    /**
+     * Data returned by load().
+     */
+    class Contents {
+        private final Map<String, User> users;
+        private final Map<String, Project> projects;
+        private final Set<ChangeRecord.Table> staleTables;
+
+        /**
+         * Creates the load result.
+         * @param users Map of NRIC to User
+         * @param projects Map of project name to Project (with flats, officers and applications linked)
+         * @param staleTables Tables the backend wants rewritten at the next save (e.g. outdated format)
+         */
+        public Contents(Map<String, User> users, Map<String, Project> projects, Set<ChangeRecord.Table> staleTables) {
+            this.users = users;
+            this.projects = projects;
+            this.staleTables = staleTables.isEmpty() ? EnumSet.noneOf(ChangeRecord.Table.class) : EnumSet.copyOf(staleTables);
+        }
+
+        /**
+         * Gets the loaded users.
+         * @return Map of NRIC to User
+         */
+        public Map<String, User> getUsers() {
+            return users;
+        }
+
+        /**
+         * Gets the loaded projects.
+         * @return Map of project name to Project
+         */
+        public Map<String, Project> getProjects() {
+            return projects;
+        }
+
+        /**
+         * Gets the tables that should be rewritten at the next save even though nothing changed.
+         * @return Set of stale tables
+         */
+        public Set<ChangeRecord.Table> getStaleTables() {
+            return staleTables;
+        }
+    }
+
+    /**
+     * Gets the short name of this backend (as used by -Dbto.storage).
+     * @return Backend name
+     */
+    String getName();
+
+    /**
+     * Gets the folder this backend stores its files in.
+     * @return Folder path, or null if nothing is stored on disk
+     */
+    String getDataFolder();
+
+    /**
+     * Loads all data and links it together. Enquiries are loaded into the given service.
+     * @param enquiryService Service to populate with enquiries and replies
+     * @return The loaded users and projects
+     * @throws IOException If the stored data cannot be read
+     */
+    Contents load(EnquiryService enquiryService) throws IOException;
+
+    /**
+     * Writes the given tables.
+     * @param tables Tables to write; a backend may write more (e.g. one file holding every table)
+     * @param users Map of all users
+     * @param projects Map of all projects
+     * @param enquiryService Service holding all enquiries
+     * @throws IOException If writing fails
+     */
+    void save(Set<ChangeRecord.Table> tables, Map<String, User> users, Map<String, Project> projects,
+              EnquiryService enquiryService) throws IOException;
+
+    /**
+     * Writes the changed entities. The default rewrites every table that holds a change;
+     * a backend that can update single rows (e.g. LsmRepository) overrides this.
+     * @param changes Changed keys per table, as returned by ChangeRecord.getKey(); the key
+     *                "*" means the whole table must be written
+     * @param users Map of all users
+     * @param projects Map of all projects
+     * @param enquiryService Service holding all enquiries
+     * @throws IOException If writing fails
+     */
+    default void saveChanges(Map<ChangeRecord.Table, Set<String>> changes, Map<String, User> users,
+                             Map<String, Project> projects, EnquiryService enquiryService) throws IOException {
+        save(changes.isEmpty() ? EnumSet.noneOf(ChangeRecord.Table.class) : EnumSet.copyOf(changes.keySet()),
+             users, projects, enquiryService);
+    }
+
+    /**
+     * Writes every table.
+     * @param users Map of all users
+     * @param projects Map of all projects
+     * @param enquiryService Service holding all enquiries
+     * @throws IOException If writing fails
+     */
+    default void saveAll(Map<String, User> users, Map<String, Project> projects, EnquiryService enquiryService) throws IOException {
+        save(EnumSet.allOf(ChangeRecord.Table.class), users, projects, enquiryService);
+    }
+
+    /**
+     * Gets the total number of bytes this backend has written to disk.
+     * @return Bytes written
+     */
+    long getBytesWritten();
+}
@@ -0,0 +1,432 @@
+package data;
+
+import Actors.Applicant;
+import Actors.Officer;
+import Actors.User;
+import Project.Project;
+import Services.EnquiryService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * CSV storage backend that splits applications and officer assignments into one shard per
+ * project, so a change to one project's applications rewrites only that project's files:
+ *
+ *   data_folder/shards/Acacia_Breeze-1a2b3c4d/applications.csv
+ *   data_folder/shards/Acacia_Breeze-1a2b3c4d/officers.csv
+ *
+ * A shard directory is named after the project (characters other than letters, digits and
+ * '-' replaced by '_') plus the hash of the full name, so names that sanitise alike do not
+ * collide. Rows keep the same columns as the global files and are sorted by NRIC.
+ * Shards are read and written in parallel, and on save only shards whose rows differ from
+ * what was last written are rewritten; shards of deleted or renamed projects are removed.
+ * Every other table stays in its global CSV file, as in CsvRepository.
+ *
+ * Until a table has been written in sharded form (marked by shards/applications.sharded or
+ * shards/officers.sharded), it is loaded from the global file and split at the next save.
+ */
+public class ShardedCsvRepository extends CsvRepository {
+
+    private static final String SHARD_FOLDER = "shards";
+    private static final String APPLICATIONS_FILE = "applications.csv";
+    private static final String OFFICERS_FILE = "officers.csv";
+    private static final int MAX_PARALLELISM = 8;
+    private static final Comparator<String[]> APPLICATION_ORDER = Comparator.comparing((String[] row) -> row[0]); // Applicant NRIC
+    private static final Comparator<String[]> OFFICER_ORDER = Comparator.comparing((String[] row) -> row[1]); // Officer NRIC
+
+    private static final List<String[]> DAMAGED = Collections.unmodifiableList(new ArrayList<>()); // Never equal to any rows
+
+    private final File shardFolder;
+    private final int parallelism;
+    private final Set<String> damagedPaths = ConcurrentHashMap.newKeySet(); // Shard files recovered from a previous generation
+
+    // Last written rows per shard, sorted like the files. Filled by the loaders (one table
+    // each, possibly in parallel), afterwards only used by saves, which are synchronized.
+    private final Map<String, List<String[]>> writtenApplications = new HashMap<>();
+    private final Map<String, List<String[]>> writtenOfficers = new HashMap<>();
+    private final Map<String, String> applicationShardOf = new HashMap<>(); // Applicant NRIC -> shard holding their row
+
+    /**
+     * Creates the sharded backend over the given data folder.
+     * @param dataFolder Folder holding the CSV files and the shards/ directory
+     */
+    public ShardedCsvRepository(String dataFolder) {
+        super(dataFolder, false); // The snapshot cache is rewritten as a whole, which would defeat sharding
+        this.shardFolder = new File(dataFolder, SHARD_FOLDER);
+        this.parallelism = Math.max(1, Math.min(MAX_PARALLELISM, Runtime.getRuntime().availableProcessors()));
+    }
+
+    @Override
+    public String getName() {
+        return "sharded";
+    }
+
+    /**
+     * Gets the shard directory name of a project.
+     * @param projectName Project name
+     * @return Directory name, unique per project name
+     */
+    public static String shardName(String projectName) {
+        StringBuilder name = new StringBuilder();
+        for (char c : projectName.toCharArray()) {
+            if (name.length() == 40) break;
+            boolean safe = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-';
+            name.append(safe ? c : '_');
+        }
+        return name.append(String.format("-%08x", projectName.hashCode())).toString();
+    }
+
+    // === Loading ===
+
+    /**
+     * Loads officer assignments from every project shard (read in parallel), or from
+     * project_officers.csv if the table has not been sharded yet.
+     * @param projects Map of projects loaded by loadProjectsCore.
+     * @param users Map of users loaded by loadUsers.
+     * @throws IOException If a shard cannot be read.
+     */
+    @Override
+    public void loadProjectOfficers(Map<String, Project> projects, Map<String, User> users) throws IOException {
+        if (!isSharded(OFFICERS_FILE)) {
+            super.loadProjectOfficers(projects, users);
+            markStale(ChangeRecord.Table.OFFICERS); // Split into shards at the next save
+            return;
+        }
+        int assignmentsLoaded = 0;
+        Map<String, List<String[]>> shards = readShards(OFFICERS_FILE, writtenOfficers);
+        for (List<String[]> rows : shards.values()) {
+            for (String[] row : rows) {
+                if (applyOfficerRow(CsvRow.of(row), projects, users)) assignmentsLoaded++;
+            }
+        }
+        System.out.println("Loaded " + assignmentsLoaded + " officer assignments from " + shards.size() + " shards.");
+    }
+
+    /**
+     * Loads applications from every project shard (read in parallel), or from
+     * applications.csv if the table has not been sharded yet.
+     * @param projects Map of projects loaded by loadProjectsCore.
+     * @param users Map of users loaded by loadUsers.
+     * @throws IOException If a shard cannot be read.
+     */
+    @Override
+    public void loadApplications(Map<String, Project> projects, Map<String, User> users) throws IOException {
+        if (!isSharded(APPLICATIONS_FILE)) {
+            super.loadApplications(projects, users);
+            markStale(ChangeRecord.Table.APPLICATIONS);
+            return;
+        }
+        int appsLoaded = 0;
+        Map<String, List<String[]>> shards = readShards(APPLICATIONS_FILE, writtenApplications);
+        applicationShardOf.clear();
+        for (Map.Entry<String, List<String[]>> shard : shards.entrySet()) {
+            for (String[] row : shard.getValue()) {
+                if (applyApplicationRow(CsvRow.of(row), projects, users)) appsLoaded++;
+                if (row.length > 0) applicationShardOf.put(row[0], shard.getKey());
+            }
+        }
+        System.out.println("Loaded " + appsLoaded + " applications from " + shards.size() + " shards.");
+    }
+
+    private boolean isSharded(String fileName) {
+        return new File(shardFolder, markerName(fileName)).isFile();
+    }
+
+    private static String markerName(String fileName) {
+        return fileName.replace(".csv", ".sharded");
+    }
+
+    // Reads the given file of every shard in parallel. A shard recovered from its previous
+    // generation is recorded as DAMAGED, so the next save rewrites it.
+    private Map<String, List<String[]>> readShards(String fileName, Map<String, List<String[]>> written) throws IOException {
+        File[] directories = shardFolder.listFiles(File::isDirectory);
+        List<Callable<List<String[]>>> tasks = new ArrayList<>();
+        List<File> files = new ArrayList<>();
+        if (directories != null) {
+            for (File directory : directories) {
+                File file = new File(directory, fileName);
+                if (!file.isFile()) continue;
+                files.add(file);
+                tasks.add(() -> withFallback(() -> readRows(file.getPath())));
+            }
+        }
+        List<List<String[]>> results = runAll(tasks);
+        Map<String, List<String[]>> shards = new TreeMap<>(); // Applied in a fixed order
+        written.clear();
+        for (int i = 0; i < files.size(); i++) {
+            String shard = files.get(i).getParentFile().getName();
+            shards.put(shard, results.get(i));
+            written.put(shard, damagedPaths.remove(files.get(i).getPath()) ? DAMAGED : results.get(i));
+        }
+        return shards;
+    }
+
+    private List<String[]> readRows(String path) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (CsvCursor row = openCsvFile(path)) {
+            while (row.nextNonBlank()) rows.add(row.toArray());
+        }
+        return rows;
+    }
+
+    @Override
+    ChangeRecord.Table tableForPath(String path) {
+        if (!path.startsWith(shardFolder.getPath())) return super.tableForPath(path);
+        damagedPaths.add(path);
+        return path.endsWith(OFFICERS_FILE) ? ChangeRecord.Table.OFFICERS : ChangeRecord.Table.APPLICATIONS;
+    }
+
+    // === Saving ===
+
+    /**
+     * Writes the given tables; applications and officers are compared shard by shard and
+     * only differing shards are rewritten.
+     * @param tables Tables to write
+     * @param users Map of all users
+     * @param projects Map of all projects
+     * @param enquiryService Service holding all enquiries
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void save(Set<ChangeRecord.Table> tables, Map<String, User> users, Map<String, Project> projects,
+                     EnquiryService enquiryService) throws IOException {
+        Map<ChangeRecord.Table, Set<String>> changes = new HashMap<>();
+        for (ChangeRecord.Table table : tables) changes.put(table, Set.of("*"));
+        saveChanges(changes, users, projects, enquiryService);
+    }
+
+    /**
+     * Writes the changed data. For applications, only the shards of the changed applicants'
+     * current and previous projects are rebuilt; a whole-table change ("*") rebuilds every
+     * shard in memory. Either way, only shards whose rows differ from the last written ones
+     * are written, in parallel.
+     * @param changes Changed keys per table ("*" for a whole table)
+     * @param users Map of all users
+     * @param projects Map of all projects
+     * @param enquiryService Service holding all enquiries
+     * @throws IOException If writing fails (the shards that were written stay written)
+     */
+    @Override
+    public synchronized void saveChanges(Map<ChangeRecord.Table, Set<String>> changes, Map<String, User> users,
+                                         Map<String, Project> projects, EnquiryService enquiryService) throws IOException {
+        EnumSet<ChangeRecord.Table> csvTables = EnumSet.noneOf(ChangeRecord.Table.class);
+        for (ChangeRecord.Table table : changes.keySet()) {
+            if (table != ChangeRecord.Table.APPLICATIONS && table != ChangeRecord.Table.OFFICERS) csvTables.add(table);
+        }
+        super.save(csvTables, users, projects, enquiryService);
+
+        Set<String> applicationKeys = changes.get(ChangeRecord.Table.APPLICATIONS);
+        if (applicationKeys != null) {
+            boolean full = applicationKeys.contains("*") || !isSharded(APPLICATIONS_FILE);
+            Map<String, List<String[]>> rows = full ? allApplicationRows(projects) : applicationRows(applicationKeys, users, projects);
+            saveShards(APPLICATIONS_FILE, APPLICATIONS_HEADER, rows, writtenApplications, full);
+            for (Map.Entry<String, List<String[]>> shard : rows.entrySet()) {
+                if (writtenApplications.get(shard.getKey()) != shard.getValue()) continue; // Not written
+                applicationShardOf.values().removeIf(shard.getKey()::equals);
+                for (String[] row : shard.getValue()) applicationShardOf.put(row[0], shard.getKey());
+            }
+            if (full) applicationShardOf.keySet().retainAll(currentApplicants(rows));
+        }
+        if (changes.containsKey(ChangeRecord.Table.OFFICERS)) {
+            // Officer changes are only published as whole-table changes; rebuilding every shard in memory is cheap
+            saveShards(OFFICERS_FILE, OFFICERS_HEADER, allOfficerRows(users), writtenOfficers, true);
+        }
+    }
+
+    private static Set<String> currentApplicants(Map<String, List<String[]>> rows) {
+        Set<String> nrics = new HashSet<>();
+        for (List<String[]> shard : rows.values()) {
+            for (String[] row : shard) nrics.add(row[0]);
+        }
+        return nrics;
+    }
+
+    // Rows of every project's shard
+    private static Map<String, List<String[]>> allApplicationRows(Map<String, Project> projects) {
+        Map<String, List<String[]>> rows = new HashMap<>();
+        for (Project project : projects.values()) {
+            if (project != null) rows.put(shardName(project.getName()), projectApplicationRows(project));
+        }
+        return rows;
+    }
+
+    // Rows of the shards that hold, or held, one of the changed applicants
+    private Map<String, List<String[]>> applicationRows(Set<String> nrics, Map<String, User> users, Map<String, Project> projects) {
+        Set<String> affected = new HashSet<>();
+        for (String nric : nrics) {
+            String previous = applicationShardOf.get(nric);
+            if (previous != null) affected.add(previous);
+            User user = users.get(nric);
+            if (user instanceof Applicant && ((Applicant) user).getProject() != null) {
+                affected.add(shardName(((Applicant) user).getProject().getName()));
+            }
+        }
+        Map<String, List<String[]>> rows = new HashMap<>();
+        for (Project project : projects.values()) {
+            if (project == null) continue;
+            String shard = shardName(project.getName());
+            if (affected.remove(shard)) rows.put(shard, projectApplicationRows(project));
+        }
+        for (String orphan : affected) rows.put(orphan, Collections.emptyList()); // Project no longer exists
+        return rows;
+    }
+
+    private static List<String[]> projectApplicationRows(Project project) {
+        List<String[]> rows = new ArrayList<>();
+        for (Applicant applicant : project.getAllApplicants()) {
+            if (applicant == null) continue;
+            try {
+                rows.add(applicationRow(applicant, project));
+            } catch (NullPointerException e) {
+                System.err.println("Error saving application for applicant: " + applicant.getNric() + " in project " + project.getName() + ". Missing required fields. Skipping application.");
+            }
+        }
+        rows.sort(APPLICATION_ORDER);
+        return rows;
+    }
+
+    private static Map<String, List<String[]>> allOfficerRows(Map<String, User> users) {
+        Map<String, List<String[]>> rows = new HashMap<>();
+        for (User user : users.values()) {
+            if (!(user instanceof Officer)) continue;
+            Officer officer = (Officer) user;
+            for (Map.Entry<Project, String> entry : officer.getProjectAssignments().entrySet()) {
+                Project project = entry.getKey();
+                if (project != null && officer.getNric() != null && entry.getValue() != null) {
+                    rows.computeIfAbsent(shardName(project.getName()), s -> new ArrayList<>())
+                        .add(officerRow(project, officer, entry.getValue()));
+                }
+            }
+        }
+        for (List<String[]> shard : rows.values()) shard.sort(OFFICER_ORDER);
+        return rows;
+    }
+
+    /**
+     * Writes every shard whose rows differ from the last written ones, in parallel. With
+     * complete set to true, rows holds every shard, and shards missing from it are removed.
+     */
+    private void saveShards(String fileName, String header, Map<String, List<String[]>> rows,
+                            Map<String, List<String[]>> written, boolean complete) throws IOException {
+        Map<String, List<String[]>> changed = new TreeMap<>();
+        for (Map.Entry<String, List<String[]>> shard : rows.entrySet()) {
+            if (!sameRows(written.get(shard.getKey()), shard.getValue())) changed.put(shard.getKey(), shard.getValue());
+        }
+        if (complete) {
+            for (String shard : written.keySet()) {
+                if (!rows.containsKey(shard)) changed.put(shard, Collections.emptyList());
+            }
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        Set<String> done = ConcurrentHashMap.newKeySet();
+        for (Map.Entry<String, List<String[]>> shard : changed.entrySet()) {
+            File file = new File(new File(shardFolder, shard.getKey()), fileName);
+            List<String[]> shardRows = shard.getValue();
+            tasks.add(() -> {
+                if (shardRows.isEmpty()) removeShardFile(file); else writeCsvFile(file.getPath(), shardRows, header);
+                done.add(shard.getKey());
+                return null;
+            });
+        }
+        try {
+            runAll(tasks);
+        } finally {
+            // A shard whose write failed keeps its old rows, so it differs again at the next save
+            for (String shard : done) {
+                List<String[]> shardRows = changed.get(shard);
+                if (shardRows.isEmpty()) written.remove(shard); else written.put(shard, shardRows);
+            }
+        }
+        if (complete && !isSharded(fileName)) {
+            AtomicFile.write(new File(shardFolder, markerName(fileName)).getPath(),
+                             out -> out.write(("Sharded per project in " + SHARD_FOLDER + "/*/" + fileName + "\n").getBytes(StandardCharsets.UTF_8)));
+        }
+        String table = fileName.replace(".csv", "");
+        System.out.println("Saved " + changed.size() + " " + table + " shard(s); " + written.size() + " on disk.");
+    }
+
+    private static boolean sameRows(List<String[]> written, List<String[]> rows) {
+        if (written == DAMAGED) return false;
+        if (written == null) return rows.isEmpty();
+        if (written.size() != rows.size()) return false;
+        for (int i = 0; i < rows.size(); i++) {
+            if (!Arrays.equals(written.get(i), rows.get(i))) return false;
+        }
+        return true;
+    }
+
+    // Removes a shard file (and the directory once it is empty)
+    private static void removeShardFile(File file) throws IOException {
+        Files.deleteIfExists(file.toPath());
+        Files.deleteIfExists(new File(AtomicFile.previousGeneration(file.getPath())).toPath());
+        File directory = file.getParentFile();
+        String[] remaining = directory.list();
+        if (remaining != null && remaining.length == 0) Files.deleteIfExists(directory.toPath());
+    }
+
+    // Runs the tasks on up to parallelism threads and returns their results in order
+    private <T> List<T> runAll(List<Callable<T>> tasks) throws IOException {
+        List<T> results = new ArrayList<>();
+        if (tasks.size() <= 1) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (IOException | RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+            }
+            return results;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()), r -> {
+            Thread thread = new Thread(r, "shard-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) futures.add(pool.submit(task));
+            IOException failure = null;
+            for (Future<T> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (failure == null) {
+                        failure = (cause instanceof IOException) ? (IOException) cause : new IOException(cause.toString(), cause);
+                    }
+                    results.add(null);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted during shard I/O.", e);
+                }
+            }
+            if (failure != null) throw failure; // Every task has finished, so the caller sees a settled state
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
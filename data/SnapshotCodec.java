@@ -0,0 +1,462 @@
+package data;
+
+import Actors.Applicant;
+import Actors.Enquiry;
+import Actors.Officer;
+import Actors.Reply;
+import Actors.User;
+import Project.FlatType;
+import Project.Project;
+import Services.EnquiryService;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Compact, versioned binary snapshot of all application data.
+ * Used for fast cold starts; the CSV files remain the export/interchange format.
+ *
+ * Layout (all integers are unsigned LEB128 varints unless noted):
+ *   magic "BTOS" (4 bytes), version
+ *   dictionary:   count, strings        - neighbourhoods, statuses, flat types, roles, marital statuses
+ *   users:        count, { nric, name, age, marital#, role#, hash, salt, preferredNeighbourhood# }
+ *   projects:     count, { name, creator, neighbourhood#, visible (byte), openEpochDay, closeEpochDay,
+ *                          flatTypeCount, { flatType#, totalUnits, availableUnits, sellingPrice, unitLayout, nextBallotNumber } }
+ *   officers:     count, { user@, project@, status# }
+ *   applications: count, { user@, project@, flatType#, status#, flags (byte: 1 = withdrawal, 2 = applied, 4 = hold, 8 = waitlisted),
+ *                          unitNumber, [holdDeadline (8-byte epoch millis, only with flag 4)], [ballotNumber (only with flag 8)] }
+ *   enquiries:    count, { id, submitter ref, project ref, content, replyCount, { id, responder ref, content } }
+ *
+ * Strings are a varint of the byte length + 1 followed by UTF-8 bytes, or 0 for null. "#" marks
+ * a dictionary index (0 = null), "@" a position in the users/projects table written earlier in
+ * the file, and "ref" a table position + 1, or 0 followed by the raw string when the name is not
+ * in the table. Dates are stored as zigzag-encoded epoch days + 1, or 0 for null.
+ * Before version 6, strings were the bare byte length and dates the bare epoch day, so null
+ * strings were read back as "" and null dates as 1970-01-01; such files are read as written.
+ * Version 2 files (without unitLayout and unitNumber) are still read; their booked applicants
+ * get units as if loaded from old CSV files.
+ * Version 3 and 4 files (without hold deadlines, or without ballot numbers) are read too; their
+ * Successful applicants get a new hold and their ballot losers are not waitlisted.
+ */
+public class SnapshotCodec {
+
+    private static final int MAGIC = 0x42544F53; // "BTOS"
+    private static final int VERSION = 6; // 2: any number of flat types per project, 3: unit layouts and booked units, 4: hold deadlines, 5: waitlists, 6: null strings and dates
+    private static final int FLAG_WITHDRAWAL = 1;
+    private static final int FLAG_APPLIED = 2;
+    private static final int FLAG_HOLD = 4;
+    private static final int FLAG_WAITLISTED = 8;
+
+    /**
+     * Users and projects restored from a snapshot (enquiries go straight into the EnquiryService).
+     */
+    public static class Contents {
+        private final Map<String, User> users;
+        private final Map<String, Project> projects;
+
+        Contents(Map<String, User> users, Map<String, Project> projects) {
+            this.users = users;
+            this.projects = projects;
+        }
+
+        /**
+         * Gets the restored users.
+         * @return Map of NRIC to User */
+        public Map<String, User> getUsers() {
+            return users;
+        }
+
+        /**
+         * Gets the restored projects.
+         * @return Map of project name to Project */
+        public Map<String, Project> getProjects() {
+            return projects;
+        }
+    }
+
+    private SnapshotCodec() {
+    }
+
+    // === Writing ===
+
+    /**
+     * Writes a snapshot of all data. The file is replaced atomically with a checksum footer
+     * (see AtomicFile), so a reader never sees a half-written or damaged snapshot.
+     * @param filePath Destination path
+     * @param users Map of all users
+     * @param projects Map of all projects
+     * @param enquiryService Service holding all enquiries
+     * @return Number of bytes written
+     * @throws IOException If writing fails
+     */
+    public static long write(String filePath, Map<String, User> users, Map<String, Project> projects, EnquiryService enquiryService) throws IOException {
+        List<User> userList = new ArrayList<>(users.values());
+        List<Project> projectList = new ArrayList<>(projects.values());
+        Map<String, Integer> userIndex = new HashMap<>();
+        for (int i = 0; i < userList.size(); i++) userIndex.put(userList.get(i).getNric(), i);
+        Map<String, Integer> projectIndex = new HashMap<>();
+        for (int i = 0; i < projectList.size(); i++) projectIndex.put(projectList.get(i).getName(), i);
+
+        // Dictionary of low-cardinality strings; index 0 is reserved for null
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (User user : userList) {
+            intern(dictionary, user.getMaritalStatus());
+            intern(dictionary, user.getRole());
+            if (user instanceof Applicant) {
+                Applicant applicant = (Applicant) user;
+                intern(dictionary, applicant.getPreferredNeighbourhood());
+                intern(dictionary, applicant.getTypeFlat());
+                intern(dictionary, applicant.getAppStatus());
+            }
+            if (user instanceof Officer) {
+                for (String status : ((Officer) user).getProjectAssignments().values()) intern(dictionary, status);
+            }
+        }
+        for (Project project : projectList) {
+            intern(dictionary, project.getNeighbourhood());
+            for (FlatType type : project.getFlatTypes()) intern(dictionary, type.getName());
+        }
+
+        return AtomicFile.write(filePath, stream -> {
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeInt(MAGIC);
+            writeVarInt(out, VERSION);
+
+            writeVarInt(out, dictionary.size());
+            for (String entry : dictionary.keySet()) writeString(out, entry);
+
+            // Users
+            writeVarInt(out, userList.size());
+            for (User user : userList) {
+                writeString(out, user.getNric());
+                writeString(out, user.getName());
+                writeVarInt(out, user.getAge());
+                writeVarInt(out, code(dictionary, user.getMaritalStatus()));
+                writeVarInt(out, code(dictionary, user.getRole()));
+                writeString(out, user.getPassword());
+                writeString(out, user.getSalt());
+                writeVarInt(out, user instanceof Applicant ? code(dictionary, ((Applicant) user).getPreferredNeighbourhood()) : 0);
+            }
+
+            // Projects
+            writeVarInt(out, projectList.size());
+            for (Project project : projectList) {
+                writeString(out, project.getName());
+                writeString(out, project.getCreatorName());
+                writeVarInt(out, code(dictionary, project.getNeighbourhood()));
+                out.writeByte(Boolean.TRUE.equals(project.getVisibility()) ? 1 : 0);
+                writeDate(out, project.getAppOpeningDate());
+                writeDate(out, project.getAppClosingDate());
+                List<FlatType> flatTypes = project.getFlatTypes();
+                writeVarInt(out, flatTypes.size());
+                for (FlatType type : flatTypes) {
+                    writeVarInt(out, code(dictionary, type.getName()));
+                    writeVarInt(out, project.getTotalUnits(type));
+                    writeVarInt(out, project.getAvailableUnits(type));
+                    writeVarInt(out, project.getSellingPrice(type));
+                    writeString(out, project.getUnitLayout(type));
+                    writeVarInt(out, project.getNextBallotNumber(type));
+                }
+            }
+
+            // Officer assignments
+            List<int[]> assignments = new ArrayList<>();
+            for (int u = 0; u < userList.size(); u++) {
+                if (!(userList.get(u) instanceof Officer)) continue;
+                for (Map.Entry<Project, String> entry : ((Officer) userList.get(u)).getProjectAssignments().entrySet()) {
+                    Integer p = (entry.getKey() != null) ? projectIndex.get(entry.getKey().getName()) : null;
+                    if (p != null) assignments.add(new int[] { u, p, code(dictionary, entry.getValue()) });
+                }
+            }
+            writeVarInt(out, assignments.size());
+            for (int[] assignment : assignments) {
+                for (int value : assignment) writeVarInt(out, value);
+            }
+
+            // Applications
+            List<Applicant> applicants = new ArrayList<>();
+            for (User user : userList) {
+                if (user instanceof Applicant) {
+                    Applicant applicant = (Applicant) user;
+                    if (applicant.getProject() != null && projectIndex.containsKey(applicant.getProject().getName())) {
+                        applicants.add(applicant);
+                    }
+                }
+            }
+            writeVarInt(out, applicants.size());
+            for (Applicant applicant : applicants) {
+                writeVarInt(out, userIndex.get(applicant.getNric()));
+                writeVarInt(out, projectIndex.get(applicant.getProject().getName()));
+                writeVarInt(out, code(dictionary, applicant.getTypeFlat()));
+                writeVarInt(out, code(dictionary, applicant.getAppStatus()));
+                long holdDeadline = applicant.getProject().getHoldDeadline(applicant.getNric());
+                int ballotNumber = "Unsuccessful".equalsIgnoreCase(applicant.getAppStatus())
+                        ? applicant.getProject().getBallotNumber(applicant.getNric()) : -1;
+                out.writeByte((applicant.getWithdrawalStatus() ? FLAG_WITHDRAWAL : 0) | (applicant.isApplied() ? FLAG_APPLIED : 0)
+                        | (holdDeadline >= 0 ? FLAG_HOLD : 0) | (ballotNumber > 0 ? FLAG_WAITLISTED : 0));
+                writeString(out, applicant.getUnitNumber());
+                if (holdDeadline >= 0) out.writeLong(holdDeadline);
+                if (ballotNumber > 0) writeVarInt(out, ballotNumber);
+            }
+
+            // Enquiries and replies
+            List<Enquiry> enquiries = (enquiryService != null) ? enquiryService.getAllEnquiries() : new ArrayList<>();
+            writeVarInt(out, enquiries.size());
+            for (Enquiry enquiry : enquiries) {
+                writeVarInt(out, enquiry.getId());
+                writeRef(out, userIndex, enquiry.getApplicantNRIC());
+                writeRef(out, projectIndex, enquiry.getProject());
+                writeString(out, enquiry.getContent());
+                List<Reply> replies = enquiry.getReplies();
+                writeVarInt(out, replies.size());
+                for (Reply reply : replies) {
+                    writeVarInt(out, reply.getId());
+                    writeRef(out, userIndex, reply.getResponderNRIC());
+                    writeString(out, reply.getContent());
+                }
+            }
+            out.flush();
+        });
+    }
+
+    // === Reading ===
+
+    /**
+     * Reads a snapshot, rebuilding users, projects and their links, and loads the enquiries into the service.
+     * @param filePath Snapshot path
+     * @param enquiryService Service to populate with enquiries (may be null to skip them)
+     * @return The restored users and projects
+     * @throws IOException If the file cannot be read or is not a valid snapshot
+     */
+    public static Contents read(String filePath, EnquiryService enquiryService) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(AtomicFile.openVerified(filePath), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a snapshot file: " + filePath);
+            int version = readVarInt(in);
+            if (version < 2 || version > VERSION) throw new IOException("Unsupported snapshot version " + version + " in " + filePath);
+
+            int dictionarySize = readVarInt(in);
+            String[] dictionary = new String[dictionarySize + 1]; // [0] stays null
+            for (int i = 1; i <= dictionarySize; i++) dictionary[i] = readString(in, version);
+
+            // Users
+            int userCount = readVarInt(in);
+            User[] userTable = new User[userCount];
+            Map<String, User> users = new HashMap<>();
+            for (int i = 0; i < userCount; i++) {
+                String nric = readString(in, version);
+                String name = readString(in, version);
+                int age = readVarInt(in);
+                String maritalStatus = dictionary[readVarInt(in)];
+                String role = dictionary[readVarInt(in)];
+                String passwordHash = readString(in, version);
+                String salt = readString(in, version);
+                String preferredNeighbourhood = dictionary[readVarInt(in)];
+
+                User user = DataManager.restoreUser(role != null ? role : "", name, nric, age, maritalStatus, passwordHash, salt);
+                if (user == null) throw new IOException("Invalid role '" + role + "' for NRIC " + nric + " in snapshot");
+                if (user instanceof Applicant && preferredNeighbourhood != null) {
+                    ((Applicant) user).setPreferredNeighbourhood(preferredNeighbourhood);
+                }
+                userTable[i] = user;
+                users.put(nric.toUpperCase(), user);
+            }
+
+            // Projects
+            int projectCount = readVarInt(in);
+            Project[] projectTable = new Project[projectCount];
+            Map<String, Project> projects = new HashMap<>();
+            for (int i = 0; i < projectCount; i++) {
+                String name = readString(in, version);
+                String creatorName = readString(in, version);
+                String neighbourhood = dictionary[readVarInt(in)];
+                boolean visibility = in.readByte() != 0;
+                LocalDate openDate = readDate(in, version);
+                LocalDate closeDate = readDate(in, version);
+
+                Project project = new Project(name, visibility, creatorName, neighbourhood, openDate, closeDate, 0, 0);
+                int flatTypeCount = readVarInt(in);
+                for (int t = 0; t < flatTypeCount; t++) {
+                    String typeName = dictionary[readVarInt(in)];
+                    if (typeName == null) throw new IOException("Missing flat type name for project " + name + " in snapshot");
+                    FlatType type = FlatType.register(typeName);
+                    project.setTotalUnits(creatorName, type, readVarInt(in));
+                    project.setAvailableUnits(type, readVarInt(in));
+                    project.setSellingPrice(type, readVarInt(in));
+                    if (version >= 3) {
+                        String layout = readString(in, version);
+                        if (!project.setUnitLayout(type, layout)) {
+                            throw new IOException("Invalid unit layout '" + layout + "' for project " + name + " in snapshot");
+                        }
+                    }
+                    if (version >= 5) project.setNextBallotNumber(type, readVarInt(in));
+                }
+                projectTable[i] = project;
+                projects.put(name, project);
+            }
+
+            // Officer assignments
+            int assignmentCount = readVarInt(in);
+            for (int i = 0; i < assignmentCount; i++) {
+                User user = userTable[readVarInt(in)];
+                Project project = projectTable[readVarInt(in)];
+                String status = dictionary[readVarInt(in)];
+                if (!(user instanceof Officer)) continue;
+                Officer officer = (Officer) user;
+                officer.updateProjectAssignment(project, status);
+                if ("Approved".equalsIgnoreCase(status)) {
+                    project.updateArrOfOfficers(project.getCreatorName(), officer);
+                } else {
+                    project.updateArrOfPendingOfficers(officer);
+                }
+            }
+
+            // Applications
+            int applicationCount = readVarInt(in);
+            for (int i = 0; i < applicationCount; i++) {
+                User user = userTable[readVarInt(in)];
+                Project project = projectTable[readVarInt(in)];
+                String flatType = dictionary[readVarInt(in)];
+                String appStatus = dictionary[readVarInt(in)];
+                int flags = in.readUnsignedByte();
+                String unitNumber = (version >= 3) ? readString(in, version) : null;
+                long holdDeadline = (version >= 4 && (flags & FLAG_HOLD) != 0) ? in.readLong() : -1;
+                int ballotNumber = (version >= 5 && (flags & FLAG_WAITLISTED) != 0) ? readVarInt(in) : -1;
+                if (user instanceof Applicant) {
+                    DataManager.linkApplication((Applicant) user, project, flatType, appStatus,
+                            (flags & FLAG_WITHDRAWAL) != 0, (flags & FLAG_APPLIED) != 0, unitNumber, holdDeadline, ballotNumber);
+                }
+            }
+
+            // Enquiries and replies
+            int enquiryCount = readVarInt(in);
+            Map<Integer, Enquiry> enquiries = new HashMap<>();
+            Map<Integer, Integer> replyCounters = new HashMap<>();
+            int maxEnquiryId = 0;
+            for (int i = 0; i < enquiryCount; i++) {
+                int enquiryId = readVarInt(in);
+                String submitterNric = readRef(in, userTable, version);
+                String projectName = readProjectRef(in, projectTable, version);
+                Enquiry enquiry = new Enquiry(submitterNric, readString(in, version), projectName, enquiryId);
+                int replyCount = readVarInt(in);
+                for (int r = 0; r < replyCount; r++) {
+                    int replyId = readVarInt(in);
+                    String responderNric = readRef(in, userTable, version);
+                    enquiry.addReply(new Reply(enquiry, responderNric, readString(in, version), replyId));
+                    replyCounters.merge(enquiryId, replyId, Math::max);
+                }
+                enquiries.put(enquiryId, enquiry);
+                maxEnquiryId = Math.max(maxEnquiryId, enquiryId);
+            }
+            // Reading to the end verifies the checksum footer before anything is published
+            if (in.read() != -1) throw new IOException("Unexpected data after end of snapshot: " + filePath);
+            if (enquiryService != null) {
+                Enquiry.resetIdCounter(maxEnquiryId);
+                Reply.resetIdCounters(replyCounters);
+                enquiryService.loadExistingEnquiries(enquiries);
+            }
+
+            System.out.println("Snapshot loaded: " + userCount + " users, " + projectCount + " projects, "
+                    + applicationCount + " applications, " + enquiryCount + " enquiries.");
+            return new Contents(users, projects);
+        } catch (EOFException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Snapshot file is truncated or corrupt: " + filePath, e);
+        }
+    }
+
+    // --- Encoding helpers ---
+
+    private static void intern(Map<String, Integer> dictionary, String value) {
+        if (value != null && !dictionary.containsKey(value)) {
+            dictionary.put(value, dictionary.size() + 1);
+        }
+    }
+
+    private static int code(Map<String, Integer> dictionary, String value) {
+        if (value == null) return 0;
+        Integer code = dictionary.get(value);
+        if (code == null) throw new IllegalStateException("Value missing from snapshot dictionary: " + value);
+        return code;
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint in snapshot");
+    }
+
+    // Length + 1, so 0 is left for null
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in, int version) throws IOException {
+        int length = readVarInt(in);
+        if (version >= 6) {
+            if (length == 0) return null;
+            length--;
+        }
+        if (length == 0) return "";
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Dates are zigzag-encoded so pre-1970 dates stay small too, then shifted by one so 0 is left for null
+    private static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        if (date == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+        long epochDay = date.toEpochDay();
+        writeVarInt(out, (int) ((epochDay << 1) ^ (epochDay >> 63)) + 1);
+    }
+
+    private static LocalDate readDate(DataInput in, int version) throws IOException {
+        int zigzag = readVarInt(in);
+        if (version >= 6) {
+            if (zigzag == 0) return null;
+            zigzag--;
+        }
+        return LocalDate.ofEpochDay((zigzag >>> 1) ^ -(zigzag & 1));
+    }
+
+    private static void writeRef(DataOutput out, Map<String, Integer> index, String key) throws IOException {
+        Integer position = (key != null) ? index.get(key) : null;
+        if (position != null) {
+            writeVarInt(out, position + 1);
+        } else {
+            writeVarInt(out, 0);
+            writeString(out, key);
+        }
+    }
+
+    private static String readRef(DataInput in, User[] userTable, int version) throws IOException {
+        int ref = readVarInt(in);
+        return (ref == 0) ? readString(in, version) : userTable[ref - 1].getNric();
+    }
+
+    private static String readProjectRef(DataInput in, Project[] projectTable, int version) throws IOException {
+        int ref = readVarInt(in);
+        return (ref == 0) ? readString(in, version) : projectTable[ref - 1].getName();
+    }
+}
@@ -0,0 +1,85 @@
+package data;
+
+import Actors.User;
+import Project.Project;
+import Services.EnquiryService;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binary storage backend: every table is kept in one compact binary file (store.bin, in the
+ * SnapshotCodec format) that is replaced atomically on every save. Together with the change
+ * journal in DataManager this makes a log-structured store: changes are appended to the
+ * journal and folded into a new store.bin at compaction.
+ *
+ * When store.bin does not exist yet, the CSV files in the same folder are imported once.
+ */
+public class SnapshotRepository implements Repository {
+
+    private final String dataFolder;
+    private final String storePath;
+    private long bytesWritten = 0;
+
+    /**
+     * Creates the binary backend over the given data folder.
+     * @param dataFolder Folder holding store.bin (and the CSV files to import from)
+     */
+    public SnapshotRepository(String dataFolder) {
+        this.dataFolder = dataFolder;
+        this.storePath = dataFolder + "/store.bin";
+    }
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+
+    @Override
+    public String getDataFolder() {
+        return dataFolder;
+    }
+
+    /**
+     * Loads everything from store.bin, or imports the CSV files if it does not exist yet.
+     * @param enquiryService Service to populate with enquiries and replies
+     * @return The loaded users and projects
+     * @throws IOException If the store is damaged or the import fails
+     */
+    @Override
+    public Contents load(EnquiryService enquiryService) throws IOException {
+        if (!new File(storePath).isFile()) {
+            System.out.println("No binary store found, importing CSV files from " + dataFolder + "...");
+            Contents imported = new CsvRepository(dataFolder, false).load(enquiryService);
+            // Every table is written to store.bin at the next save
+            return new Contents(imported.getUsers(), imported.getProjects(), EnumSet.allOf(ChangeRecord.Table.class));
+        }
+        SnapshotCodec.Contents contents = SnapshotCodec.read(storePath, enquiryService);
+        return new Contents(contents.getUsers(), contents.getProjects(), EnumSet.noneOf(ChangeRecord.Table.class));
+    }
+
+    /**
+     * Rewrites store.bin with every table if any table changed.
+     * @param tables Tables that changed
+     * @param users Map of all users
+     * @param projects Map of all projects
+     * @param enquiryService Service holding all enquiries
+     * @throws IOException If writing fails
+     */
+    @Override
+    public void save(Set<ChangeRecord.Table> tables, Map<String, User> users, Map<String, Project> projects,
+                     EnquiryService enquiryService) throws IOException {
+        if (tables.isEmpty()) return;
+        long bytes = SnapshotCodec.write(storePath, users, projects, enquiryService);
+        bytesWritten += bytes;
+        System.out.println("Binary store saved (" + bytes + " bytes).");
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+}
@@ -0,0 +1,154 @@
+package data;
+
+import Actors.User;
+import Project.Project;
+import Services.EnquiryService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads all application data at startup as a dependency graph of stages.
+ * Stages that do not depend on each other run at the same time:
+ *
+ *   users ----------------+
+ *   projects --> flats ---+--> officers, applications
+ *   enquiries (independent)
+ *
+ * Officers and applications only need the users and the projects (with their flat counts),
+ * and they touch different lists of each Project, so they also run side by side.
+ * Large files are additionally parsed in row chunks on a separate pool (see CsvRepository.parseInChunks),
+ * and the wall-clock time of every stage is logged.
+ */
+public class StartupLoader {
+
+    private final CsvRepository repository;
+    private final EnquiryService enquiryService;
+    private final Map<String, Long> stageTimings = new LinkedHashMap<>();
+
+    private Map<String, User> users;
+    private Map<String, Project> projects;
+
+    /**
+     * Creates a loader for the given data manager and enquiry service.
+     * @param repository CSV backend providing the load methods
+     * @param enquiryService Service to populate with enquiries
+     */
+    public StartupLoader(CsvRepository repository, EnquiryService enquiryService) {
+        this.repository = repository;
+        this.enquiryService = enquiryService;
+    }
+
+    /**
+     * Runs every load stage, in parallel where the dependencies allow, and waits for all of them.
+     * @throws IOException If any stage fails to read its file
+     */
+    public void load() throws IOException {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        // Stages block on their chunk parsing, so chunks get their own pool to avoid starving it
+        ExecutorService stagePool = Executors.newFixedThreadPool(3, namedThreads("load-stage"));
+        ExecutorService parsePool = Executors.newFixedThreadPool(threads, namedThreads("load-parse"));
+        long start = System.nanoTime();
+        try {
+            CompletableFuture<Map<String, User>> usersStage =
+                    stage("users", stagePool, () -> repository.loadUsers(parsePool));
+            CompletableFuture<Map<String, Project>> projectsStage =
+                    stage("projects", stagePool, repository::loadProjectsCore);
+            CompletableFuture<Void> enquiriesStage =
+                    stage("enquiries", stagePool, () -> { repository.loadEnquiries(enquiryService, parsePool); return null; });
+
+            CompletableFuture<Void> flatsStage = projectsStage.thenCompose(p ->
+                    stage("flats", stagePool, () -> { repository.loadProjectFlats(p); return null; }));
+
+            CompletableFuture<Void> linked = CompletableFuture.allOf(usersStage, flatsStage);
+            CompletableFuture<Void> officersStage = linked.thenCompose(v ->
+                    stage("officers", stagePool, () -> { repository.loadProjectOfficers(projectsStage.join(), usersStage.join()); return null; }));
+            CompletableFuture<Void> applicationsStage = linked.thenCompose(v ->
+                    stage("applications", stagePool, () -> { repository.loadApplications(projectsStage.join(), usersStage.join()); return null; }));
+
+            CompletableFuture.allOf(enquiriesStage, officersStage, applicationsStage).join();
+            this.users = usersStage.join();
+            this.projects = projectsStage.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException("Startup loading failed: " + cause, cause);
+        } finally {
+            stagePool.shutdown();
+            parsePool.shutdown();
+        }
+        logTimings((System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Gets the users loaded by load().
+     * @return Map of NRIC to User
+     */
+    public Map<String, User> getUsers() {
+        return users;
+    }
+
+    /**
+     * Gets the projects loaded by load().
+     * @return Map of project name to Project
+     */
+    public Map<String, Project> getProjects() {
+        return projects;
+    }
+
+    /**
+     * Gets the wall-clock time of each finished stage, in milliseconds.
+     * @return Map of stage name to duration
+     */
+    public synchronized Map<String, Long> getStageTimings() {
+        return new LinkedHashMap<>(stageTimings);
+    }
+
+    // A load step that may throw IOException
+    private interface LoadStep<T> {
+        T run() throws IOException;
+    }
+
+    private <T> CompletableFuture<T> stage(String name, ExecutorService pool, LoadStep<T> step) {
+        return CompletableFuture.supplyAsync(() -> {
+            long stageStart = System.nanoTime();
+            try {
+                return step.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                recordTiming(name, (System.nanoTime() - stageStart) / 1_000_000);
+            }
+        }, pool);
+    }
+
+    private synchronized void recordTiming(String name, long millis) {
+        stageTimings.put(name, millis);
+    }
+
+    private synchronized void logTimings(long totalMillis) {
+        System.out.println("--- Startup load timings ---");
+        for (Map.Entry<String, Long> entry : stageTimings.entrySet()) {
+            System.out.println(String.format("  %-13s %6d ms", entry.getKey(), entry.getValue()));
+        }
+        System.out.println(String.format("  %-13s %6d ms", "total", totalMillis));
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
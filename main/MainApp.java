@@ -6,14 +6,24 @@ import cli.ManagerCLI;
 import cli.OfficerCLI;
 // import cli.OfficerCLI; // Keep commented for now
 import cli.ApplicantCLI; 
+import data.CsvRepository;
 import data.DataManager;
+import data.PersistenceService;
+import data.InMemoryRepository;
+import data.LsmRepository;
+import data.Repository;
+import data.ShardedCsvRepository;
+import data.SnapshotRepository;
 import Actors.User;
 import Actors.Manager;
 import Actors.Officer;
 import Actors.Applicant;
+import Project.EligibilityPolicy;
 import Project.Project;
+import Project.ProjectCatalogue;
 import Services.EnquiryService;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.Scanner;
 
@@ -26,10 +36,24 @@ import java.util.Scanner;
 public class MainApp {
 
     private static Scanner scanner = new Scanner(System.in);
-    private static DataManager dataManager = new DataManager();
     private static EnquiryService enquiryService = new EnquiryService();
     private static Map<String, User> allUsersMap = null;
     private static Map<String, Project> allProjectsMap = null;
+    private static ProjectCatalogue projectCatalogue = null; // Owns allProjectsMap once loaded
+    // Append changes to journal.log and rewrite the CSVs only on compaction (-Dbto.journal=false to disable)
+    private static final boolean JOURNAL_MODE = Boolean.parseBoolean(System.getProperty("bto.journal", "true"));
+    // Start from the binary snapshot when it is newer than the CSVs (-Dbto.snapshot=false to always parse CSVs)
+    private static final boolean SNAPSHOT_MODE = Boolean.parseBoolean(System.getProperty("bto.snapshot", "true"));
+    // Write changes on a background thread in group commits (-Dbto.async=false to write on the CLI thread)
+    private static final boolean ASYNC_MODE = Boolean.parseBoolean(System.getProperty("bto.async", "true"));
+    private static final long COMMIT_INTERVAL_MS = Long.getLong("bto.commit.interval", 50);
+    private static final int COMMIT_BATCH_SIZE = Integer.getInteger("bto.commit.batch", 64);
+    private static PersistenceService persistenceService = null;
+    // Index enquiries at startup and read them on demand when loading from CSV (-Dbto.enquiries.lazy=false to load all)
+    private static final boolean LAZY_ENQUIRIES = Boolean.parseBoolean(System.getProperty("bto.enquiries.lazy", "true"));
+    // Storage backend: csv (default), sharded, binary, lsm or memory (-Dbto.storage=...)
+    private static final String STORAGE = System.getProperty("bto.storage", "csv");
+    private static DataManager dataManager = new DataManager(createRepository(STORAGE));
 
     /**
      * Application startup and main control loop.
@@ -57,7 +81,7 @@ public class MainApp {
                 
                 if (currentUser == null) {
                     System.out.println("Exiting BTO Management System as requested from login.");
-                    saveAllData(); 
+                    saveAllData(true); 
                     break; 
                 }
             }
@@ -82,14 +106,14 @@ public class MainApp {
                     if (passwordChanged) {
                         currentUser = null;
                         System.out.println("Saving updated user data...");
-                        saveAllData();
+                        saveAllData(false);
                         System.out.println("User data saved.");
                     }
                     break;
 
                 case 0:
                     System.out.println("Logging out...");
-                    saveAllData(); 
+                    saveAllData(false); 
                     System.out.println("Data saved.");
                     currentUser = null; 
                     System.out.println("Logged out successfully. Returning to Login screen...");
@@ -107,28 +131,33 @@ public class MainApp {
 
 
     /**
-     * Loads all necessary data using the DataManager.
+     * Loads all necessary data using the DataManager and the configured storage backend.
      * Populates allUsersMap and allProjectsMap.
      * @return true if loading was successful, false otherwise.
      */
     private static boolean loadAllData() {
         try {
-            System.out.println("Loading users...");
-            allUsersMap = dataManager.loadUsers();
-            System.out.println("Loading core projects...");
-            allProjectsMap = dataManager.loadProjectsCore();
-            System.out.println("Loading project flats...");
-            dataManager.loadProjectFlats(allProjectsMap);
-            System.out.println("Loading project officers...");
-            dataManager.loadProjectOfficers(allProjectsMap, allUsersMap);
-            System.out.println("Loading applications...");
-            dataManager.loadApplications(allProjectsMap, allUsersMap);
-            System.out.println("Loading enquiries and replies...");
-            dataManager.loadEnquiries(enquiryService); 
+            System.out.println("Loading data from " + dataManager.getRepository().getName() + " storage...");
+            if (dataManager.loadEligibilityPolicy()) {
+                System.out.println("Eligibility policy loaded (" + EligibilityPolicy.getDefault().ruleCount() + " rules).");
+            }
+            Repository.Contents contents = dataManager.load(enquiryService);
+            allUsersMap = contents.getUsers();
+            allProjectsMap = contents.getProjects();
             if (allUsersMap == null || allProjectsMap == null) {
                  System.err.println("Error: Data maps are null after loading attempt.");
                  return false;
             }
+            dataManager.trackChanges(); // Later saves only rewrite the tables that changed
+            if (JOURNAL_MODE) {
+                System.out.println("Replaying change journal...");
+                dataManager.enableJournal();
+                dataManager.replayJournal(allProjectsMap, allUsersMap, enquiryService);
+            }
+            projectCatalogue = new ProjectCatalogue(allProjectsMap); // Projects are added and removed through it from here on
+            if (ASYNC_MODE) {
+                persistenceService = dataManager.startPersistence(MainApp::writeCheckpoint, COMMIT_INTERVAL_MS, COMMIT_BATCH_SIZE);
+            }
             return true;
         } catch (Exception e) {
             System.err.println("Fatal error during data loading: " + e.getMessage());
@@ -137,27 +166,85 @@ public class MainApp {
         }
     }
 
+    /**
+     * Creates the storage backend selected with -Dbto.storage.
+     * @param storage Backend name: "csv", "sharded", "binary", "lsm" or "memory"
+     * @return The repository (CSV for unknown names)
+     */
+    private static Repository createRepository(String storage) {
+        String dataFolder = DataManager.getDefaultDataFolder();
+        switch (storage.toLowerCase()) {
+            case "binary":
+                return new SnapshotRepository(dataFolder);
+            case "lsm":
+                return new LsmRepository(dataFolder);
+            case "sharded":
+                return withLazyEnquiries(new ShardedCsvRepository(dataFolder));
+            case "memory":
+                return new InMemoryRepository(new CsvRepository(dataFolder, SNAPSHOT_MODE)); // Changes are lost at exit
+            case "csv":
+                return withLazyEnquiries(new CsvRepository(dataFolder, SNAPSHOT_MODE));
+            default:
+                System.err.println("Warning: Unknown storage '" + storage + "', using csv.");
+                return withLazyEnquiries(new CsvRepository(dataFolder, SNAPSHOT_MODE));
+        }
+    }
+
+    private static CsvRepository withLazyEnquiries(CsvRepository repository) {
+        repository.setLazyEnquiries(LAZY_ENQUIRIES);
+        return repository;
+    }
+
     /**
      * Saves all application data (Users and Projects) using the DataManager.
+     * With background persistence, changes are already being committed to the journal, so
+     * logout and password change only run a checkpoint when one is needed; exit commits the
+     * queued changes and runs the final checkpoint.
+     * @param forceCompaction true at exit, to fold all pending changes into the CSV files
      */
-    private static void saveAllData() {
+    private static void saveAllData(boolean forceCompaction) {
          if (allUsersMap == null || allProjectsMap == null) {
              System.err.println("Warning: Data maps are not initialized. Skipping save operation.");
              return;
          }
         try {
-            System.out.println("Saving users...");
-            dataManager.saveUsers(allUsersMap);
-            System.out.println("Saving all project data...");
-            dataManager.saveAllProjectData(allProjectsMap, allUsersMap);
-            System.out.println("Saving enquiries and replies...");
-            dataManager.saveEnquiries(enquiryService); 
+            if (persistenceService != null) {
+                if (forceCompaction) {
+                    persistenceService.close(true);
+                    persistenceService = null;
+                } else if (!dataManager.isJournalEnabled() || dataManager.needsCompaction()) {
+                    persistenceService.checkpoint();
+                } else {
+                    System.out.println("Changes already recorded in the change journal.");
+                }
+                return;
+            }
+            if (dataManager.isJournalEnabled() && !forceCompaction && !dataManager.needsCompaction()) {
+                System.out.println("Changes already recorded in the change journal.");
+                return;
+            }
+            writeCheckpoint();
         } catch (Exception e) {
             System.err.println("Error encountered during data saving: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
+    /**
+     * Writes all changed data to disk: compacts the journal in journal mode, otherwise
+     * saves the dirty tables through the storage backend. Always runs on the CLI thread,
+     * the only thread that changes the data it writes.
+     * @throws IOException If writing fails
+     */
+    private static void writeCheckpoint() throws IOException {
+        if (dataManager.isJournalEnabled()) {
+            System.out.println("Compacting change journal...");
+            dataManager.compact(allUsersMap, allProjectsMap, enquiryService);
+            return;
+        }
+        dataManager.saveChanges(allUsersMap, allProjectsMap, enquiryService);
+    }
+
 
     /**
      * Launches the appropriate Command Line Interface (CLI) based on the user's role.
@@ -174,7 +261,7 @@ public class MainApp {
                                                     scanner,
                                                     dataManager,
                                                     enquiryService, 
-                                                    allProjectsMap, 
+                                                    projectCatalogue, 
                                                     allUsersMap);
                         managerCLI.showManagerMenu();
                     } else { 
@@ -187,7 +274,7 @@ public class MainApp {
                                                     scanner,
                                                     dataManager,
                                                     enquiryService, 
-                                                    allProjectsMap, 
+                                                    projectCatalogue, 
                                                     allUsersMap);
                         officerCLI.showOfficerMenu();
                     } else {
@@ -200,7 +287,7 @@ public class MainApp {
                                                         scanner, 
                                                         enquiryService, 
                                                         dataManager, 
-                                                        allProjectsMap,
+                                                        projectCatalogue,
                                                         allUsersMap);
                         applicantCLI.showApplicantMenu();
                     } else { 
@@ -0,0 +1,96 @@
+package Services; // Match package of class being tested
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import Actors.Applicant;
+import Project.ApplicationState;
+import Project.FlatType;
+import Project.Project;
+
+// Tests for the seeded draw of BallotService.
+// Each test builds fresh projects with the same pending applicants and compares the
+// winners of separate runs, so the result must come from the seed alone.
+class BallotServiceTest {
+
+    private static final int PROJECTS = 6;
+    private static final int APPLICANTS = 40;
+    private static final int TWO_ROOM_UNITS = 5;
+    private static final int THREE_ROOM_UNITS = 3;
+
+    // Builds projects whose applicants are all pending, added in the given order
+    private static List<Project> newProjects(boolean reversed) {
+        List<Project> projects = new ArrayList<>();
+        for (int p = 0; p < PROJECTS; p++) {
+            Project project = new Project("Ballot Project " + p, true, "Ballot Manager", "Yishun",
+                    LocalDate.now().minusDays(1), LocalDate.now().plusDays(30), TWO_ROOM_UNITS, THREE_ROOM_UNITS);
+            List<Applicant> applicants = new ArrayList<>();
+            for (int i = 0; i < APPLICANTS; i++) {
+                Applicant applicant = new Applicant("Applicant " + i, String.format("S%02d%05dA", p, i), "password", "Married", 30);
+                applicant.setTypeFlat((i % 3 == 0) ? "3-Room" : "2-Room");
+                applicant.setAppStatus("Pending");
+                applicant.setProject(project);
+                applicants.add(applicant);
+            }
+            if (reversed) Collections.reverse(applicants);
+            for (Applicant applicant : applicants) project.updateArrOfApplicants(applicant);
+            projects.add(project);
+        }
+        return projects;
+    }
+
+    // NRICs of the Successful applicants of every project, sorted within each project
+    private static List<List<String>> winners(List<Project> projects) {
+        List<List<String>> result = new ArrayList<>();
+        for (Project project : projects) {
+            List<String> nrics = new ArrayList<>();
+            for (Applicant applicant : project.getSuccessfulApplicants()) nrics.add(applicant.getNric());
+            Collections.sort(nrics);
+            result.add(nrics);
+        }
+        return result;
+    }
+
+    @Test
+    @DisplayName("The same seed picks the same winners whatever the load order or thread count")
+    void testSameSeedSameWinners() {
+        List<Project> first = newProjects(false);
+        List<Project> second = newProjects(true);
+        new BallotService(1).run(first, 42L);
+        new BallotService(4).run(second, 42L);
+        assertEquals(winners(first), winners(second));
+    }
+
+    @Test
+    @DisplayName("A different seed picks different winners")
+    void testDifferentSeedDifferentWinners() {
+        List<Project> first = newProjects(false);
+        List<Project> second = newProjects(false);
+        new BallotService(2).run(first, 1L);
+        new BallotService(2).run(second, 2L);
+        assertNotEquals(winners(first), winners(second));
+    }
+
+    @Test
+    @DisplayName("Every pending application is decided and no more places are given than units")
+    void testPlacesFilledAndRestWaitlisted() {
+        List<Project> projects = newProjects(false);
+        AllocationReport report = new BallotService(2).run(projects, 7L);
+        int threeRoomApplicants = (APPLICANTS + 2) / 3;
+        int twoRoomApplicants = APPLICANTS - threeRoomApplicants;
+        for (Project project : projects) {
+            assertEquals(0, project.getApplicantCount(ApplicationState.PENDING));
+            assertEquals(TWO_ROOM_UNITS + THREE_ROOM_UNITS, project.getApplicantCount(ApplicationState.SUCCESSFUL));
+            assertEquals(twoRoomApplicants - TWO_ROOM_UNITS, project.getWaitlistSize(FlatType.TWO_ROOM));
+            assertEquals(threeRoomApplicants - THREE_ROOM_UNITS, project.getWaitlistSize(FlatType.THREE_ROOM));
+        }
+        assertEquals(PROJECTS * (TWO_ROOM_UNITS + THREE_ROOM_UNITS), report.getTotalSuccessful());
+        assertEquals(PROJECTS * (APPLICANTS - TWO_ROOM_UNITS - THREE_ROOM_UNITS), report.getTotalUnsuccessful());
+    }
+}
@@ -0,0 +1,142 @@
+package Project; // Match package of class being tested
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import Actors.Applicant;
+
+// Tests for the timer wheel of BookingHolds.
+// Each test installs a wheel driven by a manual clock as the shared holds, so time only
+// moves when the test moves it, and puts the default back afterwards.
+class BookingHoldsTest {
+
+    private static final long TICK = 1_000;
+    private static final long TTL = 10 * TICK;
+    private static final int WHEEL_SIZE = 16; // One lap covers the TTL
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private BookingHolds holds;
+
+    @BeforeEach
+    void setUp() {
+        holds = new BookingHolds(TTL, TICK, WHEEL_SIZE, clock::get);
+        BookingHolds.setDefault(holds);
+    }
+
+    @AfterEach
+    void tearDown() {
+        BookingHolds.setDefault(null); // Recreated from the system properties on next use
+    }
+
+    private static Project newProject(int units) {
+        return new Project("Hold Project", true, "Hold Manager", "Yishun",
+                LocalDate.now().minusDays(1), LocalDate.now().plusDays(30), units, 0);
+    }
+
+    private static Applicant newApplicant(Project project, String nric) {
+        Applicant applicant = new Applicant("Applicant " + nric, nric, "password", "Married", 30);
+        applicant.setTypeFlat("2-Room");
+        applicant.setAppStatus("Pending");
+        applicant.setProject(project);
+        project.updateArrOfApplicants(applicant);
+        return applicant;
+    }
+
+    // Makes the applicant Successful, which starts their hold
+    private static Applicant newSuccessful(Project project, String nric) {
+        Applicant applicant = newApplicant(project, nric);
+        assertTrue(project.updateSuccessfulApplicants(applicant));
+        applicant.setAppStatus("Successful");
+        return applicant;
+    }
+
+    @Test
+    @DisplayName("A hold expires once its deadline has passed, not before")
+    void testExpiresAtDeadline() {
+        Project project = newProject(1);
+        Applicant applicant = newSuccessful(project, "S0000001A");
+        assertEquals(clock.get() + TTL, holds.getDeadline(project, "S0000001A"));
+
+        clock.addAndGet(TTL - TICK);
+        assertEquals(0, holds.advance(), "Nothing is due a tick before the deadline");
+        assertEquals(1, project.getApplicantCount(ApplicationState.SUCCESSFUL));
+
+        clock.addAndGet(TICK);
+        assertTrue(holds.isPastDeadline(project, "S0000001A"));
+        assertEquals(1, holds.advance());
+        assertEquals(0, holds.size());
+        assertEquals(0, project.getApplicantCount(ApplicationState.SUCCESSFUL));
+        assertEquals(1, project.getApplicantCount(ApplicationState.UNSUCCESSFUL));
+        assertEquals("Unsuccessful", applicant.getAppStatus());
+        assertEquals(0, holds.advance(), "An expired hold is not expired again");
+    }
+
+    @Test
+    @DisplayName("A hold ended by a status change never expires")
+    void testCancelledHoldNeverExpires() {
+        Project project = newProject(1);
+        Applicant applicant = newSuccessful(project, "S0000002A");
+        project.removeApplicant(applicant);
+        assertEquals(-1, holds.getDeadline(project, "S0000002A"));
+
+        clock.addAndGet(2 * TTL);
+        assertEquals(0, holds.advance());
+    }
+
+    @Test
+    @DisplayName("An expired place goes to the first waitlisted applicant, who gets a fresh hold")
+    void testExpiryPromotesFromWaitlist() {
+        Project project = newProject(1);
+        newSuccessful(project, "S0000003A");
+        Applicant waiting = newApplicant(project, "S0000004A");
+        assertTrue(project.updateUnsuccessfulApplicants(waiting));
+        waiting.setAppStatus("Unsuccessful");
+        project.addToWaitlist(waiting);
+
+        clock.addAndGet(TTL);
+        assertEquals(1, holds.advance());
+        assertEquals("Successful", waiting.getAppStatus());
+        assertEquals(0, project.getWaitlistSize(FlatType.TWO_ROOM));
+        assertEquals(clock.get() + TTL, holds.getDeadline(project, "S0000004A"));
+        assertEquals(1, holds.size());
+    }
+
+    @Test
+    @DisplayName("After a pause of several laps every due hold expires exactly once")
+    void testLongPauseExpiresEachHoldOnce() {
+        Project project = newProject(40);
+        List<Applicant> successful = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            successful.add(newSuccessful(project, String.format("S%07dA", 100 + i)));
+            clock.addAndGet(TICK / 4); // Deadlines spread over most of a lap
+        }
+        assertEquals(40, holds.size());
+
+        clock.addAndGet(5 * WHEEL_SIZE * TICK);
+        assertEquals(40, holds.advance());
+        assertEquals(0, holds.size());
+        for (Applicant applicant : successful) assertEquals("Unsuccessful", applicant.getAppStatus());
+        assertEquals(0, holds.advance());
+    }
+
+    @Test
+    @DisplayName("A restored deadline that has already passed expires on the next tick")
+    void testRestoredPastDeadlineExpires() {
+        Project project = newProject(1);
+        Applicant applicant = newSuccessful(project, "S0000005A");
+        project.restoreHold(applicant, clock.get() - TTL);
+        assertTrue(holds.isPastDeadline(project, "S0000005A"));
+
+        clock.addAndGet(TICK);
+        assertEquals(1, holds.advance());
+        assertEquals("Unsuccessful", applicant.getAppStatus());
+    }
+}
@@ -0,0 +1,199 @@
+package Project; // Match package of class being tested
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import Actors.Applicant;
+
+// Stress tests for FlatInventory and the booking paths in Project that use it.
+// Each test starts all threads together on a latch and repeats for several rounds,
+// then checks that no unit was sold twice and none was lost.
+class FlatInventoryStressTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 50;
+
+    // Runs the task on THREADS threads released at the same moment; rethrows the first failure
+    private static void runConcurrently(ThreadTask task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < THREADS; t++) {
+            final int id = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run(id);
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+        if (!failures.isEmpty()) fail("Worker thread failed: " + failures.get(0));
+    }
+
+    private interface ThreadTask {
+        void run(int threadId) throws Exception;
+    }
+
+    @Test
+    @DisplayName("Claims racing for the last units never take more than are available")
+    void testNoOversellUnderContention() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round++) {
+            FlatInventory inventory = new FlatInventory();
+            inventory.setTotal(FlatType.TWO_ROOM, 100);
+            inventory.setAvailable(FlatType.TWO_ROOM, 100);
+            AtomicInteger claimed = new AtomicInteger();
+
+            runConcurrently(id -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (inventory.claim(FlatType.TWO_ROOM)) claimed.incrementAndGet();
+                }
+            });
+
+            assertEquals(100, claimed.get(), "Exactly the available units should be claimed");
+            assertEquals(0, inventory.getAvailable(FlatType.TWO_ROOM));
+        }
+    }
+
+    @Test
+    @DisplayName("Mixed claims and releases keep available + held equal to the total")
+    void testClaimReleaseConservesUnits() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round++) {
+            FlatInventory inventory = new FlatInventory();
+            inventory.setTotal(FlatType.THREE_ROOM, 20);
+            inventory.setAvailable(FlatType.THREE_ROOM, 20);
+            int[] held = new int[THREADS];
+            AtomicBoolean outOfRange = new AtomicBoolean();
+
+            runConcurrently(id -> {
+                Random random = new Random(id);
+                for (int i = 0; i < 5000; i++) {
+                    if (held[id] > 0 && random.nextBoolean()) {
+                        assertTrue(inventory.release(FlatType.THREE_ROOM), "Releasing a held unit must succeed");
+                        held[id]--;
+                    } else if (inventory.claim(FlatType.THREE_ROOM)) {
+                        held[id]++;
+                    }
+                    int available = inventory.getAvailable(FlatType.THREE_ROOM);
+                    if (available < 0 || available > 20) outOfRange.set(true);
+                }
+            });
+
+            int totalHeld = 0;
+            for (int h : held) totalHeld += h;
+            assertFalse(outOfRange.get(), "Available count left the range 0..total");
+            assertEquals(20, inventory.getAvailable(FlatType.THREE_ROOM) + totalHeld);
+        }
+    }
+
+    @Test
+    @DisplayName("Releases never push the available count above the total")
+    void testReleaseCappedAtTotal() throws InterruptedException {
+        FlatInventory inventory = new FlatInventory();
+        inventory.setTotal(FlatType.TWO_ROOM, 5);
+        inventory.setAvailable(FlatType.TWO_ROOM, 3);
+        AtomicInteger released = new AtomicInteger();
+
+        runConcurrently(id -> {
+            for (int i = 0; i < 100; i++) {
+                if (inventory.release(FlatType.TWO_ROOM)) released.incrementAndGet();
+            }
+        });
+
+        assertEquals(2, released.get());
+        assertEquals(5, inventory.getAvailable(FlatType.TWO_ROOM));
+    }
+
+    @Test
+    @DisplayName("A type with no units claims none, and a total below a taken unit is refused")
+    void testUnitMapBounds() {
+        assertEquals(-1, UnitMap.forTotal(0).claimNext(UnitMap.Filter.any()));
+
+        FlatInventory inventory = new FlatInventory();
+        inventory.setTotal(FlatType.TWO_ROOM, 10);
+        UnitMap units = inventory.getUnits(FlatType.TWO_ROOM);
+        assertTrue(units.claim(7));
+        assertFalse(inventory.setTotal(FlatType.TWO_ROOM, 7), "Shrinking past a taken unit must be refused");
+        assertEquals(10, inventory.getTotal(FlatType.TWO_ROOM));
+        assertEquals(8, inventory.getMinimumTotal(FlatType.TWO_ROOM));
+        assertTrue(inventory.setTotal(FlatType.TWO_ROOM, 8));
+        assertTrue(inventory.getUnits(FlatType.TWO_ROOM).isTaken(7));
+    }
+
+    @Test
+    @DisplayName("Officers booking the same applicants concurrently book each at most once and never oversell")
+    void testConcurrentBookingsInProject() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round++) {
+            int units = 30;
+            int applicantCount = 100;
+            Project project = newProject(units);
+            List<Applicant> applicants = successfulApplicants(project, applicantCount);
+
+            runConcurrently(id -> {
+                List<Applicant> order = new ArrayList<>(applicants);
+                Collections.shuffle(order, new Random(id)); // Every officer tries every applicant
+                for (Applicant applicant : order) project.updateBookedApplicants(applicant);
+            });
+
+            assertEquals(units, project.getApplicantCount(ApplicationState.BOOKED), "Every unit should be booked once");
+            assertEquals(applicantCount - units, project.getApplicantCount(ApplicationState.SUCCESSFUL));
+            assertEquals(0, project.getAvailableUnits(FlatType.TWO_ROOM));
+        }
+    }
+
+    @Test
+    @DisplayName("Bookings racing with withdrawals keep available + booked equal to the total")
+    void testBookingRacingWithdrawal() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round++) {
+            int units = 10;
+            Project project = newProject(units);
+            List<Applicant> applicants = successfulApplicants(project, 40);
+            long seed = round * 31L;
+
+            runConcurrently(id -> {
+                Random random = new Random(seed + id);
+                for (int i = 0; i < 200; i++) {
+                    Applicant applicant = applicants.get(random.nextInt(applicants.size()));
+                    if (id % 2 == 0) project.updateBookedApplicants(applicant);
+                    else project.updateWithdrawRequests(applicant);
+                }
+            });
+
+            int booked = project.getApplicantCount(ApplicationState.BOOKED);
+            assertTrue(booked <= units, "More bookings than units: " + booked);
+            assertEquals(units, project.getAvailableUnits(FlatType.TWO_ROOM) + booked);
+        }
+    }
+
+    private static Project newProject(int units) {
+        return new Project("Stress Project", true, "Stress Manager", "Yishun",
+                LocalDate.now().minusDays(1), LocalDate.now().plusDays(30), units, 0);
+    }
+
+    private static List<Applicant> successfulApplicants(Project project, int count) {
+        List<Applicant> applicants = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Applicant applicant = new Applicant("Applicant " + i, String.format("S%07dA", i), "password", "Married", 30);
+            applicant.setTypeFlat("2-Room");
+            project.updateArrOfApplicants(applicant);
+            project.updateSuccessfulApplicants(applicant);
+            applicants.add(applicant);
+        }
+        return applicants;
+    }
+}
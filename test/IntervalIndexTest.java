@@ -0,0 +1,124 @@
+package Project; // Match package of class being tested
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+// Tests for the clash queries of IntervalIndex.
+// Random puts, moves and removes are checked against a scan of every range, so the
+// AVL rebalancing and the subtree end dates are exercised as the tree changes shape.
+class IntervalIndexTest {
+
+    private static final LocalDate BASE = LocalDate.of(2026, 1, 1);
+
+    // One indexed value with the range it was last given
+    private static final class Window {
+        LocalDate start;
+        LocalDate end;
+
+        boolean overlaps(LocalDate from, LocalDate to) {
+            return !start.isAfter(to) && !end.isBefore(from);
+        }
+    }
+
+    private static LocalDate day(int offset) {
+        return BASE.plusDays(offset);
+    }
+
+    // Values overlapping the period, found by checking every one
+    private static List<Window> scan(List<Window> live, LocalDate from, LocalDate to) {
+        List<Window> result = new ArrayList<>();
+        for (Window window : live) {
+            if (window.overlaps(from, to)) result.add(window);
+        }
+        return result;
+    }
+
+    @Test
+    @DisplayName("Ranges that only touch at an end day clash; ranges a day apart do not")
+    void testInclusiveEnds() {
+        IntervalIndex<String> index = new IntervalIndex<>();
+        index.put("march", day(59), day(89));
+        assertEquals(List.of("march"), index.overlapping(day(89), day(120)));
+        assertEquals(List.of("march"), index.overlapping(day(30), day(59)));
+        assertTrue(index.overlapping(day(90), day(120)).isEmpty());
+        assertTrue(index.overlapping(day(30), day(58)).isEmpty());
+        assertEquals(List.of("march"), index.containing(day(59)));
+        assertTrue(index.containing(day(90)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Incomplete or inverted ranges are kept but never clash")
+    void testUnusableRangesNeverMatch() {
+        IntervalIndex<String> index = new IntervalIndex<>();
+        index.put("no end", day(0), null);
+        index.put("inverted", day(10), day(5));
+        index.put("valid", day(0), day(10));
+        assertEquals(3, index.size());
+        assertTrue(index.contains("no end"));
+        assertEquals(List.of("valid"), index.overlapping(day(0), day(365)));
+        assertTrue(index.overlapping(day(5), day(1)).isEmpty(), "An inverted query period matches nothing");
+        assertNull(index.firstOverlapping(day(0), null, null));
+    }
+
+    @Test
+    @DisplayName("firstOverlapping skips values the filter rejects, e.g. the project being edited")
+    void testFirstOverlappingWithFilter() {
+        IntervalIndex<String> index = new IntervalIndex<>();
+        index.put("edited", day(0), day(30));
+        index.put("other", day(20), day(40));
+        index.put("later", day(50), day(60));
+        assertEquals("edited", index.firstOverlapping(day(10), day(25), null));
+        assertEquals("other", index.firstOverlapping(day(10), day(25), value -> !value.equals("edited")));
+        assertNull(index.firstOverlapping(day(0), day(15), value -> !value.equals("edited")));
+    }
+
+    @Test
+    @DisplayName("Overlap and containment queries match a scan through random puts, moves and removes")
+    void testQueriesMatchScan() {
+        Random random = new Random(2002);
+        IntervalIndex<Window> index = new IntervalIndex<>();
+        List<Window> live = new ArrayList<>();
+        for (int step = 0; step < 2_000; step++) {
+            int action = random.nextInt(10);
+            if (action < 5 || live.isEmpty()) {
+                Window window = new Window();
+                window.start = day(random.nextInt(365));
+                window.end = window.start.plusDays(random.nextInt(60));
+                index.put(window, window.start, window.end);
+                live.add(window);
+            } else if (action < 8) {
+                Window window = live.get(random.nextInt(live.size()));
+                window.start = day(random.nextInt(365));
+                window.end = window.start.plusDays(random.nextInt(60));
+                index.put(window, window.start, window.end); // Moves it
+            } else {
+                Window window = live.remove(random.nextInt(live.size()));
+                assertTrue(index.remove(window));
+                assertFalse(index.contains(window));
+            }
+            if (step % 50 != 0) continue;
+
+            assertEquals(live.size(), index.size());
+            LocalDate from = day(random.nextInt(400) - 20);
+            LocalDate to = from.plusDays(random.nextInt(30));
+            List<Window> expected = scan(live, from, to);
+            expected.sort(Comparator.comparing((Window w) -> w.start));
+            List<Window> actual = index.overlapping(from, to);
+            assertEquals(expected.size(), actual.size(), "Overlap count at step " + step);
+            assertTrue(actual.containsAll(expected), "Overlapping values at step " + step);
+            for (int i = 1; i < actual.size(); i++) {
+                assertFalse(actual.get(i).start.isBefore(actual.get(i - 1).start), "Results should be in start-date order");
+            }
+            assertEquals(expected.isEmpty(), index.firstOverlapping(from, to, null) == null);
+            if (!expected.isEmpty()) assertEquals(expected.get(0).start, index.firstOverlapping(from, to, null).start);
+            assertEquals(scan(live, from, from).size(), index.containing(from).size(), "Containing count at step " + step);
+        }
+    }
+}
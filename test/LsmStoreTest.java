@@ -0,0 +1,133 @@
+package data; // Match package of class being tested
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+// Tests for LsmStore: reads across segments, tombstones, and the merge done by compact().
+// Each test uses a fresh temporary directory and stays below the segment count that
+// starts a background compaction, so it decides when segments are merged.
+class LsmStoreTest {
+
+    private static final int KEYS = 100; // Several sparse-index intervals per segment
+
+    private static String newDirectory() throws IOException {
+        return Files.createTempDirectory("lsm-test").toString();
+    }
+
+    private static String key(int i) {
+        return String.format("key%03d", i);
+    }
+
+    // Lists every live key and its first field, in the order forEach gives them
+    private static List<String> contents(LsmStore store) throws IOException {
+        List<String> rows = new ArrayList<>();
+        store.forEach((key, row) -> rows.add(key + "=" + row[0]));
+        return rows;
+    }
+
+    @Test
+    @DisplayName("The newest segment wins, and a tombstone hides older versions of a key")
+    void testNewestVersionWinsAcrossSegments() throws Exception {
+        LsmStore store = new LsmStore(newDirectory());
+        try {
+            for (int i = 0; i < KEYS; i++) store.put(key(i), new String[] {"v1", "x"});
+            store.commit();
+            for (int i = 0; i < KEYS; i += 2) store.put(key(i), new String[] {"v2"});
+            store.commit();
+            for (int i = 0; i < KEYS; i += 3) store.delete(key(i));
+            store.commit();
+            assertEquals(3, store.getSegmentCount());
+
+            for (int i = 0; i < KEYS; i++) {
+                String[] row = store.get(key(i));
+                if (i % 3 == 0) {
+                    assertNull(row, key(i) + " was deleted");
+                } else {
+                    assertNotNull(row, key(i) + " should be found");
+                    assertEquals((i % 2 == 0) ? "v2" : "v1", row[0]);
+                }
+            }
+            assertNull(store.get("missing"));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Uncommitted puts and deletes are read before the segments")
+    void testMemtableReadFirst() throws Exception {
+        LsmStore store = new LsmStore(newDirectory());
+        try {
+            store.put(key(1), new String[] {"old"});
+            store.put(key(2), new String[] {"kept"});
+            store.commit();
+            store.put(key(1), new String[] {"new"});
+            store.delete(key(2));
+            assertEquals("new", store.get(key(1))[0]);
+            assertNull(store.get(key(2)));
+            assertEquals(List.of(key(1) + "=new"), contents(store));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    @DisplayName("compact() merges every segment into one with the same contents")
+    void testCompactMergesSegments() throws Exception {
+        LsmStore store = new LsmStore(newDirectory());
+        try {
+            for (int round = 0; round < 3; round++) {
+                for (int i = round; i < KEYS; i += 3) store.put(key(i), new String[] {"r" + round});
+                store.delete(key(round * 3)); // Put in round 0; no later round puts it again
+                store.commit();
+            }
+            List<String> before = contents(store);
+            store.compact();
+            assertEquals(1, store.getSegmentCount(), "All segments should be merged");
+            assertEquals(before, contents(store));
+            assertEquals(KEYS - 3, before.size());
+            for (int round = 0; round < 3; round++) assertNull(store.get(key(round * 3)));
+            assertEquals("r2", store.get(key(5))[0]);
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    @DisplayName("A merged segment drops tombstones, and deleted keys stay deleted after reopening")
+    void testCompactDropsTombstones() throws Exception {
+        String directory = newDirectory();
+        LsmStore store = new LsmStore(directory);
+        try {
+            for (int i = 0; i < KEYS; i++) store.put(key(i), new String[] {"v"});
+            store.commit();
+            long start = store.getBytesWritten();
+            for (int i = 0; i < KEYS; i++) store.delete(key(i));
+            store.put(key(KEYS), new String[] {"last"});
+            store.commit();
+            long tombstones = store.getBytesWritten() - start; // KEYS tombstones and one live record
+            long before = store.getBytesWritten();
+            store.compact();
+            long merged = store.getBytesWritten() - before;
+            assertTrue(merged * 4 < tombstones, "Merged segment should hold only the live key, wrote " + merged + " bytes");
+        } finally {
+            store.close();
+        }
+
+        LsmStore reopened = new LsmStore(directory);
+        try {
+            reopened.open();
+            assertEquals(1, reopened.getSegmentCount());
+            assertEquals(List.of(key(KEYS) + "=last"), contents(reopened));
+            assertNull(reopened.get(key(0)));
+        } finally {
+            reopened.close();
+        }
+    }
+}
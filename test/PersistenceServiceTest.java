@@ -0,0 +1,79 @@
+package data; // Match package of class being tested
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+// Tests for the group commits of PersistenceService.
+// Each test journals to a fresh temporary file and polls the committed count.
+class PersistenceServiceTest {
+
+    private static final long INTERVAL_MILLIS = 200;
+    private static final int BATCH_SIZE = 100;
+
+    private static ChangeJournal newJournal() throws IOException {
+        File file = Files.createTempDirectory("journal-test").resolve("journal.log").toFile();
+        file.deleteOnExit();
+        return new ChangeJournal(file.getPath());
+    }
+
+    // Waits up to the given time for the service to commit the expected number of records
+    private static boolean committedWithin(PersistenceService service, long expected, long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        while (System.currentTimeMillis() < deadline) {
+            if (service.getCommittedCount() >= expected) return true;
+            Thread.sleep(10);
+        }
+        return service.getCommittedCount() >= expected;
+    }
+
+    @Test
+    @DisplayName("A single record is committed once the commit interval has passed")
+    void testSingleRecordCommittedWithinInterval() throws Exception {
+        ChangeJournal journal = newJournal();
+        PersistenceService service = new PersistenceService(journal, () -> { }, INTERVAL_MILLIS, BATCH_SIZE);
+        try {
+            service.onChange(ChangeRecord.structure("test"));
+            assertTrue(committedWithin(service, 1, INTERVAL_MILLIS * 5), "One record should be committed within the interval");
+            assertEquals(1, journal.readAll().size(), "The record should be in the journal file");
+        } finally {
+            service.close(false);
+            journal.close();
+        }
+    }
+
+    @Test
+    @DisplayName("A full batch is committed without waiting for the interval")
+    void testFullBatchCommittedImmediately() throws Exception {
+        ChangeJournal journal = newJournal();
+        PersistenceService service = new PersistenceService(journal, () -> { }, 60_000, BATCH_SIZE);
+        try {
+            for (int i = 0; i < BATCH_SIZE; i++) service.onChange(ChangeRecord.structure("test " + i));
+            assertTrue(committedWithin(service, BATCH_SIZE, 5_000), "A full batch should not wait for the interval");
+        } finally {
+            service.close(false);
+            journal.close();
+        }
+    }
+
+    @Test
+    @DisplayName("awaitDurable returns only after the queued records are committed")
+    void testAwaitDurableCommitsQueuedRecords() throws Exception {
+        ChangeJournal journal = newJournal();
+        PersistenceService service = new PersistenceService(journal, () -> { }, 60_000, BATCH_SIZE);
+        try {
+            service.onChange(ChangeRecord.structure("first"));
+            service.onChange(ChangeRecord.structure("second"));
+            service.awaitDurable();
+            assertEquals(2, service.getCommittedCount());
+            assertEquals(2, journal.readAll().size());
+        } finally {
+            service.close(false);
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package Project; // Match package of class being tested
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Tests for the ranking of ProjectSearchIndex.
+// Every test searches the same small set of projects, chosen so each kind of match
+// (exact name, neighbourhood, prefix, word, typo) has a rival of another kind.
+class ProjectSearchIndexTest {
+
+    private final List<Project> projects = new ArrayList<>();
+    private ProjectSearchIndex index;
+
+    private Project add(String name, String neighbourhood) {
+        Project project = new Project(name, true, "Search Manager", neighbourhood,
+                LocalDate.of(2026, 1, 1), LocalDate.of(2026, 2, 1), 1, 1);
+        projects.add(project);
+        return project;
+    }
+
+    @BeforeEach
+    void setUp() {
+        add("Acacia Breeze", "Yishun");
+        add("Acacia", "Bedok");
+        add("Yishun Heights", "Tampines");
+        add("Orchid Grove", "Yishun");
+        add("Meadowbrook", "Jurong");
+        add("Meadowbrink", "Jurong");
+        index = ProjectSearchIndex.of(projects);
+    }
+
+    // Names of the results, best first
+    private List<String> names(String query) {
+        List<String> result = new ArrayList<>();
+        for (ProjectSearchIndex.Hit hit : index.search(query, 10)) result.add(hit.getProject().getName());
+        return result;
+    }
+
+    @Test
+    @DisplayName("An exact name ranks above a longer name starting with it")
+    void testExactNameFirst() {
+        assertEquals(List.of("Acacia", "Acacia Breeze"), names("acacia"));
+        assertEquals("Acacia", names("  ACACIA ").get(0), "Case and spacing are ignored");
+    }
+
+    @Test
+    @DisplayName("An exact neighbourhood ranks above a name prefix, and ties go by name")
+    void testNeighbourhoodAboveNamePrefix() {
+        assertEquals(List.of("Acacia Breeze", "Orchid Grove", "Yishun Heights"), names("yishun"));
+    }
+
+    @Test
+    @DisplayName("Typos are matched, fewer edits first, below any prefix match")
+    void testTypoMatchesByEdits() {
+        assertEquals(List.of("Acacia", "Acacia Breeze"), names("acaica"), "A swapped pair is one edit");
+        List<ProjectSearchIndex.Hit> hits = index.search("meadowbrok", 10);
+        assertEquals(2, hits.size());
+        assertEquals("Meadowbrook", hits.get(0).getProject().getName());
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore(), "One edit should beat two");
+        assertTrue(index.search("acacia", 10).get(1).getScore() > hits.get(0).getScore(), "A prefix should beat a typo");
+    }
+
+    @Test
+    @DisplayName("Words in any order match, just below the same words as one phrase")
+    void testWordsInAnyOrder() {
+        List<ProjectSearchIndex.Hit> phrase = index.search("acacia breeze", 10);
+        List<ProjectSearchIndex.Hit> words = index.search("breeze acacia", 10);
+        assertEquals("Acacia Breeze", phrase.get(0).getProject().getName());
+        assertEquals(1, words.size());
+        assertEquals("Acacia Breeze", words.get(0).getProject().getName());
+        assertTrue(words.get(0).getScore() < phrase.get(0).getScore());
+    }
+
+    @Test
+    @DisplayName("Only the best results asked for are returned, among the projects the filter accepts")
+    void testLimitAndFilter() {
+        assertEquals(1, index.search("yishun", 1).size());
+        assertEquals("Acacia Breeze", index.search("yishun", 1).get(0).getProject().getName());
+        List<ProjectSearchIndex.Hit> filtered = index.search("yishun", 10, project -> !project.getName().startsWith("Acacia"));
+        assertEquals("Orchid Grove", filtered.get(0).getProject().getName());
+        assertEquals(2, filtered.size());
+    }
+
+    @Test
+    @DisplayName("After a rename, put finds the project by its new name and no longer by its old one")
+    void testRenameReindexes() {
+        Project renamed = projects.get(3);
+        renamed.setName("Search Manager", "Lotus Court");
+        index.put(renamed);
+        assertSame(renamed, index.resolve("Lotus Court"));
+        assertNull(index.resolve("Orchid Grove"));
+        assertFalse(names("orchid").contains("Lotus Court"));
+        assertEquals(projects.size(), index.size());
+    }
+}